@@ -0,0 +1,82 @@
+package com.restaurant.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss, eviction and expiration counters of one {@link LruCache}.
+ */
+public class CacheStats {
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+
+	void recordHit() {
+		hits.increment();
+	}
+
+	void recordMiss() {
+		misses.increment();
+	}
+
+	void recordEviction() {
+		evictions.increment();
+	}
+
+	void recordExpiration() {
+		expirations.increment();
+	}
+
+	/**
+     * Returns the number of lookups served from the cache.
+     *
+     * @return the hit count.
+     */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+     * Returns the number of lookups that found no live entry, including expired ones.
+     *
+     * @return the miss count.
+     */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+     * Returns the number of entries removed to keep the cache within its size.
+     *
+     * @return the eviction count.
+     */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+     * Returns the number of entries dropped because they outlived the time to live.
+     *
+     * @return the expiration count.
+     */
+	public long getExpirations() {
+		return expirations.sum();
+	}
+
+	/**
+     * Returns the share of lookups served from the cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 if nothing was looked up yet.
+     */
+	public double getHitRatio() {
+		long hitCount = getHits();
+		long total = hitCount + getMisses();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats[hits=" + getHits() + ", misses=" + getMisses()
+				+ ", evictions=" + getEvictions() + ", expirations=" + getExpirations() + "]";
+	}
+}
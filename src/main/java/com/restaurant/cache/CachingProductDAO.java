@@ -0,0 +1,313 @@
+package com.restaurant.cache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.restaurant.concurrent.BatchLoader;
+import com.restaurant.concurrent.BatchStats;
+import com.restaurant.concurrent.CoalescingStats;
+import com.restaurant.concurrent.SingleFlight;
+import com.restaurant.dao.impl.ProductDAO;
+import com.restaurant.database.DatabaseConfig;
+import com.restaurant.database.DatabaseConnection;
+import com.restaurant.database.UnitOfWork;
+import com.restaurant.entity.Product;
+import com.restaurant.entity.ProductCategory;
+
+/**
+ * {@link ProductDAO} that serves {@link #getById(Integer)} and {@link #getByIds(Collection)} from a read-through
+ * {@link LruCache}.
+ * <p>
+ * Saving or deleting products through this DAO removes them from the cache at once and, inside a
+ * {@link UnitOfWork}, again after the commit, so that a read racing with the transaction cannot cache
+ * the old row. The category of a cached product is resolved from the reference data registry on every
+ * read, so category changes show up at once; a product whose category is gone is read from the database.
+ * Other changes made outside this DAO show up once the entry expires.
+ * Callers get their own copy of a cached product and may modify it.
+ * <p>
+ * Concurrent cache misses for the same product, and concurrent calls to {@link #getAll()}, are coalesced
+ * into one query whose result every caller gets a copy of. Reads inside a write transaction are never
+ * coalesced, since they must see the transaction's own changes.
+ * <p>
+ * If {@code dao.id-batch-window-micros} is set, cache misses for different products that arrive within that
+ * window are loaded together with one {@code id = ANY(?)} query of up to {@code dao.id-batch-max-size} IDs.
+ */
+public class CachingProductDAO extends ProductDAO {
+	private static final String ALL_PRODUCTS = "all";
+	
+	private volatile LruCache<Integer, Product> cache;
+	private volatile BatchLoader<Integer, Product> batcher;
+	private final CoalescingStats coalescingStats = new CoalescingStats();
+	private final SingleFlight<Integer, Optional<Product>> byIdFlights = new SingleFlight<>(coalescingStats);
+	private final SingleFlight<String, List<Product>> allFlights = new SingleFlight<>(coalescingStats);
+	
+	/**
+     * Creates a DAO whose cache is sized from the {@code cache} section of the configuration on first use.
+     */
+	public CachingProductDAO() {
+		super();
+	}
+	
+	public CachingProductDAO(LruCache<Integer, Product> cache) {
+		super();
+		this.cache = cache;
+	}
+	
+	public CachingProductDAO(Connection connection, LruCache<Integer, Product> cache) {
+		super(connection);
+		this.cache = cache;
+	}
+	
+	/**
+     * Returns the cache, creating it and the ID batcher from the configuration on first use.
+     *
+     * @return the product cache.
+     */
+	private LruCache<Integer, Product> getCache() {
+		LruCache<Integer, Product> current = cache;
+		if(current == null) {
+			synchronized(this) {
+				current = cache;
+				if(current == null) {
+					DatabaseConfig config = DatabaseConnection.getInstance().getConfig();
+					current = new LruCache<>(config.getProductCacheSize(), config.getProductCacheTtlMillis());
+					if(config.getIdBatchWindowMicros() > 0) {
+						batcher = new BatchLoader<>(this::loadBatch, config.getIdBatchWindowMicros(), 
+								config.getIdBatchMaxSize());
+					}
+					cache = current;
+				}
+			}
+		}
+		return current;
+	}
+	
+	/**
+     * Returns the counters of the product cache.
+     *
+     * @return the cache statistics.
+     */
+	public CacheStats getCacheStats() {
+		return getCache().getStats();
+	}
+	
+	/**
+     * Returns the counters of the coalesced {@link #getById(Integer)} and {@link #getAll()} loads.
+     *
+     * @return the coalescing statistics.
+     */
+	public CoalescingStats getCoalescingStats() {
+		return coalescingStats;
+	}
+	
+	/**
+     * Returns the counters of the batched ID lookups.
+     *
+     * @return the batch statistics, or empty if batching is not configured.
+     */
+	public Optional<BatchStats> getBatchStats() {
+		getCache();
+		return Optional.ofNullable(batcher).map(BatchLoader::getStats);
+	}
+	
+	@Override
+	public Optional<Product> getById(Integer productId) throws SQLException {
+		LruCache<Integer, Product> products = getCache();
+		Product cached = products.get(productId);
+		if(cached != null) {
+			Optional<ProductCategory> category = getReferenceData()
+					.findCategory(cached.getProductCategory().getId(), this::getConnection);
+			if(category.isPresent()) {
+				return Optional.of(copyOf(cached, category.get()));
+			}
+			products.invalidate(productId);
+		}
+		if(inWriteTransaction()) {
+			return load(productId);
+		}
+		return byIdFlights.execute(productId, () -> load(productId))
+				.map(loaded -> copyOf(loaded, loaded.getProductCategory()));
+	}
+	
+	/**
+     * Loads a product from the database and caches it.
+     *
+     * @param productId the ID of the product.
+     * @return the product, or empty if it does not exist.
+     * @throws SQLException if a database access error occurs.
+     */
+	private Optional<Product> load(Integer productId) throws SQLException {
+		LruCache<Integer, Product> products = getCache();
+		BatchLoader<Integer, Product> idBatcher = batcher;
+		if(idBatcher != null && !inWriteTransaction()) {
+			return Optional.ofNullable(idBatcher.load(productId));
+		}
+		long generation = products.generation();
+		Optional<Product> product = super.getById(productId);
+		product.ifPresent(loaded -> products.putIfGeneration(productId, 
+				copyOf(loaded, loaded.getProductCategory()), generation));
+		return product;
+	}
+	
+	/**
+     * Loads one batch of products from the database with one query and caches them.
+     *
+     * @param productIds the IDs of the products.
+     * @return the products that exist, by ID.
+     * @throws SQLException if a database access error occurs.
+     */
+	private Map<Integer, Product> loadBatch(Collection<Integer> productIds) throws SQLException {
+		LruCache<Integer, Product> products = getCache();
+		long generation = products.generation();
+		Map<Integer, Product> loaded = new HashMap<>();
+		for(Product product : super.getByIds(productIds)) {
+			products.putIfGeneration(product.getId(), copyOf(product, product.getProductCategory()), generation);
+			loaded.put(product.getId(), product);
+		}
+		return loaded;
+	}
+	
+	/**
+     * Loads all products, sharing one query with concurrent callers outside write transactions.
+     *
+     * @return a list of all products, the caller's own copy.
+     * @throws SQLException if a database access error occurs.
+     */
+	@Override
+	public List<Product> getAll() throws SQLException {
+		if(inWriteTransaction()) {
+			return super.getAll();
+		}
+		List<Product> all = allFlights.execute(ALL_PRODUCTS, super::getAll);
+		List<Product> copies = new ArrayList<>(all.size());
+		for(Product product : all) {
+			copies.add(copyOf(product, product.getProductCategory()));
+		}
+		return copies;
+	}
+	
+	/**
+     * Serves the cached products from the cache and loads the others in one query, caching them.
+     *
+     * @param productIds the IDs of the products.
+     * @return the products that exist, ordered by ID.
+     * @throws SQLException if a database access error occurs.
+     */
+	@Override
+	public List<Product> getByIds(Collection<Integer> productIds) throws SQLException {
+		LruCache<Integer, Product> products = getCache();
+		List<Product> found = new ArrayList<>();
+		List<Integer> missing = new ArrayList<>();
+		for(Integer productId : productIds) {
+			Product cached = products.get(productId);
+			Optional<ProductCategory> category = cached == null ? Optional.empty() : getReferenceData()
+					.findCategory(cached.getProductCategory().getId(), this::getConnection);
+			if(category.isPresent()) {
+				found.add(copyOf(cached, category.get()));
+				continue;
+			}
+			if(cached != null) {
+				products.invalidate(productId);
+			}
+			missing.add(productId);
+		}
+		if(!missing.isEmpty()) {
+			long generation = products.generation();
+			for(Product loaded : super.getByIds(missing)) {
+				products.putIfGeneration(loaded.getId(), copyOf(loaded, loaded.getProductCategory()), generation);
+				found.add(loaded);
+			}
+		}
+		found.sort(Comparator.comparingInt(Product::getId));
+		return found;
+	}
+	
+	@Override
+	public Product save(Product product) throws SQLException {
+		Product saved = super.save(product);
+		invalidate(saved.getId());
+		return saved;
+	}
+	
+	@Override
+	public List<Product> saveAll(Collection<Product> products) throws SQLException {
+		List<Product> saved = super.saveAll(products);
+		saved.forEach(product -> invalidate(product.getId()));
+		return saved;
+	}
+	
+	@Override
+	public void delete(Integer productId, long expectedVersion) throws SQLException {
+		try {
+			super.delete(productId, expectedVersion);
+		} finally {
+			invalidate(productId);
+		}
+	}
+	
+	@Override
+	public void deleteAll(Collection<Integer> productIds) throws SQLException {
+		try {
+			super.deleteAll(productIds);
+		} finally {
+			productIds.forEach(this::invalidate);
+		}
+	}
+	
+	/**
+     * Removes a product from the cache now and, if a unit of work is active, once more after it commits.
+     *
+     * @param productId the ID of the changed product.
+     */
+	private void invalidate(Integer productId) {
+		LruCache<Integer, Product> products = getCache();
+		forget(products, productId);
+		UnitOfWork.current().ifPresent(unitOfWork -> unitOfWork.afterCommit(() -> forget(products, productId)));
+	}
+	
+	/**
+     * Removes a product from the cache and detaches the loads in flight that may have read its old row.
+     *
+     * @param products the product cache.
+     * @param productId the ID of the changed product.
+     */
+	private void forget(LruCache<Integer, Product> products, Integer productId) {
+		products.invalidate(productId);
+		byIdFlights.forget(productId);
+		allFlights.forget(ALL_PRODUCTS);
+	}
+	
+	/**
+     * Returns whether the current thread is in a unit of work that may write, whose reads must not be shared.
+     *
+     * @return true inside a write transaction.
+     */
+	private static boolean inWriteTransaction() {
+		return UnitOfWork.current().map(unitOfWork -> !unitOfWork.isReadOnly()).orElse(false);
+	}
+	
+	/**
+     * Copies a product with a copy of the given category, so that cached entries are never shared with callers.
+     *
+     * @param product the product to copy.
+     * @param category the category of the product.
+     * @return the copy.
+     */
+	private static Product copyOf(Product product, ProductCategory category) {
+		return new Product(
+				product.getId(),
+				product.getName(),
+				product.getPrice(),
+				product.getQuantity(),
+				product.isAvailable(),
+				new ProductCategory(category.getId(), category.getName(), category.getType(), null, category.getVersion()),
+				product.getVersion());
+	}
+}
@@ -0,0 +1,162 @@
+package com.restaurant.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe, size-bounded cache with least-recently-used eviction and a time to live per entry.
+ * <p>
+ * Loads happen outside the cache, so a value read from the database may already be outdated when it
+ * is stored. To keep such values out, a loader takes the {@link #generation()} before reading and stores
+ * the value with {@link #putIfGeneration(Object, Object, long)}; any invalidation in between makes the
+ * store a no-op. A cache with a maximum size of 0 stores nothing.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LruCache<K, V> {
+	private final int maxSize;
+	private final long ttlMillis;
+	private final LongSupplier clock;
+	private final CacheStats stats = new CacheStats();
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long generation;
+
+	/**
+     * Creates a cache that reads the time from the system clock.
+     *
+     * @param maxSize the maximum number of entries, 0 to disable the cache.
+     * @param ttlMillis how long an entry stays valid after it is stored.
+     */
+	public LruCache(int maxSize, long ttlMillis) {
+		this(maxSize, ttlMillis, System::currentTimeMillis);
+	}
+
+	/**
+     * Creates a cache with the given clock.
+     *
+     * @param maxSize the maximum number of entries, 0 to disable the cache.
+     * @param ttlMillis how long an entry stays valid after it is stored.
+     * @param clock supplies the current time in milliseconds.
+     */
+	public LruCache(int maxSize, long ttlMillis, LongSupplier clock) {
+		if(maxSize < 0 || ttlMillis < 1) {
+			throw new IllegalArgumentException("Invalid cache settings: max-size=" + maxSize 
+					+ ", ttl-millis=" + ttlMillis);
+		}
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+		this.clock = clock;
+	}
+
+	/**
+     * Returns the live value for a key and marks it as recently used.
+     *
+     * @param key the key.
+     * @return the cached value, or null if there is none or it has expired.
+     */
+	public synchronized V get(K key) {
+		Entry<V> entry = entries.get(key);
+		if(entry == null) {
+			stats.recordMiss();
+			return null;
+		}
+		if(entry.expiresAt <= clock.getAsLong()) {
+			entries.remove(key);
+			stats.recordExpiration();
+			stats.recordMiss();
+			return null;
+		}
+		stats.recordHit();
+		return entry.value;
+	}
+
+	/**
+     * Returns the current generation; it changes with every invalidation.
+     *
+     * @return the generation to pass to {@link #putIfGeneration(Object, Object, long)}.
+     */
+	public synchronized long generation() {
+		return generation;
+	}
+
+	/**
+     * Stores a value unless the cache has been invalidated since the given generation was read.
+     *
+     * @param key the key.
+     * @param value the value.
+     * @param expectedGeneration the generation read before the value was loaded.
+     * @return true if the value was stored.
+     */
+	public synchronized boolean putIfGeneration(K key, V value, long expectedGeneration) {
+		if(expectedGeneration != generation || maxSize == 0) {
+			return false;
+		}
+		entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMillis));
+		evictOverflow();
+		return true;
+	}
+
+	/**
+     * Removes the least recently used entries while the cache is over its size.
+     */
+	private void evictOverflow() {
+		Iterator<Map.Entry<K, Entry<V>>> eldestFirst = entries.entrySet().iterator();
+		while(entries.size() > maxSize && eldestFirst.hasNext()) {
+			eldestFirst.next();
+			eldestFirst.remove();
+			stats.recordEviction();
+		}
+	}
+
+	/**
+     * Removes the entry for a key.
+     *
+     * @param key the key.
+     */
+	public synchronized void invalidate(K key) {
+		generation++;
+		entries.remove(key);
+	}
+
+	/**
+     * Removes all entries.
+     */
+	public synchronized void invalidateAll() {
+		generation++;
+		entries.clear();
+	}
+
+	/**
+     * Returns the number of entries, including expired ones not yet removed.
+     *
+     * @return the number of entries.
+     */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+     * Returns the counters of this cache.
+     *
+     * @return the cache statistics.
+     */
+	public CacheStats getStats() {
+		return stats;
+	}
+
+	/**
+     * A cached value and the time it stops being valid.
+     */
+	private static final class Entry<V> {
+		private final V value;
+		private final long expiresAt;
+
+		Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.restaurant.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable, ready-to-send rendering of a menu listing: the JSON bytes, the same bytes gzip-compressed,
+ * the menu version they were built from and a strong ETag derived from the content.
+ * Because the ETag depends only on the bytes, it stays the same across restarts and instances.
+ */
+public final class MenuSnapshot {
+	private static final int ETAG_HASH_BYTES = 16;
+
+	private final long version;
+	private final String etag;
+	private final byte[] json;
+	private final byte[] gzippedJson;
+
+	private MenuSnapshot(long version, String etag, byte[] json, byte[] gzippedJson) {
+		this.version = version;
+		this.etag = etag;
+		this.json = json;
+		this.gzippedJson = gzippedJson;
+	}
+
+	/**
+     * Builds a snapshot from rendered JSON.
+     *
+     * @param version the menu version the JSON was rendered from.
+     * @param json the JSON bytes; the snapshot takes ownership of the array.
+     * @return the snapshot.
+     * @throws IOException if the JSON cannot be compressed.
+     */
+	public static MenuSnapshot of(long version, byte[] json) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+		try(GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(json);
+		}
+		return new MenuSnapshot(version, etagOf(json), json, compressed.toByteArray());
+	}
+
+	/**
+     * Computes a quoted strong ETag from a hash of the content.
+     *
+     * @param content the content.
+     * @return the ETag, including its quotes.
+     */
+	private static String etagOf(byte[] content) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+			StringBuilder etag = new StringBuilder(ETAG_HASH_BYTES * 2 + 2).append('"');
+			for(int i = 0; i < ETAG_HASH_BYTES; i++) {
+				etag.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+			}
+			return etag.append('"').toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public String getEtag() {
+		return etag;
+	}
+
+	/**
+     * Returns the JSON bytes. The array is shared and must not be modified.
+     *
+     * @return the uncompressed JSON.
+     */
+	public byte[] getJson() {
+		return json;
+	}
+
+	/**
+     * Returns the gzip-compressed JSON bytes. The array is shared and must not be modified.
+     *
+     * @return the compressed JSON.
+     */
+	public byte[] getGzippedJson() {
+		return gzippedJson;
+	}
+}
@@ -0,0 +1,73 @@
+package com.restaurant.cache;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.restaurant.database.UnitOfWork;
+
+/**
+ * Holds the current {@link MenuSnapshot} of one menu listing and rebuilds it after the menu changed.
+ * <p>
+ * All holders share one menu version, which {@link #menuChanged()} advances whenever products or
+ * categories are written. A holder serves its snapshot without locking as long as the snapshot was
+ * built from the current version; the first request after a change renders a new one.
+ */
+public class MenuSnapshotHolder {
+	private static final AtomicLong MENU_VERSION = new AtomicLong();
+
+	private final AtomicReference<MenuSnapshot> current = new AtomicReference<>();
+
+	/**
+     * Renders the JSON of a menu listing from the database.
+     */
+	@FunctionalInterface
+	public interface Renderer {
+		/**
+	     * Renders the listing.
+	     *
+	     * @return the JSON bytes.
+	     * @throws SQLException if the listing cannot be read.
+	     * @throws IOException if the listing cannot be serialized.
+	     */
+		byte[] render() throws SQLException, IOException;
+	}
+
+	/**
+     * Marks all menu snapshots as outdated. Inside a unit of work the version advances again after the
+     * commit, so that a snapshot rendered before the change became visible is not served afterwards.
+     */
+	public static void menuChanged() {
+		MENU_VERSION.incrementAndGet();
+		UnitOfWork.current().ifPresent(unitOfWork -> unitOfWork.afterCommit(MENU_VERSION::incrementAndGet));
+	}
+
+	/**
+     * Returns the snapshot for the current menu version, rendering it if needed.
+     *
+     * @param renderer renders the listing if the held snapshot is outdated.
+     * @return the current snapshot.
+     * @throws SQLException if the listing cannot be read.
+     * @throws IOException if the listing cannot be serialized.
+     */
+	public MenuSnapshot get(Renderer renderer) throws SQLException, IOException {
+		MenuSnapshot snapshot = current.get();
+		if(snapshot != null && snapshot.getVersion() == MENU_VERSION.get()) {
+			return snapshot;
+		}
+		synchronized(this) {
+			long version = MENU_VERSION.get();
+			snapshot = current.get();
+			if(snapshot != null && snapshot.getVersion() == version) {
+				return snapshot;
+			}
+			MenuSnapshot rendered = MenuSnapshot.of(version, renderer.render());
+			boolean inWriteTransaction = UnitOfWork.current().map(unitOfWork -> !unitOfWork.isReadOnly()).orElse(false);
+			if(MENU_VERSION.get() == version && !inWriteTransaction) {
+				current.set(rendered);
+			}
+			return rendered;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.restaurant.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.restaurant.entity.OrderStatus;
+import com.restaurant.entity.ProductCategory;
+
+/**
+ * Immutable snapshot of the reference tables {@code product_categories} and {@code order_status},
+ * keyed by row ID. Categories are held without their products.
+ */
+public final class ReferenceData {
+	private final Map<Integer, ProductCategory> categories;
+	private final Map<Integer, OrderStatus> statuses;
+
+	/**
+     * Creates a snapshot from the given rows.
+     *
+     * @param categories the product categories; their products are not kept.
+     * @param statuses the order statuses by the ID of their {@code order_status} row.
+     */
+	public ReferenceData(Collection<ProductCategory> categories, Map<Integer, OrderStatus> statuses) {
+		Map<Integer, ProductCategory> categoriesById = new HashMap<>();
+		for(ProductCategory category : categories) {
+			categoriesById.put(category.getId(), 
+					new ProductCategory(category.getId(), category.getName(), category.getType(), null, category.getVersion()));
+		}
+		this.categories = Map.copyOf(categoriesById);
+		this.statuses = Map.copyOf(statuses);
+	}
+
+	/**
+     * Looks up a product category.
+     *
+     * @param categoryId the category ID.
+     * @return a copy of the category without products, or empty if the snapshot has no such category.
+     */
+	public Optional<ProductCategory> findCategory(int categoryId) {
+		ProductCategory category = categories.get(categoryId);
+		if(category == null) {
+			return Optional.empty();
+		}
+		return Optional.of(new ProductCategory(category.getId(), category.getName(), category.getType(), null, 
+				category.getVersion()));
+	}
+
+	/**
+     * Looks up an order status.
+     *
+     * @param statusId the ID of the {@code order_status} row.
+     * @return the status, or empty if the snapshot has no such row.
+     */
+	public Optional<OrderStatus> findStatus(int statusId) {
+		return Optional.ofNullable(statuses.get(statusId));
+	}
+}
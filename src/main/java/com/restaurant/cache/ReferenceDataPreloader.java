@@ -0,0 +1,30 @@
+package com.restaurant.cache;
+
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.database.DatabaseConnection;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+/**
+ * Loads the shared {@link ReferenceDataRegistry} when the application starts, so that the first
+ * requests do not pay for it. If the database is not reachable yet, the registry loads on first use.
+ */
+@WebListener
+public class ReferenceDataPreloader implements ServletContextListener {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataPreloader.class);
+
+	@Override
+	public void contextInitialized(ServletContextEvent event) {
+		try {
+			ReferenceDataRegistry.getShared().refresh(() -> DatabaseConnection.getInstance().getConnection());
+		} catch (SQLException | RuntimeException e) {
+			LOGGER.warn("Failed to preload reference data, it will be loaded on first use", e);
+		}
+	}
+}
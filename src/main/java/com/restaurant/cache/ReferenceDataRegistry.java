@@ -0,0 +1,183 @@
+package com.restaurant.cache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.restaurant.database.UnitOfWork;
+import com.restaurant.database.UnitOfWork.ConnectionSource;
+import com.restaurant.entity.OrderStatus;
+import com.restaurant.entity.ProductCategory;
+import com.restaurant.queries.OrderStatusSQLQueries;
+import com.restaurant.queries.ProductCategorySQLQueries;
+
+/**
+ * In-memory registry of product categories and order statuses, so that product and order queries
+ * can select only the foreign keys and resolve them here.
+ * <p>
+ * The registry holds one {@link ReferenceData} snapshot that readers use without locking. It is loaded on
+ * first use, or up front by {@link ReferenceDataPreloader}, and replaced as a whole. Writes to the reference
+ * tables call {@link #invalidate()}; the next lookup then loads a fresh snapshot. A lookup of an unknown ID
+ * also reloads once, which picks up rows written by other instances.
+ */
+public class ReferenceDataRegistry {
+	private static final ReferenceDataRegistry SHARED = new ReferenceDataRegistry();
+	private static final Map<Connection, ReferenceDataRegistry> BY_CONNECTION = new WeakHashMap<>();
+
+	private final AtomicReference<ReferenceData> snapshot;
+	private long generation;
+
+	/**
+     * Creates an empty registry that loads its snapshot on first use.
+     */
+	public ReferenceDataRegistry() {
+		this.snapshot = new AtomicReference<>();
+	}
+
+	/**
+     * Creates a registry that starts with the given snapshot.
+     *
+     * @param initial the snapshot to serve until the registry is invalidated.
+     */
+	public ReferenceDataRegistry(ReferenceData initial) {
+		this.snapshot = new AtomicReference<>(initial);
+	}
+
+	/**
+     * Returns the registry shared by all DAOs.
+     *
+     * @return the shared registry.
+     */
+	public static ReferenceDataRegistry getShared() {
+		return SHARED;
+	}
+
+	/**
+     * Returns the registry of DAOs that were created with a dedicated connection. Such a connection may point
+     * to another database than the pool, so its DAOs share a registry with each other but not with the pool.
+     *
+     * @param connection the dedicated connection.
+     * @return the registry for that connection.
+     */
+	public static ReferenceDataRegistry forConnection(Connection connection) {
+		synchronized(BY_CONNECTION) {
+			return BY_CONNECTION.computeIfAbsent(connection, key -> new ReferenceDataRegistry());
+		}
+	}
+
+	/**
+     * Looks up a product category, reloading the snapshot once if the ID is unknown.
+     *
+     * @param categoryId the category ID.
+     * @param source supplies the connection to load the snapshot on, if needed.
+     * @return a copy of the category without products, or empty if no such category exists.
+     * @throws SQLException if the snapshot cannot be loaded.
+     */
+	public Optional<ProductCategory> findCategory(int categoryId, ConnectionSource source) throws SQLException {
+		Optional<ProductCategory> category = current(source).findCategory(categoryId);
+		return category.isPresent() ? category : refresh(source).findCategory(categoryId);
+	}
+
+	/**
+     * Looks up an order status, reloading the snapshot once if the ID is unknown.
+     *
+     * @param statusId the ID of the {@code order_status} row.
+     * @param source supplies the connection to load the snapshot on, if needed.
+     * @return the status, or empty if no such row exists.
+     * @throws SQLException if the snapshot cannot be loaded.
+     */
+	public Optional<OrderStatus> findStatus(int statusId, ConnectionSource source) throws SQLException {
+		Optional<OrderStatus> status = current(source).findStatus(statusId);
+		return status.isPresent() ? status : refresh(source).findStatus(statusId);
+	}
+
+	/**
+     * Returns the current snapshot, loading it if there is none.
+     *
+     * @param source supplies the connection to load the snapshot on, if needed.
+     * @return the snapshot.
+     * @throws SQLException if the snapshot cannot be loaded.
+     */
+	public ReferenceData current(ConnectionSource source) throws SQLException {
+		ReferenceData data = snapshot.get();
+		return data != null ? data : refresh(source);
+	}
+
+	/**
+     * Loads a new snapshot and publishes it, unless the registry was invalidated while loading or the load
+     * ran inside a writable unit of work, whose uncommitted rows must not become visible to other requests.
+     *
+     * @param source supplies the connection to load the snapshot on.
+     * @return the loaded snapshot.
+     * @throws SQLException if the snapshot cannot be loaded.
+     */
+	public ReferenceData refresh(ConnectionSource source) throws SQLException {
+		long expectedGeneration;
+		synchronized(this) {
+			expectedGeneration = generation;
+		}
+		ReferenceData loaded;
+		try(Connection conn = source.getConnection()) {
+			loaded = load(conn);
+		}
+		boolean inWriteTransaction = UnitOfWork.current().map(unitOfWork -> !unitOfWork.isReadOnly()).orElse(false);
+		synchronized(this) {
+			if(generation == expectedGeneration && !inWriteTransaction) {
+				snapshot.set(loaded);
+			}
+		}
+		return loaded;
+	}
+
+	/**
+     * Drops the snapshot so that the next lookup loads a fresh one. Inside a unit of work the snapshot is
+     * dropped again after the commit, in case another request reloaded it before the change was visible.
+     */
+	public void invalidate() {
+		drop();
+		UnitOfWork.current().ifPresent(unitOfWork -> unitOfWork.afterCommit(this::drop));
+	}
+
+	private synchronized void drop() {
+		generation++;
+		snapshot.set(null);
+	}
+
+	/**
+     * Reads both reference tables.
+     *
+     * @param conn the connection to read on.
+     * @return the snapshot of the tables.
+     * @throws SQLException if a database access error occurs.
+     */
+	private static ReferenceData load(Connection conn) throws SQLException {
+		List<ProductCategory> categories = new ArrayList<>();
+		try(PreparedStatement pstmt = conn.prepareStatement(ProductCategorySQLQueries.GET_ALL_CATEGORIES);
+				ResultSet rs = pstmt.executeQuery()) {
+			while(rs.next()) {
+				categories.add(new ProductCategory(
+						rs.getInt("category_id"),
+						rs.getString("category_name"),
+						rs.getString("category_type"),
+						null,
+						rs.getLong("category_version")));
+			}
+		}
+		Map<Integer, OrderStatus> statuses = new HashMap<>();
+		try(PreparedStatement pstmt = conn.prepareStatement(OrderStatusSQLQueries.GET_ALL_STATUS);
+				ResultSet rs = pstmt.executeQuery()) {
+			while(rs.next()) {
+				statuses.put(rs.getInt("id"), OrderStatus.valueOf(rs.getString("status_name")));
+			}
+		}
+		return new ReferenceData(categories, statuses);
+	}
+}
@@ -0,0 +1,111 @@
+package com.restaurant.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that adapts to the observed latency of the requests it admits, by additive increase
+ * and multiplicative decrease (AIMD).
+ * <p>
+ * A request that finishes within the latency threshold while the limit is at least half used raises the
+ * limit by {@code 1 / limit}, so a fully used limit grows by about one per round of requests. A request that
+ * is slower than the threshold, or that fails, multiplies the limit by the backoff ratio. The limit stays
+ * between its minimum and maximum. Requests beyond the limit are rejected at once instead of queueing on
+ * the database until their clients give up.
+ */
+public class AdaptiveLimiter {
+	private final int minLimit;
+	private final int maxLimit;
+	private final long latencyThresholdNanos;
+	private final double backoffRatio;
+	private final LongAdder rejections = new LongAdder();
+	private double limit;
+	private int inFlight;
+
+	/**
+     * Creates a limiter.
+     *
+     * @param initialLimit the limit to start with.
+     * @param minLimit the lowest the limit can go.
+     * @param maxLimit the highest the limit can go.
+     * @param latencyThresholdMillis the latency above which a request counts as a sign of overload.
+     * @param backoffPercent the percentage of the limit kept after a slow or failed request.
+     */
+	public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMillis,
+			int backoffPercent) {
+		if(minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+		}
+		if(latencyThresholdMillis < 1 || backoffPercent < 1 || backoffPercent > 99) {
+			throw new IllegalArgumentException("Latency threshold must be positive and backoff between 1 and 99 percent");
+		}
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+		this.backoffRatio = backoffPercent / 100.0;
+	}
+
+	/**
+     * Admits a request if fewer requests than the limit are in flight.
+     *
+     * @return true if the request may run; it must then call {@link #release(long, boolean)} when done.
+     */
+	public synchronized boolean tryAcquire() {
+		if(inFlight >= (int) limit) {
+			rejections.increment();
+			return false;
+		}
+		inFlight++;
+		return true;
+	}
+
+	/**
+     * Ends an admitted request and adjusts the limit to how it went.
+     *
+     * @param latencyNanos how long the request took since it was admitted.
+     * @param failed true if the request failed or timed out.
+     */
+	public synchronized void release(long latencyNanos, boolean failed) {
+		boolean busy = inFlight * 2 >= limit;
+		inFlight--;
+		if(failed || latencyNanos > latencyThresholdNanos) {
+			limit = Math.max(minLimit, limit * backoffRatio);
+		} else if(busy) {
+			limit = Math.min(maxLimit, limit + 1 / limit);
+		}
+	}
+
+	/**
+     * Returns the number of requests that may currently run at once.
+     *
+     * @return the current limit.
+     */
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+     * Returns the number of admitted requests that have not been released yet.
+     *
+     * @return the in-flight count.
+     */
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+     * Returns the number of requests rejected because the limit was reached.
+     *
+     * @return the rejection count.
+     */
+	public long getRejections() {
+		return rejections.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "AdaptiveLimiter[limit=" + getLimit() + ", inFlight=" + getInFlight()
+				+ ", rejections=" + getRejections() + "]";
+	}
+}
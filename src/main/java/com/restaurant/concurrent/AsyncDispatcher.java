@@ -0,0 +1,376 @@
+package com.restaurant.concurrent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.database.UnitOfWork;
+import com.restaurant.filters.TransactionalResponseWrapper;
+import com.restaurant.filters.UnitOfWorkFilter;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Utility class that moves the handling of a request from the container thread to a {@link DaoExecutor}.
+ * The container thread returns to its pool as soon as the work is queued. The worker runs the request in
+ * its own {@link UnitOfWork}, holding the response of a write back until it has committed as
+ * {@link UnitOfWorkFilter} does, and completes the {@link AsyncContext} when done. A request that is not done
+ * within the executor's timeout, or that finds the executor full, is answered with 503. On timeout the
+ * worker's response is detached from the real one, so that nothing it writes afterwards reaches the
+ * client, and the worker is interrupted. A worker that finishes after the timeout has its unit of work
+ * rolled back; a task that has not started by then does not run at all.
+ * <p>
+ * If the executor has adaptive limits, a request beyond the limit of its kind, read or write, is answered
+ * with 503 before any work is queued. Every admitted request reports its latency, and whether it failed,
+ * back to the limiter. Each 503 carries a Retry-After header.
+ */
+public final class AsyncDispatcher {
+	/**
+     * Seconds a client is asked to wait before retrying a request answered with 503.
+     */
+	public static final int RETRY_AFTER_SECONDS = 1;
+	
+	private static final String RETRY_AFTER_HEADER = "Retry-After";
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncDispatcher.class);
+	private static final String DISPATCHED_ATTRIBUTE = AsyncDispatcher.class.getName() + ".dispatched";
+	private static final String BEFORE_COMPLETE_ATTRIBUTE = AsyncDispatcher.class.getName() + ".beforeComplete";
+
+	private AsyncDispatcher() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+
+	/**
+     * Handles one request, such as a call to {@code HttpServlet.service}.
+     */
+	@FunctionalInterface
+	public interface RequestHandler {
+		/**
+	     * Handles the request.
+	     *
+	     * @param req the request.
+	     * @param resp the response.
+	     * @throws ServletException if a servlet-specific error occurs.
+	     * @throws IOException if an I/O error occurs.
+	     */
+		void handle(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException;
+	}
+
+	/**
+     * Work to do on the response right before an asynchronous request completes.
+     */
+	@FunctionalInterface
+	public interface CompletionCallback {
+		/**
+	     * Runs the callback.
+	     *
+	     * @throws IOException if an I/O error occurs.
+	     */
+		void run() throws IOException;
+	}
+
+	/**
+     * Runs the handler on the executor. The handler runs on the calling thread instead if there is no
+     * executor, if the request does not support asynchronous processing or if it is already asynchronous.
+     * Requests beyond the executor's adaptive limit are answered with 503 without running the handler.
+     *
+     * @param req the request.
+     * @param resp the response.
+     * @param executor the executor to run the handler on, may be null.
+     * @param handler the handler.
+     * @throws ServletException if a handler run on the calling thread fails.
+     * @throws IOException if a handler run on the calling thread fails.
+     */
+	public static void dispatch(HttpServletRequest req, HttpServletResponse resp, DaoExecutor executor,
+			RequestHandler handler) throws ServletException, IOException {
+		if(executor == null || req.isAsyncStarted()) {
+			handler.handle(req, resp);
+			return;
+		}
+		Optional<AdaptiveLimiter> limiter = executor.getLimiter(UnitOfWorkFilter.isReadOnly(req.getMethod()));
+		if(limiter.isPresent() && !limiter.get().tryAcquire()) {
+			sendUnavailable(resp, "Server is overloaded");
+			return;
+		}
+		Admission admission = new Admission(limiter.orElse(null));
+		if(!req.isAsyncSupported()) {
+			boolean failed = true;
+			try {
+				handler.handle(req, resp);
+				failed = resp.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+			} finally {
+				admission.release(failed);
+			}
+			return;
+		}
+		req.setAttribute(DISPATCHED_ATTRIBUTE, Boolean.TRUE);
+		AsyncContext asyncContext = req.startAsync(req, resp);
+		asyncContext.setTimeout(executor.getTimeoutMillis());
+		Dispatch dispatch = new Dispatch(resp);
+		asyncContext.addListener(new TimeoutListener(req, resp, asyncContext, executor.getStats(), dispatch));
+		try {
+			executor.execute(() -> handle(req, asyncContext, handler, dispatch, admission));
+		} catch (RejectedExecutionException e) {
+			admission.release(true);
+			if(dispatch.finished.compareAndSet(false, true)) {
+				sendUnavailable(resp, "Server is busy");
+				complete(req, asyncContext);
+			}
+		}
+	}
+
+	/**
+     * Registers work to do on the response before an asynchronous request completes, such as writing
+     * the end of a compressed body. The callback is ignored unless the request is dispatched afterwards.
+     *
+     * @param request the request.
+     * @param callback the callback.
+     */
+	public static void beforeComplete(ServletRequest request, CompletionCallback callback) {
+		getBeforeCompleteCallbacks(request).add(callback);
+	}
+
+	/**
+     * Returns whether the request was handed to an executor, so it completes after the filter chain returns.
+     *
+     * @param request the request.
+     * @return true if the request was dispatched.
+     */
+	public static boolean isDispatched(ServletRequest request) {
+		return Boolean.TRUE.equals(request.getAttribute(DISPATCHED_ATTRIBUTE));
+	}
+
+	/**
+     * Runs the handler on a worker thread in its own unit of work, then completes the request unless it
+     * has timed out in the meantime. The handler writes to the guarded response of the dispatch.
+     *
+     * @param req the request.
+     * @param asyncContext the asynchronous context of the request.
+     * @param handler the handler.
+     * @param dispatch the state shared with the timeout.
+     * @param admission the admission to release once the work is done.
+     */
+	private static void handle(HttpServletRequest req, AsyncContext asyncContext, RequestHandler handler,
+			Dispatch dispatch, Admission admission) {
+		if(!dispatch.start()) {
+			admission.release(true);
+			return;
+		}
+		boolean readOnly = UnitOfWorkFilter.isReadOnly(req.getMethod());
+		TransactionalResponseWrapper heldResponse = readOnly ? null : new TransactionalResponseWrapper(dispatch.response);
+		HttpServletResponse resp = readOnly ? dispatch.response : heldResponse;
+		Exception failure = null;
+		boolean claimed = false;
+		boolean committed = false;
+		UnitOfWork unitOfWork = UnitOfWork.begin(readOnly);
+		try {
+			handler.handle(req, resp);
+		} catch (ServletException | IOException | RuntimeException e) {
+			failure = e;
+		} finally {
+			dispatch.stop();
+			claimed = dispatch.finished.compareAndSet(false, true);
+			boolean success = claimed && failure == null
+					&& resp.getStatus() < HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+			committed = UnitOfWorkFilter.end(unitOfWork, success, req);
+			admission.release(!success || !committed);
+		}
+		if(!claimed) {
+			LOGGER.warn("{} {} finished after its timeout, its changes were rolled back", req.getMethod(),
+					req.getRequestURI());
+			return;
+		}
+		if(failure != null) {
+			LOGGER.error("Failed to handle {} {}", req.getMethod(), req.getRequestURI(), failure);
+			if(heldResponse != null) {
+				heldResponse.reset();
+			}
+			sendError(dispatch.response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+		} else if(heldResponse != null) {
+			try {
+				heldResponse.finish(committed);
+			} catch (IOException e) {
+				LOGGER.error("Failed to send response: " + e.getMessage(), e);
+			}
+		}
+		complete(req, asyncContext);
+	}
+
+	/**
+     * Runs the registered callbacks and completes the request.
+     *
+     * @param req the request.
+     * @param asyncContext the asynchronous context of the request.
+     */
+	private static void complete(ServletRequest req, AsyncContext asyncContext) {
+		for(CompletionCallback callback : getBeforeCompleteCallbacks(req)) {
+			try {
+				callback.run();
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Failed to finish the response", e);
+			}
+		}
+		asyncContext.complete();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<CompletionCallback> getBeforeCompleteCallbacks(ServletRequest request) {
+		List<CompletionCallback> callbacks = (List<CompletionCallback>) request.getAttribute(BEFORE_COMPLETE_ATTRIBUTE);
+		if(callbacks == null) {
+			callbacks = new ArrayList<>();
+			request.setAttribute(BEFORE_COMPLETE_ATTRIBUTE, callbacks);
+		}
+		return callbacks;
+	}
+
+	/**
+     * Sends 503 with a Retry-After header unless the response has already been committed.
+     *
+     * @param resp the response.
+     * @param errorMessage the error message to include in the response.
+     */
+	private static void sendUnavailable(HttpServletResponse resp, String errorMessage) {
+		if(!resp.isCommitted()) {
+			resp.setIntHeader(RETRY_AFTER_HEADER, RETRY_AFTER_SECONDS);
+			sendError(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, errorMessage);
+		}
+	}
+
+	/**
+     * Sends an error response with the specified status code and error message.
+     *
+     * @param resp         the HttpServletResponse object for sending the response.
+     * @param statusCode   the HTTP status code to set in the response.
+     * @param errorMessage the error message to include in the response.
+     */
+	private static void sendError(HttpServletResponse resp, int statusCode, String errorMessage) {
+		try {
+			resp.sendError(statusCode, errorMessage);
+		} catch (IOException | IllegalStateException e) {
+			LOGGER.error("Failed to send error response: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+     * A request admitted by a limiter, which reports its latency when released.
+     */
+	private static class Admission {
+		private final AdaptiveLimiter limiter;
+		private final long startNanos = System.nanoTime();
+
+		Admission(AdaptiveLimiter limiter) {
+			this.limiter = limiter;
+		}
+
+		void release(boolean failed) {
+			if(limiter != null) {
+				limiter.release(System.nanoTime() - startNanos, failed);
+			}
+		}
+	}
+
+	/**
+     * State of one dispatched request shared by its worker and its timeout: who completes the request,
+     * the response the worker writes to, and the worker thread to interrupt on timeout.
+     */
+	private static final class Dispatch {
+		private final AtomicBoolean finished = new AtomicBoolean();
+		private final GuardedResponseWrapper response;
+		private Thread worker;
+
+		Dispatch(HttpServletResponse resp) {
+			this.response = new GuardedResponseWrapper(resp);
+		}
+
+		/**
+	     * Binds the dispatch to the current worker thread.
+	     *
+	     * @return false if the request has already timed out, so the work must not run.
+	     */
+		synchronized boolean start() {
+			if(finished.get()) {
+				return false;
+			}
+			worker = Thread.currentThread();
+			return true;
+		}
+
+		/**
+	     * Unbinds the worker thread and clears an interrupt meant for this request, before the thread
+	     * goes back to the pool.
+	     */
+		synchronized void stop() {
+			worker = null;
+			Thread.interrupted();
+		}
+
+		/**
+	     * Detaches the worker from the response and interrupts it if it is still running.
+	     */
+		synchronized void cancel() {
+			response.detach();
+			if(worker != null) {
+				worker.interrupt();
+			}
+		}
+	}
+
+	/**
+     * Answers requests that time out with 503, unless the worker has already completed them.
+     */
+	private static class TimeoutListener implements AsyncListener {
+		private final HttpServletRequest req;
+		private final HttpServletResponse resp;
+		private final AsyncContext asyncContext;
+		private final ExecutorStats stats;
+		private final Dispatch dispatch;
+
+		TimeoutListener(HttpServletRequest req, HttpServletResponse resp, AsyncContext asyncContext,
+				ExecutorStats stats, Dispatch dispatch) {
+			this.req = req;
+			this.resp = resp;
+			this.asyncContext = asyncContext;
+			this.stats = stats;
+			this.dispatch = dispatch;
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			if(dispatch.finished.compareAndSet(false, true)) {
+				stats.recordTimeout();
+				dispatch.cancel();
+				sendUnavailable(resp, "Request timed out");
+				complete(req, asyncContext);
+			}
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			if(dispatch.finished.compareAndSet(false, true)) {
+				dispatch.cancel();
+				complete(req, asyncContext);
+			}
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			// nothing to release
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			// not restarted
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package com.restaurant.concurrent;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent loads of different keys into one batch query, in the manner of a DataLoader.
+ * <p>
+ * The first caller to arrive opens a batch and waits up to {@code windowMicros} for other callers to add
+ * their keys, or until the batch holds {@code maxBatchSize} keys. It then loads all keys with one call to
+ * the {@link Loader}, on its own thread and connection, and completes the future of every caller. Callers
+ * arriving once the batch is closed open the next one. Each caller therefore waits at most one window
+ * longer than the query takes.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public class BatchLoader<K, V> {
+	private final Loader<K, V> loader;
+	private final long windowNanos;
+	private final int maxBatchSize;
+	private final BatchStats stats = new BatchStats();
+	private final Object lock = new Object();
+	private Map<K, CompletableFuture<V>> openBatch;
+
+	/**
+     * Loads the values of several keys from the database at once.
+     *
+     * @param <K> the type of the keys.
+     * @param <V> the type of the values.
+     */
+	@FunctionalInterface
+	public interface Loader<K, V> {
+		/**
+	     * Loads the values of the keys.
+	     *
+	     * @param keys the distinct keys to load.
+	     * @return the values by key; keys without a value are left out.
+	     * @throws SQLException if a database access error occurs.
+	     */
+		Map<K, V> loadAll(Collection<K> keys) throws SQLException;
+	}
+
+	/**
+     * Creates a batch loader.
+     *
+     * @param loader loads the keys of one batch.
+     * @param windowMicros how long the first caller of a batch waits for other keys.
+     * @param maxBatchSize the number of keys after which a batch is loaded without waiting further.
+     */
+	public BatchLoader(Loader<K, V> loader, long windowMicros, int maxBatchSize) {
+		if(windowMicros < 0 || maxBatchSize < 1) {
+			throw new IllegalArgumentException("Window must not be negative and batch size must be positive");
+		}
+		this.loader = loader;
+		this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+     * Returns the value of the key, loaded together with the keys of concurrent callers.
+     *
+     * @param key the key.
+     * @return the value, or null if the key has none.
+     * @throws SQLException if the batch fails, or the wait for it is interrupted.
+     */
+	public V load(K key) throws SQLException {
+		Map<K, CompletableFuture<V>> batch;
+		CompletableFuture<V> result;
+		boolean opened;
+		synchronized (lock) {
+			opened = openBatch == null;
+			if(opened) {
+				openBatch = new LinkedHashMap<>();
+			}
+			batch = openBatch;
+			result = batch.computeIfAbsent(key, k -> new CompletableFuture<>());
+			if(batch.size() >= maxBatchSize) {
+				openBatch = null;
+				lock.notifyAll();
+			}
+		}
+		if(!opened) {
+			return SingleFlight.await(result);
+		}
+		awaitWindow(batch);
+		run(batch);
+		return result.join();
+	}
+
+	/**
+     * Returns the counters of this batch loader.
+     *
+     * @return the statistics.
+     */
+	public BatchStats getStats() {
+		return stats;
+	}
+
+	/**
+     * Waits until the window has passed or the batch is full, then closes the batch.
+     *
+     * @param batch the batch opened by the current thread.
+     */
+	private void awaitWindow(Map<K, CompletableFuture<V>> batch) {
+		long deadline = System.nanoTime() + windowNanos;
+		synchronized (lock) {
+			long remaining = windowNanos;
+			while(openBatch == batch && remaining > 0) {
+				try {
+					TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+				remaining = deadline - System.nanoTime();
+			}
+			if(openBatch == batch) {
+				openBatch = null;
+			}
+		}
+	}
+
+	/**
+     * Loads a closed batch and completes the future of every key. A failure completes all of them.
+     *
+     * @param batch the closed batch.
+     * @throws SQLException if the batch fails.
+     */
+	private void run(Map<K, CompletableFuture<V>> batch) throws SQLException {
+		stats.recordBatch(batch.size());
+		Map<K, V> values;
+		try {
+			values = loader.loadAll(batch.keySet());
+		} catch (SQLException | RuntimeException | Error e) {
+			batch.values().forEach(future -> future.completeExceptionally(e));
+			throw e;
+		}
+		batch.forEach((key, future) -> future.complete(values.get(key)));
+	}
+}
@@ -0,0 +1,49 @@
+package com.restaurant.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batch and key counters of one {@link BatchLoader}.
+ */
+public class BatchStats {
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder keys = new LongAdder();
+
+	void recordBatch(int size) {
+		batches.increment();
+		keys.add(size);
+	}
+
+	/**
+     * Returns the number of batch queries run.
+     *
+     * @return the batch count.
+     */
+	public long getBatches() {
+		return batches.sum();
+	}
+
+	/**
+     * Returns the number of distinct keys loaded by all batches together.
+     *
+     * @return the key count.
+     */
+	public long getKeys() {
+		return keys.sum();
+	}
+
+	/**
+     * Returns the average number of keys per batch query.
+     *
+     * @return the average batch size, or 0 if nothing was loaded yet.
+     */
+	public double getAverageBatchSize() {
+		long batchCount = getBatches();
+		return batchCount == 0 ? 0 : (double) getKeys() / batchCount;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchStats[batches=" + getBatches() + ", keys=" + getKeys() + "]";
+	}
+}
@@ -0,0 +1,53 @@
+package com.restaurant.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load and coalescing counters of one or more {@link SingleFlight}s.
+ */
+public class CoalescingStats {
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	void recordLoad() {
+		loads.increment();
+	}
+
+	void recordCoalesced() {
+		coalesced.increment();
+	}
+
+	/**
+     * Returns the number of calls that ran the load themselves.
+     *
+     * @return the load count.
+     */
+	public long getLoads() {
+		return loads.sum();
+	}
+
+	/**
+     * Returns the number of calls that shared the result of a load already in flight.
+     *
+     * @return the coalesced call count.
+     */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	/**
+     * Returns the share of calls that did not reach the database because they were coalesced.
+     *
+     * @return the coalescing ratio between 0 and 1, or 0 if nothing was loaded yet.
+     */
+	public double getCoalescedRatio() {
+		long coalescedCount = getCoalesced();
+		long total = coalescedCount + getLoads();
+		return total == 0 ? 0 : (double) coalescedCount / total;
+	}
+
+	@Override
+	public String toString() {
+		return "CoalescingStats[loads=" + getLoads() + ", coalesced=" + getCoalesced() + "]";
+	}
+}
@@ -0,0 +1,326 @@
+package com.restaurant.concurrent;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.database.DatabaseConfig;
+import com.restaurant.database.DatabaseConfigException;
+
+/**
+ * Bounded executor that runs the DAO work of asynchronous requests, so that container threads go back
+ * to the pool while queries run. In {@link ExecutionMode#PLATFORM} mode a fixed pool of worker threads takes
+ * tasks from a queue of fixed capacity. In {@link ExecutionMode#VIRTUAL} mode every task gets a virtual
+ * thread, and a semaphore lets only {@code concurrency} of them run at once, so that blocking JDBC calls
+ * never outnumber the pooled connections. In both modes work offered beyond {@code concurrency + queueSize}
+ * tasks is rejected instead of piling up, and the request is answered with 503.
+ * <p>
+ * Optionally an {@link AdaptiveLimiter} for reads and one for writes admit requests before they are queued,
+ * so that a spike of reads cannot crowd out writes such as order creation.
+ */
+public class DaoExecutor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(DaoExecutor.class);
+	private static final Object SHARED_LOCK = new Object();
+	private static DaoExecutor shared;
+
+	private final ExecutionMode mode;
+	private final int concurrency;
+	private final ExecutorService executor;
+	private final Semaphore admission;
+	private final Semaphore permits;
+	private final long timeoutMillis;
+	private final AdaptiveLimiter readLimiter;
+	private final AdaptiveLimiter writeLimiter;
+	private final ExecutorStats stats = new ExecutorStats();
+
+	/**
+     * Creates an executor with a fixed pool of platform threads.
+     *
+     * @param poolSize the number of worker threads.
+     * @param queueSize the number of tasks that may wait for a worker.
+     * @param timeoutMillis how long a request may take before it is answered with 503.
+     */
+	public DaoExecutor(int poolSize, int queueSize, long timeoutMillis) {
+		this(ExecutionMode.PLATFORM, poolSize, queueSize, timeoutMillis);
+	}
+
+	/**
+     * Creates an executor in the given mode. Virtual mode falls back to platform threads on a JDK without
+     * virtual threads.
+     *
+     * @param mode the kind of threads to run tasks on.
+     * @param concurrency the number of tasks that may run at once.
+     * @param queueSize the number of tasks that may wait to run.
+     * @param timeoutMillis how long a request may take before it is answered with 503.
+     */
+	public DaoExecutor(ExecutionMode mode, int concurrency, int queueSize, long timeoutMillis) {
+		this(mode, concurrency, queueSize, timeoutMillis, null, null);
+	}
+
+	/**
+     * Creates an executor in the given mode whose requests are admitted by adaptive limits.
+     *
+     * @param mode the kind of threads to run tasks on.
+     * @param concurrency the number of tasks that may run at once.
+     * @param queueSize the number of tasks that may wait to run.
+     * @param timeoutMillis how long a request may take before it is answered with 503.
+     * @param readLimiter the limit of read requests, or null for none.
+     * @param writeLimiter the limit of write requests, or null for none.
+     */
+	public DaoExecutor(ExecutionMode mode, int concurrency, int queueSize, long timeoutMillis,
+			AdaptiveLimiter readLimiter, AdaptiveLimiter writeLimiter) {
+		if(concurrency < 1 || queueSize < 1 || timeoutMillis < 1) {
+			throw new IllegalArgumentException("Concurrency, queue size and timeout must be positive");
+		}
+		ExecutorService virtualExecutor = mode == ExecutionMode.VIRTUAL ? newVirtualThreadExecutor() : null;
+		if(virtualExecutor != null) {
+			this.mode = ExecutionMode.VIRTUAL;
+			this.executor = virtualExecutor;
+			this.admission = new Semaphore(concurrency + queueSize);
+			this.permits = new Semaphore(concurrency, true);
+		} else {
+			this.mode = ExecutionMode.PLATFORM;
+			this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(queueSize), new WorkerThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+			this.admission = null;
+			this.permits = null;
+		}
+		this.concurrency = concurrency;
+		this.timeoutMillis = timeoutMillis;
+		this.readLimiter = readLimiter;
+		this.writeLimiter = writeLimiter;
+	}
+
+	/**
+     * Returns the executor shared by all servlets, creating it from the configuration on first use.
+     *
+     * @return the shared executor.
+     */
+	public static DaoExecutor getShared() {
+		synchronized (SHARED_LOCK) {
+			if(shared == null) {
+				DatabaseConfig config;
+				try {
+					config = DatabaseConfig.load();
+				} catch (DatabaseConfigException e) {
+					LOGGER.warn("Async settings could not be read, using the defaults", e);
+					config = new DatabaseConfig();
+				}
+				shared = create(config);
+			}
+			return shared;
+		}
+	}
+
+	/**
+     * Creates an executor from the {@code async} section of the configuration. In virtual mode the number of
+     * concurrent tasks is the maximum size of the connection pool. Virtual mode on a JDK without virtual threads
+     * falls back to the platform pool of {@code pool-size} workers. Reads and writes get limiters of their own,
+     * configured alike.
+     *
+     * @param config the configuration.
+     * @return the executor.
+     */
+	static DaoExecutor create(DatabaseConfig config) {
+		ExecutionMode mode = ExecutionMode.fromName(config.getAsyncMode()).orElseGet(() -> {
+			LOGGER.warn("Unknown async mode {}, using platform threads", config.getAsyncMode());
+			return ExecutionMode.PLATFORM;
+		});
+		if(mode == ExecutionMode.VIRTUAL && !isVirtualThreadSupported()) {
+			LOGGER.warn("Virtual threads are not available on Java {}, using {} platform threads",
+					System.getProperty("java.version"), config.getAsyncPoolSize());
+			mode = ExecutionMode.PLATFORM;
+		}
+		int concurrency = mode == ExecutionMode.VIRTUAL ? config.getPoolMaxSize() : config.getAsyncPoolSize();
+		return new DaoExecutor(mode, concurrency, config.getAsyncQueueSize(), config.getAsyncTimeoutMillis(),
+				newLimiter(config), newLimiter(config));
+	}
+
+	/**
+     * Checks whether the running JDK can start virtual threads.
+     *
+     * @return true on Java 21 or later.
+     */
+	public static boolean isVirtualThreadSupported() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+     * Shuts the shared executor down, letting running tasks finish. The next call to {@link #getShared()}
+     * creates a new one.
+     */
+	public static void shutdownShared() {
+		synchronized (SHARED_LOCK) {
+			if(shared != null) {
+				shared.shutdown();
+				shared = null;
+			}
+		}
+	}
+
+	/**
+     * Runs the task on a worker thread.
+     *
+     * @param task the task to run.
+     * @throws RejectedExecutionException if all workers are busy and the queue is full.
+     */
+	public void execute(Runnable task) {
+		if(admission != null && !admission.tryAcquire()) {
+			stats.recordRejection();
+			throw new RejectedExecutionException("Too many requests waiting for the database");
+		}
+		stats.recordQueued();
+		try {
+			executor.execute(() -> run(task));
+		} catch (RejectedExecutionException e) {
+			stats.recordDequeued();
+			stats.recordRejection();
+			if(admission != null) {
+				admission.release();
+			}
+			throw e;
+		}
+	}
+
+	/**
+     * Runs the task on the current worker, waiting for a permit first in virtual mode.
+     *
+     * @param task the task to run.
+     */
+	private void run(Runnable task) {
+		try {
+			if(permits != null) {
+				try {
+					permits.acquire();
+				} catch (InterruptedException e) {
+					stats.recordDequeued();
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			stats.recordStarted();
+			try {
+				task.run();
+			} finally {
+				stats.recordFinished();
+				if(permits != null) {
+					permits.release();
+				}
+			}
+		} finally {
+			if(admission != null) {
+				admission.release();
+			}
+		}
+	}
+
+	/**
+     * Stops accepting tasks; tasks already accepted still run.
+     */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+     * Returns the kind of threads tasks run on, which is platform if virtual threads are not available.
+     *
+     * @return the mode in effect.
+     */
+	public ExecutionMode getMode() {
+		return mode;
+	}
+
+	/**
+     * Returns the number of tasks that may run at once.
+     *
+     * @return the concurrency.
+     */
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	/**
+     * Returns the limiter that admits requests of the given kind.
+     *
+     * @param readOnly true for requests that only read.
+     * @return the limiter, or empty if such requests are not limited.
+     */
+	public Optional<AdaptiveLimiter> getLimiter(boolean readOnly) {
+		return Optional.ofNullable(readOnly ? readLimiter : writeLimiter);
+	}
+
+	/**
+     * Returns how long a request may take before it is answered with 503.
+     *
+     * @return the timeout in milliseconds.
+     */
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+     * Returns the load, rejection and timeout counters of this executor.
+     *
+     * @return the statistics.
+     */
+	public ExecutorStats getStats() {
+		return stats;
+	}
+
+	/**
+     * Creates an adaptive limiter from the {@code limiter} section of the configuration.
+     *
+     * @param config the configuration.
+     * @return the limiter.
+     */
+	private static AdaptiveLimiter newLimiter(DatabaseConfig config) {
+		return new AdaptiveLimiter(config.getLimiterInitialLimit(), config.getLimiterMinLimit(),
+				config.getLimiterMaxLimit(), config.getLimiterLatencyThresholdMillis(), config.getLimiterBackoffPercent());
+	}
+
+	/**
+     * Creates an executor that starts a virtual thread per task. The JDK method is looked up at run time,
+     * since the project is compiled for JDKs that do not have it.
+     *
+     * @return the executor, or null if the running JDK has no virtual threads.
+     */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			LOGGER.warn("Virtual threads are not available on Java {}, using platform threads",
+					System.getProperty("java.version"));
+			return null;
+		}
+	}
+
+	/**
+     * Creates daemon worker threads named dao-worker-N, so that they never keep the JVM alive.
+     */
+	private static class WorkerThreadFactory implements ThreadFactory {
+		private final AtomicInteger counter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "dao-worker-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
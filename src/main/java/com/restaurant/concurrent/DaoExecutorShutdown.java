@@ -0,0 +1,18 @@
+package com.restaurant.concurrent;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+/**
+ * Shuts the shared {@link DaoExecutor} down when the application stops, so that redeploying does not
+ * leave its worker threads behind.
+ */
+@WebListener
+public class DaoExecutorShutdown implements ServletContextListener {
+
+	@Override
+	public void contextDestroyed(ServletContextEvent event) {
+		DaoExecutor.shutdownShared();
+	}
+}
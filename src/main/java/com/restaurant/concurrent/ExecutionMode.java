@@ -0,0 +1,38 @@
+package com.restaurant.concurrent;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Kind of threads a {@link DaoExecutor} runs requests on.
+ */
+public enum ExecutionMode {
+	/**
+     * A fixed pool of platform threads with a bounded queue.
+     */
+	PLATFORM,
+	/**
+     * One virtual thread per request, with a semaphore capping how many use the database at once.
+     * Needs a JDK with virtual threads; otherwise the executor falls back to {@link #PLATFORM}, sized as
+     * the platform pool.
+     */
+	VIRTUAL;
+
+	/**
+     * Looks up a mode by its name, ignoring case.
+     *
+     * @param name the name, such as "virtual", or null or blank if none is configured.
+     * @return the mode, {@link #PLATFORM} if no name is given, or empty if no mode has this name.
+     */
+	public static Optional<ExecutionMode> fromName(String name) {
+		if(name == null || name.trim().isEmpty()) {
+			return Optional.of(PLATFORM);
+		}
+		for(ExecutionMode mode : values()) {
+			if(mode.name().equals(name.trim().toUpperCase(Locale.ROOT))) {
+				return Optional.of(mode);
+			}
+		}
+		return Optional.empty();
+	}
+}
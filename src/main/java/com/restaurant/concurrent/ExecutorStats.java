@@ -0,0 +1,91 @@
+package com.restaurant.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load, rejection and timeout counters of one {@link DaoExecutor}.
+ */
+public class ExecutorStats {
+	private final LongAdder queued = new LongAdder();
+	private final LongAdder active = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder rejections = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+
+	void recordQueued() {
+		queued.increment();
+	}
+
+	void recordDequeued() {
+		queued.decrement();
+	}
+
+	void recordStarted() {
+		queued.decrement();
+		active.increment();
+	}
+
+	void recordFinished() {
+		active.decrement();
+		completed.increment();
+	}
+
+	void recordRejection() {
+		rejections.increment();
+	}
+
+	void recordTimeout() {
+		timeouts.increment();
+	}
+
+	/**
+     * Returns the number of tasks running right now.
+     *
+     * @return the approximate number of busy workers.
+     */
+	public long getActive() {
+		return active.sum();
+	}
+
+	/**
+     * Returns the number of tasks waiting for a worker, or for database access in virtual mode.
+     *
+     * @return the approximate queue length.
+     */
+	public long getQueued() {
+		return queued.sum();
+	}
+
+	/**
+     * Returns the number of tasks that have finished, whether they succeeded or failed.
+     *
+     * @return the completed task count.
+     */
+	public long getCompleted() {
+		return completed.sum();
+	}
+
+	/**
+     * Returns the number of requests turned away because all workers were busy and the queue was full.
+     *
+     * @return the rejection count.
+     */
+	public long getRejections() {
+		return rejections.sum();
+	}
+
+	/**
+     * Returns the number of requests answered with 503 because they did not finish in time.
+     *
+     * @return the timeout count.
+     */
+	public long getTimeouts() {
+		return timeouts.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "ExecutorStats[active=" + getActive() + ", queued=" + getQueued() + ", completed=" + getCompleted()
+				+ ", rejections=" + getRejections() + ", timeouts=" + getTimeouts() + "]";
+	}
+}
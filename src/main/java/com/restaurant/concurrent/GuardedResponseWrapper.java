@@ -0,0 +1,344 @@
+package com.restaurant.concurrent;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Locale;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper handed to a worker, which the timeout detaches from the real response. Once detached,
+ * every write, header and status change of the worker is dropped, so a worker that outlives its request
+ * never touches a response the container may already have recycled. Detaching waits for a write that
+ * is in progress, so the timeout never writes to the response at the same time as the worker.
+ */
+final class GuardedResponseWrapper extends HttpServletResponseWrapper {
+	private final Object lock = new Object();
+	private boolean detached;
+	private ServletOutputStream stream;
+	private PrintWriter writer;
+
+	/**
+     * Creates the wrapper.
+     *
+     * @param response the response to guard.
+     */
+	GuardedResponseWrapper(HttpServletResponse response) {
+		super(response);
+	}
+
+	/**
+     * Detaches the wrapper from the response; from now on the worker's output goes nowhere.
+     */
+	void detach() {
+		synchronized (lock) {
+			detached = true;
+		}
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		synchronized (lock) {
+			if(stream == null) {
+				stream = new GuardedOutputStream(detached ? null : super.getOutputStream());
+			}
+			return stream;
+		}
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		synchronized (lock) {
+			if(writer == null) {
+				writer = new PrintWriter(new GuardedWriter(detached ? null : super.getWriter()));
+			}
+			return writer;
+		}
+	}
+
+	@Override
+	public void setStatus(int sc) {
+		synchronized (lock) {
+			if(!detached) {
+				super.setStatus(sc);
+			}
+		}
+	}
+
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		synchronized (lock) {
+			if(!detached) {
+				super.sendError(sc, msg);
+			}
+		}
+	}
+
+	@Override
+	public void sendError(int sc) throws IOException {
+		synchronized (lock) {
+			if(!detached) {
+				super.sendError(sc);
+			}
+		}
+	}
+
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		synchronized (lock) {
+			if(!detached) {
+				super.sendRedirect(location);
+			}
+		}
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		synchronized (lock) {
+			if(!detached) {
+				super.setHeader(name, value);
+			}
+		}
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		synchronized (lock) {
+			if(!detached) {
+				super.addHeader(name, value);
+			}
+		}
+	}
+
+	@Override
+	public void setIntHeader(String name, int value) {
+		synchronized (lock) {
+			if(!detached) {
+				super.setIntHeader(name, value);
+			}
+		}
+	}
+
+	@Override
+	public void addIntHeader(String name, int value) {
+		synchronized (lock) {
+			if(!detached) {
+				super.addIntHeader(name, value);
+			}
+		}
+	}
+
+	@Override
+	public void setDateHeader(String name, long date) {
+		synchronized (lock) {
+			if(!detached) {
+				super.setDateHeader(name, date);
+			}
+		}
+	}
+
+	@Override
+	public void addDateHeader(String name, long date) {
+		synchronized (lock) {
+			if(!detached) {
+				super.addDateHeader(name, date);
+			}
+		}
+	}
+
+	@Override
+	public void addCookie(Cookie cookie) {
+		synchronized (lock) {
+			if(!detached) {
+				super.addCookie(cookie);
+			}
+		}
+	}
+
+	@Override
+	public void setContentType(String type) {
+		synchronized (lock) {
+			if(!detached) {
+				super.setContentType(type);
+			}
+		}
+	}
+
+	@Override
+	public void setCharacterEncoding(String charset) {
+		synchronized (lock) {
+			if(!detached) {
+				super.setCharacterEncoding(charset);
+			}
+		}
+	}
+
+	@Override
+	public void setLocale(Locale locale) {
+		synchronized (lock) {
+			if(!detached) {
+				super.setLocale(locale);
+			}
+		}
+	}
+
+	@Override
+	public void setContentLength(int len) {
+		synchronized (lock) {
+			if(!detached) {
+				super.setContentLength(len);
+			}
+		}
+	}
+
+	@Override
+	public void setContentLengthLong(long len) {
+		synchronized (lock) {
+			if(!detached) {
+				super.setContentLengthLong(len);
+			}
+		}
+	}
+
+	@Override
+	public void setBufferSize(int size) {
+		synchronized (lock) {
+			if(!detached) {
+				super.setBufferSize(size);
+			}
+		}
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		synchronized (lock) {
+			if(!detached) {
+				super.flushBuffer();
+			}
+		}
+	}
+
+	@Override
+	public void resetBuffer() {
+		synchronized (lock) {
+			if(!detached) {
+				super.resetBuffer();
+			}
+		}
+	}
+
+	@Override
+	public void reset() {
+		synchronized (lock) {
+			if(!detached) {
+				super.reset();
+			}
+		}
+	}
+
+	/**
+     * Output stream that writes to the response's stream until the wrapper is detached.
+     */
+	private final class GuardedOutputStream extends ServletOutputStream {
+		private final ServletOutputStream delegate;
+
+		GuardedOutputStream(ServletOutputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			synchronized (lock) {
+				if(!detached) {
+					delegate.write(b);
+				}
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			synchronized (lock) {
+				if(!detached) {
+					delegate.write(b, off, len);
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			synchronized (lock) {
+				if(!detached) {
+					delegate.flush();
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			synchronized (lock) {
+				if(!detached) {
+					delegate.close();
+				}
+			}
+		}
+
+		@Override
+		public boolean isReady() {
+			synchronized (lock) {
+				return detached || delegate.isReady();
+			}
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			synchronized (lock) {
+				if(!detached) {
+					delegate.setWriteListener(writeListener);
+				}
+			}
+		}
+	}
+
+	/**
+     * Writer that writes to the response's writer until the wrapper is detached.
+     */
+	private final class GuardedWriter extends Writer {
+		private final Writer delegate;
+
+		GuardedWriter(Writer delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			synchronized (lock) {
+				if(!detached) {
+					delegate.write(cbuf, off, len);
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			synchronized (lock) {
+				if(!detached) {
+					delegate.flush();
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			synchronized (lock) {
+				if(!detached) {
+					delegate.close();
+				}
+			}
+		}
+	}
+}
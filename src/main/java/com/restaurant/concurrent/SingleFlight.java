@@ -0,0 +1,130 @@
+package com.restaurant.concurrent;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load, callers arriving while it
+ * is in flight wait for the same {@link CompletableFuture} and share its result or exception. Nothing is
+ * kept once the load has finished, so the next caller loads again.
+ * <p>
+ * Results are shared between threads as they are; callers that may modify them must copy them.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the results.
+ */
+public class SingleFlight<K, V> {
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final CoalescingStats stats;
+
+	/**
+     * Loads the value of one key from the database.
+     *
+     * @param <V> the type of the value.
+     */
+	@FunctionalInterface
+	public interface Loader<V> {
+		/**
+	     * Loads the value.
+	     *
+	     * @return the value.
+	     * @throws SQLException if a database access error occurs.
+	     */
+		V load() throws SQLException;
+	}
+
+	/**
+     * Creates a single flight with its own counters.
+     */
+	public SingleFlight() {
+		this(new CoalescingStats());
+	}
+
+	/**
+     * Creates a single flight that records into the given counters, which may be shared with others.
+     *
+     * @param stats the counters to record loads and coalesced calls in.
+     */
+	public SingleFlight(CoalescingStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+     * Returns the value of the key, loading it unless a load of the same key is already in flight.
+     *
+     * @param key the key.
+     * @param loader loads the value if no load is in flight.
+     * @return the loaded value, possibly shared with concurrent callers.
+     * @throws SQLException if the load fails, or the wait for it is interrupted.
+     */
+	public V execute(K key, Loader<V> loader) throws SQLException {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+		if(existing != null) {
+			stats.recordCoalesced();
+			return await(existing);
+		}
+		stats.recordLoad();
+		try {
+			V value = loader.load();
+			flight.complete(value);
+			return value;
+		} catch (SQLException | RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+
+	/**
+     * Detaches the load in flight for the key, if any, so that callers arriving from now on start a new one.
+     * Callers already waiting still get the result of the detached load.
+     *
+     * @param key the key whose data has changed.
+     */
+	public void forget(K key) {
+		inFlight.remove(key);
+	}
+
+	/**
+     * Returns the counters of this single flight.
+     *
+     * @return the statistics.
+     */
+	public CoalescingStats getStats() {
+		return stats;
+	}
+
+	/**
+     * Waits for a load started by another caller. A failure is rethrown as a new {@link SQLException}
+     * wrapping the shared one, so that each caller gets its own stack trace.
+     *
+     * @param <V> the type of the value.
+     * @param flight the load in flight.
+     * @return its value.
+     * @throws SQLException if the load failed, or the wait was interrupted.
+     */
+	static <V> V await(CompletableFuture<V> flight) throws SQLException {
+		try {
+			return flight.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a concurrent load", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof SQLException) {
+				SQLException sqlException = (SQLException) cause;
+				throw new SQLException(sqlException.getMessage(), sqlException.getSQLState(),
+						sqlException.getErrorCode(), sqlException);
+			}
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		}
+	}
+}
@@ -8,6 +8,7 @@ public class ApiPaths {
 	 public static final String PRODUCTS = "/products";
 	 public static final String PRODUCT_CATEGORIES = "/product-categories";
 	 public static final String ORDER_DETAILS = "/order-details";
+	 public static final String MENU = "/menu";
 //	 public static final String ORDER_APPROVAL = "/order-approval";//reserve
 //	 public static final String ORDER_STATUS = "/order-status";//reserve
 	 
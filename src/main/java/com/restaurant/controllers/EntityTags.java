@@ -0,0 +1,224 @@
+package com.restaurant.controllers;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import com.restaurant.dao.ProductField;
+import com.restaurant.entity.OrderDetail;
+import com.restaurant.entity.Product;
+import com.restaurant.entity.ProductCategory;
+import com.restaurant.entity.VersionedEntity;
+
+/**
+ * Utility class that derives ETags from row versions instead of hashing response bodies.
+ * <p>
+ * Row versions come from one database sequence, so every write gives its row a version greater than all
+ * versions before it. The greatest version among the rows a representation is built from changes whenever
+ * one of them is written; the number of rows and a checksum of their IDs change when a row leaves the
+ * representation without a write, for example because it was deleted.
+ * <p>
+ * Lists that can be narrowed to some fields or expanded with their products fold a checksum of the normalized
+ * field list or expansion into the ETag, since the same rows then make up different bodies.
+ */
+public class EntityTags {
+	
+	private EntityTags() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+	
+	/**
+     * Computes the ETag of a product, which includes its category.
+     *
+     * @param product the product as loaded from the database.
+     * @return the quoted ETag.
+     */
+	public static String of(Product product) {
+		Versions versions = new Versions();
+		versions.add(product);
+		return versions.toEtag();
+	}
+	
+	/**
+     * Computes the ETag of a product category, which includes its products.
+     *
+     * @param category the category as loaded from the database.
+     * @return the quoted ETag.
+     */
+	public static String of(ProductCategory category) {
+		Versions versions = new Versions();
+		versions.add(category);
+		return versions.toEtag();
+	}
+	
+	/**
+     * Computes the ETag of an order detail, which includes its products and their categories.
+     *
+     * @param order the order detail as loaded from the database.
+     * @return the quoted ETag.
+     */
+	public static String of(OrderDetail order) {
+		Versions versions = new Versions();
+		versions.add(order);
+		return versions.toEtag();
+	}
+	
+	/**
+     * Computes the ETag of a list of products.
+     *
+     * @param products the products as loaded from the database.
+     * @return the quoted ETag.
+     */
+	public static String ofProducts(Collection<Product> products) {
+		return ofProducts(products, null);
+	}
+	
+	/**
+     * Computes the ETag of a list of products narrowed to some fields.
+     *
+     * @param products the products as loaded from the database.
+     * @param fields the fields sent, or null for all of them.
+     * @return the quoted ETag.
+     */
+	public static String ofProducts(Collection<Product> products, Set<ProductField> fields) {
+		Versions versions = new Versions();
+		products.forEach(versions::add);
+		if(fields != null) {
+			versions.variant = "fields=" + new TreeSet<>(fields).stream()
+					.map(ProductField::name)
+					.collect(Collectors.joining(","));
+		}
+		return versions.toEtag();
+	}
+	
+	/**
+     * Computes the ETag of a list of product categories.
+     *
+     * @param categories the categories as loaded from the database.
+     * @return the quoted ETag.
+     */
+	public static String ofCategories(Collection<ProductCategory> categories) {
+		return ofCategories(categories, false);
+	}
+	
+	/**
+     * Computes the ETag of a list of product categories, with or without their products.
+     *
+     * @param categories the categories as loaded from the database.
+     * @param withProducts whether the list is sent with {@code expand=products}.
+     * @return the quoted ETag.
+     */
+	public static String ofCategories(Collection<ProductCategory> categories, boolean withProducts) {
+		Versions versions = new Versions();
+		categories.forEach(versions::add);
+		versions.expandProducts(withProducts);
+		return versions.toEtag();
+	}
+	
+	/**
+     * Computes the ETag of a list of order details.
+     *
+     * @param orders the order details as loaded from the database.
+     * @return the quoted ETag.
+     */
+	public static String ofOrders(Collection<OrderDetail> orders) {
+		return ofOrders(orders, false);
+	}
+	
+	/**
+     * Computes the ETag of a list of order details, with or without their products.
+     *
+     * @param orders the order details as loaded from the database.
+     * @param withProducts whether the list is sent with {@code expand=products}.
+     * @return the quoted ETag.
+     */
+	public static String ofOrders(Collection<OrderDetail> orders, boolean withProducts) {
+		Versions versions = new Versions();
+		orders.forEach(versions::add);
+		versions.expandProducts(withProducts);
+		return versions.toEtag();
+	}
+	
+	/**
+     * Accumulates the greatest version, the number of rows and the ID checksum of a representation,
+     * and the variant of the representation if it is not the default one.
+     */
+	private static final class Versions {
+		private long max;
+		private int rows;
+		private int idChecksum;
+		private String variant;
+		
+		/**
+	     * Marks the representation as expanded with the products of its entities.
+	     *
+	     * @param withProducts whether the products are expanded.
+	     */
+		private void expandProducts(boolean withProducts) {
+			if(withProducts) {
+				variant = Expansion.EXPAND_PARAM + "=" + Expansion.PRODUCTS;
+			}
+		}
+		
+		/**
+	     * Adds one row.
+	     *
+	     * @param entity the entity of the row, or null if the representation has none.
+	     */
+		private void addRow(VersionedEntity entity) {
+			if(entity != null) {
+				max = Math.max(max, entity.getVersion());
+				rows++;
+				idChecksum = 31 * idChecksum + entity.getId();
+			}
+		}
+		
+		/**
+	     * Adds a product and its category.
+	     *
+	     * @param product the product.
+	     */
+		private void add(Product product) {
+			addRow(product);
+			addRow(product.getProductCategory());
+		}
+		
+		/**
+	     * Adds a category and its products.
+	     *
+	     * @param category the category.
+	     */
+		private void add(ProductCategory category) {
+			addRow(category);
+			if(category.getProducts() != null) {
+				category.getProducts().forEach(this::add);
+			}
+		}
+		
+		/**
+	     * Adds an order detail and its products.
+	     *
+	     * @param order the order detail.
+	     */
+		private void add(OrderDetail order) {
+			addRow(order);
+			if(order.getProducts() != null) {
+				order.getProducts().forEach(this::add);
+			}
+		}
+		
+		/**
+	     * Formats the accumulated values as a strong ETag.
+	     *
+	     * @return the quoted ETag.
+	     */
+		private String toEtag() {
+			String tag = max + "-" + rows + "-" + Integer.toHexString(idChecksum);
+			if(variant != null) {
+				tag += "-" + Integer.toHexString(variant.hashCode());
+			}
+			return "\"" + tag + "\"";
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.restaurant.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Utility class for the {@code ?expand=products} parameter of the category and order list endpoints.
+ * Lists leave the products of each entity out unless they are expanded, so the default list is read with
+ * one narrow query; single entities and the menu always carry their products.
+ */
+public class Expansion {
+	public static final String EXPAND_PARAM = "expand";
+	public static final String PRODUCTS = "products";
+	
+	private Expansion() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+	
+	/**
+     * Checks whether the request expands the products of the listed entities.
+     *
+     * @param req the HttpServletRequest object.
+     * @return true if the {@code expand} parameter names {@code products}.
+     * @throws IllegalArgumentException if the parameter names an association that cannot be expanded.
+     */
+	public static boolean expandsProducts(HttpServletRequest req) {
+		String expand = req.getParameter(EXPAND_PARAM);
+		if(expand == null) {
+			return false;
+		}
+		boolean products = false;
+		for(String association : expand.split(",")) {
+			if(!PRODUCTS.equals(association.trim())) {
+				throw new IllegalArgumentException("Cannot expand: " + association);
+			}
+			products = true;
+		}
+		return products;
+	}
+}
@@ -0,0 +1,227 @@
+package com.restaurant.controllers;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import com.restaurant.cache.MenuSnapshot;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Utility class for conditional requests and for serving precomputed {@link MenuSnapshot} bytes.
+ * A GET whose {@code If-None-Match} names the current ETag is answered with 304 and no body;
+ * a write whose {@code If-Match} does not name it is answered with 412.
+ * A compressed body carries the ETag with its content coding appended, such as {@code "abc-gzip"}, so
+ * that it is not confused with the identity bytes. Both forms name the same representation when matched.
+ */
+public class HttpCaching {
+	public static final String ETAG_HEADER = "ETag";
+	public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+	public static final String IF_MATCH_HEADER = "If-Match";
+	public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+	public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+	public static final String VARY_HEADER = "Vary";
+	public static final String GZIP = "gzip";
+	public static final String DEFLATE = "deflate";
+	
+	private HttpCaching() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+	
+	/**
+     * Checks whether an {@code If-None-Match} or {@code If-Match} header value names the given ETag.
+     *
+     * @param headerValue the header value, possibly null.
+     * @param etag the quoted ETag of the current representation.
+     * @param weak true to compare weak validators by their opaque tag, as {@code If-None-Match} does;
+     *        false for the strong comparison of {@code If-Match}, which weak validators never pass.
+     * @return true if the header is {@code *} or lists the ETag.
+     */
+	public static boolean matches(String headerValue, String etag, boolean weak) {
+		return findMatch(headerValue, etag, weak) != null;
+	}
+	
+	/**
+     * Finds the entry of an {@code If-None-Match} or {@code If-Match} header value that names the given ETag,
+     * with or without a content coding suffix.
+     *
+     * @param headerValue the header value, possibly null.
+     * @param etag the quoted ETag of the current representation.
+     * @param weak true to compare weak validators by their opaque tag.
+     * @return the matching entry as sent by the client, or null if there is none.
+     */
+	private static String findMatch(String headerValue, String etag, boolean weak) {
+		if(headerValue == null) {
+			return null;
+		}
+		for(String candidate : headerValue.split(",")) {
+			String tag = candidate.trim();
+			if(tag.equals("*")) {
+				return tag;
+			}
+			if(tag.startsWith("W/")) {
+				if(!weak) {
+					continue;
+				}
+				tag = tag.substring(2);
+			}
+			if(tag.equals(etag) || withoutContentCoding(tag).equals(etag)) {
+				return candidate.trim();
+			}
+		}
+		return null;
+	}
+	
+	/**
+     * Appends a content coding to an ETag, for a body sent in that coding.
+     *
+     * @param etag the quoted ETag of the identity body, possibly weak.
+     * @param contentCoding the content coding, such as {@value #GZIP}.
+     * @return the ETag of the encoded body, or the ETag unchanged if it is not quoted.
+     */
+	public static String withContentCoding(String etag, String contentCoding) {
+		if(etag == null || !etag.endsWith("\"") || etag.length() < 2) {
+			return etag;
+		}
+		return etag.substring(0, etag.length() - 1) + "-" + contentCoding + "\"";
+	}
+	
+	/**
+     * Removes a content coding appended by {@link #withContentCoding(String, String)}.
+     *
+     * @param etag the quoted ETag.
+     * @return the ETag of the identity body.
+     */
+	private static String withoutContentCoding(String etag) {
+		for(String contentCoding : new String[] {GZIP, DEFLATE}) {
+			String suffix = "-" + contentCoding + "\"";
+			if(etag.endsWith(suffix)) {
+				return etag.substring(0, etag.length() - suffix.length()) + "\"";
+			}
+		}
+		return etag;
+	}
+	
+	/**
+     * Sets the ETag of the current representation and answers 304 if the client already has it.
+     * The 304 names the ETag the client sent, which may carry a content coding.
+     *
+     * @param req the HttpServletRequest object.
+     * @param resp the HttpServletResponse object.
+     * @param etag the quoted ETag of the current representation.
+     * @return true if the response is complete and no body must be sent.
+     */
+	public static boolean checkNotModified(HttpServletRequest req, HttpServletResponse resp, String etag) {
+		resp.setHeader(ETAG_HEADER, etag);
+		String match = findMatch(req.getHeader(IF_NONE_MATCH_HEADER), etag, true);
+		if(match == null) {
+			return false;
+		}
+		if(!match.equals("*")) {
+			resp.setHeader(ETAG_HEADER, match);
+		}
+		resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		return true;
+	}
+	
+	/**
+     * Checks whether the request carries an {@code If-Match} precondition.
+     *
+     * @param req the HttpServletRequest object.
+     * @return true if the request has an {@code If-Match} header.
+     */
+	public static boolean hasIfMatch(HttpServletRequest req) {
+		return req.getHeader(IF_MATCH_HEADER) != null;
+	}
+	
+	/**
+     * Checks the {@code If-Match} precondition of a write against the current representation.
+     *
+     * @param req the HttpServletRequest object.
+     * @param currentEtag the quoted ETag of the current representation, or null if the resource does not exist.
+     * @return true if the request has {@code If-Match} and it does not name the current representation.
+     */
+	public static boolean failsIfMatch(HttpServletRequest req, String currentEtag) {
+		String ifMatch = req.getHeader(IF_MATCH_HEADER);
+		return ifMatch != null && (currentEtag == null || !matches(ifMatch, currentEtag, false));
+	}
+	
+	/**
+     * Checks whether the client accepts a gzip-encoded response.
+     *
+     * @param req the HttpServletRequest object.
+     * @return true if {@code Accept-Encoding} lists gzip (or {@code *}) without {@code q=0}.
+     */
+	public static boolean acceptsGzip(HttpServletRequest req) {
+		return accepts(req, GZIP);
+	}
+	
+	/**
+     * Checks whether the client accepts a response in the given content coding.
+     *
+     * @param req the HttpServletRequest object.
+     * @param contentCoding the content coding in lower case, such as {@value #GZIP}.
+     * @return true if {@code Accept-Encoding} lists the coding (or {@code *}) without {@code q=0}.
+     */
+	public static boolean accepts(HttpServletRequest req, String contentCoding) {
+		String acceptEncoding = req.getHeader(ACCEPT_ENCODING_HEADER);
+		if(acceptEncoding == null) {
+			return false;
+		}
+		for(String candidate : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+			String[] parts = candidate.split(";");
+			String coding = parts[0].trim();
+			if((coding.equals(contentCoding) || coding.equals("*")) && !hasZeroQuality(parts)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+     * Checks whether the parameters of an {@code Accept-Encoding} entry set its quality to zero.
+     *
+     * @param parts the entry split at its semicolons; the first element is the coding.
+     * @return true if the entry has {@code q=0}.
+     */
+	private static boolean hasZeroQuality(String[] parts) {
+		for(int i = 1; i < parts.length; i++) {
+			String parameter = parts[i].trim();
+			if(parameter.startsWith("q=")) {
+				try {
+					return Double.parseDouble(parameter.substring(2)) == 0.0;
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+     * Sends a snapshot: 304 if the client already has it, otherwise its JSON (gzip-encoded under the
+     * gzip ETag when accepted) with an explicit Content-Length. Neither the DAO nor Jackson is involved.
+     *
+     * @param req the HttpServletRequest object.
+     * @param resp the HttpServletResponse object.
+     * @param snapshot the snapshot to send.
+     * @throws IOException if an I/O error occurs.
+     */
+	public static void sendSnapshot(HttpServletRequest req, HttpServletResponse resp, MenuSnapshot snapshot) throws IOException {
+		resp.setHeader(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+		if(checkNotModified(req, resp, snapshot.getEtag())) {
+			return;
+		}
+		byte[] body = snapshot.getJson();
+		if(acceptsGzip(req)) {
+			body = snapshot.getGzippedJson();
+			resp.setHeader(CONTENT_ENCODING_HEADER, GZIP);
+			resp.setHeader(ETAG_HEADER, withContentCoding(snapshot.getEtag(), GZIP));
+		}
+		resp.setStatus(HttpServletResponse.SC_OK);
+		resp.setContentType("application/json");
+		resp.setContentLength(body.length);
+		resp.getOutputStream().write(body);
+	}
+}
@@ -0,0 +1,61 @@
+package com.restaurant.controllers;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.dao.Dao;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Utility class for list endpoints that stream their response with {@code ?stream=true}.
+ * Each entity is mapped to its DTO and written to the response as soon as the DAO reads it,
+ * so neither the entities nor the DTOs of the whole table are held in memory.
+ */
+public class JsonStreaming {
+	public static final String STREAM_PARAM = "stream";
+	
+	private JsonStreaming() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+	
+	/**
+     * Checks whether the request asks for a streamed response.
+     *
+     * @param req the HttpServletRequest object.
+     * @return true if the request has {@code stream=true}.
+     */
+	public static boolean isRequested(HttpServletRequest req) {
+		return Boolean.parseBoolean(req.getParameter(STREAM_PARAM));
+	}
+	
+	/**
+     * Writes all entities of a DAO to the response as a JSON array, one element per entity as it is read.
+     * <p>
+     * If the DAO fails, the array is left unterminated so that the client cannot mistake a partial
+     * response for a complete one. Nothing is sent before the first entities fill the generator buffer,
+     * so an early failure still leaves the response uncommitted for an error status.
+     *
+     * @param resp   the HttpServletResponse object.
+     * @param mapper the ObjectMapper used to serialize the DTOs.
+     * @param dao    the DAO to stream the entities from.
+     * @param toDto  maps an entity to the DTO written to the response.
+     * @param <T>    the type of the entity.
+     * @throws SQLException if a database access error occurs.
+     * @throws IOException  if the response cannot be written.
+     */
+	public static <T> void writeArray(HttpServletResponse resp, ObjectMapper mapper, Dao<T, ?> dao,
+			Function<? super T, ?> toDto) throws SQLException, IOException {
+		resp.setStatus(HttpServletResponse.SC_OK);
+		resp.setContentType("application/json");
+		JsonGenerator generator = mapper.getFactory().createGenerator(resp.getOutputStream());
+		generator.writeStartArray();
+		dao.streamAll(entity -> generator.writeObject(toDto.apply(entity)));
+		generator.writeEndArray();
+		generator.close();
+	}
+}
@@ -0,0 +1,116 @@
+package com.restaurant.controllers;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.cache.MenuSnapshot;
+import com.restaurant.cache.MenuSnapshotHolder;
+import com.restaurant.concurrent.AsyncDispatcher;
+import com.restaurant.concurrent.DaoExecutor;
+import com.restaurant.dao.DaoFactory;
+import com.restaurant.dao.impl.ProductCategoryDAO;
+import com.restaurant.dto.ProductCategoryDTO;
+import com.restaurant.mapper.ProductCategoryMapper;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet implementation class MenuServlet
+ * This servlet serves the whole menu, the categories with their available products, in one response.
+ * The menu is read with one query and kept as a snapshot until products or categories change.
+ */
+@WebServlet(urlPatterns = {ApiPaths.MENU}, asyncSupported = true)
+public class MenuServlet extends HttpServlet{
+	private static final long serialVersionUID = 1L;
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private transient ProductCategoryDAO categoryDAO;
+	private transient DaoExecutor daoExecutor;
+	private transient MenuSnapshotHolder menuSnapshot = new MenuSnapshotHolder();
+	
+	/**
+     * Initializes the servlet and sets up the ProductCategoryDAO instance for test.
+     */
+	@Override
+	public void init() throws ServletException {
+		DaoFactory daoFactory = new DaoFactory();
+		categoryDAO = daoFactory.getCategoryDAO();		
+		daoExecutor = DaoExecutor.getShared();
+	}
+	
+	/**
+     * Hands the request to the DAO executor, so that the container thread is released while queries run.
+     *
+     * @param req  the HttpServletRequest object.
+     * @param resp the HttpServletResponse object.
+     * @throws ServletException if a servlet-specific error occurs.
+     * @throws IOException      if an I/O error occurs.
+     */
+	@Override
+	protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		AsyncDispatcher.dispatch(req, resp, daoExecutor, super::service);
+	}
+	
+	public void setCategoryDAO(ProductCategoryDAO categoryDAO) {
+		this.categoryDAO = categoryDAO;
+	}
+	
+	/**
+     * Handles HTTP GET requests to retrieve the menu, or 304 if the client has the current snapshot.
+     *
+     * @param req  the HttpServletRequest object containing the conditional headers.
+     * @param resp the HttpServletResponse object for sending the response.
+     * @throws ServletException if a servlet-specific error occurs.
+     */
+	@Override
+	public void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException {
+		MenuSnapshot snapshot;
+		try {
+			snapshot = menuSnapshot.get(this::renderMenu);
+		} catch (SQLException | IOException e) {
+			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving menu");
+			return;
+		}
+		try {
+			HttpCaching.sendSnapshot(req, resp, snapshot);
+		} catch (IOException e) {
+			LoggerFactory.getLogger(MenuServlet.class).error("Failed to send response: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+     * Renders the menu as JSON for the menu snapshot.
+     *
+     * @return the JSON bytes.
+     * @throws SQLException if a database access error occurs.
+     * @throws IOException if the menu cannot be serialized.
+     */
+	private byte[] renderMenu() throws SQLException, IOException {
+		List<ProductCategoryDTO> categoryDTOs = categoryDAO.getMenu().stream()
+				.map(ProductCategoryMapper.INSTANCE::toDTO)
+				.toList();
+		return OBJECT_MAPPER.writeValueAsBytes(categoryDTOs);
+	}
+	
+	/**
+     * Sends an error response with the specified status code and error message.
+     *
+     * @param resp         the HttpServletResponse object for sending the response.
+     * @param statusCode   the HTTP status code to set in the response.
+     * @param errorMessage the error message to include in the response.
+     */
+	private void sendError(HttpServletResponse resp, int statusCode, String errorMessage) {
+		try {
+	        resp.sendError(statusCode, errorMessage);
+	    } catch (IOException e) {
+	        LoggerFactory.getLogger(MenuServlet.class).error("Failed to send error response: " + e.getMessage(), e);
+	    }
+    }
+}
@@ -0,0 +1,50 @@
+package com.restaurant.controllers;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Utility class for fetching several entities of a list endpoint in one request: {@code ?ids=<id>[,<id>...]}.
+ * Duplicates are ignored and at most {@link #MAX_IDS} distinct IDs are accepted. The entities are returned
+ * in ID order; IDs that do not exist are left out of the result.
+ */
+public class MultiGet {
+	public static final String IDS_PARAM = "ids";
+	public static final int MAX_IDS = Pagination.MAX_LIMIT;
+	
+	private MultiGet() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+	
+	/**
+     * Checks whether the request asks for a set of entities by ID.
+     *
+     * @param req the HttpServletRequest object.
+     * @return true if the request has an {@code ids} parameter.
+     */
+	public static boolean isRequested(HttpServletRequest req) {
+		return req.getParameter(IDS_PARAM) != null;
+	}
+	
+	/**
+     * Reads the requested IDs.
+     *
+     * @param req the HttpServletRequest object.
+     * @return the distinct IDs in ascending order.
+     * @throws IllegalArgumentException if an ID is not a number, no ID is given or more than {@link #MAX_IDS} are.
+     */
+	public static Set<Integer> parseIds(HttpServletRequest req) {
+		Set<Integer> ids = new TreeSet<>();
+		for(String id : req.getParameter(IDS_PARAM).split(",")) {
+			if(!id.isBlank()) {
+				ids.add(Integer.parseInt(id.trim()));
+			}
+		}
+		if(ids.isEmpty() || ids.size() > MAX_IDS) {
+			throw new IllegalArgumentException("Between 1 and " + MAX_IDS + " IDs are required, got " + ids.size());
+		}
+		return ids;
+	}
+}
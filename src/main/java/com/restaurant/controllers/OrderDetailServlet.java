@@ -7,9 +7,13 @@ import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.testcontainers.shaded.com.fasterxml.jackson.databind.ObjectMapper;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.concurrent.AsyncDispatcher;
+import com.restaurant.concurrent.DaoExecutor;
 import com.restaurant.dao.DaoFactory;
+import com.restaurant.dao.OrderCriteria;
+import com.restaurant.dao.StaleEntityException;
 import com.restaurant.dao.impl.OrderDetailDAO;
 import com.restaurant.dto.OrderDetailDTO;
 import com.restaurant.entity.OrderDetail;
@@ -25,11 +29,12 @@ import jakarta.servlet.http.HttpServletResponse;
  * Servlet implementation class OrderDetailServlet
  * This servlet handles the CRUD operations for OrderDetail entities.
  */
-@WebServlet(urlPatterns = {ApiPaths.ORDER_DETAILS, ApiPaths.ORDER_DETAILS + "/*"})
+@WebServlet(urlPatterns = {ApiPaths.ORDER_DETAILS, ApiPaths.ORDER_DETAILS + "/*"}, asyncSupported = true)
 public class OrderDetailServlet extends HttpServlet{
 	private static final long serialVersionUID = 1L;
 	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 	private transient OrderDetailDAO orderDetailDAO;
+	private transient DaoExecutor daoExecutor;
 	
 	/**
      * Initializes the servlet and sets up the  OrderDetailDAO instance for test.
@@ -38,8 +43,22 @@ public class OrderDetailServlet extends HttpServlet{
 	public void init() throws ServletException {
 		DaoFactory daoFactory = new DaoFactory();
 		orderDetailDAO = daoFactory.getDetailDAO();
+		daoExecutor = DaoExecutor.getShared();
 	}	
 	
+	/**
+     * Hands the request to the DAO executor, so that the container thread is released while queries run.
+     *
+     * @param req  the HttpServletRequest object.
+     * @param resp the HttpServletResponse object.
+     * @throws ServletException if a servlet-specific error occurs.
+     * @throws IOException      if an I/O error occurs.
+     */
+	@Override
+	protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		AsyncDispatcher.dispatch(req, resp, daoExecutor, super::service);
+	}
+	
 	public void setOrderDetailDAO(OrderDetailDAO orderDetailDAO) {
 		this.orderDetailDAO = orderDetailDAO;
 	}
@@ -58,28 +77,32 @@ public class OrderDetailServlet extends HttpServlet{
 	public void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 		String pathInfo = req.getPathInfo();
 		if(pathInfo == null || pathInfo.equals(ApiPaths.PRODUCT_CATEGORIES)) {			
-			getAllOrders(resp);
+			getAllOrders(req, resp);
 		} else {
-			getOrderById(resp, pathInfo);
+			getOrderById(req, resp, pathInfo);
 		}
 	}
 	
 	/**
-     * Retrieves a detail of product by its ID and sends it as a JSON response.
+     * Retrieves a detail of product by its ID and sends it as a JSON response,
+     * or 304 if the client has the current version.
      *
+     * @param req      the HttpServletRequest object containing the conditional headers.
      * @param resp     the HttpServletResponse object for sending the response.
      * @param pathInfo the URL path info containing the detail ID of product.
      * @throws IOException if an I/O error occurs while writing the response.
      */
-	private void getOrderById(HttpServletResponse resp, String pathInfo) {
+	private void getOrderById(HttpServletRequest req, HttpServletResponse resp, String pathInfo) {
 		// Extract product ID from the URL
 		String orderIdStr = pathInfo.substring(1);		
 		try {
 			int orderId = Integer.parseInt(orderIdStr);
 			Optional<OrderDetail> orderOptional = orderDetailDAO.getById(orderId);
 			if(orderOptional.isPresent()) {
-				OrderDetailDTO orderDTO = OrderDetailMapper.INSTANCE.toDTO(orderOptional.get());
-				sendResponse(resp, HttpServletResponse.SC_OK, orderDTO);
+				OrderDetail order = orderOptional.get();
+				if(!HttpCaching.checkNotModified(req, resp, EntityTags.of(order))) {
+					sendResponse(resp, HttpServletResponse.SC_OK, OrderDetailMapper.INSTANCE.toDTO(order));
+				}
 			}else {
 				sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Order not found");
 			}
@@ -91,18 +114,145 @@ public class OrderDetailServlet extends HttpServlet{
 	}
 	
 	/**
-     * Retrieves all details of orders and sends them as a JSON response.
+     * Retrieves all details of orders, the orders with the given IDs, one page of them if paging parameters
+     * are given, or one page of the orders matching the search parameters, and sends them as a JSON response.
+     * Lists include the products of the orders only with {@code expand=products}; orders fetched by ID always do.
      *
+     * @param req  the HttpServletRequest object containing the request parameters.
      * @param resp the HttpServletResponse object for sending the response.
      * @throws IOException if an I/O error occurs while writing the response.
      */
-	private void getAllOrders(HttpServletResponse resp) {
+	private void getAllOrders(HttpServletRequest req, HttpServletResponse resp) {
+		if(MultiGet.isRequested(req)) {
+			getOrdersByIds(req, resp);
+			return;
+		}
+		boolean withProducts;
+		try {
+			withProducts = Expansion.expandsProducts(req);
+		} catch (IllegalArgumentException e) {
+			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid expand parameter");
+			return;
+		}
+		if(OrderFilters.isRequested(req)) {
+			searchOrders(req, resp, withProducts);
+			return;
+		}
+		if(Pagination.isRequested(req)) {
+			getOrdersPage(req, resp, withProducts);
+			return;
+		}
+		if(JsonStreaming.isRequested(req)) {
+			streamOrders(resp);
+			return;
+		}
+		try {
+			List<OrderDetail> orders = withProducts ? orderDetailDAO.getAll() : orderDetailDAO.getAllWithoutProducts();
+			if(HttpCaching.checkNotModified(req, resp, EntityTags.ofOrders(orders, withProducts))) {
+				return;
+			}
+			List<OrderDetailDTO> orderDTOs = orders.stream()
+					.map(OrderDetailMapper.INSTANCE::toDTO)
+					.toList();
+			sendResponse(resp, HttpServletResponse.SC_OK, orderDTOs);
+		} catch (SQLException e) {
+			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving detail of orders");
+		}
+	}
+	
+	/**
+     * Streams all order details to the response as they are read from the database.
+     *
+     * @param resp the HttpServletResponse object.
+     */
+	private void streamOrders(HttpServletResponse resp) {
 		try {
-			List<OrderDetail> orders = orderDetailDAO.getAll();
+			JsonStreaming.writeArray(resp, OBJECT_MAPPER, orderDetailDAO, OrderDetailMapper.INSTANCE::toDTO);
+		} catch (SQLException | IOException e) {
+			if(resp.isCommitted()) {
+				LoggerFactory.getLogger(OrderDetailServlet.class).error("Streaming order details failed after the response was committed", e);
+			} else {
+				sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving detail of orders");
+			}
+		}
+	}
+	
+	/**
+     * Retrieves one page of order details selected by the {@code after} and {@code limit} parameters
+     * and sends it with the next-page cursor.
+     *
+     * @param req          the HttpServletRequest object containing the paging parameters.
+     * @param resp         the HttpServletResponse object for sending the response.
+     * @param withProducts whether to load and send the products of the orders.
+     */
+	private void getOrdersPage(HttpServletRequest req, HttpServletResponse resp, boolean withProducts) {
+		try {
+			Integer afterId = Pagination.parseAfter(req);
+			int limit = Pagination.parseLimit(req);
+			List<OrderDetail> orders = withProducts 
+					? orderDetailDAO.getPage(afterId, limit) 
+					: orderDetailDAO.getPageWithoutProducts(afterId, limit);
+			Pagination.setNextCursor(resp, orders, limit);
+			if(HttpCaching.checkNotModified(req, resp, EntityTags.ofOrders(orders, withProducts))) {
+				return;
+			}
 			List<OrderDetailDTO> orderDTOs = orders.stream()
 					.map(OrderDetailMapper.INSTANCE::toDTO)
 					.toList();
 			sendResponse(resp, HttpServletResponse.SC_OK, orderDTOs);
+		} catch (IllegalArgumentException e) {
+			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid paging parameters");
+		} catch (SQLException e) {
+			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving detail of orders");
+		}
+	}
+	
+	/**
+     * Retrieves the order details named by the {@code ids} parameter in one query and sends them in ID order.
+     *
+     * @param req  the HttpServletRequest object containing the IDs.
+     * @param resp the HttpServletResponse object for sending the response.
+     */
+	private void getOrdersByIds(HttpServletRequest req, HttpServletResponse resp) {
+		try {
+			List<OrderDetail> orders = orderDetailDAO.getByIds(MultiGet.parseIds(req));
+			if(HttpCaching.checkNotModified(req, resp, EntityTags.ofOrders(orders, true))) {
+				return;
+			}
+			List<OrderDetailDTO> orderDTOs = orders.stream()
+					.map(OrderDetailMapper.INSTANCE::toDTO)
+					.toList();
+			sendResponse(resp, HttpServletResponse.SC_OK, orderDTOs);
+		} catch (IllegalArgumentException e) {
+			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid order IDs");
+		} catch (SQLException e) {
+			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving detail of orders");
+		}
+	}
+	
+	/**
+     * Searches the order details by status and total amount and sends one page of the matches
+     * with the next-page cursor.
+     *
+     * @param req          the HttpServletRequest object containing the search and paging parameters.
+     * @param resp         the HttpServletResponse object for sending the response.
+     * @param withProducts whether to load and send the products of the orders.
+     */
+	private void searchOrders(HttpServletRequest req, HttpServletResponse resp, boolean withProducts) {
+		try {
+			OrderCriteria criteria = OrderFilters.parse(req);
+			criteria.setWithProducts(withProducts);
+			List<OrderDetail> orders = orderDetailDAO.search(criteria);
+			Pagination.setNextCursor(resp, orders, criteria.getLimit());
+			if(HttpCaching.checkNotModified(req, resp, EntityTags.ofOrders(orders, withProducts))) {
+				return;
+			}
+			List<OrderDetailDTO> orderDTOs = orders.stream()
+					.map(OrderDetailMapper.INSTANCE::toDTO)
+					.toList();
+			sendResponse(resp, HttpServletResponse.SC_OK, orderDTOs);
+		} catch (IllegalArgumentException e) {
+			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid search parameters");
 		} catch (SQLException e) {
 			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving detail of orders");
 		}
@@ -167,7 +317,13 @@ public class OrderDetailServlet extends HttpServlet{
 		OrderDetail order = OrderDetailMapper.INSTANCE.toEntity(orderDTO);
 		
 		try {
+			if(!checkIfMatch(req, resp, order)) {
+				return;
+			}
             orderDetailDAO.save(order);
+        } catch (StaleEntityException e) {
+        	sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Order was changed by another request");
+        	return;
         } catch (SQLException e) {
             sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error creating or updating detail of order");
             return;
@@ -177,6 +333,29 @@ public class OrderDetailServlet extends HttpServlet{
 		sendResponse(resp, HttpServletResponse.SC_OK, createOrderDTO);	
 	}
 	
+	/**
+     * Applies the {@code If-Match} precondition of an update: the stored order must still have the ETag
+     * the client names. The update is then made conditional on the version that was checked.
+     *
+     * @param req   the HttpServletRequest object containing the conditional headers.
+     * @param resp  the HttpServletResponse object for sending the response.
+     * @param order the order detail to update.
+     * @return true if the update may go ahead; otherwise 412 has been sent.
+     * @throws SQLException if the stored order cannot be read.
+     */
+	private boolean checkIfMatch(HttpServletRequest req, HttpServletResponse resp, OrderDetail order) throws SQLException {
+		if(!HttpCaching.hasIfMatch(req)) {
+			return true;
+		}
+		Optional<OrderDetail> current = orderDetailDAO.getById(order.getId());
+		if(!current.isPresent() || HttpCaching.failsIfMatch(req, EntityTags.of(current.get()))) {
+			sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Order was changed by another request");
+			return false;
+		}
+		order.setVersion(current.get().getVersion());
+		return true;
+	}
+	
 	/**
      * Parses the request body to extract a DTO object.
      *
@@ -219,13 +398,24 @@ public class OrderDetailServlet extends HttpServlet{
         	int orderId = Integer.parseInt(orderIdStr);
         	Optional<OrderDetail> existingOrder = orderDetailDAO.getById(orderId);
         	if(existingOrder.isPresent()) {
-        		orderDetailDAO.delete(orderId);
+        		OrderDetail order = existingOrder.get();
+        		if(HttpCaching.failsIfMatch(req, EntityTags.of(order))) {
+        			sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Order was changed by another request");
+        			return;
+        		}
+        		if(HttpCaching.hasIfMatch(req)) {
+        			orderDetailDAO.delete(orderId, order.getVersion());
+        		} else {
+        			orderDetailDAO.delete(orderId);
+        		}
         		sendResponse(resp, HttpServletResponse.SC_NO_CONTENT, "Order deleted");
         	} else {
         		sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Order not found");
         	}        	
 		} catch (NumberFormatException e) {
 			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid order ID format");
+		} catch (StaleEntityException e) {
+			sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Order was changed by another request");
 		} catch (SQLException e) {
 			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error deleting detail of order");
 		}
@@ -0,0 +1,84 @@
+package com.restaurant.controllers;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+import com.restaurant.dao.OrderCriteria;
+import com.restaurant.entity.OrderStatus;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Utility class that reads an order search from the query string:
+ * {@code ?status=<name>[,<name>...]&minAmount=<n>&maxAmount=<n>}. A search is always paged with the
+ * {@link Pagination} parameters, so it returns at most one page of orders in ID order.
+ */
+public class OrderFilters {
+	public static final String STATUS_PARAM = "status";
+	public static final String MIN_AMOUNT_PARAM = "minAmount";
+	public static final String MAX_AMOUNT_PARAM = "maxAmount";
+	
+	private OrderFilters() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+	
+	/**
+     * Checks whether the request searches the orders rather than listing all of them.
+     *
+     * @param req the HttpServletRequest object.
+     * @return true if the request has a status or amount parameter.
+     */
+	public static boolean isRequested(HttpServletRequest req) {
+		return req.getParameter(STATUS_PARAM) != null 
+				|| req.getParameter(MIN_AMOUNT_PARAM) != null 
+				|| req.getParameter(MAX_AMOUNT_PARAM) != null;
+	}
+	
+	/**
+     * Reads the filters and the page from the request.
+     *
+     * @param req the HttpServletRequest object.
+     * @return the criteria to search the orders with.
+     * @throws IllegalArgumentException if a status is unknown, an amount or paging parameter is malformed
+     *                                  or the amount range is empty.
+     */
+	public static OrderCriteria parse(HttpServletRequest req) {
+		OrderCriteria criteria = new OrderCriteria();
+		String status = req.getParameter(STATUS_PARAM);
+		if(status != null) {
+			criteria.setStatuses(parseStatuses(status));
+		}
+		String minAmount = req.getParameter(MIN_AMOUNT_PARAM);
+		if(minAmount != null) {
+			criteria.setMinAmount(new BigDecimal(minAmount));
+		}
+		String maxAmount = req.getParameter(MAX_AMOUNT_PARAM);
+		if(maxAmount != null) {
+			criteria.setMaxAmount(new BigDecimal(maxAmount));
+		}
+		if(criteria.getMinAmount() != null && criteria.getMaxAmount() != null
+				&& criteria.getMinAmount().compareTo(criteria.getMaxAmount()) > 0) {
+			throw new IllegalArgumentException("minAmount must not exceed maxAmount");
+		}
+		criteria.setAfterId(Pagination.parseAfter(req));
+		criteria.setLimit(Pagination.parseLimit(req));
+		return criteria;
+	}
+	
+	/**
+     * Parses a comma-separated list of status names.
+     *
+     * @param value the parameter value, e.g. {@code accepted,approved}.
+     * @return the statuses.
+     * @throws IllegalArgumentException if a name is not an {@link OrderStatus}.
+     */
+	private static Set<OrderStatus> parseStatuses(String value) {
+		Set<OrderStatus> statuses = EnumSet.noneOf(OrderStatus.class);
+		for(String name : value.split(",")) {
+			statuses.add(OrderStatus.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+		}
+		return statuses;
+	}
+}
@@ -0,0 +1,86 @@
+package com.restaurant.controllers;
+
+import java.util.List;
+
+import com.restaurant.entity.IdentifiableEntity;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Utility class for keyset pagination of the list endpoints: {@code ?after=<id>&limit=<n>}.
+ * The page size is capped at {@link #MAX_LIMIT} whatever the client asks for. A full page carries
+ * the ID to pass as {@code after} for the next page in the {@value #NEXT_CURSOR_HEADER} response header.
+ */
+public class Pagination {
+	public static final String AFTER_PARAM = "after";
+	public static final String LIMIT_PARAM = "limit";
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+	public static final int DEFAULT_LIMIT = 50;
+	public static final int MAX_LIMIT = 200;
+	
+	private Pagination() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+	
+	/**
+     * Checks whether the request asks for a page rather than the whole list.
+     *
+     * @param req the HttpServletRequest object.
+     * @return true if the request has an {@code after} or {@code limit} parameter.
+     */
+	public static boolean isRequested(HttpServletRequest req) {
+		return req.getParameter(AFTER_PARAM) != null || req.getParameter(LIMIT_PARAM) != null;
+	}
+	
+	/**
+     * Reads the ID after which the page starts.
+     *
+     * @param req the HttpServletRequest object.
+     * @return the ID from the {@code after} parameter, or null for the first page.
+     * @throws IllegalArgumentException if the parameter is not a non-negative number.
+     */
+	public static Integer parseAfter(HttpServletRequest req) {
+		String after = req.getParameter(AFTER_PARAM);
+		if(after == null || after.isEmpty()) {
+			return null;
+		}
+		int afterId = Integer.parseInt(after);
+		if(afterId < 0) {
+			throw new IllegalArgumentException("after must not be negative: " + afterId);
+		}
+		return afterId;
+	}
+	
+	/**
+     * Reads the page size, capped at {@link #MAX_LIMIT}.
+     *
+     * @param req the HttpServletRequest object.
+     * @return the page size from the {@code limit} parameter, or {@link #DEFAULT_LIMIT} if it is missing.
+     * @throws IllegalArgumentException if the parameter is not a positive number.
+     */
+	public static int parseLimit(HttpServletRequest req) {
+		String limit = req.getParameter(LIMIT_PARAM);
+		if(limit == null || limit.isEmpty()) {
+			return DEFAULT_LIMIT;
+		}
+		int pageSize = Integer.parseInt(limit);
+		if(pageSize < 1) {
+			throw new IllegalArgumentException("limit must be positive: " + pageSize);
+		}
+		return Math.min(pageSize, MAX_LIMIT);
+	}
+	
+	/**
+     * Sets the next-page cursor on the response if the page is full, i.e. more entities may follow.
+     *
+     * @param resp  the HttpServletResponse object.
+     * @param page  the entities of the current page, in ID order.
+     * @param limit the page size the page was loaded with.
+     */
+	public static void setNextCursor(HttpServletResponse resp, List<? extends IdentifiableEntity> page, int limit) {
+		if(!page.isEmpty() && page.size() >= limit) {
+			resp.setHeader(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+		}
+	}
+}
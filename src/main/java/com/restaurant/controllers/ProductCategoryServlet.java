@@ -7,9 +7,14 @@ import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.testcontainers.shaded.com.fasterxml.jackson.databind.ObjectMapper;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.cache.MenuSnapshot;
+import com.restaurant.cache.MenuSnapshotHolder;
+import com.restaurant.concurrent.AsyncDispatcher;
+import com.restaurant.concurrent.DaoExecutor;
 import com.restaurant.dao.DaoFactory;
+import com.restaurant.dao.StaleEntityException;
 import com.restaurant.dao.impl.ProductCategoryDAO;
 import com.restaurant.dto.ProductCategoryDTO;
 import com.restaurant.entity.ProductCategory;
@@ -25,11 +30,14 @@ import jakarta.servlet.http.HttpServletResponse;
  * Servlet implementation class ProductCategoryServlet
  * This servlet handles the CRUD operations for ProductCategory entities.
  */
-@WebServlet(urlPatterns = {ApiPaths.PRODUCT_CATEGORIES, ApiPaths.PRODUCT_CATEGORIES + "/*"})
+@WebServlet(urlPatterns = {ApiPaths.PRODUCT_CATEGORIES, ApiPaths.PRODUCT_CATEGORIES + "/*"}, asyncSupported = true)
 public class ProductCategoryServlet extends HttpServlet{
 	private static final long serialVersionUID = 1L;
 	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 	private transient ProductCategoryDAO categoryDAO;
+	private transient DaoExecutor daoExecutor;
+	private transient MenuSnapshotHolder menuSnapshot = new MenuSnapshotHolder();
+	private transient MenuSnapshotHolder expandedMenuSnapshot = new MenuSnapshotHolder();
 	
 	/**
      * Initializes the servlet and sets up the ProductCategoryDAO instance for test.
@@ -38,6 +46,20 @@ public class ProductCategoryServlet extends HttpServlet{
 	public void init() throws ServletException {
 		DaoFactory daoFactory = new DaoFactory();
 		categoryDAO = daoFactory.getCategoryDAO();		
+		daoExecutor = DaoExecutor.getShared();
+	}
+	
+	/**
+     * Hands the request to the DAO executor, so that the container thread is released while queries run.
+     *
+     * @param req  the HttpServletRequest object.
+     * @param resp the HttpServletResponse object.
+     * @throws ServletException if a servlet-specific error occurs.
+     * @throws IOException      if an I/O error occurs.
+     */
+	@Override
+	protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		AsyncDispatcher.dispatch(req, resp, daoExecutor, super::service);
 	}
 	
 	public void setCategoryDAO(ProductCategoryDAO categoryDAO) {
@@ -105,7 +127,13 @@ public class ProductCategoryServlet extends HttpServlet{
 		ProductCategory category = ProductCategoryMapper.INSTANCE.toEntity(categoryDTO);
 		
 		try {
+			if(!checkIfMatch(req, resp, category)) {
+				return;
+			}
             categoryDAO.save(category);
+        } catch (StaleEntityException e) {
+        	sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Category was changed by another request");
+        	return;
         } catch (SQLException e) {
             sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, 
             		"Error creating or updating category of product");
@@ -116,6 +144,30 @@ public class ProductCategoryServlet extends HttpServlet{
 		sendResponse(resp, HttpServletResponse.SC_OK, createCategoryDTO);		
 	}
 	
+	/**
+     * Applies the {@code If-Match} precondition of an update: the stored category must still have the ETag
+     * the client names. The update is then made conditional on the version that was checked.
+     *
+     * @param req      the HttpServletRequest object containing the conditional headers.
+     * @param resp     the HttpServletResponse object for sending the response.
+     * @param category the category to update.
+     * @return true if the update may go ahead; otherwise 412 has been sent.
+     * @throws SQLException if the stored category cannot be read.
+     */
+	private boolean checkIfMatch(HttpServletRequest req, HttpServletResponse resp, ProductCategory category) 
+			throws SQLException {
+		if(!HttpCaching.hasIfMatch(req)) {
+			return true;
+		}
+		Optional<ProductCategory> current = categoryDAO.getById(category.getId());
+		if(!current.isPresent() || HttpCaching.failsIfMatch(req, EntityTags.of(current.get()))) {
+			sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Category was changed by another request");
+			return false;
+		}
+		category.setVersion(current.get().getVersion());
+		return true;
+	}
+	
 	/**
      * Parses the request body to extract a DTO object.
      *
@@ -151,9 +203,9 @@ public class ProductCategoryServlet extends HttpServlet{
 		String pathInfo = req.getPathInfo();
 		try {
 			if(pathInfo == null || pathInfo.equals(ApiPaths.PRODUCT_CATEGORIES)) {			
-				getAllCategories(resp);
+				getAllCategories(req, resp);
 			} else {
-				getCategoryById(resp, pathInfo);
+				getCategoryById(req, resp, pathInfo);
 			}
 		} catch (Exception e) {
 	        sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error processing request");
@@ -161,21 +213,25 @@ public class ProductCategoryServlet extends HttpServlet{
 	}
 	
 	/**
-     * Retrieves a product category by its ID and sends it as a JSON response.
+     * Retrieves a product category by its ID and sends it as a JSON response,
+     * or 304 if the client has the current version.
      *
+     * @param req      the HttpServletRequest object containing the conditional headers.
      * @param resp     the HttpServletResponse object for sending the response.
      * @param pathInfo the URL path info containing the product category ID.
      * @throws IOException if an I/O error occurs while writing the response.
      */
-	private void getCategoryById(HttpServletResponse resp, String pathInfo) {
+	private void getCategoryById(HttpServletRequest req, HttpServletResponse resp, String pathInfo) {
 		// Extract product ID from the URL
 		String categoryIdStr = pathInfo.substring(1);		
 		try {
 			int categoryId = Integer.parseInt(categoryIdStr);
 			Optional<ProductCategory> categoryOptional = categoryDAO.getById(categoryId);
 			if(categoryOptional.isPresent()) {
-				ProductCategoryDTO categoryDTO = ProductCategoryMapper.INSTANCE.toDTO(categoryOptional.get());
-				sendResponse(resp, HttpServletResponse.SC_OK, categoryDTO);
+				ProductCategory category = categoryOptional.get();
+				if(!HttpCaching.checkNotModified(req, resp, EntityTags.of(category))) {
+					sendResponse(resp, HttpServletResponse.SC_OK, ProductCategoryMapper.INSTANCE.toDTO(category));
+				}
 			}else {
 				sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Category not found");
 			}
@@ -187,18 +243,115 @@ public class ProductCategoryServlet extends HttpServlet{
 	}
 
 	 /**
-     * Retrieves all product categories and sends them as a JSON response.
+     * Retrieves all product categories, or one page of them if paging parameters are given, and sends them
+     * as a JSON response. The products of the categories are only included with {@code expand=products}.
      *
+     * @param req  the HttpServletRequest object containing the request parameters.
      * @param resp the HttpServletResponse object for sending the response.
      * @throws IOException if an I/O error occurs while writing the response.
      */
-	private void getAllCategories(HttpServletResponse resp) {
+	private void getAllCategories(HttpServletRequest req, HttpServletResponse resp) {
+		boolean withProducts;
+		try {
+			withProducts = Expansion.expandsProducts(req);
+		} catch (IllegalArgumentException e) {
+			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid expand parameter");
+			return;
+		}
+		if(Pagination.isRequested(req)) {
+			getCategoriesPage(req, resp, withProducts);
+			return;
+		}
+		if(JsonStreaming.isRequested(req)) {
+			streamCategories(resp);
+			return;
+		}
+		MenuSnapshot snapshot;
 		try {
-			List<ProductCategory> categories = categoryDAO.getAll();
+			snapshot = withProducts 
+					? expandedMenuSnapshot.get(this::renderCategories) 
+					: menuSnapshot.get(this::renderCategoriesWithoutProducts);
+		} catch (SQLException | IOException e) {
+			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving categories of products");
+			return;
+		}
+		try {
+			HttpCaching.sendSnapshot(req, resp, snapshot);
+		} catch (IOException e) {
+			LoggerFactory.getLogger(ProductCategoryServlet.class).error("Failed to send response: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+     * Renders the full list of categories with their products as JSON for the menu snapshot.
+     *
+     * @return the JSON bytes.
+     * @throws SQLException if a database access error occurs.
+     * @throws IOException if the list cannot be serialized.
+     */
+	private byte[] renderCategories() throws SQLException, IOException {
+		List<ProductCategoryDTO> categoryDTOs = categoryDAO.getAll().stream()
+				.map(ProductCategoryMapper.INSTANCE::toDTO)
+				.toList();
+		return OBJECT_MAPPER.writeValueAsBytes(categoryDTOs);
+	}
+	
+	/**
+     * Renders the list of categories without their products as JSON for the menu snapshot.
+     *
+     * @return the JSON bytes.
+     * @throws SQLException if a database access error occurs.
+     * @throws IOException if the list cannot be serialized.
+     */
+	private byte[] renderCategoriesWithoutProducts() throws SQLException, IOException {
+		List<ProductCategoryDTO> categoryDTOs = categoryDAO.getAllWithoutProducts().stream()
+				.map(ProductCategoryMapper.INSTANCE::toDTO)
+				.toList();
+		return OBJECT_MAPPER.writeValueAsBytes(categoryDTOs);
+	}
+	
+	/**
+     * Streams all product categories to the response as they are read from the database.
+     *
+     * @param resp the HttpServletResponse object.
+     */
+	private void streamCategories(HttpServletResponse resp) {
+		try {
+			JsonStreaming.writeArray(resp, OBJECT_MAPPER, categoryDAO, ProductCategoryMapper.INSTANCE::toDTO);
+		} catch (SQLException | IOException e) {
+			if(resp.isCommitted()) {
+				LoggerFactory.getLogger(ProductCategoryServlet.class).error("Streaming product categories failed after the response was committed", e);
+			} else {
+				sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving categories of products");
+			}
+		}
+	}
+	
+	/**
+     * Retrieves one page of product categories selected by the {@code after} and {@code limit} parameters
+     * and sends it with the next-page cursor.
+     *
+     * @param req          the HttpServletRequest object containing the paging parameters.
+     * @param resp         the HttpServletResponse object for sending the response.
+     * @param withProducts whether to load and send the products of the categories.
+     */
+	private void getCategoriesPage(HttpServletRequest req, HttpServletResponse resp, boolean withProducts) {
+		try {
+			Integer afterId = Pagination.parseAfter(req);
+			int limit = Pagination.parseLimit(req);
+			List<ProductCategory> categories = withProducts 
+					? categoryDAO.getPage(afterId, limit) 
+					: categoryDAO.getPageWithoutProducts(afterId, limit);
+			Pagination.setNextCursor(resp, categories, limit);
+			if(HttpCaching.checkNotModified(req, resp, EntityTags.ofCategories(categories, withProducts))) {
+				return;
+			}
 			List<ProductCategoryDTO> categoryDTOs = categories.stream()
 					.map(ProductCategoryMapper.INSTANCE::toDTO)
 					.toList();
 			sendResponse(resp, HttpServletResponse.SC_OK, categoryDTOs);
+		} catch (IllegalArgumentException e) {
+			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid paging parameters");
 		} catch (SQLException e) {
 			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving categories of products");
 		}
@@ -226,13 +379,24 @@ public class ProductCategoryServlet extends HttpServlet{
         	int categoryId = Integer.parseInt(categoryIdStr);
         	Optional<ProductCategory> existingCategory = categoryDAO.getById(categoryId);
         	if(existingCategory.isPresent()) {
-        		categoryDAO.delete(categoryId);
+        		ProductCategory category = existingCategory.get();
+        		if(HttpCaching.failsIfMatch(req, EntityTags.of(category))) {
+        			sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Category was changed by another request");
+        			return;
+        		}
+        		if(HttpCaching.hasIfMatch(req)) {
+        			categoryDAO.delete(categoryId, category.getVersion());
+        		} else {
+        			categoryDAO.delete(categoryId);
+        		}
         		sendResponse(resp, HttpServletResponse.SC_NO_CONTENT, "Category deleted");
         	} else {
         		sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Category not found");
         	}        	
 		} catch (NumberFormatException e) {
 			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid category ID format");
+		} catch (StaleEntityException e) {
+			sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Category was changed by another request");
 		} catch (SQLException e) {
 			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error deleting category");
 		}
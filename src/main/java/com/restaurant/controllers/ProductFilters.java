@@ -0,0 +1,190 @@
+package com.restaurant.controllers;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.restaurant.dao.ProductCriteria;
+import com.restaurant.dao.ProductField;
+import com.restaurant.dao.ProductSort;
+import com.restaurant.dto.ProductDTO;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Utility class that reads the product list filters from the query string:
+ * {@code ?categoryId=<id>&available=<true|false>&minPrice=<n>&maxPrice=<n>&sort=<[-]column>}.
+ * A leading {@code -} on the sort column reverses the order. The sort column must be one of {@link ProductSort};
+ * keyset paging with {@code after} is only accepted together with the default ID order.
+ * {@code fields=<name>[,<name>...]} narrows both the columns read and the JSON written to the named
+ * {@link ProductField}s; the ID is always included.
+ */
+public class ProductFilters {
+	public static final String CATEGORY_ID_PARAM = "categoryId";
+	public static final String AVAILABLE_PARAM = "available";
+	public static final String MIN_PRICE_PARAM = "minPrice";
+	public static final String MAX_PRICE_PARAM = "maxPrice";
+	public static final String SORT_PARAM = "sort";
+	public static final String FIELDS_PARAM = "fields";
+	
+	private static final String[] PARAMS = {CATEGORY_ID_PARAM, AVAILABLE_PARAM, MIN_PRICE_PARAM, MAX_PRICE_PARAM, SORT_PARAM, 
+			FIELDS_PARAM};
+	
+	private ProductFilters() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+	
+	/**
+     * Checks whether the request filters, sorts or narrows the product list.
+     *
+     * @param req the HttpServletRequest object.
+     * @return true if the request has at least one filter, sort or fields parameter.
+     */
+	public static boolean isRequested(HttpServletRequest req) {
+		for(String param : PARAMS) {
+			if(req.getParameter(param) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+     * Reads the filters, sort order and optional page from the request.
+     *
+     * @param req the HttpServletRequest object.
+     * @return the criteria to query the products with.
+     * @throws IllegalArgumentException if a parameter is malformed, the sort column or a field is unknown,
+     *                                  the price range is empty or {@code after} is combined with a non-ID sort.
+     */
+	public static ProductCriteria parse(HttpServletRequest req) {
+		ProductCriteria criteria = new ProductCriteria();
+		String categoryId = req.getParameter(CATEGORY_ID_PARAM);
+		if(categoryId != null) {
+			criteria.setCategoryId(Integer.parseInt(categoryId));
+		}
+		String available = req.getParameter(AVAILABLE_PARAM);
+		if(available != null) {
+			criteria.setAvailable(parseBoolean(available));
+		}
+		criteria.setMinPrice(parsePrice(req.getParameter(MIN_PRICE_PARAM)));
+		criteria.setMaxPrice(parsePrice(req.getParameter(MAX_PRICE_PARAM)));
+		if(criteria.getMinPrice() != null && criteria.getMaxPrice() != null
+				&& criteria.getMinPrice().compareTo(criteria.getMaxPrice()) > 0) {
+			throw new IllegalArgumentException("minPrice must not exceed maxPrice");
+		}
+		
+		String sort = req.getParameter(SORT_PARAM);
+		if(sort != null) {
+			boolean descending = sort.startsWith("-");
+			String column = descending ? sort.substring(1) : sort;
+			criteria.setSort(ProductSort.fromName(column)
+					.orElseThrow(() -> new IllegalArgumentException("Unknown sort column: " + column)));
+			criteria.setDescending(descending);
+		}
+		
+		String fields = req.getParameter(FIELDS_PARAM);
+		if(fields != null) {
+			criteria.setFields(parseFields(fields));
+		}
+		
+		if(Pagination.isRequested(req)) {
+			criteria.setAfterId(Pagination.parseAfter(req));
+			criteria.setLimit(Pagination.parseLimit(req));
+			if(criteria.getAfterId() != null && criteria.getSort() != ProductSort.ID) {
+				throw new IllegalArgumentException("after can only be used with the id sort order");
+			}
+		}
+		return criteria;
+	}
+	
+	/**
+     * Copies the selected fields of a product into a map that serializes like the DTO narrowed to them.
+     *
+     * @param product the product DTO.
+     * @param fields the selected fields.
+     * @return the field values by JSON name, in {@link ProductField} order.
+     */
+	public static Map<String, Object> project(ProductDTO product, Set<ProductField> fields) {
+		Map<String, Object> projection = new LinkedHashMap<>();
+		for(ProductField field : ProductField.values()) {
+			if(fields.contains(field)) {
+				projection.put(field.getJsonName(), valueOf(product, field));
+			}
+		}
+		return projection;
+	}
+	
+	/**
+     * Reads one field of a product DTO.
+     *
+     * @param product the product DTO.
+     * @param field the field to read.
+     * @return the value of the field.
+     */
+	private static Object valueOf(ProductDTO product, ProductField field) {
+		switch(field) {
+		case ID:
+			return product.getId();
+		case NAME:
+			return product.getName();
+		case PRICE:
+			return product.getPrice();
+		case QUANTITY:
+			return product.getQuantity();
+		case AVAILABLE:
+			return product.isAvailable();
+		case PRODUCT_CATEGORY:
+			return product.getProductCategory();
+		default:
+			throw new IllegalArgumentException("Unknown field: " + field);
+		}
+	}
+	
+	/**
+     * Parses a comma-separated list of field names. The ID is always added.
+     *
+     * @param value the parameter value, e.g. {@code name,price}.
+     * @return the fields.
+     * @throws IllegalArgumentException if a name is not a {@link ProductField}.
+     */
+	private static Set<ProductField> parseFields(String value) {
+		Set<ProductField> fields = EnumSet.of(ProductField.ID);
+		for(String name : value.split(",")) {
+			String trimmed = name.trim();
+			fields.add(ProductField.fromJsonName(trimmed)
+					.orElseThrow(() -> new IllegalArgumentException("Unknown field: " + trimmed)));
+		}
+		return fields;
+	}
+	
+	/**
+     * Parses a strict boolean; unlike {@link Boolean#parseBoolean(String)} anything else is rejected.
+     *
+     * @param value the parameter value.
+     * @return the boolean value.
+     * @throws IllegalArgumentException if the value is neither {@code true} nor {@code false}.
+     */
+	private static boolean parseBoolean(String value) {
+		if("true".equalsIgnoreCase(value)) {
+			return true;
+		}
+		if("false".equalsIgnoreCase(value)) {
+			return false;
+		}
+		throw new IllegalArgumentException("Invalid boolean: " + value);
+	}
+	
+	/**
+     * Parses a price bound.
+     *
+     * @param value the parameter value, or null if the bound is not set.
+     * @return the price, or null if the bound is not set.
+     * @throws IllegalArgumentException if the value is not a number.
+     */
+	private static BigDecimal parsePrice(String value) {
+		return value == null ? null : new BigDecimal(value);
+	}
+}
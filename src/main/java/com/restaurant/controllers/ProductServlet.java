@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -13,9 +15,17 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.testcontainers.shaded.com.fasterxml.jackson.databind.ObjectMapper;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.cache.MenuSnapshot;
+import com.restaurant.cache.MenuSnapshotHolder;
+import com.restaurant.concurrent.AsyncDispatcher;
+import com.restaurant.concurrent.DaoExecutor;
 import com.restaurant.dao.DaoFactory;
+import com.restaurant.dao.ProductCriteria;
+import com.restaurant.dao.ProductField;
+import com.restaurant.dao.ProductSort;
+import com.restaurant.dao.StaleEntityException;
 import com.restaurant.dao.impl.ProductDAO;
 import com.restaurant.dto.ProductDTO;
 import com.restaurant.entity.Product;
@@ -25,11 +35,13 @@ import com.restaurant.mapper.ProductMapper;
  * Servlet implementation class ProductServlet.
  * This servlet handles HTTP requests for managing products in the restaurant service.
  */
-@WebServlet(urlPatterns = {ApiPaths.PRODUCTS, ApiPaths.PRODUCTS + "/*"})
+@WebServlet(urlPatterns = {ApiPaths.PRODUCTS, ApiPaths.PRODUCTS + "/*"}, asyncSupported = true)
 public class ProductServlet extends HttpServlet{	
 	private static final long serialVersionUID = 1L;
 	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
-	private transient ProductDAO productDAO;	
+	private transient ProductDAO productDAO;
+	private transient DaoExecutor daoExecutor;
+	private transient MenuSnapshotHolder menuSnapshot = new MenuSnapshotHolder();	
 
 	/**
      * Initializes the servlet and sets up the ProductDAO.
@@ -40,6 +52,20 @@ public class ProductServlet extends HttpServlet{
 	public void init() throws ServletException {
 		DaoFactory daoFactory = new DaoFactory();
 		productDAO = daoFactory.getProductDao();
+		daoExecutor = DaoExecutor.getShared();
+	}
+	
+	/**
+     * Hands the request to the DAO executor, so that the container thread is released while queries run.
+     *
+     * @param req  the HttpServletRequest object.
+     * @param resp the HttpServletResponse object.
+     * @throws ServletException if a servlet-specific error occurs.
+     * @throws IOException      if an I/O error occurs.
+     */
+	@Override
+	protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		AsyncDispatcher.dispatch(req, resp, daoExecutor, super::service);
 	}
 	
 	/**
@@ -112,7 +138,13 @@ public class ProductServlet extends HttpServlet{
 	    Product product = ProductMapper.INSTANCE.toEntity(productDTO);
 
 	    try {
+	    	if(!checkIfMatch(req, resp, product)) {
+	    		return;
+	    	}
 	        productDAO.save(product);
+	    } catch (StaleEntityException e) {
+	    	sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Product was changed by another request");
+	    	return;
 	    } catch (SQLException e) {
 	        sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error updating product");
 	        return;
@@ -122,6 +154,29 @@ public class ProductServlet extends HttpServlet{
 	    sendResponse(resp, HttpServletResponse.SC_OK, updatedProductDTO);
 	}
 	
+	/**
+     * Applies the {@code If-Match} precondition of an update: the stored product must still have the ETag
+     * the client names. The update is then made conditional on the version that was checked.
+     *
+     * @param req     the HttpServletRequest object.
+     * @param resp    the HttpServletResponse object.
+     * @param product the product to update.
+     * @return true if the update may go ahead; otherwise 412 has been sent.
+     * @throws SQLException if the stored product cannot be read.
+     */
+	private boolean checkIfMatch(HttpServletRequest req, HttpServletResponse resp, Product product) throws SQLException {
+		if(!HttpCaching.hasIfMatch(req)) {
+			return true;
+		}
+		Optional<Product> current = productDAO.getById(product.getId());
+		if(!current.isPresent() || HttpCaching.failsIfMatch(req, EntityTags.of(current.get()))) {
+			sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Product was changed by another request");
+			return false;
+		}
+		product.setVersion(current.get().getVersion());
+		return true;
+	}
+	
 	/**
      * Parses the request body to a specified DTO class.
      *
@@ -154,28 +209,31 @@ public class ProductServlet extends HttpServlet{
 	public void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 		String pathInfo = req.getPathInfo();
 		if(pathInfo == null || pathInfo.equals(ApiPaths.PRODUCTS)) {
-			getAllProducts(resp);
+			getAllProducts(req, resp);
 		} else {
-			getProductById(resp, pathInfo);
+			getProductById(req, resp, pathInfo);
 		}
 	}
 	
 	/**
-     * Retrieves a product by ID and sends the response.
+     * Retrieves a product by ID and sends the response, or 304 if the client has the current version.
      *
+     * @param req      the HttpServletRequest object.
      * @param resp     the HttpServletResponse object.
      * @param pathInfo the path info containing the product ID.
      * @throws IOException if an I/O error occurs.
      */
-	private void getProductById(HttpServletResponse resp, String pathInfo) {
+	private void getProductById(HttpServletRequest req, HttpServletResponse resp, String pathInfo) {
 		// Extract product ID from the URL
 		String productIdStr = pathInfo.substring(1);		
 		try {
 			int productId = Integer.parseInt(productIdStr);
 			Optional<Product> productOptional = productDAO.getById(productId);
 			if(productOptional.isPresent()) {
-				ProductDTO productDTO = ProductMapper.INSTANCE.toDTO(productOptional.get());
-				sendResponse(resp, HttpServletResponse.SC_OK, productDTO);
+				Product product = productOptional.get();
+				if(!HttpCaching.checkNotModified(req, resp, EntityTags.of(product))) {
+					sendResponse(resp, HttpServletResponse.SC_OK, ProductMapper.INSTANCE.toDTO(product));
+				}
 			}else {
 				sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Product not found");
 			}
@@ -187,22 +245,155 @@ public class ProductServlet extends HttpServlet{
 	}
 
 	/**
-     * Retrieves all products and sends the response.
+     * Retrieves all products, the products with the given IDs, a filtered and sorted list, or one page of them
+     * depending on the query parameters, and sends the response.
      *
+     * @param req  the HttpServletRequest object.
      * @param resp the HttpServletResponse object.
      * @throws IOException if an I/O error occurs.
      */
-	private void getAllProducts(HttpServletResponse resp) {
+	private void getAllProducts(HttpServletRequest req, HttpServletResponse resp) {
+		if(MultiGet.isRequested(req)) {
+			getProductsByIds(req, resp);
+			return;
+		}
+		if(ProductFilters.isRequested(req)) {
+			getFilteredProducts(req, resp);
+			return;
+		}
+		if(Pagination.isRequested(req)) {
+			getProductsPage(req, resp);
+			return;
+		}
+		if(JsonStreaming.isRequested(req)) {
+			streamProducts(resp);
+			return;
+		}
+		MenuSnapshot snapshot;
+		try {
+			snapshot = menuSnapshot.get(this::renderProducts);
+		} catch (SQLException | IOException e) {
+			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving products");
+			return;
+		}
+		try {
+			HttpCaching.sendSnapshot(req, resp, snapshot);
+		} catch (IOException e) {
+			LoggerFactory.getLogger(ProductServlet.class).error("Failed to send response: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+     * Renders the full list of products as JSON for the menu snapshot.
+     *
+     * @return the JSON bytes.
+     * @throws SQLException if a database access error occurs.
+     * @throws IOException if the list cannot be serialized.
+     */
+	private byte[] renderProducts() throws SQLException, IOException {
+		List<ProductDTO> productDTOs = productDAO.getAll().stream()
+				.map(ProductMapper.INSTANCE::toDTO)
+				.toList();
+		return OBJECT_MAPPER.writeValueAsBytes(productDTOs);
+	}	
+	
+	/**
+     * Streams all products to the response as they are read from the database.
+     *
+     * @param resp the HttpServletResponse object.
+     */
+	private void streamProducts(HttpServletResponse resp) {
 		try {
-			List<Product> products = productDAO.getAll();
+			JsonStreaming.writeArray(resp, OBJECT_MAPPER, productDAO, ProductMapper.INSTANCE::toDTO);
+		} catch (SQLException | IOException e) {
+			if(resp.isCommitted()) {
+				LoggerFactory.getLogger(ProductServlet.class).error("Streaming products failed after the response was committed", e);
+			} else {
+				sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving products");
+			}
+		}
+	}
+	
+	/**
+     * Retrieves one page of products selected by the {@code after} and {@code limit} parameters
+     * and sends it with the next-page cursor.
+     *
+     * @param req  the HttpServletRequest object.
+     * @param resp the HttpServletResponse object.
+     */
+	private void getProductsPage(HttpServletRequest req, HttpServletResponse resp) {
+		try {
+			Integer afterId = Pagination.parseAfter(req);
+			int limit = Pagination.parseLimit(req);
+			List<Product> products = productDAO.getPage(afterId, limit);
+			Pagination.setNextCursor(resp, products, limit);
+			if(HttpCaching.checkNotModified(req, resp, EntityTags.ofProducts(products))) {
+				return;
+			}
 			List<ProductDTO> productDTOs = products.stream()
 					.map(ProductMapper.INSTANCE::toDTO)
 					.toList();
 			sendResponse(resp, HttpServletResponse.SC_OK, productDTOs);
+		} catch (IllegalArgumentException e) {
+			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid paging parameters");
 		} catch (SQLException e) {
 			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving products");
 		}
-	}	
+	}
+	
+	/**
+     * Retrieves the products named by the {@code ids} parameter in one query and sends them in ID order.
+     *
+     * @param req  the HttpServletRequest object.
+     * @param resp the HttpServletResponse object.
+     */
+	private void getProductsByIds(HttpServletRequest req, HttpServletResponse resp) {
+		try {
+			List<Product> products = productDAO.getByIds(MultiGet.parseIds(req));
+			if(HttpCaching.checkNotModified(req, resp, EntityTags.ofProducts(products))) {
+				return;
+			}
+			List<ProductDTO> productDTOs = products.stream()
+					.map(ProductMapper.INSTANCE::toDTO)
+					.toList();
+			sendResponse(resp, HttpServletResponse.SC_OK, productDTOs);
+		} catch (IllegalArgumentException e) {
+			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid product IDs");
+		} catch (SQLException e) {
+			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving products");
+		}
+	}
+	
+	/**
+     * Retrieves the products matching the filter and sort parameters, optionally one page of them or only
+     * the selected fields, and sends the response. Filtering, sorting and narrowing are done by the database.
+     * A next-page cursor is only sent in ID order, the only order {@code after} is accepted for.
+     *
+     * @param req  the HttpServletRequest object.
+     * @param resp the HttpServletResponse object.
+     */
+	private void getFilteredProducts(HttpServletRequest req, HttpServletResponse resp) {
+		try {
+			ProductCriteria criteria = ProductFilters.parse(req);
+			List<Product> products = productDAO.findByCriteria(criteria);
+			if(criteria.getLimit() != null && criteria.getSort() == ProductSort.ID) {
+				Pagination.setNextCursor(resp, products, criteria.getLimit());
+			}
+			Set<ProductField> fields = criteria.getFields();
+			if(HttpCaching.checkNotModified(req, resp, EntityTags.ofProducts(products, fields))) {
+				return;
+			}
+			Stream<ProductDTO> productDTOs = products.stream()
+					.map(ProductMapper.INSTANCE::toDTO);
+			sendResponse(resp, HttpServletResponse.SC_OK, fields == null 
+					? productDTOs.toList() 
+					: productDTOs.map(dto -> ProductFilters.project(dto, fields)).toList());
+		} catch (IllegalArgumentException e) {
+			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid filter parameters");
+		} catch (SQLException e) {
+			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error retrieving products");
+		}
+	}
 	
 	/**
      * Handles HTTP DELETE requests to delete a product by ID.
@@ -225,13 +416,24 @@ public class ProductServlet extends HttpServlet{
         	int productId = Integer.parseInt(productIdStr);
         	Optional<Product> existingProduct = productDAO.getById(productId);
         	if(existingProduct.isPresent()) {
-        		productDAO.delete(productId);
+        		Product product = existingProduct.get();
+        		if(HttpCaching.failsIfMatch(req, EntityTags.of(product))) {
+        			sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Product was changed by another request");
+        			return;
+        		}
+        		if(HttpCaching.hasIfMatch(req)) {
+        			productDAO.delete(productId, product.getVersion());
+        		} else {
+        			productDAO.delete(productId);
+        		}
         		sendResponse(resp, HttpServletResponse.SC_NO_CONTENT, "Product deleted");
         	} else {
         		sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Product not found");
         	}        	
 		} catch (NumberFormatException e) {
 			sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid product ID format");
+		} catch (StaleEntityException e) {
+			sendError(resp, HttpServletResponse.SC_PRECONDITION_FAILED, "Product was changed by another request");
 		} catch (SQLException e) {
 			sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error deleting product");
 		}
@@ -1,21 +1,345 @@
 package com.restaurant.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
+import com.restaurant.cache.ReferenceDataRegistry;
+import com.restaurant.database.DatabaseConfig;
 import com.restaurant.database.DatabaseConnection;
+import com.restaurant.database.NonClosingConnection;
+import com.restaurant.database.UnitOfWork;
+import com.restaurant.entity.IdentifiableEntity;
+import com.restaurant.entity.OrderStatus;
+import com.restaurant.entity.ProductCategory;
+import com.restaurant.entity.VersionedEntity;
 
 /**
  * Base class providing common DAO functionality.
+ * <p>
+ * DAOs created without a connection use the connection of the current {@link UnitOfWork} if one is active,
+ * and otherwise borrow one from the pool for each operation. DAOs created with a connection always use
+ * that connection. Either way, the connection returned by {@link #getConnection()} must be closed by the caller.
  */
 public abstract class BaseDao {
-	protected Connection connection;
+	/**
+     * Binds an ID to the first parameter of a statement.
+     */
+	protected static final StatementBinder<Integer> BIND_ID = (pstmt, id) -> pstmt.setInt(1, id);
 	
+	private final Connection connection;
+	private int batchSize;
+	private int fetchSize;
+	private ReferenceDataRegistry referenceData;
+
 	protected BaseDao() {
-		this.connection = DatabaseConnection.getInstance().getConnection();
-	}	
-	
+		this.connection = null;
+		this.referenceData = ReferenceDataRegistry.getShared();
+	}
+
 	protected BaseDao(Connection connection) {
 		super();
 		this.connection = connection;
+		this.referenceData = ReferenceDataRegistry.forConnection(connection);
+	}
+
+	/**
+     * Returns the connection to run the next operation on.
+     *
+     * @return the unit of work connection, a pooled connection, or the connection this DAO was created with.
+     * @throws SQLException if no connection can be obtained.
+     */
+	protected Connection getConnection() throws SQLException {
+		if(connection != null) {
+			return NonClosingConnection.wrap(connection);
+		}
+		Optional<UnitOfWork> unitOfWork = UnitOfWork.current();
+		if(unitOfWork.isPresent()) {
+			return unitOfWork.get().getConnection();
+		}
+		return DatabaseConnection.getInstance().getConnection();
+	}
+
+	/**
+     * Returns the registry that resolves category and status IDs.
+     *
+     * @return the registry set with {@link #setReferenceData(ReferenceDataRegistry)}, otherwise the shared one,
+     * or the one of the connection this DAO was created with.
+     */
+	protected ReferenceDataRegistry getReferenceData() {
+		return referenceData;
+	}
+	
+	/**
+     * Replaces the shared reference data registry for this DAO.
+     *
+     * @param referenceData the registry to resolve category and status IDs with.
+     */
+	public void setReferenceData(ReferenceDataRegistry referenceData) {
+		this.referenceData = referenceData;
+	}
+	
+	/**
+     * Resolves a product category ID read from a row.
+     *
+     * @param categoryId the category ID.
+     * @return the category without products.
+     * @throws SQLException if no such category exists or the reference data cannot be loaded.
+     */
+	protected ProductCategory resolveCategory(int categoryId) throws SQLException {
+		return referenceData.findCategory(categoryId, this::getConnection)
+				.orElseThrow(() -> new SQLException("Unknown product category ID: " + categoryId));
+	}
+	
+	/**
+     * Resolves an order status ID read from a row.
+     *
+     * @param statusId the ID of the {@code order_status} row.
+     * @return the order status.
+     * @throws SQLException if no such status exists or the reference data cannot be loaded.
+     */
+	protected OrderStatus resolveStatus(int statusId) throws SQLException {
+		return referenceData.findStatus(statusId, this::getConnection)
+				.orElseThrow(() -> new SQLException("Unknown order status ID: " + statusId));
+	}
+	
+	/**
+     * Returns the number of statements sent to the database in one JDBC batch.
+     *
+     * @return the value set with {@link #setBatchSize(int)}, otherwise the configured batch size.
+     */
+	protected int getBatchSize() {
+		if(batchSize > 0) {
+			return batchSize;
+		}
+		return connection != null
+				? DatabaseConfig.DEFAULT_BATCH_SIZE
+				: DatabaseConnection.getInstance().getConfig().getBatchSize();
+	}
+	
+	/**
+     * Overrides the configured batch size for this DAO.
+     *
+     * @param batchSize the number of statements per JDBC batch, at least 1.
+     */
+	public void setBatchSize(int batchSize) {
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+	
+	/**
+     * Returns the number of rows streamed queries fetch per round trip.
+     *
+     * @return the value set with {@link #setFetchSize(int)}, otherwise the configured fetch size.
+     */
+	protected int getFetchSize() {
+		if(fetchSize > 0) {
+			return fetchSize;
+		}
+		return connection != null
+				? DatabaseConfig.DEFAULT_FETCH_SIZE
+				: DatabaseConnection.getInstance().getConfig().getFetchSize();
+	}
+	
+	/**
+     * Overrides the configured fetch size for this DAO.
+     *
+     * @param fetchSize the number of rows per round trip of a streamed query, at least 1.
+     */
+	public void setFetchSize(int fetchSize) {
+		if(fetchSize < 1) {
+			throw new IllegalArgumentException("Fetch size must be at least 1: " + fetchSize);
+		}
+		this.fetchSize = fetchSize;
+	}
+	
+	/**
+     * Runs a query and hands its rows to the handler while they are still being fetched.
+     * The PostgreSQL driver only reads through a cursor, {@link #getFetchSize()} rows at a time,
+     * when auto-commit is off; if the connection is in auto-commit mode, the query runs in a short
+     * transaction and auto-commit is restored afterwards.
+     *
+     * @param query the SQL query.
+     * @param handler reads the rows.
+     * @throws SQLException if a database access error occurs.
+     * @throws IOException if the handler fails to pass a row on.
+     */
+	protected void streamQuery(String query, ResultSetHandler handler) throws SQLException, IOException {
+		try(Connection conn = getConnection()) {
+			boolean autoCommit = conn.getAutoCommit();
+			if(autoCommit) {
+				conn.setAutoCommit(false);
+			}
+			try {
+				try(PreparedStatement pstmt = conn.prepareStatement(query)) {
+					pstmt.setFetchSize(getFetchSize());
+					try(ResultSet rs = pstmt.executeQuery()) {
+						handler.handle(rs);
+					}
+				}
+				if(autoCommit) {
+					conn.commit();
+				}
+			} catch (SQLException | IOException | RuntimeException e) {
+				if(autoCommit) {
+					conn.rollback();
+				}
+				throw e;
+			} finally {
+				if(autoCommit) {
+					conn.setAutoCommit(true);
+				}
+			}
+		}
+	}
+	
+	/**
+     * Runs a statement once per item, sending the executions to the database in batches.
+     *
+     * @param conn the connection to run the statement on.
+     * @param query the SQL statement.
+     * @param items the items to run the statement for.
+     * @param binder sets the statement parameters from an item.
+     * @param <E> the type of the items.
+     * @throws SQLException if a database access error occurs.
+     */
+	protected <E> void executeBatch(Connection conn, String query, Collection<? extends E> items,
+			StatementBinder<? super E> binder) throws SQLException {
+		int size = getBatchSize();
+		try(PreparedStatement pstmt = conn.prepareStatement(query)) {
+			int pending = 0;
+			for(E item : items) {
+				binder.bind(pstmt, item);
+				pstmt.addBatch();
+				if(++pending == size) {
+					pstmt.executeBatch();
+					pending = 0;
+				}
+			}
+			if(pending > 0) {
+				pstmt.executeBatch();
+			}
+		}
+	}
+	
+	/**
+     * Runs a statement that returns the row ID once per entity, sending the executions in batches,
+     * and sets the returned IDs (and row versions of versioned entities) on the entities in order.
+     * The returned rows carry no reference to their statement, so the update counts of a batch are
+     * checked before any ID is set: a statement that changed no row, such as a versioned upsert whose
+     * expected version no longer matches, fails the whole batch.
+     *
+     * @param conn the connection to run the statement on.
+     * @param query the SQL statement.
+     * @param entities the entities to run the statement for.
+     * @param binder sets the statement parameters from an entity.
+     * @param <E> the type of the entities.
+     * @throws StaleEntityException if a versioned entity no longer has its expected version.
+     * @throws SQLException if a database access error occurs or fewer IDs than entities are returned.
+     */
+	protected <E extends IdentifiableEntity> void executeBatchWithKeys(Connection conn, String query, 
+			List<E> entities, StatementBinder<? super E> binder) throws SQLException {
+		int size = getBatchSize();
+		try(PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+			for(int from = 0; from < entities.size(); from += size) {
+				List<E> chunk = entities.subList(from, Math.min(from + size, entities.size()));
+				for(E entity : chunk) {
+					binder.bind(pstmt, entity);
+					pstmt.addBatch();
+				}
+				checkUpdateCounts(pstmt.executeBatch(), chunk);
+				try(ResultSet keys = pstmt.getGeneratedKeys()) {
+					for(E entity : chunk) {
+						if(!keys.next()) {
+							throw new SQLException("Batch returned fewer keys than statements");
+						}
+						DAOUtils.setReturnedKey(keys, entity);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+     * Checks that every statement of a batch of upserts changed a row.
+     *
+     * @param counts the update counts returned by the batch.
+     * @param entities the entities the statements were run for, in order.
+     * @throws StaleEntityException if a versioned entity no longer has its expected version.
+     * @throws SQLException if another statement changed no row.
+     */
+	private static void checkUpdateCounts(int[] counts, List<? extends IdentifiableEntity> entities) throws SQLException {
+		for(int i = 0; i < counts.length && i < entities.size(); i++) {
+			if(counts[i] != 0) {
+				continue;
+			}
+			IdentifiableEntity entity = entities.get(i);
+			if(entity instanceof VersionedEntity && ((VersionedEntity) entity).getVersion() != 0) {
+				throw new StaleEntityException(entity.getClass().getSimpleName() + " with ID " + entity.getId()
+						+ " was changed since version " + ((VersionedEntity) entity).getVersion());
+			}
+			throw new SQLException("Saving " + entity.getClass().getSimpleName() + " failed, no row returned.");
+		}
+	}
+	
+	/**
+     * Locks a row and checks that it still has the expected version, as the first step of a conditional delete.
+     *
+     * @param conn the connection of the transaction that will change the row.
+     * @param query the {@code SELECT version ... FOR UPDATE} query with the row ID as its only parameter.
+     * @param id the ID of the row.
+     * @param expectedVersion the version the row must have, or 0 to skip the check.
+     * @throws StaleEntityException if the row is gone or has another version.
+     * @throws SQLException if a database access error occurs.
+     */
+	protected void checkVersion(Connection conn, String query, int id, long expectedVersion) throws SQLException {
+		if(expectedVersion == 0) {
+			return;
+		}
+		try(PreparedStatement pstmt = conn.prepareStatement(query)) {
+			pstmt.setInt(1, id);
+			try(ResultSet rs = pstmt.executeQuery()) {
+				if(!rs.next() || rs.getLong(1) != expectedVersion) {
+					throw new StaleEntityException("Row with ID " + id + " was changed since version " + expectedVersion);
+				}
+			}
+		}
+	}
+	
+	/**
+     * Runs several statements atomically. If the connection already belongs to a transaction,
+     * such as the one of a writable {@link UnitOfWork}, the work joins it. Otherwise a short
+     * transaction is started, committed or rolled back, and auto-commit is restored.
+     *
+     * @param work the statements to run.
+     * @param <R> the type of the result.
+     * @return the result of the work.
+     * @throws SQLException if a database access error occurs; the work is rolled back.
+     */
+	protected <R> R inTransaction(ConnectionCallback<R> work) throws SQLException {
+		try(Connection conn = getConnection()) {
+			if(!conn.getAutoCommit()) {
+				return work.execute(conn);
+			}
+			conn.setAutoCommit(false);
+			try {
+				R result = work.execute(conn);
+				conn.commit();
+				return result;
+			} catch (SQLException | RuntimeException e) {
+				conn.rollback();
+				throw e;
+			} finally {
+				conn.setAutoCommit(true);
+			}
+		}
 	}
 }
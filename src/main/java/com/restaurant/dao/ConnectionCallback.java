@@ -0,0 +1,21 @@
+package com.restaurant.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Work to run on a database connection.
+ *
+ * @param <R> the type of the result
+ */
+@FunctionalInterface
+public interface ConnectionCallback<R> {
+	/**
+     * Runs the work.
+     *
+     * @param conn the connection to run the work on
+     * @return the result of the work
+     * @throws SQLException if a database access error occurs
+     */
+	R execute(Connection conn) throws SQLException;
+}
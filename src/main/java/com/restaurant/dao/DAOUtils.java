@@ -1,10 +1,13 @@
 package com.restaurant.dao;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 
 import com.restaurant.entity.IdentifiableEntity;
+import com.restaurant.entity.VersionedEntity;
 
 /**
  * Utility class providing common DAO-related functions.
@@ -29,4 +32,81 @@ public class DAOUtils {
 			}
 		}	
 	}
+	
+	/**
+     * Binds the keyset of a page query: the ID to start after and the page size.
+     * 
+     * @param pstmt the page query with the parameters {@code id > ?} and {@code LIMIT ?}
+     * @param afterId the ID of the last entity of the previous page, or null for the first page
+     * @param limit the maximum number of entities to return
+     * @throws SQLException if a database access error occurs
+     */
+	public static void bindPage(PreparedStatement pstmt, Integer afterId, int limit) throws SQLException {
+		pstmt.setInt(1, afterId == null ? 0 : afterId);
+		pstmt.setInt(2, limit);
+	}
+	
+	/**
+     * Binds a set of IDs as one integer array, for a query with the condition {@code id = ANY(?)}.
+     * 
+     * @param conn the connection the statement belongs to, used to create the array
+     * @param pstmt the query
+     * @param index the index of the array parameter
+     * @param ids the IDs to look up
+     * @throws SQLException if a database access error occurs
+     */
+	public static void bindIds(Connection conn, PreparedStatement pstmt, int index, Collection<Integer> ids) 
+			throws SQLException {
+		pstmt.setArray(index, conn.createArrayOf("integer", ids.toArray()));
+	}
+	
+	/**
+     * Binds the expected version of a conditional upsert, which appears twice: {@code ? = 0 OR version = ?}.
+     * 
+     * @param pstmt the upsert statement
+     * @param index the index of the first of the two parameters
+     * @param entity the entity whose version the row must still have, or 0 to update unconditionally
+     * @throws SQLException if a database access error occurs
+     */
+	public static void bindExpectedVersion(PreparedStatement pstmt, int index, VersionedEntity entity) throws SQLException {
+		pstmt.setLong(index, entity.getVersion());
+		pstmt.setLong(index + 1, entity.getVersion());
+	}
+	
+	/**
+     * Sets the row ID returned by an upsert or batch on the entity, and for a {@link VersionedEntity}
+     * also the new row version returned in the second column.
+     * 
+     * @param rs the result positioned on the returned row
+     * @param entity the entity that was inserted or updated
+     * @throws SQLException if a database access error occurs
+     */
+	public static void setReturnedKey(ResultSet rs, IdentifiableEntity entity) throws SQLException {
+		entity.setId(rs.getInt(1));
+		if(entity instanceof VersionedEntity) {
+			((VersionedEntity) entity).setVersion(rs.getLong(2));
+		}
+	}
+	
+	/**
+     * Executes an upsert statement that ends in {@code RETURNING id} (or {@code RETURNING id, version})
+     * and sets the returned values on the entity.
+     * 
+     * @param pstmt the populated upsert statement
+     * @param entity the entity that was inserted or updated
+     * @throws StaleEntityException if the entity carried an expected version that the row no longer has
+     * @throws SQLException if a database access error occurs or no row was returned
+     */
+	public static void executeUpsert(PreparedStatement pstmt, IdentifiableEntity entity) throws SQLException {
+		try(ResultSet rs = pstmt.executeQuery()){
+			if(!rs.next()) {
+				if(entity instanceof VersionedEntity && ((VersionedEntity) entity).getVersion() != 0) {
+					throw new StaleEntityException(entity.getClass().getSimpleName() + " with ID " + entity.getId() 
+							+ " was changed since version " + ((VersionedEntity) entity).getVersion());
+				}
+				throw new SQLException("Saving " + entity.getClass().getSimpleName() + " failed, no row returned.");
+			}
+			setReturnedKey(rs, entity);
+		}
+	}
 }
@@ -1,6 +1,8 @@
 package com.restaurant.dao;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,7 +31,28 @@ public interface Dao <T, I> {
 	List<T> getAll() throws SQLException;
 	
 	/**
-     * Saves an entity.
+     * Streams all entities to a visitor as they are read from the database, without collecting them.
+     * The rows are fetched from a server-side cursor in chunks, so memory use does not grow with the table.
+     * 
+     * @param visitor receives each entity in the order of {@link #getAll()}
+     * @throws SQLException if a database access error occurs
+     * @throws IOException if the visitor fails to handle an entity; the remaining rows are not read
+     */
+	void streamAll(EntityVisitor<? super T> visitor) throws SQLException, IOException;
+	
+	/**
+     * Retrieves one page of entities in ID order, starting after the given ID (keyset pagination).
+     * 
+     * @param afterId the ID of the last entity of the previous page, or null for the first page
+     * @param limit the maximum number of entities to return
+     * @return the entities with an ID greater than afterId, at most limit of them
+     * @throws SQLException if a database access error occurs
+     */
+	List<T> getPage(I afterId, int limit) throws SQLException;
+	
+	/**
+     * Saves an entity: inserts it, or updates the stored entity with the same ID,
+     * in a single statement without reading the entity first.
      * 
      * @param t the entity to save
      * @return the saved entity
@@ -37,6 +60,16 @@ public interface Dao <T, I> {
      */
 	T save(T t) throws SQLException;
 	
+	/**
+     * Saves several entities in one transaction, sending the statements to the database in batches.
+     * New entities receive their generated IDs in the order of the collection.
+     * 
+     * @param entities the entities to save
+     * @return the saved entities, in the order of the collection
+     * @throws SQLException if a database access error occurs; no entity is saved
+     */
+	List<T> saveAll(Collection<T> entities) throws SQLException;
+	
 	/**
      * Deletes an entity by its ID.
      * 
@@ -44,4 +77,12 @@ public interface Dao <T, I> {
      * @throws SQLException if a database access error occurs
      */
 	void delete(I id) throws SQLException;
+	
+	/**
+     * Deletes several entities by their IDs in one transaction, sending the statements in batches.
+     * 
+     * @param ids the IDs of the entities to delete
+     * @throws SQLException if a database access error occurs; no entity is deleted
+     */
+	void deleteAll(Collection<I> ids) throws SQLException;
 }
@@ -1,19 +1,37 @@
 package com.restaurant.dao;
 
+import com.restaurant.cache.CachingProductDAO;
 import com.restaurant.dao.impl.OrderDetailDAO;
 import com.restaurant.dao.impl.ProductCategoryDAO;
 import com.restaurant.dao.impl.ProductDAO;
 
 /**
  * Factory class for creating DAO instances.
+ * The DAOs borrow a connection from the shared connection pool for each operation.
  */
 public class DaoFactory {
+	/**
+     * Shared by all callers so that they use, and invalidate, the same product cache.
+     */
+	private static final CachingProductDAO CACHING_PRODUCT_DAO = new CachingProductDAO();
+	
 	 /**
-     * Returns an instance of ProductDAO.
+     * Returns an instance of ProductDAO that reads products by ID through the product cache.
+     * The cache is sized by the {@code cache} section of the configuration; a
+     * {@code product-max-size} of 0 turns it off.
      * 
      * @return an instance of ProductDAO
      */
 	public ProductDAO getProductDao() {
+		return CACHING_PRODUCT_DAO;
+	}
+	
+	/**
+     * Returns an instance of ProductDAO that always reads from the database.
+     * 
+     * @return an instance of ProductDAO without a cache
+     */
+	public ProductDAO getUncachedProductDao() {
 		return new ProductDAO();
 	}
 	
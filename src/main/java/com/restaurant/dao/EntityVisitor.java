@@ -0,0 +1,19 @@
+package com.restaurant.dao;
+
+import java.io.IOException;
+
+/**
+ * Receives the entities of a streamed query one at a time, as they are read from the database.
+ *
+ * @param <T> the type of the entity
+ */
+@FunctionalInterface
+public interface EntityVisitor<T> {
+	/**
+     * Handles the next entity. The entity is not kept by the DAO once this method returns.
+     *
+     * @param entity the entity read from the current row or rows
+     * @throws IOException if the entity cannot be written to its destination
+     */
+	void visit(T entity) throws IOException;
+}
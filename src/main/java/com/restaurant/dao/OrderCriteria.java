@@ -0,0 +1,26 @@
+package com.restaurant.dao;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.restaurant.entity.OrderStatus;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Filter and keyset page of an order search. Unset filters do not restrict the result;
+ * an empty status set matches every status. Results are always ordered by order ID.
+ * Without {@code withProducts} the orders are loaded without their products.
+ */
+@Getter
+@Setter
+public class OrderCriteria {
+	private Set<OrderStatus> statuses = EnumSet.noneOf(OrderStatus.class);
+	private BigDecimal minAmount;
+	private BigDecimal maxAmount;
+	private Integer afterId;
+	private int limit;
+	private boolean withProducts = true;
+}
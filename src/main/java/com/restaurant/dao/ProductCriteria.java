@@ -0,0 +1,26 @@
+package com.restaurant.dao;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Filter, sort order and optional keyset page of a product query. Unset filters do not restrict the result.
+ * Keyset paging with {@code afterId} is only defined for the {@link ProductSort#ID} order.
+ * If {@code fields} is set, only those fields are read; ID and version are always read.
+ */
+@Getter
+@Setter
+public class ProductCriteria {
+	private Integer categoryId;
+	private Boolean available;
+	private BigDecimal minPrice;
+	private BigDecimal maxPrice;
+	private ProductSort sort = ProductSort.ID;
+	private boolean descending;
+	private Integer afterId;
+	private Integer limit;
+	private Set<ProductField> fields;
+}
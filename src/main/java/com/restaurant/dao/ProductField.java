@@ -0,0 +1,50 @@
+package com.restaurant.dao;
+
+import java.util.Optional;
+
+import com.restaurant.queries.ProductSQLQueries;
+
+/**
+ * Whitelist of the product fields a client can select, each mapped to the column of
+ * {@link ProductSQLQueries} that holds it. Selecting {@link #PRODUCT_CATEGORY} is what makes a query
+ * read the category ID and resolve the category; without it the category is left out entirely.
+ */
+public enum ProductField {
+	ID("id", ProductSQLQueries.COLUMN_ID),
+	NAME("name", ProductSQLQueries.COLUMN_NAME),
+	PRICE("price", ProductSQLQueries.COLUMN_PRICE),
+	QUANTITY("quantity", ProductSQLQueries.COLUMN_QUANTITY),
+	AVAILABLE("available", ProductSQLQueries.COLUMN_AVAILABLE),
+	PRODUCT_CATEGORY("productCategory", ProductSQLQueries.COLUMN_CATEGORY_ID);
+	
+	private final String jsonName;
+	private final String column;
+	
+	ProductField(String jsonName, String column) {
+		this.jsonName = jsonName;
+		this.column = column;
+	}
+	
+	public String getJsonName() {
+		return jsonName;
+	}
+	
+	public String getColumn() {
+		return column;
+	}
+	
+	/**
+     * Looks up a field by its name in the product JSON.
+     *
+     * @param jsonName the name, case-insensitive, such as {@code price} or {@code productCategory}.
+     * @return the field, or empty if the name is not on the whitelist.
+     */
+	public static Optional<ProductField> fromJsonName(String jsonName) {
+		for(ProductField field : values()) {
+			if(field.jsonName.equalsIgnoreCase(jsonName)) {
+				return Optional.of(field);
+			}
+		}
+		return Optional.empty();
+	}
+}
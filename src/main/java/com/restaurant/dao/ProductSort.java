@@ -0,0 +1,42 @@
+package com.restaurant.dao;
+
+import java.util.Locale;
+import java.util.Optional;
+
+import com.restaurant.queries.ProductSQLQueries;
+
+/**
+ * Whitelist of the orders in which products can be listed, each mapped to a column of
+ * {@link ProductSQLQueries}.
+ */
+public enum ProductSort {
+	ID(ProductSQLQueries.COLUMN_ID),
+	NAME(ProductSQLQueries.COLUMN_NAME),
+	PRICE(ProductSQLQueries.COLUMN_PRICE),
+	QUANTITY(ProductSQLQueries.COLUMN_QUANTITY);
+	
+	private final String column;
+	
+	ProductSort(String column) {
+		this.column = column;
+	}
+	
+	public String getColumn() {
+		return column;
+	}
+	
+	/**
+     * Looks up a sort order by its name as used in request parameters.
+     *
+     * @param name the name, case-insensitive, such as {@code price}.
+     * @return the sort order, or empty if the name is not on the whitelist.
+     */
+	public static Optional<ProductSort> fromName(String name) {
+		for(ProductSort sort : values()) {
+			if(sort.name().equals(name.toUpperCase(Locale.ROOT))) {
+				return Optional.of(sort);
+			}
+		}
+		return Optional.empty();
+	}
+}
@@ -0,0 +1,20 @@
+package com.restaurant.dao;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the rows of a streamed query.
+ */
+@FunctionalInterface
+public interface ResultSetHandler {
+	/**
+     * Reads the result set to its end.
+     *
+     * @param rs the open result set, positioned before the first row
+     * @throws SQLException if a database access error occurs
+     * @throws IOException if a row cannot be passed on to its destination
+     */
+	void handle(ResultSet rs) throws SQLException, IOException;
+}
@@ -0,0 +1,20 @@
+package com.restaurant.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when a conditional write finds that the row no longer has the expected version,
+ * because it was changed or deleted since it was read.
+ */
+public class StaleEntityException extends SQLException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+     * Creates the exception.
+     *
+     * @param message the detail message.
+     */
+	public StaleEntityException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,21 @@
+package com.restaurant.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sets the parameters of a prepared statement from one item of a batch.
+ *
+ * @param <E> the type of the item
+ */
+@FunctionalInterface
+public interface StatementBinder<E> {
+	/**
+     * Binds the item to the statement parameters.
+     *
+     * @param pstmt the statement to populate
+     * @param item the item to bind
+     * @throws SQLException if a parameter cannot be set
+     */
+	void bind(PreparedStatement pstmt, E item) throws SQLException;
+}
@@ -1,16 +1,19 @@
 package com.restaurant.dao.impl;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import com.restaurant.dao.AbstractDao;
 import com.restaurant.dao.DAOUtils;
+import com.restaurant.dao.EntityVisitor;
 import com.restaurant.entity.OrderApproval;
 import com.restaurant.entity.OrderDetail;
 import com.restaurant.queries.OrderApprovalSQLQueries;
@@ -27,7 +30,8 @@ public class OrderApprovalDAO extends AbstractDao<OrderApproval, Integer>{
 	
 	@Override
 	public Optional<OrderApproval> getById(Integer approvalId) throws SQLException {
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderApprovalSQLQueries.GET_APPROVAL_BY_ID)) {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderApprovalSQLQueries.GET_APPROVAL_BY_ID)) {
 			pstmt.setInt(1, approvalId);
 			try(ResultSet rs = pstmt.executeQuery()) {
 				if(rs.next()) {
@@ -58,7 +62,32 @@ public class OrderApprovalDAO extends AbstractDao<OrderApproval, Integer>{
 	@Override
 	public List<OrderApproval> getAll() throws SQLException {
 		List<OrderApproval> approvals = new ArrayList<>();
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderApprovalSQLQueries.GET_ALL_APPROVALS)) {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderApprovalSQLQueries.GET_ALL_APPROVALS)) {
+			try(ResultSet rs = pstmt.executeQuery()) {
+				while(rs.next()) {
+					approvals.add(mapResultSetToApproval(rs));
+				}
+			}
+		}		
+		return approvals;
+	}
+	
+	@Override
+	public void streamAll(EntityVisitor<? super OrderApproval> visitor) throws SQLException, IOException {
+		streamQuery(OrderApprovalSQLQueries.GET_ALL_APPROVALS, rs -> {
+			while(rs.next()) {
+				visitor.visit(mapResultSetToApproval(rs));
+			}
+		});
+	}
+	
+	@Override
+	public List<OrderApproval> getPage(Integer afterId, int limit) throws SQLException {
+		List<OrderApproval> approvals = new ArrayList<>();
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderApprovalSQLQueries.GET_APPROVALS_PAGE)) {
+			DAOUtils.bindPage(pstmt, afterId, limit);
 			try(ResultSet rs = pstmt.executeQuery()) {
 				while(rs.next()) {
 					approvals.add(mapResultSetToApproval(rs));
@@ -70,7 +99,36 @@ public class OrderApprovalDAO extends AbstractDao<OrderApproval, Integer>{
 	
 	@Override
 	public OrderApproval save(OrderApproval approval) throws SQLException {		
-		return getById(approval.getId()).isPresent() ? updateApproval(approval) : createApproval(approval);
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderApprovalSQLQueries.UPSERT_APPROVAL)) {
+			bindUpsert(pstmt, approval);
+			DAOUtils.executeUpsert(pstmt, approval);
+		}
+		return approval;
+	}
+	
+	@Override
+	public List<OrderApproval> saveAll(Collection<OrderApproval> approvals) throws SQLException {
+		List<OrderApproval> saved = new ArrayList<>(approvals);
+		if(!saved.isEmpty()) {
+			inTransaction(conn -> {
+				executeBatchWithKeys(conn, OrderApprovalSQLQueries.UPSERT_APPROVAL, saved, this::bindUpsert);
+				return null;
+			});
+		}
+		return saved;
+	}
+	
+	/**
+     * Binds an OrderApproval entity to the parameters of the upsert statement.
+     *
+     * @param pstmt the upsert statement.
+     * @param approval the OrderApproval entity.
+     * @throws SQLException if a database access error occurs.
+     */
+	private void bindUpsert(PreparedStatement pstmt, OrderApproval approval) throws SQLException {
+		pstmt.setInt(1, approval.getOrderDetail().getId());
+		pstmt.setInt(2, approval.getId());
 	}
 	
 	/**
@@ -81,7 +139,8 @@ public class OrderApprovalDAO extends AbstractDao<OrderApproval, Integer>{
      * @throws SQLException if a database access error occurs.
      */
 	public OrderApproval createApproval(OrderApproval approval) throws SQLException {
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderApprovalSQLQueries.INSERT_APPROVAL, 
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderApprovalSQLQueries.INSERT_APPROVAL, 
 				Statement.RETURN_GENERATED_KEYS)){
 			pstmt.setInt(1, approval.getOrderDetail().getId());
 			pstmt.executeUpdate();
@@ -99,7 +158,8 @@ public class OrderApprovalDAO extends AbstractDao<OrderApproval, Integer>{
      * @throws SQLException if a database access error occurs.
      */
 	public OrderApproval updateApproval(OrderApproval approval) throws SQLException {
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderApprovalSQLQueries.UPDATE_APPROVAL)) {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderApprovalSQLQueries.UPDATE_APPROVAL)) {
 			pstmt.setInt(1, approval.getOrderDetail().getId());
 			pstmt.setInt(2, approval.getId());
 			pstmt.executeUpdate();
@@ -109,9 +169,21 @@ public class OrderApprovalDAO extends AbstractDao<OrderApproval, Integer>{
 	
 	@Override
 	public void delete(Integer approvalId) throws SQLException {
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderApprovalSQLQueries.DELETE_APPROVAL)) {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderApprovalSQLQueries.DELETE_APPROVAL)) {
 			pstmt.setInt(1, approvalId);
 			pstmt.executeUpdate();
 		}
 	}
+	
+	@Override
+	public void deleteAll(Collection<Integer> approvalIds) throws SQLException {
+		if(approvalIds.isEmpty()) {
+			return;
+		}
+		inTransaction(conn -> {
+			executeBatch(conn, OrderApprovalSQLQueries.DELETE_APPROVAL, approvalIds, BIND_ID);
+			return null;
+		});
+	}
 }
@@ -1,19 +1,26 @@
 package com.restaurant.dao.impl;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.StringJoiner;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.restaurant.dao.AbstractDao;
 import com.restaurant.dao.DAOUtils;
+import com.restaurant.dao.EntityVisitor;
+import com.restaurant.dao.OrderCriteria;
+import com.restaurant.dao.StaleEntityException;
 import com.restaurant.entity.OrderDetail;
 import com.restaurant.entity.OrderStatus;
 import com.restaurant.entity.Product;
@@ -37,21 +44,90 @@ public class OrderDetailDAO extends AbstractDao<OrderDetail, Integer>{
 
 	@Override
 	public Optional<OrderDetail> getById(Integer detailId) throws SQLException {
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderDetailSQLQueries.GET_DETAIL_BY_ID)) {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderDetailSQLQueries.GET_DETAIL_WITH_PRODUCTS_BY_ID)) {
 			pstmt.setInt(1, detailId);
 			try(ResultSet rs = pstmt.executeQuery()){
-				if(rs.next()) {
-					OrderDetail orderDetail = mapResultSetToOrderDetail(rs);
-					
-					return Optional.of(orderDetail);			
-				}		
+				List<OrderDetail> orderDetails = mapResultSetToOrderDetails(rs);
+				return orderDetails.stream().findFirst();
 			}
 		}
-		return Optional.empty();
 	}
 	
 	/**
-     * Maps a ResultSet to an OrderDetail entity.
+     * Maps the rows of an order-with-products query to OrderDetail entities in a single pass.
+     * The rows must be ordered by order ID; consecutive rows of the same order add one product each.
+     *
+     * @param rs the ResultSet to map.
+     * @return the mapped OrderDetail entities with their products, in row order.
+     * @throws SQLException if a database access error occurs.
+     */
+	private List<OrderDetail> mapResultSetToOrderDetails(ResultSet rs) throws SQLException {
+		List<OrderDetail> orderDetails = new ArrayList<>();
+		OrderDetail current = null;
+		while(rs.next()) {
+			int orderId = rs.getInt("id");
+			if(current == null || current.getId() != orderId) {
+				current = mapResultSetToOrderDetail(rs);
+				current.setProducts(new ArrayList<>());
+				orderDetails.add(current);
+			}
+			int productId = rs.getInt("product_id");
+			if(!rs.wasNull()) {
+				current.getProducts().add(mapJoinedRowToProduct(rs, productId));
+			}
+		}
+		return orderDetails;
+	}
+	
+	/**
+     * Maps the rows of a query without products to OrderDetail entities whose products are not loaded (null).
+     *
+     * @param rs the ResultSet to map.
+     * @return the mapped OrderDetail entities, in row order.
+     * @throws SQLException if a database access error occurs.
+     */
+	private List<OrderDetail> mapResultSetToOrdersWithoutProducts(ResultSet rs) throws SQLException {
+		List<OrderDetail> orderDetails = new ArrayList<>();
+		while(rs.next()) {
+			orderDetails.add(mapResultSetToOrderDetail(rs));
+		}
+		return orderDetails;
+	}
+	
+	/**
+     * Streams the rows of an order-with-products query to a visitor, one completed OrderDetail at a time.
+     * Only the order being assembled is held in memory; it is passed on when the first row of the next order arrives.
+     *
+     * @param rs the ResultSet to read, ordered by order ID.
+     * @param visitor receives each OrderDetail entity with its products.
+     * @throws SQLException if a database access error occurs.
+     * @throws IOException if the visitor fails to handle an entity.
+     */
+	private void visitOrderDetails(ResultSet rs, EntityVisitor<? super OrderDetail> visitor) 
+			throws SQLException, IOException {
+		OrderDetail current = null;
+		while(rs.next()) {
+			int orderId = rs.getInt("id");
+			if(current == null || current.getId() != orderId) {
+				if(current != null) {
+					visitor.visit(current);
+				}
+				current = mapResultSetToOrderDetail(rs);
+				current.setProducts(new ArrayList<>());
+			}
+			int productId = rs.getInt("product_id");
+			if(!rs.wasNull()) {
+				current.getProducts().add(mapJoinedRowToProduct(rs, productId));
+			}
+		}
+		if(current != null) {
+			visitor.visit(current);
+		}
+	}
+	
+	/**
+     * Maps the order columns of the current row to an OrderDetail entity without products.
      *
      * @param rs the ResultSet to map.
      * @return the mapped OrderDetail entity.
@@ -61,15 +137,37 @@ public class OrderDetailDAO extends AbstractDao<OrderDetail, Integer>{
 		OrderDetail orderDetail = new OrderDetail();
 		orderDetail.setId(rs.getInt("id"));		
 		orderDetail.setTotalAmount(rs.getBigDecimal("total_amount"));
+		orderDetail.setVersion(rs.getLong("version"));
 		
-		OrderStatus orderStatus = OrderStatus.valueOf(rs.getString("status_name"));	   
+		OrderStatus orderStatus = resolveStatus(rs.getInt("status_id"));
 	    orderDetail.setOrderStatus(orderStatus);
 	    
-	    orderDetail.setProducts(getProductsByOrderDetailId(rs.getInt("id")));
-	    
 		return orderDetail;
 	}
 	
+	/**
+     * Maps the product columns of an order-with-products row to a Product entity.
+     *
+     * @param rs the ResultSet to map.
+     * @param productId the already read product ID.
+     * @return the mapped Product entity.
+     * @throws SQLException if a database access error occurs.
+     */
+	private Product mapJoinedRowToProduct(ResultSet rs, int productId) throws SQLException {
+		ProductCategory category = resolveCategory(rs.getInt("category_id"));
+	    
+	    Product product = new Product();
+	    product.setId(productId);
+	    product.setName(rs.getString("product_name"));
+	    product.setPrice(rs.getBigDecimal("price"));
+	    product.setQuantity(rs.getInt("quantity"));
+	    product.setAvailable(rs.getBoolean("available"));
+	    product.setProductCategory(category);
+	    product.setVersion(rs.getLong("product_version"));
+	    
+	    return product;
+	}
+	
 	/**
      * Retrieves all Products entities from the database where the OrderDetail entity by its ID.
      *
@@ -78,8 +176,22 @@ public class OrderDetailDAO extends AbstractDao<OrderDetail, Integer>{
      * @throws SQLException if a database access error occurs.
      */
 	public List<Product> getProductsByOrderDetailId(Integer orderDetailId) throws SQLException {
+		try(Connection conn = getConnection()) {
+			return getProductsByOrderDetailId(conn, orderDetailId);
+		}
+	}
+	
+	/**
+     * Retrieves all Products entities of an OrderDetail on the given connection.
+     *
+     * @param conn the connection to run the query on.
+     * @param orderDetailId the ID of the OrderDetail.
+     * @return a list of all Products entities.
+     * @throws SQLException if a database access error occurs.
+     */
+	private List<Product> getProductsByOrderDetailId(Connection conn, Integer orderDetailId) throws SQLException {
 	    List<Product> products = new ArrayList<>();
-	    try(PreparedStatement pstmt = connection.prepareStatement(
+	    try(PreparedStatement pstmt = conn.prepareStatement(
 	    		OrderDetailSQLQueries.GET_PRODUCTS_BY_ORDER_DETAIL_ID)) {
 	    	pstmt.setInt(1, orderDetailId);
 	    	try(ResultSet rs = pstmt.executeQuery()) {
@@ -99,10 +211,7 @@ public class OrderDetailDAO extends AbstractDao<OrderDetail, Integer>{
 	 * @throws SQLException if a database access error occurs.
 	 */
 	private Product mapResultSetToProduct(ResultSet rs) throws SQLException {
-	    ProductCategory category = new ProductCategory();
-	    category.setId(rs.getInt("category_id"));
-	    category.setName(rs.getString("category_name"));
-	    category.setType(rs.getString("category_type"));
+	    ProductCategory category = resolveCategory(rs.getInt("category_id"));
 	    
 	    Product product = new Product();
 	    product.setId(rs.getInt("id"));
@@ -111,46 +220,202 @@ public class OrderDetailDAO extends AbstractDao<OrderDetail, Integer>{
 	    product.setQuantity(rs.getInt("quantity"));
 	    product.setAvailable(rs.getBoolean("available"));
 	    product.setProductCategory(category);
+	    product.setVersion(rs.getLong("version"));
 	    
 	    return product;
 	}
 	
 	@Override
 	public List<OrderDetail> getAll() throws SQLException {
-		List<OrderDetail> orderDetails = new ArrayList<>();
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderDetailSQLQueries.GET_ALL_DETAILS)) {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderDetailSQLQueries.GET_ALL_DETAILS_WITH_PRODUCTS);
+				ResultSet rs = pstmt.executeQuery()) {
+			return mapResultSetToOrderDetails(rs);
+		}
+	}
+	
+	/**
+     * Retrieves all order details without their products in one narrow query.
+     *
+     * @return the order details, ordered by ID, with products not loaded (null).
+     * @throws SQLException if a database access error occurs.
+     */
+	public List<OrderDetail> getAllWithoutProducts() throws SQLException {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderDetailSQLQueries.GET_ALL_DETAILS_WITHOUT_PRODUCTS);
+				ResultSet rs = pstmt.executeQuery()) {
+			return mapResultSetToOrdersWithoutProducts(rs);
+		}
+	}
+	
+	@Override
+	public void streamAll(EntityVisitor<? super OrderDetail> visitor) throws SQLException, IOException {
+		streamQuery(OrderDetailSQLQueries.GET_ALL_DETAILS_WITH_PRODUCTS, rs -> visitOrderDetails(rs, visitor));
+	}
+	
+	/**
+     * Retrieves the order details with the given IDs together with their products in one query.
+     *
+     * @param detailIds the IDs of the order details.
+     * @return the order details that exist, ordered by ID.
+     * @throws SQLException if a database access error occurs.
+     */
+	public List<OrderDetail> getByIds(Collection<Integer> detailIds) throws SQLException {
+		if(detailIds.isEmpty()) {
+			return new ArrayList<>();
+		}
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderDetailSQLQueries.GET_DETAILS_WITH_PRODUCTS_BY_IDS)) {
+			DAOUtils.bindIds(conn, pstmt, 1, detailIds);
 			try(ResultSet rs = pstmt.executeQuery()) {
-				while(rs.next()) {
-					orderDetails.add(mapResultSetToOrderDetail(rs));			
-				}
+				return mapResultSetToOrderDetails(rs);
 			}
 		}
-		return orderDetails;
+	}
+	
+	@Override
+	public List<OrderDetail> getPage(Integer afterId, int limit) throws SQLException {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderDetailSQLQueries.GET_DETAILS_WITH_PRODUCTS_PAGE)) {
+			DAOUtils.bindPage(pstmt, afterId, limit);
+			try(ResultSet rs = pstmt.executeQuery()) {
+				return mapResultSetToOrderDetails(rs);
+			}
+		}
+	}
+	
+	/**
+     * Retrieves one page of order details without their products, in ID order after the given ID.
+     *
+     * @param afterId the ID of the last order of the previous page, or null for the first page.
+     * @param limit the maximum number of orders to return.
+     * @return the order details of the page, with products not loaded (null).
+     * @throws SQLException if a database access error occurs.
+     */
+	public List<OrderDetail> getPageWithoutProducts(Integer afterId, int limit) throws SQLException {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderDetailSQLQueries.GET_DETAILS_PAGE_WITHOUT_PRODUCTS)) {
+			DAOUtils.bindPage(pstmt, afterId, limit);
+			try(ResultSet rs = pstmt.executeQuery()) {
+				return mapResultSetToOrdersWithoutProducts(rs);
+			}
+		}
+	}
+	
+	/**
+     * Retrieves one page of the orders matching the criteria, with their products. The orders are filtered
+     * and limited in the database, in ID order after {@link OrderCriteria#getAfterId()}.
+     *
+     * @param criteria the filters and the page.
+     * @return the matching orders of the page, ordered by ID, with their products if the criteria ask for them.
+     * @throws SQLException if a database access error occurs.
+     */
+	public List<OrderDetail> search(OrderCriteria criteria) throws SQLException {
+		List<Object> parameters = new ArrayList<>();
+		String query = buildSearchQuery(criteria, parameters);
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(query)) {
+			for(int i = 0; i < parameters.size(); i++) {
+				pstmt.setObject(i + 1, parameters.get(i));
+			}
+			try(ResultSet rs = pstmt.executeQuery()) {
+				return criteria.isWithProducts() 
+						? mapResultSetToOrderDetails(rs) : mapResultSetToOrdersWithoutProducts(rs);
+			}
+		}
+	}
+	
+	/**
+     * Builds the parameterized search query for the criteria from the fragments in {@link OrderDetailSQLQueries}.
+     * The statuses are bound in enum order, so the same set always yields the same SQL text and parameters.
+     *
+     * @param criteria the filters and the page.
+     * @param parameters receives the parameter values in placeholder order.
+     * @return the SQL text.
+     */
+	public static String buildSearchQuery(OrderCriteria criteria, List<Object> parameters) {
+		StringBuilder query = new StringBuilder(criteria.isWithProducts() 
+				? OrderDetailSQLQueries.SEARCH_DETAILS_START : OrderDetailSQLQueries.SEARCH_DETAILS_WITHOUT_PRODUCTS_START);
+		parameters.add(criteria.getAfterId() == null ? 0 : criteria.getAfterId());
+		if(!criteria.getStatuses().isEmpty()) {
+			StringJoiner placeholders = new StringJoiner(", ", 
+					OrderDetailSQLQueries.FILTER_BY_STATUS_START, OrderDetailSQLQueries.FILTER_BY_STATUS_END);
+			for(OrderStatus status : EnumSet.copyOf(criteria.getStatuses())) {
+				placeholders.add("?");
+				parameters.add(status.getId());
+			}
+			query.append(placeholders);
+		}
+		if(criteria.getMinAmount() != null) {
+			query.append(OrderDetailSQLQueries.FILTER_BY_MIN_AMOUNT);
+			parameters.add(criteria.getMinAmount());
+		}
+		if(criteria.getMaxAmount() != null) {
+			query.append(OrderDetailSQLQueries.FILTER_BY_MAX_AMOUNT);
+			parameters.add(criteria.getMaxAmount());
+		}
+		query.append(criteria.isWithProducts() 
+				? OrderDetailSQLQueries.SEARCH_DETAILS_END : OrderDetailSQLQueries.SEARCH_DETAILS_WITHOUT_PRODUCTS_END);
+		parameters.add(criteria.getLimit());
+		return query.toString();
 	}
 	
 	@Override
 	public void delete(Integer detailId) throws SQLException {
+		delete(detailId, 0);
+	}
+	
+	/**
+	 * Deletes an order detail if its row still has the expected version.
+	 *
+	 * @param detailId the ID of the order detail.
+	 * @param expectedVersion the version read before, or 0 to delete unconditionally.
+	 * @throws StaleEntityException if the order was changed or deleted since that version.
+	 * @throws SQLException if a database access error occurs.
+	 */
+	public void delete(Integer detailId, long expectedVersion) throws SQLException {
+		try {
+			inTransaction(conn -> {
+				checkVersion(conn, OrderDetailSQLQueries.LOCK_DETAIL_VERSION, detailId, expectedVersion);
+				executeUpdate(conn, OrderDetailSQLQueries.DELETE_APPROVAL_BY_ORDER_ID, detailId);
+				executeUpdate(conn, OrderDetailSQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_ORDER_ID, detailId);
+				executeUpdate(conn, OrderDetailSQLQueries.DELETE_DETAIL, detailId);
+				return null;
+			});
+		} catch (SQLException e) {
+			LOGGER.error("Error deleting order with ID: {}", detailId, e);
+			throw e;
+		}
+	}
+	
+	@Override
+	public void deleteAll(Collection<Integer> detailIds) throws SQLException {
+		if(detailIds.isEmpty()) {
+			return;
+		}
 		try {
-            connection.setAutoCommit(false);
-            executeUpdate(OrderDetailSQLQueries.DELETE_APPROVAL_BY_ORDER_ID, detailId);
-            executeUpdate(OrderDetailSQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_ORDER_ID, detailId);            
-            executeUpdate(OrderDetailSQLQueries.DELETE_DETAIL, detailId);
-            connection.commit();
-        } catch (SQLException e) {
-        	connection.rollback();  
-        	LOGGER.error("Error deleting order with ID: {}", detailId, e);
-        }		
+			inTransaction(conn -> {
+				executeBatch(conn, OrderDetailSQLQueries.DELETE_APPROVAL_BY_ORDER_ID, detailIds, BIND_ID);
+				executeBatch(conn, OrderDetailSQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_ORDER_ID, detailIds, BIND_ID);
+				executeBatch(conn, OrderDetailSQLQueries.DELETE_DETAIL, detailIds, BIND_ID);
+				return null;
+			});
+		} catch (SQLException e) {
+			LOGGER.error("Error deleting {} orders", detailIds.size(), e);
+			throw e;
+		}
 	}
 	
 	/**
 	 * Executes a SQL update query.
 	 *
+	 * @param conn the connection to execute the query on.
 	 * @param query the SQL query to execute.
 	 * @param id the ID to set in the query.
 	 * @throws SQLException if a database access error occurs.
 	 */
-	private void executeUpdate(String query, Integer id) throws SQLException {
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	private void executeUpdate(Connection conn, String query, Integer id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         }        
@@ -158,7 +423,37 @@ public class OrderDetailDAO extends AbstractDao<OrderDetail, Integer>{
 	
 	@Override
 	public OrderDetail save(OrderDetail detail) throws SQLException {		
-		return getById(detail.getId()).isPresent() ? updateDetail(detail) : createDetail(detail);
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderDetailSQLQueries.UPSERT_DETAIL)) {
+			bindUpsert(pstmt, detail);
+			DAOUtils.executeUpsert(pstmt, detail);
+		}
+		return detail;
+	}
+	
+	@Override
+	public List<OrderDetail> saveAll(Collection<OrderDetail> details) throws SQLException {
+		List<OrderDetail> saved = new ArrayList<>(details);
+		if(!saved.isEmpty()) {
+			inTransaction(conn -> {
+				executeBatchWithKeys(conn, OrderDetailSQLQueries.UPSERT_DETAIL, saved, this::bindUpsert);
+				return null;
+			});
+		}
+		return saved;
+	}
+	
+	/**
+	 * Binds an OrderDetail entity to the parameters of the upsert statement.
+	 *
+	 * @param pstmt the upsert statement.
+	 * @param detail the OrderDetail entity.
+	 * @throws SQLException if a database access error occurs.
+	 */
+	private void bindUpsert(PreparedStatement pstmt, OrderDetail detail) throws SQLException {
+		populatePreparedStatement(detail, pstmt);
+		pstmt.setInt(3, detail.getId());
+		DAOUtils.bindExpectedVersion(pstmt, 4, detail);
 	}
 	
 	/**
@@ -169,12 +464,14 @@ public class OrderDetailDAO extends AbstractDao<OrderDetail, Integer>{
 	 * @throws SQLException if a database access error occurs.
 	 */
 	public OrderDetail createDetail(OrderDetail detail) throws SQLException {
-		PreparedStatement pstmt = connection.prepareStatement(OrderDetailSQLQueries.INSERT_DETAIL, 
-				Statement.RETURN_GENERATED_KEYS);
-		populatePreparedStatement(detail, pstmt);
-		pstmt.executeUpdate();
-		
-		DAOUtils.setGeneratedKey(pstmt, detail);
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderDetailSQLQueries.INSERT_DETAIL, 
+				Statement.RETURN_GENERATED_KEYS)) {
+			populatePreparedStatement(detail, pstmt);
+			pstmt.executeUpdate();
+			
+			DAOUtils.setGeneratedKey(pstmt, detail);
+		}
 		
 		return detail;
 	}
@@ -199,10 +496,12 @@ public class OrderDetailDAO extends AbstractDao<OrderDetail, Integer>{
 	 * @throws SQLException if a database access error occurs.
 	 */	
 	public OrderDetail updateDetail(OrderDetail detail) throws SQLException {
-		PreparedStatement pstmt = connection.prepareStatement(OrderDetailSQLQueries.UPDATE_DETAIL);
-		populatePreparedStatement(detail, pstmt);
-		pstmt.setInt(3, detail.getId());
-		pstmt.executeUpdate();
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderDetailSQLQueries.UPDATE_DETAIL)) {
+			populatePreparedStatement(detail, pstmt);
+			pstmt.setInt(3, detail.getId());
+			pstmt.executeUpdate();
+		}
 		return detail;
 	}
 }
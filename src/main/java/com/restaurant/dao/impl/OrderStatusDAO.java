@@ -1,14 +1,18 @@
 package com.restaurant.dao.impl;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import com.restaurant.dao.AbstractDao;
+import com.restaurant.dao.DAOUtils;
+import com.restaurant.dao.EntityVisitor;
 import com.restaurant.entity.OrderStatus;
 import com.restaurant.queries.OrderStatusSQLQueries;
 
@@ -24,7 +28,8 @@ public class OrderStatusDAO extends AbstractDao<OrderStatus, Integer>{
 	
 	@Override
 	public Optional<OrderStatus> getById(Integer statusId) throws SQLException {
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderStatusSQLQueries.GET_STATUS_BY_ID)) {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderStatusSQLQueries.GET_STATUS_BY_ID)) {
 			pstmt.setInt(1, statusId);
 			try(ResultSet rs = pstmt.executeQuery()) {
 				if(rs.next()) {
@@ -50,7 +55,32 @@ public class OrderStatusDAO extends AbstractDao<OrderStatus, Integer>{
 	@Override
 	public List<OrderStatus> getAll() throws SQLException {
 		List<OrderStatus> orderStatus = new ArrayList<>();
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderStatusSQLQueries.GET_ALL_STATUS)) {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderStatusSQLQueries.GET_ALL_STATUS)) {
+			try(ResultSet rs = pstmt.executeQuery()){
+				while(rs.next()) {
+					 orderStatus.add(mapResultSetToOrderStatus(rs));
+				}
+			}
+		}		
+		return orderStatus;
+	}	
+	
+	@Override
+	public void streamAll(EntityVisitor<? super OrderStatus> visitor) throws SQLException, IOException {
+		streamQuery(OrderStatusSQLQueries.GET_ALL_STATUS, rs -> {
+			while(rs.next()) {
+				visitor.visit(mapResultSetToOrderStatus(rs));
+			}
+		});
+	}
+	
+	@Override
+	public List<OrderStatus> getPage(Integer afterId, int limit) throws SQLException {
+		List<OrderStatus> orderStatus = new ArrayList<>();
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderStatusSQLQueries.GET_STATUS_PAGE)) {
+			DAOUtils.bindPage(pstmt, afterId, limit);
 			try(ResultSet rs = pstmt.executeQuery()){
 				while(rs.next()) {
 					 orderStatus.add(mapResultSetToOrderStatus(rs));
@@ -62,7 +92,8 @@ public class OrderStatusDAO extends AbstractDao<OrderStatus, Integer>{
 	
 	@Override
 	public OrderStatus save(OrderStatus status) throws SQLException {
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderStatusSQLQueries.INSERT_STATUS)) {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderStatusSQLQueries.INSERT_STATUS)) {
 			pstmt.setString(1, status.name());
 			int affectedRows = pstmt.executeUpdate();
 			
@@ -70,15 +101,44 @@ public class OrderStatusDAO extends AbstractDao<OrderStatus, Integer>{
 	            throw new SQLException("Creating order status failed, no rows affected.");
 	        }
 		}
+		getReferenceData().invalidate();
 		return status;
 	}	
 	
+	@Override
+	public List<OrderStatus> saveAll(Collection<OrderStatus> statuses) throws SQLException {
+		List<OrderStatus> saved = new ArrayList<>(statuses);
+		if(!saved.isEmpty()) {
+			inTransaction(conn -> {
+				executeBatch(conn, OrderStatusSQLQueries.INSERT_STATUS, saved, 
+						(pstmt, status) -> pstmt.setString(1, status.name()));
+				return null;
+			});
+			getReferenceData().invalidate();
+		}
+		return saved;
+	}
+	
 	@Override
 	public void delete(Integer statusId) throws SQLException {
-		try(PreparedStatement pstmt = connection.prepareStatement(OrderStatusSQLQueries.DELETE_STATUS)) {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(OrderStatusSQLQueries.DELETE_STATUS)) {
 			pstmt.setInt(1, statusId);
 			pstmt.executeUpdate();
 		}
+		getReferenceData().invalidate();
+	}
+	
+	@Override
+	public void deleteAll(Collection<Integer> statusIds) throws SQLException {
+		if(statusIds.isEmpty()) {
+			return;
+		}
+		inTransaction(conn -> {
+			executeBatch(conn, OrderStatusSQLQueries.DELETE_STATUS, statusIds, BIND_ID);
+			return null;
+		});
+		getReferenceData().invalidate();
 	}
 
 }
@@ -1,19 +1,23 @@
 package com.restaurant.dao.impl;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.restaurant.cache.MenuSnapshotHolder;
 import com.restaurant.dao.AbstractDao;
 import com.restaurant.dao.DAOUtils;
+import com.restaurant.dao.EntityVisitor;
+import com.restaurant.dao.StaleEntityException;
 import com.restaurant.entity.Product;
 import com.restaurant.entity.ProductCategory;
 import com.restaurant.queries.ProductCategorySQLQueries;
@@ -35,14 +39,12 @@ public class ProductCategoryDAO extends AbstractDao<ProductCategory, Integer>{
 	
 	@Override
 	public Optional<ProductCategory> getById(Integer categoryId) throws SQLException {
-		try(PreparedStatement pstmt = connection.prepareStatement(
-				ProductCategorySQLQueries.GET_CATEGORY_BY_ID)) {			            
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(
+				ProductCategorySQLQueries.GET_CATEGORY_WITH_PRODUCTS_BY_ID)) {			            
             pstmt.setInt(1, categoryId);
             try(ResultSet rs = pstmt.executeQuery()) {
-            	if(rs.next()) {
-                    ProductCategory productCategory = mapResultSetToCategory(rs);
-                    return Optional.of(productCategory);
-                }
+            	return mapResultSetToCategories(rs).stream().findFirst();
             }
             
         } catch (SQLException e) {
@@ -52,19 +54,88 @@ public class ProductCategoryDAO extends AbstractDao<ProductCategory, Integer>{
 	}
 	
 	/**
-     * Maps a ResultSet to a ProductCategory entity and Product entity with ID of ProductCategory.
+     * Maps the rows of a category-with-products query to ProductCategory entities in a single pass.
+     * The rows must be ordered by category ID; consecutive rows of the same category add one product each.
      *
      * @param rs the ResultSet to map.
-     * @return the mapped ProductCategory entity.
+     * @return the mapped ProductCategory entities with their products, in row order.
      * @throws SQLException if a database access error occurs.
      */
-	private ProductCategory mapResultSetToCategory(ResultSet rs) throws SQLException {	
-		return new ProductCategory(
-				rs.getInt("category_id"),
-		        rs.getString("category_name"),
-		        rs.getString("category_type"),
-				getProductsByCategoryId(rs.getInt("category_id"))
-				);
+	private List<ProductCategory> mapResultSetToCategories(ResultSet rs) throws SQLException {
+		List<ProductCategory> categories = new ArrayList<>();
+		ProductCategory current = null;
+		while(rs.next()) {
+			int categoryId = rs.getInt("category_id");
+			if(current == null || current.getId() != categoryId) {
+				current = new ProductCategory(
+						categoryId,
+						rs.getString("category_name"),
+						rs.getString("category_type"),
+						new ArrayList<>(),
+						rs.getLong("category_version"));
+				categories.add(current);
+			}
+			int productId = rs.getInt("product_id");
+			if(!rs.wasNull()) {
+				current.getProducts().add(mapJoinedRowToProduct(rs, productId));
+			}
+		}
+		return categories;
+	}
+	
+	/**
+     * Streams the rows of a category-with-products query to a visitor, one completed ProductCategory at a time.
+     * Only the category being assembled is held in memory; it is passed on when the first row of the next
+     * category arrives.
+     *
+     * @param rs the ResultSet to read, ordered by category ID.
+     * @param visitor receives each ProductCategory entity with its products.
+     * @throws SQLException if a database access error occurs.
+     * @throws IOException if the visitor fails to handle an entity.
+     */
+	private void visitCategories(ResultSet rs, EntityVisitor<? super ProductCategory> visitor) 
+			throws SQLException, IOException {
+		ProductCategory current = null;
+		while(rs.next()) {
+			int categoryId = rs.getInt("category_id");
+			if(current == null || current.getId() != categoryId) {
+				if(current != null) {
+					visitor.visit(current);
+				}
+				current = new ProductCategory(
+						categoryId,
+						rs.getString("category_name"),
+						rs.getString("category_type"),
+						new ArrayList<>(),
+						rs.getLong("category_version"));
+			}
+			int productId = rs.getInt("product_id");
+			if(!rs.wasNull()) {
+				current.getProducts().add(mapJoinedRowToProduct(rs, productId));
+			}
+		}
+		if(current != null) {
+			visitor.visit(current);
+		}
+	}
+	
+	/**
+     * Maps the product columns of a category-with-products row to a Product entity.
+     *
+     * @param rs the ResultSet to map.
+     * @param productId the already read product ID.
+     * @return the mapped Product entity.
+     * @throws SQLException if a database access error occurs.
+     */
+	private Product mapJoinedRowToProduct(ResultSet rs, int productId) throws SQLException {
+		Product product = new Product();
+		product.setId(productId);
+		product.setName(rs.getString("product_name"));
+		product.setPrice(rs.getBigDecimal("price"));
+		product.setQuantity(rs.getInt("quantity"));
+		product.setAvailable(rs.getBoolean("available"));
+		product.setVersion(rs.getLong("product_version"));
+		return product;
 	}
 	
 	 /**
@@ -75,8 +146,21 @@ public class ProductCategoryDAO extends AbstractDao<ProductCategory, Integer>{
      * @throws SQLException if a database access error occurs.
      */
 	public List<Product> getProductsByCategoryId(Integer categoryId) throws SQLException {
+		try(Connection conn = getConnection()) {
+			return getProductsByCategoryId(conn, categoryId);
+		}
+	}
+	
+	/**
+     * Retrieves the Product entities of a ProductCategory on the given connection.
+     *
+     * @param conn the connection to run the query on.
+     * @param categoryId the ID of the ProductCategory.
+     * @return a list of associated Product entities.
+     */
+	private List<Product> getProductsByCategoryId(Connection conn, Integer categoryId) {
         List<Product> products = new ArrayList<>(); 
-        try(PreparedStatement pstmt = connection.prepareStatement(
+        try(PreparedStatement pstmt = conn.prepareStatement(
         		ProductCategorySQLQueries.GET_PRODUCTS_BY_CATEGORY_ID)) {
             pstmt.setInt(1, categoryId);
             try(ResultSet rs = pstmt.executeQuery()) {
@@ -105,48 +189,147 @@ public class ProductCategoryDAO extends AbstractDao<ProductCategory, Integer>{
 		product.setPrice(rs.getBigDecimal("price"));
 		product.setQuantity(rs.getInt("quantity"));
 		product.setAvailable(rs.getBoolean("available"));
+		product.setVersion(rs.getLong("version"));
 		return product;
 	}
 
+	/**
+     * Retrieves the menu in one query: the categories with their available products.
+     *
+     * @return the categories that have available products, each with those products, ordered by ID.
+     * @throws SQLException if a database access error occurs.
+     */
+	public List<ProductCategory> getMenu() throws SQLException {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(ProductCategorySQLQueries.GET_MENU);
+				ResultSet rs = pstmt.executeQuery()) {
+			return mapResultSetToCategories(rs);
+		}
+	}
+	
 	@Override
 	public List<ProductCategory> getAll() throws SQLException {
-		 List<ProductCategory> productCategories = new ArrayList<>();
-		 try (PreparedStatement pstmt = connection.prepareStatement(
-				 ProductCategorySQLQueries.GET_ALL_CATEGORIES)) {	            
-	            ResultSet rs = pstmt.executeQuery();
-	            while(rs.next()) {
-	                productCategories.add(mapResultSetToCategory(rs));
-	            }
+		 try (Connection conn = getConnection();
+				 PreparedStatement pstmt = conn.prepareStatement(
+				 ProductCategorySQLQueries.GET_ALL_CATEGORIES_WITH_PRODUCTS);
+				 ResultSet rs = pstmt.executeQuery()) {
+	            return mapResultSetToCategories(rs);
 	        } catch (SQLException e) {	        	
 	        	LOGGER.error("Error retrieving all categories", e);	                        
 	        }
-	     return productCategories;  
+	     return new ArrayList<>();  
+	}
+	
+	@Override
+	public void streamAll(EntityVisitor<? super ProductCategory> visitor) throws SQLException, IOException {
+		streamQuery(ProductCategorySQLQueries.GET_ALL_CATEGORIES_WITH_PRODUCTS, rs -> visitCategories(rs, visitor));
+	}
+
+	/**
+     * Retrieves all product categories without their products in one narrow query.
+     *
+     * @return the categories, ordered by ID, with products not loaded (null).
+     * @throws SQLException if a database access error occurs.
+     */
+	public List<ProductCategory> getAllWithoutProducts() throws SQLException {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(ProductCategorySQLQueries.GET_ALL_CATEGORIES_BY_ID);
+				ResultSet rs = pstmt.executeQuery()) {
+			return mapResultSetToCategoriesWithoutProducts(rs);
+		}
+	}
+	
+	/**
+     * Retrieves one page of product categories without their products, in ID order after the given ID.
+     *
+     * @param afterId the ID of the last category of the previous page, or null for the first page.
+     * @param limit the maximum number of categories to return.
+     * @return the categories of the page, with products not loaded (null).
+     * @throws SQLException if a database access error occurs.
+     */
+	public List<ProductCategory> getPageWithoutProducts(Integer afterId, int limit) throws SQLException {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(ProductCategorySQLQueries.GET_CATEGORIES_PAGE)) {
+			DAOUtils.bindPage(pstmt, afterId, limit);
+			try(ResultSet rs = pstmt.executeQuery()) {
+				return mapResultSetToCategoriesWithoutProducts(rs);
+			}
+		}
+	}
+	
+	/**
+     * Maps the rows of a category query without products to ProductCategory entities whose products are not loaded.
+     *
+     * @param rs the ResultSet to map.
+     * @return the mapped ProductCategory entities with null products, in row order.
+     * @throws SQLException if a database access error occurs.
+     */
+	private List<ProductCategory> mapResultSetToCategoriesWithoutProducts(ResultSet rs) throws SQLException {
+		List<ProductCategory> categories = new ArrayList<>();
+		while(rs.next()) {
+			categories.add(new ProductCategory(
+					rs.getInt("category_id"),
+					rs.getString("category_name"),
+					rs.getString("category_type"),
+					null,
+					rs.getLong("category_version")));
+		}
+		return categories;
+	}
+	
+	@Override
+	public List<ProductCategory> getPage(Integer afterId, int limit) throws SQLException {
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(
+				ProductCategorySQLQueries.GET_CATEGORIES_WITH_PRODUCTS_PAGE)) {
+			DAOUtils.bindPage(pstmt, afterId, limit);
+			try(ResultSet rs = pstmt.executeQuery()) {
+				return mapResultSetToCategories(rs);
+			}
+		}
 	}
 
 	@Override
 	public ProductCategory save(ProductCategory category) throws SQLException {		
-		return getById(category.getId()).isPresent() ? updateCategory(category) : createCategory(category);
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(
+				ProductCategorySQLQueries.UPSERT_CATEGORY)) {
+			bindUpsert(pstmt, category);
+			DAOUtils.executeUpsert(pstmt, category);
+		}
+		getReferenceData().invalidate();
+		MenuSnapshotHolder.menuChanged();
+		
+		return category;
+	}
+	
+	@Override
+	public List<ProductCategory> saveAll(Collection<ProductCategory> categories) throws SQLException {
+		List<ProductCategory> saved = new ArrayList<>(categories);
+		if(!saved.isEmpty()) {
+			inTransaction(conn -> {
+				executeBatchWithKeys(conn, ProductCategorySQLQueries.UPSERT_CATEGORY, saved, this::bindUpsert);
+				return null;
+			});
+			getReferenceData().invalidate();
+			MenuSnapshotHolder.menuChanged();
+		}
+		return saved;
 	}
 	
 	/**
-     * Creates a new ProductCategory entity in the database.
+     * Binds a ProductCategory entity to the parameters of the upsert statement.
      *
-     * @param productCategory the ProductCategory entity to create.
-     * @return the created ProductCategory entity.
+     * @param pstmt the upsert statement.
+     * @param category the ProductCategory entity.
      * @throws SQLException if a database access error occurs.
      */
-	private ProductCategory createCategory(ProductCategory category) throws SQLException {
-		PreparedStatement pstmt = connection.prepareStatement(
-				ProductCategorySQLQueries.INSERT_CATEGORY, 
-				Statement.RETURN_GENERATED_KEYS);
+	private void bindUpsert(PreparedStatement pstmt, ProductCategory category) throws SQLException {
 		populatePreparedStatement(category, pstmt);
-		pstmt.executeUpdate();
-		
-		DAOUtils.setGeneratedKey(pstmt, category);
-		
-		return category;
+		pstmt.setInt(3, category.getId());
+		DAOUtils.bindExpectedVersion(pstmt, 4, category);
 	}
-
+	
 	/**
      * Populates a PreparedStatement with ProductCategory entity data.
      *
@@ -159,46 +342,67 @@ public class ProductCategoryDAO extends AbstractDao<ProductCategory, Integer>{
 		pstmt.setString(2, category.getType());
 	}
 	
+	@Override
+    public void delete(Integer categoryId) throws SQLException {
+		delete(categoryId, 0);
+	}
+	
 	/**
-     * Updates an existing ProductCategory entity in the database.
+     * Deletes a product category with its products if its row still has the expected version.
      *
-     * @param productCategory the ProductCategory entity to update.
-     * @return the updated ProductCategory entity.
+     * @param categoryId the ID of the category.
+     * @param expectedVersion the version read before, or 0 to delete unconditionally.
+     * @throws StaleEntityException if the category was changed or deleted since that version.
      * @throws SQLException if a database access error occurs.
      */
-	private ProductCategory updateCategory(ProductCategory category) throws SQLException {
-		PreparedStatement pstmt = connection.prepareStatement(
-				ProductCategorySQLQueries.UPDATE_CATEGORY);
-		populatePreparedStatement(category, pstmt);
-		pstmt.setInt(3, category.getId());
-		pstmt.executeUpdate();
-		
-		return category;
-	}
-	
-	@Override
-    public void delete(Integer categoryId) throws SQLException {
+	public void delete(Integer categoryId, long expectedVersion) throws SQLException {
         try {
-            connection.setAutoCommit(false);
-            executeUpdate(ProductCategorySQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_CATEGORY_ID, categoryId);
-            executeUpdate(ProductCategorySQLQueries.DELETE_PRODUCTS_BY_CATEGORY_ID, categoryId);
-            executeUpdate(ProductCategorySQLQueries.DELETE_CATEGORY, categoryId);
-            connection.commit();
+        	inTransaction(conn -> {
+        		checkVersion(conn, ProductCategorySQLQueries.LOCK_CATEGORY_VERSION, categoryId, expectedVersion);
+        		executeUpdate(conn, ProductCategorySQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_CATEGORY_ID, categoryId);
+        		executeUpdate(conn, ProductCategorySQLQueries.DELETE_PRODUCTS_BY_CATEGORY_ID, categoryId);
+        		executeUpdate(conn, ProductCategorySQLQueries.DELETE_CATEGORY, categoryId);
+        		return null;
+        	});
+        	getReferenceData().invalidate();
+        	MenuSnapshotHolder.menuChanged();
         } catch (SQLException e) {
-            connection.rollback();           
-            LOGGER.error("Error deleting category with ID: {}", categoryId, e);           
+        	LOGGER.error("Error deleting category with ID: {}", categoryId, e);
+        	throw e;
         }
     }
 
+	@Override
+	public void deleteAll(Collection<Integer> categoryIds) throws SQLException {
+		if(categoryIds.isEmpty()) {
+			return;
+		}
+		try {
+			inTransaction(conn -> {
+				executeBatch(conn, ProductCategorySQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_CATEGORY_ID, 
+						categoryIds, BIND_ID);
+				executeBatch(conn, ProductCategorySQLQueries.DELETE_PRODUCTS_BY_CATEGORY_ID, categoryIds, BIND_ID);
+				executeBatch(conn, ProductCategorySQLQueries.DELETE_CATEGORY, categoryIds, BIND_ID);
+				return null;
+			});
+			getReferenceData().invalidate();
+			MenuSnapshotHolder.menuChanged();
+		} catch (SQLException e) {
+			LOGGER.error("Error deleting {} categories", categoryIds.size(), e);
+			throw e;
+		}
+	}
+
 	/**
      * Executes an update operation on the database.
      *
+     * @param conn the connection to execute the query on.
      * @param query the SQL query to execute.
      * @param id the ID to set in the query.
      * @throws SQLException if a database access error occurs.
      */
-    private void executeUpdate(String query, Integer id) throws SQLException {
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    private void executeUpdate(Connection conn, String query, Integer id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         }
@@ -1,20 +1,29 @@
 package com.restaurant.dao.impl;
 
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.restaurant.cache.MenuSnapshotHolder;
 import com.restaurant.dao.AbstractDao;
 import com.restaurant.dao.DAOUtils;
+import com.restaurant.dao.EntityVisitor;
+import com.restaurant.dao.ProductCriteria;
+import com.restaurant.dao.ProductField;
+import com.restaurant.dao.ProductSort;
+import com.restaurant.dao.StaleEntityException;
 import com.restaurant.entity.Product;
 import com.restaurant.entity.ProductCategory;
 import com.restaurant.queries.ProductSQLQueries;
@@ -36,7 +45,8 @@ public class ProductDAO extends AbstractDao<Product, Integer>{
 	
 	@Override
 	public Optional<Product> getById(Integer productId) throws SQLException {	
-		try(PreparedStatement pstmt = connection.prepareStatement(
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(
 				ProductSQLQueries.GET_PRODUCT_BY_ID)){
 			pstmt.setInt(1, productId);
 			try(ResultSet rs = pstmt.executeQuery()){
@@ -51,32 +61,32 @@ public class ProductDAO extends AbstractDao<Product, Integer>{
 	
 	/**
      * Maps a ResultSet to a Product entity with Product Category.
+     * The category is resolved from its ID through the reference data registry.
      *
      * @param rs the ResultSet to map.
      * @return the mapped Product entity with Product Category.
      * @throws SQLException if a database access error occurs.
      */
 	public Product mapResultSetToProduct(ResultSet rs) throws SQLException {	
-		ProductCategory category = new ProductCategory();
-		category.setId(rs.getInt("category_id"));
-        category.setName(rs.getString("category_name"));
-        category.setType(rs.getString("category_type"));
+		ProductCategory category = resolveCategory(rs.getInt("category_id"));
 		return new Product(
 		        rs.getInt("id"),
 		        rs.getString("name"),
 		        rs.getBigDecimal("price"),
 		        rs.getInt("quantity"),
 		        rs.getBoolean("available"),
-		        category
+		        category,
+		        rs.getLong("version")
 		    );
 	}	
 	
 	@Override
 	public List<Product> getAll() throws SQLException {
 		List<Product> products = new ArrayList<>();
-		try(PreparedStatement pstmt = connection.prepareStatement(
-				ProductSQLQueries.GET_ALL_PRODUCTS)) {
-			ResultSet rs = pstmt.executeQuery();			
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(
+				ProductSQLQueries.GET_ALL_PRODUCTS);
+				ResultSet rs = pstmt.executeQuery()) {
 			while (rs.next()) {
 				products.add(mapResultSetToProduct(rs));
 			}	
@@ -84,28 +94,235 @@ public class ProductDAO extends AbstractDao<Product, Integer>{
 		return products;
 	}	
 	
+	@Override
+	public void streamAll(EntityVisitor<? super Product> visitor) throws SQLException, IOException {
+		streamQuery(ProductSQLQueries.GET_ALL_PRODUCTS, rs -> {
+			while(rs.next()) {
+				visitor.visit(mapResultSetToProduct(rs));
+			}
+		});
+	}
+	
+	/**
+     * Retrieves the products with the given IDs in one query.
+     *
+     * @param productIds the IDs of the products.
+     * @return the products that exist, ordered by ID.
+     * @throws SQLException if a database access error occurs.
+     */
+	public List<Product> getByIds(Collection<Integer> productIds) throws SQLException {
+		List<Product> products = new ArrayList<>();
+		if(productIds.isEmpty()) {
+			return products;
+		}
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(ProductSQLQueries.GET_PRODUCTS_BY_IDS)) {
+			DAOUtils.bindIds(conn, pstmt, 1, productIds);
+			try(ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					products.add(mapResultSetToProduct(rs));
+				}
+			}
+		}
+		return products;
+	}
+	
+	@Override
+	public List<Product> getPage(Integer afterId, int limit) throws SQLException {
+		List<Product> products = new ArrayList<>();
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(ProductSQLQueries.GET_PRODUCTS_PAGE)) {
+			DAOUtils.bindPage(pstmt, afterId, limit);
+			try(ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					products.add(mapResultSetToProduct(rs));
+				}
+			}
+		}
+		return products;
+	}
+	
+	/**
+     * Retrieves the products that match the criteria. Filtering, sorting and paging happen in the database.
+     *
+     * @param criteria the filters, sort order and optional page.
+     * @return the matching products in the requested order.
+     * @throws SQLException if a database access error occurs.
+     */
+	public List<Product> findByCriteria(ProductCriteria criteria) throws SQLException {
+		List<Object> parameters = new ArrayList<>();
+		String query = buildCriteriaQuery(criteria, parameters);
+		List<Product> products = new ArrayList<>();
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(query)) {
+			for(int i = 0; i < parameters.size(); i++) {
+				pstmt.setObject(i + 1, parameters.get(i));
+			}
+			try(ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					products.add(criteria.getFields() == null 
+							? mapResultSetToProduct(rs) : mapProjectedRow(rs, criteria.getFields()));
+				}
+			}
+		}
+		return products;
+	}
+	
+	/**
+     * Maps a row of a query with a narrowed select list to a Product entity. Fields that were not selected
+     * keep their defaults; the category is only resolved if it was selected.
+     *
+     * @param rs the ResultSet to map.
+     * @param fields the selected fields.
+     * @return the mapped Product entity.
+     * @throws SQLException if a database access error occurs.
+     */
+	private Product mapProjectedRow(ResultSet rs, Set<ProductField> fields) throws SQLException {
+		Product product = new Product();
+		product.setId(rs.getInt("id"));
+		product.setVersion(rs.getLong("version"));
+		if(fields.contains(ProductField.NAME)) {
+			product.setName(rs.getString("name"));
+		}
+		if(fields.contains(ProductField.PRICE)) {
+			product.setPrice(rs.getBigDecimal("price"));
+		}
+		if(fields.contains(ProductField.QUANTITY)) {
+			product.setQuantity(rs.getInt("quantity"));
+		}
+		if(fields.contains(ProductField.AVAILABLE)) {
+			product.setAvailable(rs.getBoolean("available"));
+		}
+		if(fields.contains(ProductField.PRODUCT_CATEGORY)) {
+			product.setProductCategory(resolveCategory(rs.getInt("category_id")));
+		}
+		return product;
+	}
+	
+	/**
+     * Builds the select list for the requested fields. The ID and version are always selected for paging
+     * and entity tags; the columns follow the order of {@link ProductField}, so equal field sets share one SQL text.
+     *
+     * @param fields the requested fields, or null for all of them.
+     * @return the start of the query up to and including its WHERE condition.
+     */
+	private static String buildSelect(Set<ProductField> fields) {
+		if(fields == null) {
+			return ProductSQLQueries.GET_ALL_PRODUCTS;
+		}
+		StringJoiner columns = new StringJoiner(", ", ProductSQLQueries.SELECT, ProductSQLQueries.FROM_PRODUCTS);
+		columns.add(ProductSQLQueries.COLUMN_ID);
+		for(ProductField field : ProductField.values()) {
+			if(field != ProductField.ID && fields.contains(field)) {
+				columns.add(field.getColumn());
+			}
+		}
+		columns.add(ProductSQLQueries.COLUMN_VERSION);
+		return columns.toString();
+	}
+	
+	/**
+     * Builds the parameterized query for the criteria from the fragments in {@link ProductSQLQueries}.
+     * Only the filters that are set add a condition, so each combination is one stable SQL text that
+     * the statement cache can reuse. Products with equal sort values are ordered by ID.
+     *
+     * @param criteria the filters, sort order and optional page.
+     * @param parameters receives the parameter values in placeholder order.
+     * @return the SQL text.
+     */
+	public static String buildCriteriaQuery(ProductCriteria criteria, List<Object> parameters) {
+		StringBuilder query = new StringBuilder(buildSelect(criteria.getFields()));
+		appendFilter(query, parameters, ProductSQLQueries.FILTER_BY_CATEGORY, criteria.getCategoryId());
+		appendFilter(query, parameters, ProductSQLQueries.FILTER_BY_AVAILABLE, criteria.getAvailable());
+		appendFilter(query, parameters, ProductSQLQueries.FILTER_BY_MIN_PRICE, criteria.getMinPrice());
+		appendFilter(query, parameters, ProductSQLQueries.FILTER_BY_MAX_PRICE, criteria.getMaxPrice());
+		appendFilter(query, parameters, 
+				criteria.isDescending() ? ProductSQLQueries.FILTER_BEFORE_ID : ProductSQLQueries.FILTER_AFTER_ID, 
+				criteria.getAfterId());
+		
+		String direction = criteria.isDescending() ? ProductSQLQueries.DESCENDING : "";
+		query.append(ProductSQLQueries.ORDER_BY).append(criteria.getSort().getColumn()).append(direction);
+		if(criteria.getSort() != ProductSort.ID) {
+			query.append(", ").append(ProductSQLQueries.COLUMN_ID).append(direction);
+		}
+		if(criteria.getLimit() != null) {
+			query.append(ProductSQLQueries.LIMIT);
+			parameters.add(criteria.getLimit());
+		}
+		return query.toString();
+	}
+	
+	/**
+     * Appends a filter condition if its value is set.
+     *
+     * @param query the query being built.
+     * @param parameters the parameter values collected so far.
+     * @param condition the condition with one placeholder.
+     * @param value the value of the filter, or null if it is not set.
+     */
+	private static void appendFilter(StringBuilder query, List<Object> parameters, String condition, Object value) {
+		if(value != null) {
+			query.append(condition);
+			parameters.add(value);
+		}
+	}
+	
 	@Override
 	public void delete(Integer productId) throws SQLException {
+		delete(productId, 0);
+	}
+	
+	/**
+     * Deletes a product if its row still has the expected version.
+     *
+     * @param productId the ID of the product.
+     * @param expectedVersion the version read before, or 0 to delete unconditionally.
+     * @throws StaleEntityException if the product was changed or deleted since that version.
+     * @throws SQLException if a database access error occurs.
+     */
+	public void delete(Integer productId, long expectedVersion) throws SQLException {
+		try {
+			inTransaction(conn -> {
+				checkVersion(conn, ProductSQLQueries.LOCK_PRODUCT_VERSION, productId, expectedVersion);
+				executeUpdate(conn, ProductSQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_PRODUCT_ID, productId);
+				executeUpdate(conn, ProductSQLQueries.DELETE_PRODUCT, productId);
+				return null;
+			});
+			MenuSnapshotHolder.menuChanged();
+		} catch (SQLException e) {
+			LOGGER.error("Error deleting product with ID: {}", productId, e);
+			throw e;
+		}
+	}
+	
+	@Override
+	public void deleteAll(Collection<Integer> productIds) throws SQLException {
+		if(productIds.isEmpty()) {
+			return;
+		}
 		try {
-            connection.setAutoCommit(false);
-            executeUpdate(ProductSQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_PRODUCT_ID, productId);            
-            executeUpdate(ProductSQLQueries.DELETE_PRODUCT, productId);
-            connection.commit();
-        } catch (SQLException e) {
-            connection.rollback();  
-            LOGGER.error("Error deleting product with ID: {}", productId, e);
-        }
+			inTransaction(conn -> {
+				executeBatch(conn, ProductSQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_PRODUCT_ID, productIds, BIND_ID);
+				executeBatch(conn, ProductSQLQueries.DELETE_PRODUCT, productIds, BIND_ID);
+				return null;
+			});
+			MenuSnapshotHolder.menuChanged();
+		} catch (SQLException e) {
+			LOGGER.error("Error deleting {} products", productIds.size(), e);
+			throw e;
+		}
 	}
 	
 	/**
      * Executes an update operation on the database.
      *
+     * @param conn the connection to execute the query on.
      * @param query the SQL query to execute.
      * @param id the ID to set in the query.
      * @throws SQLException if a database access error occurs.
      */
-	private void executeUpdate(String query, Integer id) throws SQLException {
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	private void executeUpdate(Connection conn, String query, Integer id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         }        
@@ -113,25 +330,39 @@ public class ProductDAO extends AbstractDao<Product, Integer>{
 	
 	@Override
 	public Product save(Product product) throws SQLException {
-		return getById(product.getId()).isPresent() ? updateProduct(product) : createProduct(product);
+		try(Connection conn = getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(ProductSQLQueries.UPSERT_PRODUCT)) {
+			bindUpsert(pstmt, product);
+			DAOUtils.executeUpsert(pstmt, product);
+		}
+		MenuSnapshotHolder.menuChanged();
+		return product;
+	}
+	
+	@Override
+	public List<Product> saveAll(Collection<Product> products) throws SQLException {
+		List<Product> saved = new ArrayList<>(products);
+		if(!saved.isEmpty()) {
+			inTransaction(conn -> {
+				executeBatchWithKeys(conn, ProductSQLQueries.UPSERT_PRODUCT, saved, this::bindUpsert);
+				return null;
+			});
+			MenuSnapshotHolder.menuChanged();
+		}
+		return saved;
 	}
 	
 	/**
-     * Creates a new Product entity in the database.
+     * Binds a Product entity to the parameters of the upsert statement.
      *
-     * @param product the Product entity to create.
-     * @return the created Product entity.
+     * @param pstmt the upsert statement.
+     * @param product the Product entity.
      * @throws SQLException if a database access error occurs.
      */
-	private Product createProduct(Product product) throws SQLException{
-		PreparedStatement pstmt = connection.prepareStatement(
-				ProductSQLQueries.INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS);
+	private void bindUpsert(PreparedStatement pstmt, Product product) throws SQLException {
 		populatePreparedStatement(product, pstmt);
-		pstmt.executeUpdate();		
-		
-		DAOUtils.setGeneratedKey(pstmt, product);		
-		
-		return product;
+		pstmt.setInt(6, product.getId());
+		DAOUtils.bindExpectedVersion(pstmt, 7, product);
 	}
 	
 	/**
@@ -148,21 +379,4 @@ public class ProductDAO extends AbstractDao<Product, Integer>{
 		pstmt.setBoolean(4, product.isAvailable());
 		pstmt.setInt(5, product.getProductCategory().getId());
 	}
-	
-	/**
-     * Updates an existing Product entity in the database.
-     *
-     * @param product the Product entity to update.
-     * @return the updated Product entity.
-     * @throws SQLException if a database access error occurs.
-     */
-	private Product updateProduct(Product product) throws SQLException {
-		PreparedStatement pstmt = connection.prepareStatement(
-				ProductSQLQueries.UPDATE_PRODUCT);
-		populatePreparedStatement(product, pstmt);
-		pstmt.setInt(6, product.getId());	
-		pstmt.executeUpdate();
-		
-		return product;
-	}
 }
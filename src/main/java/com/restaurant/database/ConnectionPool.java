@@ -0,0 +1,323 @@
+package com.restaurant.database;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded JDBC connection pool.
+ * <p>
+ * At most {@code poolMaxSize} connections are leased at the same time; callers that cannot get one
+ * within {@code borrowTimeoutMillis} fail with a {@link SQLTransientConnectionException}. Idle connections
+ * are validated before they are handed out and closed by a background task once they have been idle
+ * longer than {@code idleTimeoutMillis}, while the pool keeps at least {@code poolMinSize} connections open.
+ * Connections returned by {@link #getConnection()} go back to the pool when they are closed.
+ * Each physical connection keeps an LRU cache of up to {@code statementCacheSize} prepared statements.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+	private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ConnectionPool.class);
+
+	/**
+     * Connections used more recently than this are handed out without a validation round trip.
+     */
+	private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+	private final DatabaseConfig config;
+	private final BlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+	private final Semaphore leasePermits;
+	private final AtomicInteger totalConnections = new AtomicInteger();
+	private final StatementCacheStats statementCacheStats = new StatementCacheStats();
+	private final ScheduledExecutorService evictor;
+	private volatile boolean closed;
+
+	/**
+     * Creates the pool, opens the minimum number of connections and starts the idle evictor.
+     *
+     * @param config the database configuration with the pool settings.
+     * @throws SQLException if the initial connections cannot be opened.
+     */
+	public ConnectionPool(DatabaseConfig config) throws SQLException {
+		if(config.getPoolMaxSize() < 1 || config.getPoolMinSize() > config.getPoolMaxSize()) {
+			throw new DatabaseConfigException("Invalid pool size: min=" + config.getPoolMinSize()
+					+ ", max=" + config.getPoolMaxSize());
+		}
+		this.config = config;
+		this.leasePermits = new Semaphore(config.getPoolMaxSize(), true);
+		fillToMinimum();
+		this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-pool-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.evictor.scheduleWithFixedDelay(this::evictIdleConnections,
+				config.getEvictionIntervalMillis(),
+				config.getEvictionIntervalMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+     * Borrows a connection from the pool. Closing the returned connection hands it back.
+     *
+     * @return a validated connection.
+     * @throws SQLException if no connection becomes available within the borrow timeout
+     * or a new connection cannot be opened.
+     */
+	@Override
+	public Connection getConnection() throws SQLException {
+		if(closed) {
+			throw new SQLException("Connection pool is closed");
+		}
+		acquirePermit();
+		try {
+			return nextValidConnection().lease();
+		} catch (SQLException | RuntimeException e) {
+			leasePermits.release();
+			throw e;
+		}
+	}
+
+	/**
+     * Waits for a free lease slot.
+     *
+     * @throws SQLException if the wait times out or is interrupted.
+     */
+	private void acquirePermit() throws SQLException {
+		try {
+			if(!leasePermits.tryAcquire(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+				throw new SQLTransientConnectionException("Timed out after " + config.getBorrowTimeoutMillis()
+						+ " ms waiting for a connection (max pool size " + config.getPoolMaxSize() + ")");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+		}
+	}
+
+	/**
+     * Takes the most recently used idle connection that is still valid, or opens a new one.
+     *
+     * @return a usable pooled connection.
+     * @throws SQLException if a new connection cannot be opened.
+     */
+	private PooledConnection nextValidConnection() throws SQLException {
+		PooledConnection pooled;
+		while((pooled = idleConnections.pollFirst()) != null) {
+			if(isUsable(pooled)) {
+				return pooled;
+			}
+			discard(pooled);
+		}
+		return openConnection();
+	}
+
+	/**
+     * Validates an idle connection before it is handed out.
+     *
+     * @param pooled the connection to validate.
+     * @return true if the connection can be used.
+     */
+	private boolean isUsable(PooledConnection pooled) {
+		if(System.currentTimeMillis() - pooled.getLastUsed() < VALIDATION_BYPASS_MILLIS) {
+			return true;
+		}
+		try {
+			return pooled.getPhysicalConnection().isValid(config.getValidationTimeoutSeconds());
+		} catch (SQLException e) {
+			LOGGER.warn("Connection validation failed", e);
+			return false;
+		}
+	}
+
+	/**
+     * Opens a new physical connection.
+     *
+     * @return the new pooled connection.
+     * @throws SQLException if the connection cannot be opened.
+     */
+	private PooledConnection openConnection() throws SQLException {
+		Connection physical = DriverManager.getConnection(
+				config.getUrl(),
+				config.getUsername(),
+				config.getPassword());
+		totalConnections.incrementAndGet();
+		StatementCache statementCache = config.getStatementCacheSize() > 0
+				? new StatementCache(physical, config.getStatementCacheSize(), statementCacheStats)
+				: null;
+		return new PooledConnection(this, physical, statementCache);
+	}
+
+	/**
+     * Takes back a leased connection. Called when the borrower closes its connection.
+     *
+     * @param pooled the connection being returned.
+     * @param broken true if the connection reported a fatal error while leased.
+     */
+	void release(PooledConnection pooled, boolean broken) {
+		try {
+			if(closed || broken || !pooled.reset()) {
+				discard(pooled);
+			} else {
+				idleConnections.offerFirst(pooled);
+			}
+		} finally {
+			leasePermits.release();
+		}
+	}
+
+	/**
+     * Closes a physical connection and removes it from the pool count.
+     *
+     * @param pooled the connection to close.
+     */
+	private void discard(PooledConnection pooled) {
+		totalConnections.decrementAndGet();
+		pooled.closePhysical();
+	}
+
+	/**
+     * Closes connections that have been idle for too long, then tops the pool up to its minimum size.
+     */
+	void evictIdleConnections() {
+		long now = System.currentTimeMillis();
+		Iterator<PooledConnection> oldestFirst = idleConnections.descendingIterator();
+		while(oldestFirst.hasNext() && totalConnections.get() > config.getPoolMinSize()) {
+			PooledConnection pooled = oldestFirst.next();
+			if(now - pooled.getLastUsed() > config.getIdleTimeoutMillis() && idleConnections.remove(pooled)) {
+				discard(pooled);
+			}
+		}
+		try {
+			fillToMinimum();
+		} catch (SQLException e) {
+			LOGGER.warn("Failed to refill the connection pool", e);
+		}
+	}
+
+	/**
+     * Opens idle connections until the pool holds its minimum number of connections.
+     *
+     * @throws SQLException if a connection cannot be opened.
+     */
+	private void fillToMinimum() throws SQLException {
+		while(!closed && totalConnections.get() < config.getPoolMinSize()) {
+			idleConnections.offerLast(openConnection());
+		}
+	}
+
+	/**
+     * Returns the number of open physical connections.
+     *
+     * @return the number of open connections.
+     */
+	public int getTotalConnections() {
+		return totalConnections.get();
+	}
+
+	/**
+     * Returns the number of open connections that are not leased.
+     *
+     * @return the number of idle connections.
+     */
+	public int getIdleConnections() {
+		return idleConnections.size();
+	}
+
+	/**
+     * Returns the number of connections currently leased.
+     *
+     * @return the number of leased connections.
+     */
+	public int getActiveConnections() {
+		return config.getPoolMaxSize() - leasePermits.availablePermits();
+	}
+
+	/**
+     * Returns the number of threads waiting for a connection.
+     *
+     * @return the number of waiting threads.
+     */
+	public int getPendingRequests() {
+		return leasePermits.getQueueLength();
+	}
+
+	/**
+     * Returns the combined counters of the statement caches of all connections.
+     *
+     * @return the statement cache statistics.
+     */
+	public StatementCacheStats getStatementCacheStats() {
+		return statementCacheStats;
+	}
+
+	/**
+     * Closes all idle connections and stops the evictor. Leased connections are closed when they are returned.
+     */
+	@Override
+	public void close() {
+		closed = true;
+		evictor.shutdownNow();
+		PooledConnection pooled;
+		while((pooled = idleConnections.pollFirst()) != null) {
+			discard(pooled);
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("The pool uses the configured credentials");
+	}
+
+	@Override
+	public PrintWriter getLogWriter() {
+		return null;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) {
+		// Logging goes through SLF4J
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) {
+		DriverManager.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() {
+		return DriverManager.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException("The pool logs through SLF4J");
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if(iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("Not a wrapper for " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+}
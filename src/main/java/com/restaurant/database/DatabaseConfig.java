@@ -16,10 +16,45 @@ import lombok.Setter;
 @Getter
 @Setter
 public class DatabaseConfig {
+	/**
+     * Number of statements sent to the database in one JDBC batch unless configured otherwise.
+     */
+	public static final int DEFAULT_BATCH_SIZE = 100;
+	
+	/**
+     * Number of rows fetched per round trip by streamed queries unless configured otherwise.
+     */
+	public static final int DEFAULT_FETCH_SIZE = 500;
+	
 	private String driver;
 	private String url;
 	private String username;
 	private String password;
+	private int poolMinSize = 2;
+	private int poolMaxSize = 10;
+	private long borrowTimeoutMillis = 5000;
+	private long idleTimeoutMillis = 600000;
+	private long evictionIntervalMillis = 30000;
+	private int validationTimeoutSeconds = 2;
+	private int statementCacheSize = 64;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private int fetchSize = DEFAULT_FETCH_SIZE;
+	private long idBatchWindowMicros = 0;
+	private int idBatchMaxSize = 100;
+	private int productCacheSize = 1000;
+	private long productCacheTtlMillis = 300000;
+	private int compressionMinSize = 1024;
+	private int compressionLevel = 6;
+	private int compressionPoolSize = 16;
+	private int asyncPoolSize = 32;
+	private int asyncQueueSize = 256;
+	private long asyncTimeoutMillis = 10000;
+	private String asyncMode = "platform";
+	private int limiterInitialLimit = 20;
+	private int limiterMinLimit = 2;
+	private int limiterMaxLimit = 200;
+	private long limiterLatencyThresholdMillis = 1000;
+	private int limiterBackoffPercent = 90;
 	
 	/**
      * Loads the database configuration from the YAML file.
@@ -39,7 +74,14 @@ public class DatabaseConfig {
 				throw new DatabaseConfigException("Failed to cast database configuration to Map<String, String>");
 			}
 			
-			return fromYamlMap(dbConfig);
+			DatabaseConfig config = fromYamlMap(dbConfig);
+			applyPoolSettings(config, yamlMap.get("pool"));
+			applyDaoSettings(config, yamlMap.get("dao"));
+			applyCacheSettings(config, yamlMap.get("cache"));
+			applyCompressionSettings(config, yamlMap.get("compression"));
+			applyAsyncSettings(config, yamlMap.get("async"));
+			applyLimiterSettings(config, yamlMap.get("limiter"));
+			return config;
 			
 		} catch (Exception e) {
 			throw new DatabaseConfigException("Failed to load database configuration from YAML file", e);
@@ -62,6 +104,153 @@ public class DatabaseConfig {
 		return config;
 	}
 	
+	/**
+     * Applies the optional connection pool settings. Missing keys keep their defaults.
+     * 
+     * @param config the configuration to update
+     * @param poolSection the value of the "pool" section of the YAML file, may be null
+     */
+	private static void applyPoolSettings(DatabaseConfig config, Object poolSection) {
+		if(!(poolSection instanceof Map)) {
+			return;
+		}
+		Map<?, ?> pool = (Map<?, ?>) poolSection;
+		config.setPoolMinSize(intValue(pool, "min-size", config.getPoolMinSize()));
+		config.setPoolMaxSize(intValue(pool, "max-size", config.getPoolMaxSize()));
+		config.setBorrowTimeoutMillis(longValue(pool, "borrow-timeout-millis", config.getBorrowTimeoutMillis()));
+		config.setIdleTimeoutMillis(longValue(pool, "idle-timeout-millis", config.getIdleTimeoutMillis()));
+		config.setEvictionIntervalMillis(longValue(pool, "eviction-interval-millis", 
+				config.getEvictionIntervalMillis()));
+		config.setValidationTimeoutSeconds(intValue(pool, "validation-timeout-seconds", 
+				config.getValidationTimeoutSeconds()));
+		config.setStatementCacheSize(intValue(pool, "statement-cache-size", config.getStatementCacheSize()));
+	}
+	
+	/**
+     * Applies the optional DAO settings. Missing keys keep their defaults.
+     * 
+     * @param config the configuration to update
+     * @param daoSection the value of the "dao" section of the YAML file, may be null
+     */
+	private static void applyDaoSettings(DatabaseConfig config, Object daoSection) {
+		if(!(daoSection instanceof Map)) {
+			return;
+		}
+		Map<?, ?> dao = (Map<?, ?>) daoSection;
+		config.setBatchSize(intValue(dao, "batch-size", config.getBatchSize()));
+		config.setFetchSize(intValue(dao, "fetch-size", config.getFetchSize()));
+		config.setIdBatchWindowMicros(longValue(dao, "id-batch-window-micros", config.getIdBatchWindowMicros()));
+		config.setIdBatchMaxSize(intValue(dao, "id-batch-max-size", config.getIdBatchMaxSize()));
+	}
+	
+	/**
+     * Applies the optional cache settings. Missing keys keep their defaults.
+     * 
+     * @param config the configuration to update
+     * @param cacheSection the value of the "cache" section of the YAML file, may be null
+     */
+	private static void applyCacheSettings(DatabaseConfig config, Object cacheSection) {
+		if(!(cacheSection instanceof Map)) {
+			return;
+		}
+		Map<?, ?> cache = (Map<?, ?>) cacheSection;
+		config.setProductCacheSize(intValue(cache, "product-max-size", config.getProductCacheSize()));
+		config.setProductCacheTtlMillis(longValue(cache, "product-ttl-millis", config.getProductCacheTtlMillis()));
+	}
+	
+	/**
+     * Applies the optional compression settings. Missing keys keep their defaults.
+     * 
+     * @param config the configuration to update
+     * @param compressionSection the value of the "compression" section of the YAML file, may be null
+     */
+	private static void applyCompressionSettings(DatabaseConfig config, Object compressionSection) {
+		if(!(compressionSection instanceof Map)) {
+			return;
+		}
+		Map<?, ?> compression = (Map<?, ?>) compressionSection;
+		config.setCompressionMinSize(intValue(compression, "min-size", config.getCompressionMinSize()));
+		config.setCompressionLevel(intValue(compression, "level", config.getCompressionLevel()));
+		config.setCompressionPoolSize(intValue(compression, "pool-size", config.getCompressionPoolSize()));
+	}
+	
+	/**
+     * Applies the optional settings of the executor that runs DAO work for asynchronous requests.
+     * Missing keys keep their defaults.
+     * 
+     * @param config the configuration to update
+     * @param asyncSection the value of the "async" section of the YAML file, may be null
+     */
+	private static void applyAsyncSettings(DatabaseConfig config, Object asyncSection) {
+		if(!(asyncSection instanceof Map)) {
+			return;
+		}
+		Map<?, ?> async = (Map<?, ?>) asyncSection;
+		config.setAsyncPoolSize(intValue(async, "pool-size", config.getAsyncPoolSize()));
+		config.setAsyncQueueSize(intValue(async, "queue-size", config.getAsyncQueueSize()));
+		config.setAsyncTimeoutMillis(longValue(async, "timeout-millis", config.getAsyncTimeoutMillis()));
+		config.setAsyncMode(stringValue(async, "mode", config.getAsyncMode()));
+	}
+	
+	/**
+     * Applies the optional settings of the adaptive concurrency limits for reads and writes.
+     * Missing keys keep their defaults.
+     * 
+     * @param config the configuration to update
+     * @param limiterSection the value of the "limiter" section of the YAML file, may be null
+     */
+	private static void applyLimiterSettings(DatabaseConfig config, Object limiterSection) {
+		if(!(limiterSection instanceof Map)) {
+			return;
+		}
+		Map<?, ?> limiter = (Map<?, ?>) limiterSection;
+		config.setLimiterInitialLimit(intValue(limiter, "initial-limit", config.getLimiterInitialLimit()));
+		config.setLimiterMinLimit(intValue(limiter, "min-limit", config.getLimiterMinLimit()));
+		config.setLimiterMaxLimit(intValue(limiter, "max-limit", config.getLimiterMaxLimit()));
+		config.setLimiterLatencyThresholdMillis(longValue(limiter, "latency-threshold-millis", 
+				config.getLimiterLatencyThresholdMillis()));
+		config.setLimiterBackoffPercent(intValue(limiter, "backoff-percent", config.getLimiterBackoffPercent()));
+	}
+	
+	/**
+     * Reads an integer value from a YAML section.
+     * 
+     * @param section the YAML section
+     * @param key the key to read
+     * @param defaultValue the value to use when the key is missing
+     * @return the configured value or the default
+     */
+	static int intValue(Map<?, ?> section, String key, int defaultValue) {
+		Object value = section.get(key);
+		return value == null ? defaultValue : Integer.parseInt(value.toString());
+	}
+	
+	/**
+     * Reads a long value from a YAML section.
+     * 
+     * @param section the YAML section
+     * @param key the key to read
+     * @param defaultValue the value to use when the key is missing
+     * @return the configured value or the default
+     */
+	static long longValue(Map<?, ?> section, String key, long defaultValue) {
+		Object value = section.get(key);
+		return value == null ? defaultValue : Long.parseLong(value.toString());
+	}
+	
+	/**
+     * Reads a string value from a YAML section.
+     * 
+     * @param section the YAML section
+     * @param key the key to read
+     * @param defaultValue the value to use when the key is missing
+     * @return the configured value or the default
+     */
+	static String stringValue(Map<?, ?> section, String key, String defaultValue) {
+		Object value = section.get(key);
+		return value == null ? defaultValue : value.toString();
+	}
+	
 	/**
      * Casts an object to a Map<String, String>.
      * 
@@ -2,29 +2,30 @@ package com.restaurant.database;
 
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
+import javax.sql.DataSource;
+
 /**
- * Singleton class for managing the database connection.
+ * Singleton class for managing the database connection pool.
  */
-public class DatabaseConnection {	
-	private Connection connection;	
-	
+public class DatabaseConnection {
+	private final DatabaseConfig config;
+	private final ConnectionPool pool;
+
 	private DatabaseConnection() {
-		DatabaseConfig config = DatabaseConfig.load();
-		try {			 
+		this.config = DatabaseConfig.load();
+		try {
 			Class.forName(config.getDriver());
-			this.connection = DriverManager.getConnection(
-					config.getUrl(), 
-					config.getUsername(), 
-					config.getPassword());
-			DatabaseInitializer.initializeDatabase(connection);
+			this.pool = new ConnectionPool(config);
+			try (Connection connection = pool.getConnection()) {
+				DatabaseInitializer.initializeDatabase(connection);
+			}
 		} catch (SQLException | ClassNotFoundException | IOException e) {
 			throw new DatabaseConfigException("Failed to connect to the database", e);
 		}
 	}
-	
+
 	/**
      * Holder class for the singleton instance.
      */
@@ -40,13 +41,41 @@ public class DatabaseConnection {
     public static DatabaseConnection getInstance() {
         return Holder.INSTANCE;
     }
-    
+
     /**
-     * Returns the database connection.
+     * Borrows a connection from the pool. The caller must close it to hand it back.
+     *
+     * @return a pooled database connection.
+     * @throws SQLException if no connection is available within the borrow timeout.
+     */
+	public Connection getConnection() throws SQLException {
+		return pool.getConnection();
+	}
+
+	/**
+     * Returns the pooled data source.
+     *
+     * @return the connection pool.
+     */
+	public DataSource getDataSource() {
+		return pool;
+	}
+
+	/**
+     * Returns the loaded database configuration.
+     *
+     * @return the database configuration.
+     */
+	public DatabaseConfig getConfig() {
+		return config;
+	}
+
+	/**
+     * Returns the connection pool, e.g. for reading its statistics.
      *
-     * @return the database connection.
+     * @return the connection pool.
      */
-	public Connection getConnection() {
-		return connection;
+	public ConnectionPool getPool() {
+		return pool;
 	}
 }
@@ -0,0 +1,39 @@
+package com.restaurant.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/**
+ * Utility class that wraps a connection owned by someone else so that it survives {@code close()}.
+ * This lets DAO code close every connection it obtains, whether it was borrowed from the pool
+ * or supplied by the caller.
+ */
+public class NonClosingConnection {
+
+	private NonClosingConnection() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+
+	/**
+     * Wraps the given connection; {@code close()} on the wrapper is a no-op.
+     *
+     * @param connection the connection to wrap.
+     * @return the wrapping connection.
+     */
+	public static Connection wrap(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(
+				Connection.class.getClassLoader(),
+				new Class<?>[] {Connection.class},
+				(proxy, method, args) -> {
+					if("close".equals(method.getName())) {
+						return null;
+					}
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+}
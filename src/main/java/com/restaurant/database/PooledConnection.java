@@ -0,0 +1,175 @@
+package com.restaurant.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A physical connection owned by a {@link ConnectionPool}.
+ * Each lease hands out a proxy whose {@code close()} returns the connection to the pool instead of closing it.
+ * Statements prepared through the proxy come from the connection's {@link StatementCache}, if it has one.
+ * Statements answer {@code getConnection()} with the proxy, never with the physical connection.
+ */
+class PooledConnection {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PooledConnection.class);
+
+	/**
+     * SQLState class for connection exceptions; such connections are not put back into the pool.
+     */
+	private static final String CONNECTION_EXCEPTION_CLASS = "08";
+
+	private final ConnectionPool pool;
+	private final Connection physicalConnection;
+	private final StatementCache statementCache;
+	private volatile long lastUsed;
+
+	PooledConnection(ConnectionPool pool, Connection physicalConnection, StatementCache statementCache) {
+		this.pool = pool;
+		this.physicalConnection = physicalConnection;
+		this.statementCache = statementCache;
+		this.lastUsed = System.currentTimeMillis();
+	}
+
+	Connection getPhysicalConnection() {
+		return physicalConnection;
+	}
+
+	long getLastUsed() {
+		return lastUsed;
+	}
+
+	/**
+     * Creates the proxy handed to a borrower.
+     *
+     * @return a connection proxy bound to this lease.
+     */
+	Connection lease() {
+		return (Connection) Proxy.newProxyInstance(
+				Connection.class.getClassLoader(),
+				new Class<?>[] {Connection.class},
+				new LeaseHandler());
+	}
+
+	/**
+     * Restores the default connection state before the connection goes back to the pool.
+     * Uncommitted work is rolled back so that no transaction outlives its borrower.
+     *
+     * @return true if the connection can be reused.
+     */
+	boolean reset() {
+		try {
+			if(statementCache != null) {
+				statementCache.checkInAll();
+			}
+			if(!physicalConnection.getAutoCommit()) {
+				physicalConnection.rollback();
+				physicalConnection.setAutoCommit(true);
+			}
+			if(physicalConnection.isReadOnly()) {
+				physicalConnection.setReadOnly(false);
+			}
+			physicalConnection.clearWarnings();
+			lastUsed = System.currentTimeMillis();
+			return true;
+		} catch (SQLException e) {
+			LOGGER.warn("Failed to reset pooled connection, discarding it", e);
+			return false;
+		}
+	}
+
+	/**
+     * Closes the physical connection.
+     */
+	void closePhysical() {
+		if(statementCache != null) {
+			statementCache.clear();
+		}
+		try {
+			physicalConnection.close();
+		} catch (SQLException e) {
+			LOGGER.warn("Failed to close pooled connection", e);
+		}
+	}
+
+	/**
+     * Routes calls on a leased connection to the physical connection until the lease is closed.
+     */
+	private class LeaseHandler implements InvocationHandler {
+		private boolean closed;
+		private boolean broken;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if(!closed) {
+					closed = true;
+					pool.release(PooledConnection.this, broken);
+				}
+				return null;
+			case "isClosed":
+				return closed || physicalConnection.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "PooledConnection[" + physicalConnection + "]";
+			default:
+				break;
+			}
+			if(closed) {
+				throw new SQLException("Connection has already been returned to the pool");
+			}
+			try {
+				if(statementCache != null && isCacheablePrepare(method.getName(), args)) {
+					int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+					return statementCache.prepare((String) args[0], autoGeneratedKeys, (Connection) proxy);
+				}
+				Object result = method.invoke(physicalConnection, args);
+				if(result instanceof Statement) {
+					return StatementCache.ownedBy(result, method.getReturnType(), (Connection) proxy);
+				}
+				return result;
+			} catch (InvocationTargetException e) {
+				throw checkFailure(e.getCause());
+			} catch (SQLException e) {
+				throw checkFailure(e);
+			}
+		}
+
+		/**
+	     * Marks the lease as broken if the error means the connection is no longer usable.
+	     *
+	     * @param error the error raised by the physical connection.
+	     * @return the same error, for rethrowing.
+	     */
+		private Throwable checkFailure(Throwable error) {
+			if(error instanceof SQLException && isConnectionFailure((SQLException) error)) {
+				broken = true;
+			}
+			return error;
+		}
+
+		/**
+	     * Only {@code prepareStatement(String)} and {@code prepareStatement(String, int)} are cached;
+	     * statements with custom result set types or key columns are rare and prepared directly.
+	     */
+		private boolean isCacheablePrepare(String methodName, Object[] args) {
+			return "prepareStatement".equals(methodName)
+					&& (args.length == 1 || (args.length == 2 && args[1] instanceof Integer));
+		}
+
+		private boolean isConnectionFailure(SQLException e) {
+			String sqlState = e.getSQLState();
+			return sqlState != null && sqlState.startsWith(CONNECTION_EXCEPTION_CLASS);
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package com.restaurant.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text.
+ * <p>
+ * Closing a statement handed out by the cache returns it to the cache instead of closing it, so the
+ * driver can keep using its server-side prepared plan. A statement that is still in use is never handed
+ * out twice; a second request for the same SQL gets a plain, uncached statement. Only the lease holding
+ * the connection uses the cache, so it needs no locking.
+ * <p>
+ * Every statement handed out answers {@code getConnection()} with the leased connection it was prepared on,
+ * never with the physical one, so a borrower cannot close a pooled connection behind the pool's back.
+ */
+class StatementCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(StatementCache.class);
+
+	private final Connection physicalConnection;
+	private final int maxSize;
+	private final StatementCacheStats stats;
+	private final LinkedHashMap<Key, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+	StatementCache(Connection physicalConnection, int maxSize, StatementCacheStats stats) {
+		this.physicalConnection = physicalConnection;
+		this.maxSize = maxSize;
+		this.stats = stats;
+	}
+
+	/**
+     * Returns a prepared statement for the given SQL, reusing a cached one when possible.
+     *
+     * @param sql the SQL text.
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or {@link Statement#NO_GENERATED_KEYS}.
+     * @param owner the leased connection the statement is prepared through.
+     * @return a statement whose {@code close()} returns it to the cache.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+	PreparedStatement prepare(String sql, int autoGeneratedKeys, Connection owner) throws SQLException {
+		Key key = new Key(sql, autoGeneratedKeys);
+		CachedStatement cached = statements.get(key);
+		if(cached != null) {
+			if(cached.inUse) {
+				stats.recordMiss();
+				return (PreparedStatement) ownedBy(physicalConnection.prepareStatement(sql, autoGeneratedKeys),
+						PreparedStatement.class, owner);
+			}
+			stats.recordHit();
+			return cached.checkOut(owner);
+		}
+		stats.recordMiss();
+		cached = new CachedStatement(physicalConnection.prepareStatement(sql, autoGeneratedKeys));
+		statements.put(key, cached);
+		evictOverflow();
+		return cached.checkOut(owner);
+	}
+
+	/**
+     * Wraps a statement that is not cached so that {@code getConnection()} returns the leased connection
+     * instead of the physical one. Every other call goes to the statement.
+     *
+     * @param statement the statement created on the physical connection.
+     * @param type the statement interface to expose, such as {@link PreparedStatement}.
+     * @param owner the leased connection the statement was created through.
+     * @return the wrapped statement.
+     */
+	static Object ownedBy(Object statement, Class<?> type, Connection owner) {
+		return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+				(proxy, method, args) -> {
+					if("getConnection".equals(method.getName()) && method.getParameterCount() == 0) {
+						return owner;
+					}
+					try {
+						return method.invoke(statement, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+
+	/**
+     * Closes the least recently used idle statements while the cache is over its size.
+     */
+	private void evictOverflow() {
+		Iterator<Map.Entry<Key, CachedStatement>> eldestFirst = statements.entrySet().iterator();
+		while(statements.size() > maxSize && eldestFirst.hasNext()) {
+			CachedStatement eldest = eldestFirst.next().getValue();
+			if(!eldest.inUse) {
+				eldestFirst.remove();
+				eldest.closeQuietly();
+				stats.recordEviction();
+			}
+		}
+	}
+
+	/**
+     * Returns every statement a borrower left open to the cache, so none stays checked out
+     * after the connection goes back to the pool.
+     *
+     * @throws SQLException if a statement cannot be reset.
+     */
+	void checkInAll() throws SQLException {
+		for(CachedStatement cached : statements.values()) {
+			cached.checkIn();
+		}
+	}
+
+	/**
+     * Closes all cached statements.
+     */
+	void clear() {
+		statements.values().forEach(CachedStatement::closeQuietly);
+		statements.clear();
+	}
+
+	/**
+     * Cache key: the same SQL prepared with and without generated keys yields different statements.
+     */
+	private static final class Key {
+		private final String sql;
+		private final int autoGeneratedKeys;
+
+		Key(String sql, int autoGeneratedKeys) {
+			this.sql = sql;
+			this.autoGeneratedKeys = autoGeneratedKeys;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return autoGeneratedKeys == other.autoGeneratedKeys && sql.equals(other.sql);
+		}
+
+		@Override
+		public int hashCode() {
+			return sql.hashCode() * 31 + autoGeneratedKeys;
+		}
+	}
+
+	/**
+     * A cached statement and the proxy through which borrowers use it.
+     */
+	private static final class CachedStatement {
+		private final PreparedStatement statement;
+		private final PreparedStatement handle;
+		private boolean inUse;
+		private Connection owner;
+
+		CachedStatement(PreparedStatement statement) {
+			this.statement = statement;
+			this.handle = (PreparedStatement) Proxy.newProxyInstance(
+					PreparedStatement.class.getClassLoader(),
+					new Class<?>[] {PreparedStatement.class},
+					(proxy, method, args) -> {
+						switch (method.getName()) {
+						case "close":
+							checkIn();
+							return null;
+						case "isClosed":
+							return !inUse || statement.isClosed();
+						default:
+							break;
+						}
+						if(!inUse) {
+							throw new SQLException("Statement has already been closed");
+						}
+						if("getConnection".equals(method.getName())) {
+							return owner;
+						}
+						try {
+							return method.invoke(statement, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					});
+		}
+
+		PreparedStatement checkOut(Connection owner) {
+			this.owner = owner;
+			inUse = true;
+			return handle;
+		}
+
+		/**
+	     * Resets the statement for its next borrower: closes the result set it left open and clears the
+	     * parameters, batch, fetch size, row limit and query timeout it may have set.
+	     *
+	     * @throws SQLException if the statement cannot be reset.
+	     */
+		void checkIn() throws SQLException {
+			if(!inUse) {
+				return;
+			}
+			inUse = false;
+			owner = null;
+			ResultSet resultSet = statement.getResultSet();
+			if(resultSet != null) {
+				resultSet.close();
+			}
+			statement.clearParameters();
+			statement.clearBatch();
+			statement.setFetchSize(0);
+			statement.setMaxRows(0);
+			statement.setQueryTimeout(0);
+		}
+
+		void closeQuietly() {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				LOGGER.warn("Failed to close cached statement", e);
+			}
+		}
+	}
+}
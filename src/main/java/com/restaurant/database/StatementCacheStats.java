@@ -0,0 +1,68 @@
+package com.restaurant.database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss and eviction counters shared by the statement caches of one {@link ConnectionPool}.
+ */
+public class StatementCacheStats {
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	void recordHit() {
+		hits.increment();
+	}
+
+	void recordMiss() {
+		misses.increment();
+	}
+
+	void recordEviction() {
+		evictions.increment();
+	}
+
+	/**
+     * Returns the number of statements served from a cache.
+     *
+     * @return the hit count.
+     */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+     * Returns the number of statements that had to be prepared.
+     *
+     * @return the miss count.
+     */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+     * Returns the number of statements closed to keep a cache within its size.
+     *
+     * @return the eviction count.
+     */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+     * Returns the share of requests served from a cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 if nothing was requested yet.
+     */
+	public double getHitRatio() {
+		long hitCount = getHits();
+		long total = hitCount + getMisses();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	@Override
+	public String toString() {
+		return "StatementCacheStats[hits=" + getHits() + ", misses=" + getMisses()
+				+ ", evictions=" + getEvictions() + "]";
+	}
+}
@@ -0,0 +1,196 @@
+package com.restaurant.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Request-scoped unit of work bound to the current thread.
+ * <p>
+ * The first DAO call inside the unit of work borrows a connection from the pool; every later call on the
+ * same thread reuses it. A writable unit of work runs all statements in one transaction that is committed
+ * or rolled back by {@link #end(boolean)}; a read-only one keeps auto-commit on and only pins the connection.
+ * Either way the connection goes back to the pool when the unit of work ends.
+ */
+public class UnitOfWork {
+	private static final Logger LOGGER = LoggerFactory.getLogger(UnitOfWork.class);
+	private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+	private final ConnectionSource connectionSource;
+	private final boolean readOnly;
+	private final List<Runnable> afterCommitCallbacks = new ArrayList<>();
+	private Connection connection;
+	private boolean rollbackOnly;
+
+	/**
+     * Supplies the connection a unit of work runs on.
+     */
+	@FunctionalInterface
+	public interface ConnectionSource {
+		/**
+	     * Obtains a connection; the unit of work closes it when it ends.
+	     *
+	     * @return a connection.
+	     * @throws SQLException if no connection can be obtained.
+	     */
+		Connection getConnection() throws SQLException;
+	}
+
+	private UnitOfWork(ConnectionSource connectionSource, boolean readOnly) {
+		this.connectionSource = connectionSource;
+		this.readOnly = readOnly;
+	}
+
+	/**
+     * Starts a unit of work on the current thread that borrows from the shared connection pool.
+     *
+     * @param readOnly true if the unit of work does not need a transaction.
+     * @return the new unit of work.
+     */
+	public static UnitOfWork begin(boolean readOnly) {
+		return begin(() -> DatabaseConnection.getInstance().getConnection(), readOnly);
+	}
+
+	/**
+     * Starts a unit of work on the current thread.
+     *
+     * @param connectionSource where to obtain the connection from.
+     * @param readOnly true if the unit of work does not need a transaction.
+     * @return the new unit of work.
+     * @throws IllegalStateException if a unit of work is already active on this thread.
+     */
+	public static UnitOfWork begin(ConnectionSource connectionSource, boolean readOnly) {
+		if(CURRENT.get() != null) {
+			throw new IllegalStateException("A unit of work is already active on this thread");
+		}
+		UnitOfWork unitOfWork = new UnitOfWork(connectionSource, readOnly);
+		CURRENT.set(unitOfWork);
+		return unitOfWork;
+	}
+
+	/**
+     * Returns the unit of work bound to the current thread.
+     *
+     * @return the active unit of work, or empty if there is none.
+     */
+	public static Optional<UnitOfWork> current() {
+		return Optional.ofNullable(CURRENT.get());
+	}
+
+	/**
+     * Returns the connection of this unit of work, borrowing it on first use.
+     * Closing the returned connection does not release it; {@link #end(boolean)} does.
+     *
+     * @return the connection bound to this unit of work.
+     * @throws SQLException if no connection can be obtained.
+     */
+	public Connection getConnection() throws SQLException {
+		if(connection == null) {
+			Connection borrowed = connectionSource.getConnection();
+			try {
+				if(!readOnly) {
+					borrowed.setAutoCommit(false);
+				}
+			} catch (SQLException e) {
+				borrowed.close();
+				throw e;
+			}
+			connection = borrowed;
+		}
+		return NonClosingConnection.wrap(connection);
+	}
+
+	/**
+     * Returns whether statements of this unit of work run without a transaction.
+     *
+     * @return true if the unit of work is read-only.
+     */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+     * Makes {@link #end(boolean)} roll back regardless of the outcome it is given.
+     */
+	public void markRollbackOnly() {
+		this.rollbackOnly = true;
+	}
+
+	/**
+     * Registers an action to run once the work has been committed.
+     * Read-only units of work run it when they end successfully.
+     *
+     * @param callback the action to run.
+     */
+	public void afterCommit(Runnable callback) {
+		afterCommitCallbacks.add(callback);
+	}
+
+	/**
+     * Ends the unit of work: commits or rolls back, returns the connection to the pool
+     * and unbinds the unit of work from the current thread.
+     *
+     * @param success true to commit, false to roll back.
+     * @throws SQLException if the commit fails; the work is rolled back in that case.
+     */
+	public void end(boolean success) throws SQLException {
+		CURRENT.remove();
+		boolean committed = false;
+		try {
+			committed = complete(success && !rollbackOnly);
+		} finally {
+			if(connection != null) {
+				connection.close();
+				connection = null;
+			}
+		}
+		if(committed) {
+			afterCommitCallbacks.forEach(UnitOfWork::runQuietly);
+		}
+	}
+
+	/**
+     * Commits or rolls back the transaction, if one was started.
+     *
+     * @param commit true to commit.
+     * @return true if the work was committed.
+     * @throws SQLException if the commit fails.
+     */
+	private boolean complete(boolean commit) throws SQLException {
+		if(connection == null || readOnly) {
+			return commit;
+		}
+		if(!commit) {
+			rollbackQuietly();
+			return false;
+		}
+		try {
+			connection.commit();
+			return true;
+		} catch (SQLException e) {
+			rollbackQuietly();
+			throw e;
+		}
+	}
+
+	private void rollbackQuietly() {
+		try {
+			connection.rollback();
+		} catch (SQLException e) {
+			LOGGER.warn("Failed to roll back unit of work", e);
+		}
+	}
+
+	private static void runQuietly(Runnable callback) {
+		try {
+			callback.run();
+		} catch (RuntimeException e) {
+			LOGGER.warn("After-commit callback failed", e);
+		}
+	}
+}
@@ -11,9 +11,10 @@ import lombok.Setter;
  */
 @Getter
 @Setter
-public class OrderDetail implements IdentifiableEntity{
+public class OrderDetail implements VersionedEntity{
 	private int id;
 	private OrderStatus orderStatus; // OneToOne relationship
 	private List<Product> products; // ManyToMany relationship
 	private BigDecimal totalAmount;
+	private long version;
 }
@@ -14,11 +14,12 @@ import lombok.Setter;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-public class Product implements IdentifiableEntity{
+public class Product implements VersionedEntity{
 	private int id;
 	private String name;
 	private BigDecimal price;
 	private int quantity;
 	private boolean available;
 	private ProductCategory productCategory;  // ManyToOne relationship
+	private long version;
 }
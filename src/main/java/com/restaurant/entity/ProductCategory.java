@@ -14,9 +14,10 @@ import lombok.Setter;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-public class ProductCategory implements IdentifiableEntity {	
+public class ProductCategory implements VersionedEntity {	
 	private int id;
     private String name;
     private String type;
     private List<Product> products; // OneToMany relationship
+    private long version;
 }
@@ -0,0 +1,10 @@
+package com.restaurant.entity;
+
+/**
+ * Interface for entities whose row carries a version that changes on every write.
+ * A version of 0 means the version is unknown, as for an entity built from a request body.
+ */
+public interface VersionedEntity extends IdentifiableEntity {
+	void setVersion(long version);
+    long getVersion();
+}
@@ -0,0 +1,229 @@
+package com.restaurant.filters;
+
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import com.restaurant.controllers.HttpCaching;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Response body stream that decides on compression by size. The first bytes are held in a pooled buffer;
+ * a body that fits into it is sent uncompressed with an exact Content-Length. Once the body outgrows
+ * the buffer it is compressed in the negotiated coding and streamed. A body the servlet has already
+ * encoded itself is passed through untouched.
+ */
+final class CompressingOutputStream extends ServletOutputStream {
+	private enum State { BUFFERING, COMPRESSING, PASSING_THROUGH, FINISHED }
+
+	private final HttpServletResponse response;
+	private final ServletOutputStream out;
+	private final CompressionPool pool;
+	private final String contentCoding;
+	private State state = State.BUFFERING;
+	private byte[] buffer;
+	private int count;
+	private long declaredLength = -1;
+	private Deflater deflater;
+	private DeflaterOutputStream compressor;
+
+	/**
+     * Creates the stream.
+     *
+     * @param response the wrapped response, whose headers are set once the decision is made.
+     * @param pool the pool of buffers and Deflaters.
+     * @param contentCoding {@value HttpCaching#GZIP} or {@value HttpCaching#DEFLATE}.
+     * @throws IOException if the output stream of the response cannot be obtained.
+     */
+	CompressingOutputStream(HttpServletResponse response, CompressionPool pool, String contentCoding) throws IOException {
+		this.response = response;
+		this.out = response.getOutputStream();
+		this.pool = pool;
+		this.contentCoding = contentCoding;
+	}
+
+	/**
+     * Records a Content-Length set by the servlet. It is sent only if the body goes out uncompressed;
+     * a length below the threshold decides for that right away.
+     *
+     * @param length the declared length of the uncompressed body.
+     */
+	void declareLength(long length) {
+		declaredLength = length;
+		if(state == State.BUFFERING && length >= 0 && length <= pool.getBufferSize()) {
+			passThrough();
+		}
+	}
+
+	/**
+     * Switches to sending the body unchanged, because it is small or already encoded.
+     */
+	void passThrough() {
+		if(state != State.BUFFERING) {
+			return;
+		}
+		state = State.PASSING_THROUGH;
+		if(declaredLength >= 0) {
+			response.setContentLengthLong(declaredLength);
+		}
+		try {
+			if(count > 0) {
+				out.write(buffer, 0, count);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to write the buffered response body", e);
+		} finally {
+			releaseBuffer();
+		}
+	}
+
+	/**
+     * Checks whether the stream is still holding the body back to decide on compression.
+     *
+     * @return true while no byte has been sent.
+     */
+	boolean isBuffering() {
+		return state == State.BUFFERING;
+	}
+
+	/**
+     * Checks whether the body is being compressed.
+     *
+     * @return true once the stream has decided on compression.
+     */
+	boolean isCompressing() {
+		return state == State.COMPRESSING;
+	}
+
+	/**
+     * Drops the bytes buffered so far, as when the response is reset. Has no effect once the
+     * decision about compression has been made.
+     */
+	void discardBuffered() {
+		if(state == State.BUFFERING) {
+			count = 0;
+			declaredLength = -1;
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] {(byte) b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		switch(state) {
+		case BUFFERING:
+			if(buffer == null && pool.getBufferSize() > 0) {
+				buffer = pool.acquireBuffer();
+			}
+			if(buffer != null && count + len <= buffer.length) {
+				System.arraycopy(b, off, buffer, count, len);
+				count += len;
+				return;
+			}
+			startCompression();
+			compressor.write(b, off, len);
+			return;
+		case COMPRESSING:
+			compressor.write(b, off, len);
+			return;
+		case PASSING_THROUGH:
+			out.write(b, off, len);
+			return;
+		default:
+			throw new IOException("The response body has already been completed");
+		}
+	}
+
+	/**
+     * Sets the encoding headers, appends the coding to the ETag, and sends the buffered bytes through a compressor.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+	private void startCompression() throws IOException {
+		boolean gzip = HttpCaching.GZIP.equals(contentCoding);
+		response.setHeader(HttpCaching.CONTENT_ENCODING_HEADER, contentCoding);
+		String etag = response.getHeader(HttpCaching.ETAG_HEADER);
+		if(etag != null) {
+			response.setHeader(HttpCaching.ETAG_HEADER, HttpCaching.withContentCoding(etag, contentCoding));
+		}
+		state = State.COMPRESSING;
+		deflater = pool.acquireDeflater(gzip);
+		compressor = gzip ? new GzipDeflaterOutputStream(out, deflater) : new DeflaterOutputStream(out, deflater, true);
+		if(count > 0) {
+			compressor.write(buffer, 0, count);
+		}
+		releaseBuffer();
+	}
+
+	/**
+     * Flushes compressed or passed-through data. Buffered bytes stay buffered until the size decision
+     * is made, so a flush does not force a small body out uncompressed.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+	@Override
+	public void flush() throws IOException {
+		if(state == State.COMPRESSING) {
+			compressor.flush();
+		} else if(state == State.PASSING_THROUGH) {
+			out.flush();
+		}
+	}
+
+	/**
+     * Completes the body: sends a buffered body uncompressed with its length, or finishes the compressed
+     * data. Pooled objects go back to the pool. Further calls have no effect.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+	void finish() throws IOException {
+		try {
+			if(state == State.BUFFERING && count > 0) {
+				response.setContentLength(count);
+				out.write(buffer, 0, count);
+			} else if(state == State.COMPRESSING) {
+				compressor.finish();
+			}
+		} finally {
+			state = State.FINISHED;
+			releaseBuffer();
+			if(deflater != null) {
+				pool.releaseDeflater(deflater, HttpCaching.GZIP.equals(contentCoding));
+				deflater = null;
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		finish();
+		out.close();
+	}
+
+	/**
+     * Returns the buffer to the pool if one was taken.
+     */
+	private void releaseBuffer() {
+		if(buffer != null) {
+			pool.releaseBuffer(buffer);
+			buffer = null;
+			count = 0;
+		}
+	}
+
+	@Override
+	public boolean isReady() {
+		return out.isReady();
+	}
+
+	@Override
+	public void setWriteListener(WriteListener writeListener) {
+		out.setWriteListener(writeListener);
+	}
+}
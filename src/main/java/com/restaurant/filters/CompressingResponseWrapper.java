@@ -0,0 +1,231 @@
+package com.restaurant.filters;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import com.restaurant.controllers.HttpCaching;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper that routes the body through a {@link CompressingOutputStream}. Content-Length set by
+ * the servlet is held back until it is known whether the body goes out compressed, and a Content-Encoding
+ * set by the servlet means the body is already encoded and is passed through. An ETag of a compressed
+ * body gets the content coding appended, since the compressed bytes differ from the identity ones.
+ */
+final class CompressingResponseWrapper extends HttpServletResponseWrapper {
+	private static final String CONTENT_LENGTH_HEADER = "Content-Length";
+
+	private final CompressionPool pool;
+	private final String contentCoding;
+	private CompressingOutputStream stream;
+	private PrintWriter writer;
+	private long declaredLength = -1;
+	private boolean encodedByServlet;
+
+	/**
+     * Creates the wrapper.
+     *
+     * @param response the response to wrap.
+     * @param pool the pool of buffers and Deflaters.
+     * @param contentCoding the coding negotiated with the client.
+     */
+	CompressingResponseWrapper(HttpServletResponse response, CompressionPool pool, String contentCoding) {
+		super(response);
+		this.pool = pool;
+		this.contentCoding = contentCoding;
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if(writer != null) {
+			throw new IllegalStateException("getWriter() has already been called");
+		}
+		return stream();
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if(writer == null) {
+			if(stream != null) {
+				throw new IllegalStateException("getOutputStream() has already been called");
+			}
+			writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	/**
+     * Returns the compressing stream, creating it on first use.
+     *
+     * @return the stream.
+     * @throws IOException if the output stream of the response cannot be obtained.
+     */
+	private CompressingOutputStream stream() throws IOException {
+		if(stream == null) {
+			stream = new CompressingOutputStream((HttpServletResponse) getResponse(), pool, contentCoding);
+			if(encodedByServlet) {
+				stream.passThrough();
+			} else if(declaredLength >= 0) {
+				stream.declareLength(declaredLength);
+			}
+		}
+		return stream;
+	}
+
+	@Override
+	public void setContentLength(int len) {
+		setContentLengthLong(len);
+	}
+
+	@Override
+	public void setContentLengthLong(long len) {
+		if(encodedByServlet) {
+			super.setContentLengthLong(len);
+			return;
+		}
+		declaredLength = len;
+		if(stream != null) {
+			stream.declareLength(len);
+		}
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		if(CONTENT_LENGTH_HEADER.equalsIgnoreCase(name) && value != null) {
+			setContentLengthLong(Long.parseLong(value));
+			return;
+		}
+		if(HttpCaching.CONTENT_ENCODING_HEADER.equalsIgnoreCase(name)) {
+			markEncodedByServlet();
+		}
+		super.setHeader(name, codedEtag(name, value));
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		if(CONTENT_LENGTH_HEADER.equalsIgnoreCase(name) && value != null) {
+			setContentLengthLong(Long.parseLong(value));
+			return;
+		}
+		if(HttpCaching.CONTENT_ENCODING_HEADER.equalsIgnoreCase(name)) {
+			markEncodedByServlet();
+		}
+		super.addHeader(name, codedEtag(name, value));
+	}
+
+	/**
+     * Appends the content coding to an ETag set after compression has started. Until then the stream
+     * adjusts the ETag when it decides to compress.
+     *
+     * @param name the header name.
+     * @param value the header value.
+     * @return the value to send.
+     */
+	private String codedEtag(String name, String value) {
+		if(HttpCaching.ETAG_HEADER.equalsIgnoreCase(name) && stream != null && stream.isCompressing()) {
+			return HttpCaching.withContentCoding(value, contentCoding);
+		}
+		return value;
+	}
+
+	@Override
+	public void setIntHeader(String name, int value) {
+		if(CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+			setContentLengthLong(value);
+			return;
+		}
+		super.setIntHeader(name, value);
+	}
+
+	/**
+     * Notes that the servlet sends an already encoded body, which must not be compressed again.
+     */
+	private void markEncodedByServlet() {
+		encodedByServlet = true;
+		if(declaredLength >= 0) {
+			super.setContentLengthLong(declaredLength);
+		}
+		if(stream != null) {
+			stream.passThrough();
+		}
+	}
+
+	/**
+     * Flushes what has been decided on. While the body is still being buffered the response is not
+     * committed, because committing would send the headers before Content-Encoding is known.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+	@Override
+	public void flushBuffer() throws IOException {
+		if(writer != null) {
+			writer.flush();
+		}
+		if(stream != null) {
+			stream.flush();
+			if(stream.isBuffering()) {
+				return;
+			}
+		}
+		super.flushBuffer();
+	}
+
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		discardBuffered();
+		super.sendError(sc, msg);
+	}
+
+	@Override
+	public void sendError(int sc) throws IOException {
+		discardBuffered();
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		discardBuffered();
+		super.sendRedirect(location);
+	}
+
+	/**
+     * Drops the body buffered so far, which the container replaces with its own.
+     */
+	private void discardBuffered() {
+		if(stream != null) {
+			stream.discardBuffered();
+		}
+	}
+
+	@Override
+	public void resetBuffer() {
+		super.resetBuffer();
+		discardBuffered();
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		declaredLength = -1;
+		encodedByServlet = false;
+		discardBuffered();
+	}
+
+	/**
+     * Completes the response body once the servlet has returned.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+	void finish() throws IOException {
+		if(writer != null) {
+			writer.flush();
+		}
+		if(stream != null) {
+			stream.finish();
+		}
+	}
+}
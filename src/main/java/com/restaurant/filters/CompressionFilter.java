@@ -0,0 +1,110 @@
+package com.restaurant.filters;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.concurrent.AsyncDispatcher;
+import com.restaurant.controllers.HttpCaching;
+import com.restaurant.database.DatabaseConfig;
+import com.restaurant.database.DatabaseConfigException;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filter that compresses response bodies with gzip or deflate, as negotiated from Accept-Encoding.
+ * Bodies up to {@code compression.min-size} bytes are sent uncompressed, since compressing them saves
+ * less than it costs. Buffers and Deflaters come from a bounded pool. A servlet that sends precomputed
+ * encoded bytes, such as a menu snapshot, sets Content-Encoding itself and its body is passed through.
+ * The body of an asynchronous request is finished by the worker, right before the request completes.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class CompressionFilter implements Filter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CompressionFilter.class);
+
+	private CompressionPool pool;
+
+	/**
+     * Creates the filter; the pool is set up from the configuration in {@link #init(FilterConfig)}.
+     */
+	public CompressionFilter() {
+		// configured in init
+	}
+
+	/**
+     * Creates the filter with the given pool, for testing.
+     *
+     * @param pool the pool of buffers and Deflaters, whose buffer size is the compression threshold.
+     */
+	CompressionFilter(CompressionPool pool) {
+		this.pool = pool;
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+		if(pool != null) {
+			return;
+		}
+		DatabaseConfig config;
+		try {
+			config = DatabaseConfig.load();
+		} catch (DatabaseConfigException e) {
+			LOGGER.warn("Compression settings could not be read, using the defaults", e);
+			config = new DatabaseConfig();
+		}
+		pool = new CompressionPool(config.getCompressionMinSize(), config.getCompressionLevel(), 
+				config.getCompressionPoolSize());
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+			throws IOException, ServletException {
+		if(!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+			chain.doFilter(request, response);
+			return;
+		}
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		HttpServletResponse httpResponse = (HttpServletResponse) response;
+		httpResponse.setHeader(HttpCaching.VARY_HEADER, HttpCaching.ACCEPT_ENCODING_HEADER);
+
+		String contentCoding = negotiate(httpRequest);
+		if(contentCoding == null || "HEAD".equals(httpRequest.getMethod())) {
+			chain.doFilter(request, response);
+			return;
+		}
+		CompressingResponseWrapper wrapper = new CompressingResponseWrapper(httpResponse, pool, contentCoding);
+		AsyncDispatcher.beforeComplete(request, wrapper::finish);
+		try {
+			chain.doFilter(request, wrapper);
+		} finally {
+			if(!AsyncDispatcher.isDispatched(request)) {
+				wrapper.finish();
+			}
+		}
+	}
+
+	/**
+     * Picks the content coding for the response, preferring gzip.
+     *
+     * @param request the request.
+     * @return {@value HttpCaching#GZIP}, {@value HttpCaching#DEFLATE}, or null to send the body unencoded.
+     */
+	static String negotiate(HttpServletRequest request) {
+		if(HttpCaching.accepts(request, HttpCaching.GZIP)) {
+			return HttpCaching.GZIP;
+		}
+		if(HttpCaching.accepts(request, HttpCaching.DEFLATE)) {
+			return HttpCaching.DEFLATE;
+		}
+		return null;
+	}
+}
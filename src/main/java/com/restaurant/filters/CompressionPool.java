@@ -0,0 +1,83 @@
+package com.restaurant.filters;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Bounded pools of the buffers and {@link Deflater} instances used to compress responses.
+ * A Deflater holds native memory that is only freed by {@link Deflater#end()}, so reusing them
+ * avoids both the allocation and the wait for finalization. Objects that do not fit back into a
+ * full pool are dropped (Deflaters are ended).
+ */
+final class CompressionPool {
+	private final int bufferSize;
+	private final int level;
+	private final BlockingQueue<byte[]> buffers;
+	private final BlockingQueue<Deflater> rawDeflaters;
+	private final BlockingQueue<Deflater> zlibDeflaters;
+
+	/**
+     * Creates the pools.
+     *
+     * @param bufferSize the size of the pooled buffers.
+     * @param level the compression level of the Deflaters, 0 to 9.
+     * @param capacity the maximum number of idle objects kept per pool.
+     */
+	CompressionPool(int bufferSize, int level, int capacity) {
+		this.bufferSize = bufferSize;
+		this.level = level;
+		int size = Math.max(1, capacity);
+		this.buffers = new ArrayBlockingQueue<>(size);
+		this.rawDeflaters = new ArrayBlockingQueue<>(size);
+		this.zlibDeflaters = new ArrayBlockingQueue<>(size);
+	}
+
+	int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+     * Takes a buffer from the pool or allocates one.
+     *
+     * @return a buffer of {@link #getBufferSize()} bytes.
+     */
+	byte[] acquireBuffer() {
+		byte[] buffer = buffers.poll();
+		return buffer != null ? buffer : new byte[bufferSize];
+	}
+
+	/**
+     * Returns a buffer to the pool.
+     *
+     * @param buffer the buffer, no longer used by the caller.
+     */
+	void releaseBuffer(byte[] buffer) {
+		buffers.offer(buffer);
+	}
+
+	/**
+     * Takes a Deflater from the pool or creates one.
+     *
+     * @param nowrap true for raw deflate data as embedded in gzip, false for the zlib format of the
+     *        {@code deflate} content coding.
+     * @return a Deflater ready for new input.
+     */
+	Deflater acquireDeflater(boolean nowrap) {
+		Deflater deflater = (nowrap ? rawDeflaters : zlibDeflaters).poll();
+		return deflater != null ? deflater : new Deflater(level, nowrap);
+	}
+
+	/**
+     * Resets a Deflater and returns it to the pool, or ends it if the pool is full.
+     *
+     * @param deflater the Deflater, no longer used by the caller.
+     * @param nowrap the format it was acquired for.
+     */
+	void releaseDeflater(Deflater deflater, boolean nowrap) {
+		deflater.reset();
+		if(!(nowrap ? rawDeflaters : zlibDeflaters).offer(deflater)) {
+			deflater.end();
+		}
+	}
+}
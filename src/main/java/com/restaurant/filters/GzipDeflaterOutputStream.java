@@ -0,0 +1,68 @@
+package com.restaurant.filters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes the gzip format around raw deflate data produced by a caller-supplied {@link Deflater}.
+ * Unlike {@link java.util.zip.GZIPOutputStream}, which always creates its own Deflater, this lets the
+ * Deflater come from a {@link CompressionPool}. Flushing performs a sync flush, so data written so far
+ * reaches the client.
+ */
+final class GzipDeflaterOutputStream extends DeflaterOutputStream {
+	private static final byte[] HEADER = {
+			0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+	private static final int BUFFER_SIZE = 8192;
+
+	private final CRC32 crc = new CRC32();
+
+	/**
+     * Creates the stream and writes the gzip header.
+     *
+     * @param out the stream that receives the compressed bytes.
+     * @param deflater a Deflater created with {@code nowrap} set.
+     * @throws IOException if the header cannot be written.
+     */
+	GzipDeflaterOutputStream(OutputStream out, Deflater deflater) throws IOException {
+		super(out, deflater, BUFFER_SIZE, true);
+		out.write(HEADER);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		super.write(b, off, len);
+		crc.update(b, off, len);
+	}
+
+	/**
+     * Finishes the deflate data and writes the gzip trailer: the CRC-32 and the length of the input,
+     * both little-endian. The underlying stream stays open.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+	@Override
+	public void finish() throws IOException {
+		if(def.finished()) {
+			return;
+		}
+		super.finish();
+		writeIntLE((int) crc.getValue());
+		writeIntLE((int) def.getBytesRead());
+	}
+
+	/**
+     * Writes a 32-bit value in little-endian byte order.
+     *
+     * @param value the value.
+     * @throws IOException if an I/O error occurs.
+     */
+	private void writeIntLE(int value) throws IOException {
+		out.write(value & 0xff);
+		out.write((value >>> 8) & 0xff);
+		out.write((value >>> 16) & 0xff);
+		out.write((value >>> 24) & 0xff);
+	}
+}
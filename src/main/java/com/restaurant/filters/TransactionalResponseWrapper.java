@@ -0,0 +1,182 @@
+package com.restaurant.filters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper that holds the body, errors and redirects of a write request back until its unit of
+ * work has ended, so that the client is never told a change succeeded before it is committed. Headers and
+ * the status go to the response at once; they are not sent before the body.
+ * {@link #finish(boolean)} then sends what was held back, or a 500 if the commit failed.
+ */
+public final class TransactionalResponseWrapper extends HttpServletResponseWrapper {
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+	private ServletOutputStream stream;
+	private PrintWriter writer;
+	private int errorStatus = -1;
+	private String errorMessage;
+	private String redirectLocation;
+
+	/**
+     * Creates the wrapper.
+     *
+     * @param response the response to hold the body of.
+     */
+	public TransactionalResponseWrapper(HttpServletResponse response) {
+		super(response);
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() {
+		if(writer != null) {
+			throw new IllegalStateException("getWriter() has already been called");
+		}
+		if(stream == null) {
+			stream = new BufferOutputStream();
+		}
+		return stream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if(writer == null) {
+			if(stream != null) {
+				throw new IllegalStateException("getOutputStream() has already been called");
+			}
+			writer = new PrintWriter(new OutputStreamWriter(body, getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	@Override
+	public void sendError(int sc, String msg) {
+		checkNotCommitted();
+		discardBody();
+		errorStatus = sc;
+		errorMessage = msg;
+	}
+
+	@Override
+	public void sendError(int sc) {
+		sendError(sc, null);
+	}
+
+	@Override
+	public void sendRedirect(String location) {
+		checkNotCommitted();
+		discardBody();
+		redirectLocation = location;
+	}
+
+	@Override
+	public int getStatus() {
+		if(errorStatus >= 0) {
+			return errorStatus;
+		}
+		return redirectLocation != null ? HttpServletResponse.SC_FOUND : super.getStatus();
+	}
+
+	@Override
+	public boolean isCommitted() {
+		return errorStatus >= 0 || redirectLocation != null || super.isCommitted();
+	}
+
+	@Override
+	public void flushBuffer() {
+		if(writer != null) {
+			writer.flush();
+		}
+	}
+
+	@Override
+	public void resetBuffer() {
+		checkNotCommitted();
+		discardBody();
+	}
+
+	@Override
+	public void reset() {
+		checkNotCommitted();
+		super.reset();
+		discardBody();
+	}
+
+	/**
+     * Sends what was held back once the unit of work has ended.
+     *
+     * @param committed false if the commit failed, in which case a 500 is sent instead.
+     * @throws IOException if an I/O error occurs.
+     */
+	public void finish(boolean committed) throws IOException {
+		HttpServletResponse response = (HttpServletResponse) getResponse();
+		if(!committed) {
+			discardBody();
+			response.reset();
+			response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Failed to commit the changes");
+			return;
+		}
+		if(errorStatus >= 0) {
+			if(errorMessage == null) {
+				response.sendError(errorStatus);
+			} else {
+				response.sendError(errorStatus, errorMessage);
+			}
+			return;
+		}
+		if(redirectLocation != null) {
+			response.sendRedirect(redirectLocation);
+			return;
+		}
+		if(writer != null) {
+			writer.flush();
+		}
+		if(body.size() > 0) {
+			body.writeTo(response.getOutputStream());
+		}
+	}
+
+	private void checkNotCommitted() {
+		if(isCommitted()) {
+			throw new IllegalStateException("The response has already been committed");
+		}
+	}
+
+	private void discardBody() {
+		if(writer != null) {
+			writer.flush();
+		}
+		body.reset();
+	}
+
+	/**
+     * Output stream that collects the body in memory.
+     */
+	private final class BufferOutputStream extends ServletOutputStream {
+		@Override
+		public void write(int b) {
+			body.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			body.write(b, off, len);
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			throw new IllegalStateException("Non-blocking writes are not supported while the body is held back");
+		}
+	}
+}
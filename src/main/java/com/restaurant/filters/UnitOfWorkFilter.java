@@ -0,0 +1,107 @@
+package com.restaurant.filters;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.database.DatabaseConnection;
+import com.restaurant.database.UnitOfWork;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filter that wraps every request in a {@link UnitOfWork}.
+ * Requests that modify data run in one transaction, committed when the response status is below 500
+ * and rolled back otherwise. Their response is held back in a {@link TransactionalResponseWrapper} until the
+ * transaction has ended, and replaced by a 500 if the commit fails. Read requests only share one pooled
+ * connection for their DAO calls. The connection is borrowed on the first DAO call and returned when the
+ * request completes.
+ * Requests to servlets that support asynchronous processing are left alone: they are handed to
+ * {@link com.restaurant.concurrent.AsyncDispatcher}, which runs them in a unit of work of their own.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class UnitOfWorkFilter implements Filter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(UnitOfWorkFilter.class);
+
+	private final UnitOfWork.ConnectionSource connectionSource;
+
+	/**
+     * Creates the filter on the shared connection pool.
+     */
+	public UnitOfWorkFilter() {
+		this(() -> DatabaseConnection.getInstance().getConnection());
+	}
+
+	/**
+     * Creates the filter on the given connections, for testing.
+     *
+     * @param connectionSource where units of work obtain their connection from.
+     */
+	UnitOfWorkFilter(UnitOfWork.ConnectionSource connectionSource) {
+		this.connectionSource = connectionSource;
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+			throws IOException, ServletException {
+		if(!(request instanceof HttpServletRequest) || UnitOfWork.current().isPresent() || request.isAsyncSupported()) {
+			chain.doFilter(request, response);
+			return;
+		}
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+		boolean readOnly = isReadOnly(httpRequest.getMethod());
+		UnitOfWork unitOfWork = UnitOfWork.begin(connectionSource, readOnly);
+		TransactionalResponseWrapper heldResponse = readOnly ? null : new TransactionalResponseWrapper(httpResponse);
+		HttpServletResponse target = readOnly ? httpResponse : heldResponse;
+		boolean success = false;
+		boolean committed = false;
+		try {
+			chain.doFilter(request, target);
+			success = target.getStatus() < HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+		} finally {
+			committed = end(unitOfWork, success, httpRequest);
+		}
+		if(heldResponse != null) {
+			heldResponse.finish(committed);
+		}
+	}
+
+	/**
+     * Ends the unit of work. A failed commit is logged and reported to the caller.
+     *
+     * @param unitOfWork the unit of work to end.
+     * @param success true to commit.
+     * @param request the current request, for logging.
+     * @return false if the commit failed and the work was rolled back.
+     */
+	public static boolean end(UnitOfWork unitOfWork, boolean success, HttpServletRequest request) {
+		try {
+			unitOfWork.end(success);
+			return true;
+		} catch (SQLException e) {
+			LOGGER.error("Failed to commit {} {}", request.getMethod(), request.getRequestURI(), e);
+			return false;
+		}
+	}
+
+	/**
+     * Returns whether requests with the given method can run without a transaction.
+     *
+     * @param method the HTTP method.
+     * @return true for safe methods.
+     */
+	public static boolean isReadOnly(String method) {
+		return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+	}
+}
@@ -10,7 +10,7 @@ import com.restaurant.entity.OrderApproval;
 /**
  * Mapper interface for OrderApproval entity and DTO.
  */
-@Mapper(uses = OrderStatusMapper.class)
+@Mapper(uses = {OrderStatusMapper.class, ProductMapper.class})
 public interface OrderApprovalMapper {
 	OrderApprovalMapper INSTANCE = Mappers.getMapper(OrderApprovalMapper.class);
 
@@ -26,7 +26,7 @@ public interface OrderApprovalMapper {
     OrderApprovalDTO toDTO(OrderApproval orderApproval);
 
     /**
-     * Converts OrderApprovalDTO to OrderApproval entity.
+     * Converts OrderApprovalDTO to OrderApproval entity. The row versions are left at 0.
      *
      * @param orderApprovalDTO the OrderApprovalDTO.
      * @return the OrderApproval entity.
@@ -34,5 +34,6 @@ public interface OrderApprovalMapper {
     @Mapping(source = "orderDetail.orderStatus", 
     		target = "orderDetail.orderStatus", 
     		qualifiedByName = "toEntity")
+    @Mapping(target = "orderDetail.version", ignore = true)
     OrderApproval toEntity(OrderApprovalDTO orderApprovalDTO);
 }
@@ -10,7 +10,7 @@ import com.restaurant.entity.OrderDetail;
 /**
  * Mapper interface for OrderDetail entity and DTO.
  */
-@Mapper(uses = {OrderStatusMapper.class})
+@Mapper(uses = {OrderStatusMapper.class, ProductMapper.class})
 public interface OrderDetailMapper {
 	OrderDetailMapper INSTANCE = Mappers.getMapper(OrderDetailMapper.class);
 	
@@ -26,7 +26,8 @@ public interface OrderDetailMapper {
 	OrderDetailDTO toDTO(OrderDetail orderDetail);
 	
 	 /**
-     * Converts OrderDetailDTO to OrderDetail entity.
+     * Converts OrderDetailDTO to OrderDetail entity. The row versions are left at 0; they are only set
+     * from an {@code If-Match} precondition.
      *
      * @param orderDetailDTO the OrderDetailDTO.
      * @return the OrderDetail entity.
@@ -34,5 +35,6 @@ public interface OrderDetailMapper {
 	@Mapping(source = "orderStatus", 
 			target = "orderStatus", 
 			qualifiedByName = "toEntity")
+	@Mapping(target = "version", ignore = true)
 	OrderDetail toEntity(OrderDetailDTO orderDetailDTO);
 }
@@ -1,6 +1,7 @@
 package com.restaurant.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 import com.restaurant.dto.ProductCategoryDTO;
@@ -9,7 +10,7 @@ import com.restaurant.entity.ProductCategory;
 /**
  * Mapper interface for ProductCategory entity and DTO.
  */
-@Mapper
+@Mapper(uses = ProductMapper.class)
 public interface ProductCategoryMapper {
 	ProductCategoryMapper INSTANCE = Mappers.getMapper(ProductCategoryMapper.class);	
 	
@@ -22,11 +23,13 @@ public interface ProductCategoryMapper {
 	ProductCategoryDTO toDTO(ProductCategory productCategory);	
 	
 	/**
-     * Converts ProductCategoryDTO to ProductCategory entity.
+     * Converts ProductCategoryDTO to ProductCategory entity. The row versions are left at 0; they are only
+     * set from an {@code If-Match} precondition.
      *
      * @param productCategoryDTO the ProductCategoryDTO.
      * @return the ProductCategory entity.
      */
+	@Mapping(target = "version", ignore = true)
 	ProductCategory toEntity(ProductCategoryDTO productCategoryDTO);
 
 }
@@ -1,6 +1,7 @@
 package com.restaurant.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 import com.restaurant.dto.ProductDTO;
@@ -22,10 +23,13 @@ public interface ProductMapper {
 	ProductDTO toDTO(Product product);	
 	
 	/**
-     * Converts ProductDTO to Product entity.
+     * Converts ProductDTO to Product entity. The row versions are left at 0; they are only set from
+     * an {@code If-Match} precondition.
      *
      * @param productDTO the ProductDTO.
      * @return the Product entity.
      */
+	@Mapping(target = "version", ignore = true)
+	@Mapping(target = "productCategory.version", ignore = true)
 	Product toEntity(ProductDTO productDTO);
 }
@@ -31,12 +31,30 @@ public class OrderApprovalSQLQueries {
             + "INNER JOIN order_details od ON oa.order_detail_id = od.id "
             + "INNER JOIN order_status os ON od.order_status_id = os.id";
     
+    /**
+     * SQL query to retrieve the next page of order approvals with an ID greater than the given one, ordered by ID.
+     */
+    public static final String GET_APPROVALS_PAGE = GET_ALL_APPROVALS + " "
+    		+ "WHERE oa.id > ? "
+    		+ "ORDER BY oa.id "
+    		+ "LIMIT ?";
+    
     /**
      * SQL query to update an existing order approval in the database.
      */
     public static final String UPDATE_APPROVAL = "UPDATE order_approvals SET order_detail_id = ? "
     		+ "WHERE id = ?";
     
+    /**
+     * SQL query to insert an order approval or update the existing row with the same ID in one statement.
+     * An ID that does not exist yet is replaced by the next value of the ID sequence; returns the row ID.
+     */
+    public static final String UPSERT_APPROVAL = "INSERT INTO order_approvals (order_detail_id, id) "
+    		+ "VALUES (?, "
+    		+ "COALESCE((SELECT id FROM order_approvals WHERE id = ?), nextval(pg_get_serial_sequence('order_approvals', 'id')))) "
+    		+ "ON CONFLICT (id) DO UPDATE SET order_detail_id = EXCLUDED.order_detail_id "
+    		+ "RETURNING id";
+    
     /**
      * SQL query to delete an order approval by its ID from the database.
      */
@@ -27,22 +27,144 @@ public class OrderDetailSQLQueries {
             + "INNER JOIN order_status os ON od.order_status_id = os.id "
             + "WHERE od.id = ?";
 	
+	/**
+     * Query prefix that loads order details without their products. Status is selected as ID only
+     * and resolved from the reference data registry.
+     */
+	private static final String SELECT_DETAILS_WITHOUT_PRODUCTS = "SELECT od.id, od.total_amount, "
+			+ "od.order_status_id AS status_id, od.version "
+			+ "FROM order_details od "
+			+ "WHERE od.order_status_id IS NOT NULL ";
+	
+	/**
+     * SQL query to retrieve all order details without their products, ordered by ID.
+     */
+	public static final String GET_ALL_DETAILS_WITHOUT_PRODUCTS = SELECT_DETAILS_WITHOUT_PRODUCTS
+			+ "ORDER BY od.id";
+	
+	/**
+     * SQL query to retrieve the next page of order details without their products: the orders with an ID
+     * greater than the given one, ordered by ID.
+     */
+	public static final String GET_DETAILS_PAGE_WITHOUT_PRODUCTS = SELECT_DETAILS_WITHOUT_PRODUCTS
+			+ "AND od.id > ? "
+			+ "ORDER BY od.id "
+			+ "LIMIT ?";
+	
+	/**
+     * Start and end of an order search without products, used like {@link #SEARCH_DETAILS_START} and
+     * {@link #SEARCH_DETAILS_END}.
+     */
+	public static final String SEARCH_DETAILS_WITHOUT_PRODUCTS_START = SELECT_DETAILS_WITHOUT_PRODUCTS
+			+ "AND od.id > ?";
+	public static final String SEARCH_DETAILS_WITHOUT_PRODUCTS_END = " ORDER BY od.id LIMIT ?";
+	
+	/**
+     * Columns of the queries that load order details together with their products. Status and category
+     * are selected as IDs only and resolved from the reference data registry.
+     */
+	private static final String DETAILS_WITH_PRODUCTS_COLUMNS = "SELECT od.id, od.total_amount, "
+			+ "od.order_status_id AS status_id, od.version, "
+			+ "p.id AS product_id, p.name AS product_name, p.price, p.quantity, p.available, p.category_id, "
+			+ "p.version AS product_version ";
+	
+	/**
+     * Join from the order details, aliased {@code od}, to their products.
+     * Orders without products yield one row with NULL product columns; products without a category are skipped.
+     */
+	private static final String DETAILS_WITH_PRODUCTS_JOIN = "LEFT JOIN (order_detail_products odp "
+			+ "INNER JOIN products p ON p.id = odp.product_id AND p.category_id IS NOT NULL) "
+			+ "ON odp.order_detail_id = od.id ";
+	
+	/**
+     * Query prefix that loads all order details that have a status together with their products.
+     */
+	private static final String SELECT_DETAILS_WITH_PRODUCTS = DETAILS_WITH_PRODUCTS_COLUMNS
+			+ "FROM order_details od "
+			+ DETAILS_WITH_PRODUCTS_JOIN
+			+ "WHERE od.order_status_id IS NOT NULL ";
+	
+	/**
+     * SQL query to retrieve all order details with their products in one pass, ordered by order ID.
+     */
+	public static final String GET_ALL_DETAILS_WITH_PRODUCTS = SELECT_DETAILS_WITH_PRODUCTS
+			+ "ORDER BY od.id, p.id";
+	
+	/**
+     * SQL query to retrieve an order detail with its products by the order ID.
+     */
+	public static final String GET_DETAIL_WITH_PRODUCTS_BY_ID = SELECT_DETAILS_WITH_PRODUCTS
+			+ "AND od.id = ? "
+			+ "ORDER BY p.id";
+	
+	/**
+     * SQL query to retrieve the order details with the IDs of an integer array parameter with their products,
+     * ordered by order ID.
+     */
+	public static final String GET_DETAILS_WITH_PRODUCTS_BY_IDS = SELECT_DETAILS_WITH_PRODUCTS
+			+ "AND od.id = ANY(?) "
+			+ "ORDER BY od.id, p.id";
+	
+	/**
+     * SQL query to retrieve the next page of order details with their products. The page is limited by orders,
+     * not by joined rows: it holds the orders with an ID greater than the given one, ordered by ID.
+     */
+	public static final String GET_DETAILS_WITH_PRODUCTS_PAGE = DETAILS_WITH_PRODUCTS_COLUMNS
+			+ "FROM (SELECT * FROM order_details WHERE order_status_id IS NOT NULL AND id > ? ORDER BY id LIMIT ?) od "
+			+ DETAILS_WITH_PRODUCTS_JOIN
+			+ "ORDER BY od.id, p.id";
+	
+	/**
+     * Start of an order search: the inner query selects the orders of the page with an ID greater than the
+     * first parameter. Filter conditions on {@code order_details} columns follow, then {@link #SEARCH_DETAILS_END}.
+     */
+	public static final String SEARCH_DETAILS_START = DETAILS_WITH_PRODUCTS_COLUMNS
+			+ "FROM (SELECT * FROM order_details WHERE order_status_id IS NOT NULL AND id > ?";
+	
+	/**
+     * Conditions of an order search. The status condition is completed with one placeholder per status
+     * and {@link #FILTER_BY_STATUS_END}; the amount conditions have a single parameter each.
+     */
+	public static final String FILTER_BY_STATUS_START = " AND order_status_id IN (";
+	public static final String FILTER_BY_STATUS_END = ")";
+	public static final String FILTER_BY_MIN_AMOUNT = " AND total_amount >= ?";
+	public static final String FILTER_BY_MAX_AMOUNT = " AND total_amount <= ?";
+	
+	/**
+     * End of an order search: limits the page to the given number of orders and joins their products.
+     */
+	public static final String SEARCH_DETAILS_END = " ORDER BY id LIMIT ?) od "
+			+ DETAILS_WITH_PRODUCTS_JOIN
+			+ "ORDER BY od.id, p.id";
+	
 	/**
      * SQL query to retrieve products associated with a specific order detail ID from the database.
      */
 	public static final String GET_PRODUCTS_BY_ORDER_DETAIL_ID = "SELECT p.id, "
-			+ "p.name, p.price, p.quantity, p.available, "
-			+ "pc.id as category_id, pc.name as category_name, pc.type as category_type "
+			+ "p.name, p.price, p.quantity, p.available, p.category_id, p.version "
             + "FROM products p "
-            + "INNER JOIN product_categories pc ON p.category_id = pc.id "
             + "INNER JOIN order_detail_products odp ON p.id = odp.product_id "
-            + "WHERE odp.order_detail_id = ?";	
+            + "WHERE odp.order_detail_id = ? AND p.category_id IS NOT NULL";	
 	
 	/**
      * SQL query to update an existing order detail in the database.
      */
 	public static final String UPDATE_DETAIL = "UPDATE order_details "
-			+ "SET order_status_id = ?, total_amount = ? WHERE id = ?";
+			+ "SET order_status_id = ?, total_amount = ?, version = nextval('row_version_seq') WHERE id = ?";
+	
+	/**
+     * SQL query to insert an order detail or update the existing row with the same ID in one statement.
+     * An ID that does not exist yet is replaced by the next value of the ID sequence. An update takes a new row
+     * version and only happens if the expected version bound last is 0 or equals the current one; returns the row ID
+     * and version, or no row if the version did not match.
+     */
+	public static final String UPSERT_DETAIL = "INSERT INTO order_details (order_status_id, total_amount, id) "
+			+ "VALUES (?, ?, "
+			+ "COALESCE((SELECT id FROM order_details WHERE id = ?), nextval(pg_get_serial_sequence('order_details', 'id')))) "
+			+ "ON CONFLICT (id) DO UPDATE SET order_status_id = EXCLUDED.order_status_id, total_amount = EXCLUDED.total_amount, "
+			+ "version = nextval('row_version_seq') "
+			+ "WHERE ? = 0 OR order_details.version = ? "
+			+ "RETURNING id, version";
 	
 	/**
      * SQL query to delete products associated with a specific order detail ID from the database.
@@ -56,6 +178,11 @@ public class OrderDetailSQLQueries {
 	public static final String DELETE_APPROVAL_BY_ORDER_ID = "DELETE FROM order_approvals "
 			+ "WHERE order_detail_id = ?";
 	
+	/**
+     * SQL query to read and lock the version of an order detail before a conditional delete.
+     */
+	public static final String LOCK_DETAIL_VERSION = "SELECT version FROM order_details WHERE id = ? FOR UPDATE";
+	
 	/**
      * SQL query to delete an order detail by its ID from the database.
      */
@@ -21,6 +21,12 @@ public class OrderStatusSQLQueries {
      */
 	public static final String GET_ALL_STATUS = "SELECT * FROM order_status";
 	
+	/**
+     * SQL query to retrieve the next page of order statuses with an ID greater than the given one, ordered by ID.
+     */
+	public static final String GET_STATUS_PAGE = "SELECT * FROM order_status "
+			+ "WHERE id > ? ORDER BY id LIMIT ?";
+	
 	/**
      * SQL query to update an existing order status in the database.
      */
@@ -9,7 +9,7 @@ public class ProductCategorySQLQueries {
      * SQL query to retrieve a product category by its ID from the database.
      */
 	public static final String GET_CATEGORY_BY_ID = "SELECT pc.id AS category_id, "
-			+ "pc.name AS category_name, pc.type AS category_type "
+			+ "pc.name AS category_name, pc.type AS category_type, pc.version AS category_version "
             + "FROM product_categories pc "
 			+ "WHERE pc.id = ?";
 	
@@ -17,9 +17,24 @@ public class ProductCategorySQLQueries {
      * SQL query to retrieve all product categories from the database.
      */
 	public static final String GET_ALL_CATEGORIES = "SELECT pc.id AS category_id, "
-			+ "pc.name AS category_name, pc.type AS category_type "
+			+ "pc.name AS category_name, pc.type AS category_type, pc.version AS category_version "
             + "FROM product_categories pc";
 	
+	/**
+     * SQL query to retrieve all product categories without their products, ordered by ID.
+     */
+	public static final String GET_ALL_CATEGORIES_BY_ID = GET_ALL_CATEGORIES + " "
+			+ "ORDER BY pc.id";
+	
+	/**
+     * SQL query to retrieve the next page of product categories without their products: the categories with
+     * an ID greater than the given one, ordered by ID.
+     */
+	public static final String GET_CATEGORIES_PAGE = GET_ALL_CATEGORIES + " "
+			+ "WHERE pc.id > ? "
+			+ "ORDER BY pc.id "
+			+ "LIMIT ?";
+	
 	/**
      * SQL query to retrieve all products by category ID from the database.
      */
@@ -27,27 +42,70 @@ public class ProductCategorySQLQueries {
 			+ "WHERE category_id = ?";
 	
 	/**
-     * SQL query to retrieve a product category along with its associated products by category ID.
-     * Note: This query is not currently used.
+     * Columns of the queries that load categories together with their products.
      */
-	public static final String GET_CATEGORY_WITH_PRODUCTS_BY_ID = 
+	private static final String CATEGORIES_WITH_PRODUCTS_COLUMNS = 
 	        "SELECT pc.id AS category_id, pc.name AS category_name, pc.type AS category_type, " +
-	        "p.id AS product_id, p.name AS product_name, p.price, p.quantity, p.available " +
+	        "pc.version AS category_version, " +
+	        "p.id AS product_id, p.name AS product_name, p.price, p.quantity, p.available, p.version AS product_version ";
+	
+	/**
+     * Join from the categories, aliased {@code pc}, to their products.
+     * Categories without products yield one row with NULL product columns.
+     */
+	private static final String CATEGORIES_WITH_PRODUCTS_JOIN = "LEFT JOIN products p ON pc.id = p.category_id ";
+	
+	/**
+     * Query prefix that loads all categories together with their products.
+     */
+	private static final String SELECT_CATEGORIES_WITH_PRODUCTS = CATEGORIES_WITH_PRODUCTS_COLUMNS +
 	        "FROM product_categories pc " +
-	        "LEFT JOIN products p ON pc.id = p.category_id " +
-	        "WHERE pc.id = ?";
+	        CATEGORIES_WITH_PRODUCTS_JOIN;
 	
 	/**
-     * SQL query to insert a new product category into the database.
+     * SQL query to retrieve a product category along with its associated products by category ID.
      */
-	public static final String INSERT_CATEGORY = "INSERT INTO product_categories (name, type) "
-			+ "VALUES (?, ?)";
+	public static final String GET_CATEGORY_WITH_PRODUCTS_BY_ID = SELECT_CATEGORIES_WITH_PRODUCTS +
+	        "WHERE pc.id = ? " +
+	        "ORDER BY p.id";
 	
 	/**
-     * SQL query to update an existing product category in the database.
+     * SQL query to retrieve all product categories along with their associated products, ordered by category ID.
      */
-	public static final String UPDATE_CATEGORY = "UPDATE product_categories SET name = ?, type = ? "
-			+ "WHERE id = ?";
+	public static final String GET_ALL_CATEGORIES_WITH_PRODUCTS = SELECT_CATEGORIES_WITH_PRODUCTS +
+	        "ORDER BY pc.id, p.id";
+	
+	/**
+     * SQL query to retrieve the menu: the categories that have available products, each with those products,
+     * ordered by category and product ID. Unavailable products and categories without available products are skipped.
+     */
+	public static final String GET_MENU = CATEGORIES_WITH_PRODUCTS_COLUMNS +
+	        "FROM product_categories pc " +
+	        "INNER JOIN products p ON pc.id = p.category_id AND p.available " +
+	        "ORDER BY pc.id, p.id";
+	
+	/**
+     * SQL query to retrieve the next page of categories with their products. The page is limited by categories,
+     * not by joined rows: it holds the categories with an ID greater than the given one, ordered by ID.
+     */
+	public static final String GET_CATEGORIES_WITH_PRODUCTS_PAGE = CATEGORIES_WITH_PRODUCTS_COLUMNS +
+	        "FROM (SELECT * FROM product_categories WHERE id > ? ORDER BY id LIMIT ?) pc " +
+	        CATEGORIES_WITH_PRODUCTS_JOIN +
+	        "ORDER BY pc.id, p.id";
+	
+	/**
+     * SQL query to insert a product category or update the existing row with the same ID in one statement.
+     * An ID that does not exist yet is replaced by the next value of the ID sequence. An update takes a new row
+     * version and only happens if the expected version bound last is 0 or equals the current one; returns the row ID
+     * and version, or no row if the version did not match.
+     */
+	public static final String UPSERT_CATEGORY = "INSERT INTO product_categories (name, type, id) "
+			+ "VALUES (?, ?, "
+			+ "COALESCE((SELECT id FROM product_categories WHERE id = ?), nextval(pg_get_serial_sequence('product_categories', 'id')))) "
+			+ "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, type = EXCLUDED.type, "
+			+ "version = nextval('row_version_seq') "
+			+ "WHERE ? = 0 OR product_categories.version = ? "
+			+ "RETURNING id, version";
 	
 	/**
      * SQL query to delete product associations in the order_detail_products table by category ID.
@@ -62,6 +120,11 @@ public class ProductCategorySQLQueries {
 	public static final String DELETE_PRODUCTS_BY_CATEGORY_ID = 
 	        "DELETE FROM products WHERE category_id = ?";
 	
+	/**
+     * SQL query to read and lock the version of a product category before a conditional delete.
+     */
+	public static final String LOCK_CATEGORY_VERSION = "SELECT version FROM product_categories WHERE id = ? FOR UPDATE";
+	
 	/**
      * SQL query to delete a product category from the database by its ID.
      */
@@ -4,42 +4,87 @@ package com.restaurant.queries;
  * Utility class containing SQL queries for the Product entity.
  */
 public class ProductSQLQueries {
-	 /**
-     * SQL query to insert a new product into the database.
+	/**
+     * SQL query to insert a product or update the existing row with the same ID in one statement.
+     * An ID that does not exist yet is replaced by the next value of the ID sequence. An update takes a new row
+     * version and only happens if the expected version bound last is 0 or equals the current one; returns the row ID
+     * and version, or no row if the version did not match.
      */
-	public static final String INSERT_PRODUCT = ""
-			+ "INSERT INTO products "
-			+ "(name, price, quantity, available, category_id) "
-			+ "VALUES (?, ?, ?, ?, ?)";	
+	public static final String UPSERT_PRODUCT = "INSERT INTO products (name, price, quantity, available, category_id, id) "
+			+ "VALUES (?, ?, ?, ?, ?, "
+			+ "COALESCE((SELECT id FROM products WHERE id = ?), nextval(pg_get_serial_sequence('products', 'id')))) "
+			+ "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, price = EXCLUDED.price, "
+			+ "quantity = EXCLUDED.quantity, available = EXCLUDED.available, category_id = EXCLUDED.category_id, "
+			+ "version = nextval('row_version_seq') "
+			+ "WHERE ? = 0 OR products.version = ? "
+			+ "RETURNING id, version";
 	
 	/**
-     * SQL query to update an existing product in the database.
+     * SQL query to retrieve all products from the database. Only the category ID is selected;
+     * the category itself is resolved from the reference data registry. Products without a category are skipped.
      */
-	public static final String UPDATE_PRODUCT = ""
-			+ "UPDATE products "
-			+ "SET name = ?, price = ?, quantity = ?, available = ?, category_id = ? "
-			+ "WHERE id = ?";
+	public static final String GET_ALL_PRODUCTS =  ""
+			+ "SELECT p.id, p.name, p.price, p.quantity, p.available, p.category_id, p.version "
+			+ "FROM products p "
+			+ "WHERE p.category_id IS NOT NULL";
 	
 	/**
      * SQL query to retrieve a product by its ID from the database.
      */
-	public static final String GET_PRODUCT_BY_ID = ""
-			+ "SELECT p.id, p.name, p.price, p.quantity, p.available, "
-			+ "pc.id AS category_id, pc.name AS category_name, pc.type AS category_type "
-			+ "FROM products p "
-			+ "INNER JOIN product_categories pc "
-			+ "ON p.category_id = pc.id "
-			+ "WHERE p.id = ?";
+	public static final String GET_PRODUCT_BY_ID = GET_ALL_PRODUCTS + " "
+			+ "AND p.id = ?";
 	
 	/**
-     * SQL query to retrieve all products from the database.
+     * SQL query to retrieve the products with the IDs of an integer array parameter, ordered by ID.
      */
-	public static final String GET_ALL_PRODUCTS =  ""
-			+ "SELECT p.id, p.name, p.price, p.quantity, p.available, "
-			+ "pc.id AS category_id, pc.name AS category_name, pc.type AS category_type "
-			+ "FROM products p "
-			+ "INNER JOIN product_categories pc "
-			+ "ON p.category_id = pc.id";
+	public static final String GET_PRODUCTS_BY_IDS = GET_ALL_PRODUCTS + " "
+			+ "AND p.id = ANY(?) "
+			+ "ORDER BY p.id";
+	
+	/**
+     * SQL query to retrieve the next page of products with an ID greater than the given one, ordered by ID.
+     */
+	public static final String GET_PRODUCTS_PAGE = GET_ALL_PRODUCTS + " "
+			+ "AND p.id > ? "
+			+ "ORDER BY p.id "
+			+ "LIMIT ?";
+	
+	/**
+     * Columns that products can be sorted by or narrowed to. Sort and field parameters are mapped onto these
+     * constants only, never copied into the query.
+     */
+	public static final String COLUMN_ID = "p.id";
+	public static final String COLUMN_NAME = "p.name";
+	public static final String COLUMN_PRICE = "p.price";
+	public static final String COLUMN_QUANTITY = "p.quantity";
+	public static final String COLUMN_AVAILABLE = "p.available";
+	public static final String COLUMN_CATEGORY_ID = "p.category_id";
+	public static final String COLUMN_VERSION = "p.version";
+	
+	/**
+     * Parts of a product query with a narrowed select list: {@code SELECT}, the selected columns separated by commas,
+     * then the same table and condition as {@link #GET_ALL_PRODUCTS}.
+     */
+	public static final String SELECT = "SELECT ";
+	public static final String FROM_PRODUCTS = " FROM products p WHERE p.category_id IS NOT NULL";
+	
+	/**
+     * Conditions appended to {@link #GET_ALL_PRODUCTS} to filter products in the database.
+     * Each one has a single parameter.
+     */
+	public static final String FILTER_BY_CATEGORY = " AND p.category_id = ?";
+	public static final String FILTER_BY_AVAILABLE = " AND p.available = ?";
+	public static final String FILTER_BY_MIN_PRICE = " AND p.price >= ?";
+	public static final String FILTER_BY_MAX_PRICE = " AND p.price <= ?";
+	public static final String FILTER_AFTER_ID = " AND p.id > ?";
+	public static final String FILTER_BEFORE_ID = " AND p.id < ?";
+	
+	/**
+     * Clauses that complete a filtered product query: the sort order and the page size parameter.
+     */
+	public static final String ORDER_BY = " ORDER BY ";
+	public static final String DESCENDING = " DESC";
+	public static final String LIMIT = " LIMIT ?";
 	
 	/**
      * SQL query to delete product associations in the order_detail_products table by product ID.
@@ -48,6 +93,11 @@ public class ProductSQLQueries {
 			+ "DELETE FROM order_detail_products "
 			+ "WHERE product_id = ?";	
 	
+	/**
+     * SQL query to read and lock the version of a product before a conditional delete.
+     */
+	public static final String LOCK_PRODUCT_VERSION = "SELECT version FROM products WHERE id = ? FOR UPDATE";
+	
 	/**
      * SQL query to delete a product from the database by its ID.
      */
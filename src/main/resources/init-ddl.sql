@@ -4,11 +4,16 @@ DROP TABLE IF EXISTS order_details CASCADE;
 DROP TABLE IF EXISTS order_status CASCADE;
 DROP TABLE IF EXISTS products CASCADE;
 DROP TABLE IF EXISTS product_categories CASCADE;
+DROP SEQUENCE IF EXISTS row_version_seq;
+
+-- Every insert and update takes the next value, so a row version is also newer than all earlier writes.
+CREATE SEQUENCE IF NOT EXISTS row_version_seq;
 
 CREATE TABLE IF NOT EXISTS product_categories (
     id SERIAL PRIMARY KEY,
     name VARCHAR(100) NOT NULL,
-    type VARCHAR(50) NOT NULL
+    type VARCHAR(50) NOT NULL,
+    version BIGINT NOT NULL DEFAULT nextval('row_version_seq')
 );
 
 CREATE TABLE IF NOT EXISTS products (
@@ -18,6 +23,7 @@ CREATE TABLE IF NOT EXISTS products (
     quantity INT NOT NULL,
     available BOOLEAN NOT NULL,
     category_id INT,
+    version BIGINT NOT NULL DEFAULT nextval('row_version_seq'),
     FOREIGN KEY (category_id) REFERENCES product_categories(id)
 );
 
@@ -30,6 +36,7 @@ CREATE TABLE IF NOT EXISTS order_details (
     id SERIAL PRIMARY KEY,
     order_status_id INT,
     total_amount DECIMAL (10, 2) NOT NULL,
+    version BIGINT NOT NULL DEFAULT nextval('row_version_seq'),
     FOREIGN KEY (order_status_id) REFERENCES order_status(id)
 );
 
@@ -46,3 +53,12 @@ CREATE TABLE IF NOT EXISTS order_detail_products(
     FOREIGN KEY (order_detail_id) REFERENCES order_details(id),
     FOREIGN KEY (product_id) REFERENCES products(id)
 );
+
+-- Filtered product lists: category with a price range, price range alone, and the name sort.
+CREATE INDEX IF NOT EXISTS idx_products_category_price ON products (category_id, price, id);
+CREATE INDEX IF NOT EXISTS idx_products_price ON products (price, id);
+CREATE INDEX IF NOT EXISTS idx_products_name ON products (name, id);
+
+-- Order search: by status in ID order, and by status and amount.
+CREATE INDEX IF NOT EXISTS idx_order_details_status_id ON order_details (order_status_id, id);
+CREATE INDEX IF NOT EXISTS idx_order_details_status_amount ON order_details (order_status_id, total_amount, id);
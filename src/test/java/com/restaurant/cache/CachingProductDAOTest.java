@@ -0,0 +1,124 @@
+package com.restaurant.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.restaurant.entity.Product;
+import com.restaurant.entity.ProductCategory;
+import com.restaurant.queries.ProductSQLQueries;
+
+/**
+ * Unit tests for the {@link CachingProductDAO} class.
+ */
+class CachingProductDAOTest {
+	@Mock
+	Connection mockConnection;
+	@Mock
+	PreparedStatement mockPreparedStatement;
+	@Mock
+	ResultSet mockResultSet;
+
+	private CachingProductDAO productDAO;
+
+	@BeforeEach
+	public void setUp() throws SQLException {
+		MockitoAnnotations.openMocks(this);
+		productDAO = new CachingProductDAO(mockConnection, new LruCache<>(10, 60000));
+		productDAO.setReferenceData(new ReferenceDataRegistry(new ReferenceData(
+				List.of(new ProductCategory(1, "Sample Category", "Sample Type", null, 0)), Map.of())));
+		when(mockConnection.prepareStatement(ProductSQLQueries.GET_PRODUCT_BY_ID))
+			.thenReturn(mockPreparedStatement);
+		when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+		when(mockResultSet.next()).thenReturn(true, false, true, false);
+		when(mockResultSet.getInt("id")).thenReturn(1);
+		when(mockResultSet.getString("name")).thenReturn("Sample Product");
+		when(mockResultSet.getBigDecimal("price")).thenReturn(new BigDecimal("19.99"));
+		when(mockResultSet.getInt("category_id")).thenReturn(1);
+	}
+
+	/**
+     * Tests that a second read of the same product is served from the cache with its own copy.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testSecondReadIsServedFromCache() throws SQLException {
+		Product first = productDAO.getById(1).orElseThrow();
+		Product second = productDAO.getById(1).orElseThrow();
+
+		verify(mockPreparedStatement, times(1)).executeQuery();
+		assertNotSame(first, second);
+		assertEquals("Sample Product", second.getName());
+		assertEquals(1, productDAO.getCacheStats().getHits());
+		assertEquals(1, productDAO.getCacheStats().getMisses());
+	}
+
+	/**
+     * Tests that a multi-get serves cached products from the cache and loads only the others,
+     * all of them in one array-bound query.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testGetByIdsLoadsOnlyMissingProducts() throws SQLException {
+		PreparedStatement multiGetStatement = mock(PreparedStatement.class);
+		ResultSet multiGetResultSet = mock(ResultSet.class);
+		Array idArray = mock(Array.class);
+		when(mockConnection.prepareStatement(ProductSQLQueries.GET_PRODUCTS_BY_IDS)).thenReturn(multiGetStatement);
+		when(mockConnection.createArrayOf("integer", new Object[] {3, 2})).thenReturn(idArray);
+		when(multiGetStatement.executeQuery()).thenReturn(multiGetResultSet);
+		when(multiGetResultSet.next()).thenReturn(true, true, false);
+		when(multiGetResultSet.getInt("id")).thenReturn(3, 2);
+		when(multiGetResultSet.getString("name")).thenReturn("Third Product", "Second Product");
+		when(multiGetResultSet.getInt("category_id")).thenReturn(1);
+
+		productDAO.getById(1);
+		List<Product> products = productDAO.getByIds(List.of(3, 1, 2));
+
+		verify(multiGetStatement).setArray(1, idArray);
+		verify(multiGetStatement, times(1)).executeQuery();
+		assertEquals(List.of(1, 2, 3), products.stream().map(Product::getId).toList());
+		assertEquals("Sample Product", products.get(0).getName());
+	}
+
+	/**
+     * Tests that saving a product evicts it, so the next read goes to the database.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testSaveInvalidatesProduct() throws SQLException {
+		PreparedStatement upsertStatement = mock(PreparedStatement.class);
+		ResultSet keyResultSet = mock(ResultSet.class);
+		when(mockConnection.prepareStatement(ProductSQLQueries.UPSERT_PRODUCT)).thenReturn(upsertStatement);
+		when(upsertStatement.executeQuery()).thenReturn(keyResultSet);
+		when(keyResultSet.next()).thenReturn(true);
+		when(keyResultSet.getInt(1)).thenReturn(1);
+
+		productDAO.getById(1);
+		Product product = new Product(1, "Renamed Product", new BigDecimal("9.99"), 5, true, 
+				new ProductCategory(1, null, null, null, 0), 0);
+		productDAO.save(product);
+		productDAO.getById(1);
+
+		verify(mockPreparedStatement, times(2)).executeQuery();
+	}
+}
@@ -0,0 +1,67 @@
+package com.restaurant.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link LruCache} class.
+ */
+class LruCacheTest {
+	private AtomicLong now;
+	private LruCache<Integer, String> cache;
+
+	@BeforeEach
+	public void setUp() {
+		now = new AtomicLong(1000);
+		cache = new LruCache<>(2, 100, now::get);
+	}
+
+	/**
+     * Tests that the least recently used entry is evicted when the cache is full.
+     */
+	@Test
+	void testLeastRecentlyUsedEntryIsEvicted() {
+		cache.putIfGeneration(1, "one", cache.generation());
+		cache.putIfGeneration(2, "two", cache.generation());
+		cache.get(1);
+		cache.putIfGeneration(3, "three", cache.generation());
+
+		assertEquals("one", cache.get(1));
+		assertNull(cache.get(2));
+		assertEquals("three", cache.get(3));
+		assertEquals(1, cache.getStats().getEvictions());
+	}
+
+	/**
+     * Tests that an entry is dropped once its time to live has passed.
+     */
+	@Test
+	void testEntryExpires() {
+		cache.putIfGeneration(1, "one", cache.generation());
+		now.addAndGet(99);
+		assertEquals("one", cache.get(1));
+
+		now.addAndGet(1);
+		assertNull(cache.get(1));
+		assertEquals(1, cache.getStats().getExpirations());
+		assertEquals(0.5, cache.getStats().getHitRatio());
+	}
+
+	/**
+     * Tests that a value loaded before an invalidation is not stored.
+     */
+	@Test
+	void testStaleLoadIsNotStored() {
+		long generation = cache.generation();
+		cache.invalidate(1);
+
+		assertFalse(cache.putIfGeneration(1, "one", generation));
+		assertNull(cache.get(1));
+	}
+}
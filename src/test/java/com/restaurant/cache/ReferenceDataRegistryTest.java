@@ -0,0 +1,106 @@
+package com.restaurant.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.restaurant.entity.OrderStatus;
+import com.restaurant.queries.OrderStatusSQLQueries;
+import com.restaurant.queries.ProductCategorySQLQueries;
+
+/**
+ * Unit tests for the {@link ReferenceDataRegistry} class.
+ */
+class ReferenceDataRegistryTest {
+	@Mock
+	Connection mockConnection;
+	@Mock
+	PreparedStatement categoryStatement;
+	@Mock
+	PreparedStatement statusStatement;
+
+	private ReferenceDataRegistry registry;
+
+	@BeforeEach
+	public void setUp() throws SQLException {
+		MockitoAnnotations.openMocks(this);
+		when(mockConnection.prepareStatement(ProductCategorySQLQueries.GET_ALL_CATEGORIES))
+			.thenReturn(categoryStatement);
+		when(mockConnection.prepareStatement(OrderStatusSQLQueries.GET_ALL_STATUS))
+			.thenReturn(statusStatement);
+		when(categoryStatement.executeQuery()).thenAnswer(invocation -> categoryRows());
+		when(statusStatement.executeQuery()).thenAnswer(invocation -> statusRows());
+		registry = new ReferenceDataRegistry();
+	}
+
+	/**
+     * Tests that the tables are read once and later lookups are served from memory.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testLookupsAreServedFromSnapshot() throws SQLException {
+		assertEquals("Drinks", registry.findCategory(1, () -> mockConnection).orElseThrow().getName());
+		assertEquals(OrderStatus.PAID, registry.findStatus(4, () -> mockConnection).orElseThrow());
+		registry.findCategory(1, () -> mockConnection);
+
+		verify(categoryStatement, times(1)).executeQuery();
+		verify(statusStatement, times(1)).executeQuery();
+	}
+
+	/**
+     * Tests that an unknown ID reloads the snapshot once before giving up.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testUnknownIdReloadsOnce() throws SQLException {
+		assertFalse(registry.findCategory(99, () -> mockConnection).isPresent());
+
+		verify(categoryStatement, times(2)).executeQuery();
+	}
+
+	/**
+     * Tests that invalidating the registry makes the next lookup read the tables again.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testInvalidateReloads() throws SQLException {
+		registry.findCategory(1, () -> mockConnection);
+		registry.invalidate();
+		registry.findCategory(1, () -> mockConnection);
+
+		verify(categoryStatement, times(2)).executeQuery();
+	}
+
+	private ResultSet categoryRows() throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.next()).thenReturn(true, false);
+		when(rs.getInt("category_id")).thenReturn(1);
+		when(rs.getString("category_name")).thenReturn("Drinks");
+		when(rs.getString("category_type")).thenReturn("Beverage");
+		return rs;
+	}
+
+	private ResultSet statusRows() throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.next()).thenReturn(true, false);
+		when(rs.getInt("id")).thenReturn(4);
+		when(rs.getString("status_name")).thenReturn("PAID");
+		return rs;
+	}
+}
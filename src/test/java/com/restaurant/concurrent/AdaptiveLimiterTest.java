@@ -0,0 +1,80 @@
+package com.restaurant.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link AdaptiveLimiter} class.
+ */
+class AdaptiveLimiterTest {
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+	private AdaptiveLimiter limiter;
+
+	/**
+     * Sets up a limiter starting at 4, between 2 and 6, with a threshold of 100 ms and a backoff to half.
+     */
+	@BeforeEach
+	void setUp() {
+		limiter = new AdaptiveLimiter(4, 2, 6, 100, 50);
+	}
+
+	/**
+     * Tests that requests beyond the limit are rejected until one is released.
+     */
+	@Test
+	void testRejectsBeyondLimit() {
+		for(int i = 0; i < 4; i++) {
+			assertTrue(limiter.tryAcquire());
+		}
+
+		assertFalse(limiter.tryAcquire());
+		limiter.release(FAST, false);
+
+		assertTrue(limiter.tryAcquire());
+		assertEquals(1, limiter.getRejections());
+		assertEquals(4, limiter.getInFlight());
+	}
+
+	/**
+     * Tests that slow and failed requests shrink the limit, down to its minimum.
+     */
+	@Test
+	void testSlowOrFailedRequestsDecreaseLimit() {
+		limiter.tryAcquire();
+		limiter.release(SLOW, false);
+		assertEquals(2, limiter.getLimit());
+
+		limiter.tryAcquire();
+		limiter.release(FAST, true);
+		assertEquals(2, limiter.getLimit());
+	}
+
+	/**
+     * Tests that fast requests grow a busy limit, up to its maximum, and leave an idle one alone.
+     */
+	@Test
+	void testFastRequestsIncreaseBusyLimit() {
+		limiter.tryAcquire();
+		limiter.release(FAST, false);
+		assertEquals(4, limiter.getLimit());
+
+		for(int round = 0; round < 100; round++) {
+			int limit = limiter.getLimit();
+			for(int i = 0; i < limit; i++) {
+				limiter.tryAcquire();
+			}
+			for(int i = 0; i < limit; i++) {
+				limiter.release(FAST, false);
+			}
+		}
+		assertEquals(6, limiter.getLimit());
+	}
+}
@@ -0,0 +1,236 @@
+package com.restaurant.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Unit tests for the {@link AsyncDispatcher} class.
+ */
+class AsyncDispatcherTest {
+	private HttpServletRequest request;
+	private HttpServletResponse response;
+	private AsyncContext asyncContext;
+	private DaoExecutor executor;
+	private CountDownLatch release;
+
+	/**
+     * Sets up an asynchronous GET request and an executor with one worker and one queue slot.
+     */
+	@BeforeEach
+	void setUp() {
+		request = mock(HttpServletRequest.class);
+		response = mock(HttpServletResponse.class);
+		asyncContext = mock(AsyncContext.class);
+		when(request.getMethod()).thenReturn("GET");
+		when(request.isAsyncSupported()).thenReturn(true);
+		when(request.startAsync(request, response)).thenReturn(asyncContext);
+		when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+		executor = new DaoExecutor(1, 1, 1000);
+		release = new CountDownLatch(1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		executor.shutdown();
+	}
+
+	/**
+     * Tests that a request without asynchronous support is handled on the calling thread.
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+	@Test
+	void testDispatch_RunsInlineWithoutAsyncSupport() throws ServletException, IOException {
+		when(request.isAsyncSupported()).thenReturn(false);
+		AtomicReference<Thread> handlerThread = new AtomicReference<>();
+
+		AsyncDispatcher.dispatch(request, response, executor, (req, resp) -> handlerThread.set(Thread.currentThread()));
+
+		assertEquals(Thread.currentThread(), handlerThread.get());
+		verify(request, never()).startAsync(any(), any());
+	}
+
+	/**
+     * Tests that the handler runs on a worker thread and the request is completed afterwards.
+     *
+     * @throws Exception if the handler does not run
+     */
+	@Test
+	void testDispatch_CompletesAfterHandlerOnWorker() throws Exception {
+		AtomicReference<Thread> handlerThread = new AtomicReference<>();
+		CountDownLatch handled = new CountDownLatch(1);
+
+		AsyncDispatcher.dispatch(request, response, executor, (req, resp) -> {
+			handlerThread.set(Thread.currentThread());
+			handled.countDown();
+		});
+
+		assertTrue(handled.await(5, TimeUnit.SECONDS));
+		verify(asyncContext, timeout(5000)).complete();
+		verify(asyncContext).setTimeout(1000);
+		assertTrue(handlerThread.get().getName().startsWith("dao-worker-"));
+		verify(response, never()).sendError(anyInt(), anyString());
+	}
+
+	/**
+     * Tests that a request still running at its timeout is answered with 503 and completed only once.
+     *
+     * @throws Exception if the handler does not run
+     */
+	@Test
+	void testDispatch_TimeoutSendsServiceUnavailable() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(1);
+		AsyncDispatcher.dispatch(request, response, executor, (req, resp) -> {
+			started.countDown();
+			awaitRelease();
+			finished.countDown();
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+		verify(asyncContext).addListener(listener.capture());
+
+		listener.getValue().onTimeout(null);
+		release.countDown();
+
+		assertTrue(finished.await(5, TimeUnit.SECONDS));
+		verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timed out");
+		verify(asyncContext, timeout(5000).times(1)).complete();
+		assertEquals(1, executor.getStats().getTimeouts());
+	}
+
+	/**
+     * Tests that on timeout the worker is interrupted and that nothing it writes afterwards reaches the
+     * real response.
+     *
+     * @throws Exception if the handler does not run
+     */
+	@Test
+	void testDispatch_WorkerOutputAfterTimeoutIsDropped() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(1);
+		AtomicBoolean interrupted = new AtomicBoolean();
+		AsyncDispatcher.dispatch(request, response, executor, (req, resp) -> {
+			started.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+			resp.setStatus(HttpServletResponse.SC_OK);
+			resp.setHeader("X-Late", "true");
+			resp.getOutputStream().write(new byte[] {1, 2, 3});
+			resp.getWriter().print("late");
+			finished.countDown();
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+		verify(asyncContext).addListener(listener.capture());
+
+		listener.getValue().onTimeout(null);
+
+		assertTrue(finished.await(5, TimeUnit.SECONDS));
+		assertTrue(interrupted.get());
+		verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timed out");
+		verify(response, never()).setStatus(anyInt());
+		verify(response, never()).setHeader(eq("X-Late"), anyString());
+		verify(response, never()).getOutputStream();
+		verify(response, never()).getWriter();
+		verify(asyncContext, times(1)).complete();
+	}
+
+	/**
+     * Tests that a request finding every worker busy and the queue full is answered with 503.
+     *
+     * @throws Exception if the blocking tasks do not start
+     */
+	@Test
+	void testDispatch_RejectionSendsServiceUnavailable() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute(() -> {
+			started.countDown();
+			awaitRelease();
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		executor.execute(this::awaitRelease);
+
+		AsyncDispatcher.dispatch(request, response, executor, (req, resp) -> { });
+
+		verify(response).setIntHeader("Retry-After", AsyncDispatcher.RETRY_AFTER_SECONDS);
+		verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is busy");
+		verify(asyncContext, times(1)).complete();
+		assertEquals(1, executor.getStats().getRejections());
+	}
+
+	/**
+     * Tests that reads beyond the read limit are shed with 503 and Retry-After, while writes still run.
+     *
+     * @throws Exception if the write is not handled
+     */
+	@Test
+	void testDispatch_ReadLimitShedsReadsButNotWrites() throws Exception {
+		AdaptiveLimiter readLimiter = new AdaptiveLimiter(1, 1, 1, 1000, 90);
+		AdaptiveLimiter writeLimiter = new AdaptiveLimiter(1, 1, 1, 1000, 90);
+		DaoExecutor limited = new DaoExecutor(ExecutionMode.PLATFORM, 2, 2, 1000, readLimiter, writeLimiter);
+		try {
+			assertTrue(readLimiter.tryAcquire());
+			AsyncDispatcher.dispatch(request, response, limited, (req, resp) -> { });
+
+			verify(response).setIntHeader("Retry-After", AsyncDispatcher.RETRY_AFTER_SECONDS);
+			verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is overloaded");
+			verify(request, never()).startAsync(any(), any());
+
+			HttpServletRequest write = mock(HttpServletRequest.class);
+			when(write.getMethod()).thenReturn("POST");
+			when(write.isAsyncSupported()).thenReturn(true);
+			when(write.startAsync(write, response)).thenReturn(asyncContext);
+			CountDownLatch handled = new CountDownLatch(1);
+
+			AsyncDispatcher.dispatch(write, response, limited, (req, resp) -> handled.countDown());
+
+			assertTrue(handled.await(5, TimeUnit.SECONDS));
+			verify(asyncContext, timeout(5000)).complete();
+			assertEquals(1, readLimiter.getRejections());
+			assertEquals(0, writeLimiter.getRejections());
+		} finally {
+			limited.shutdown();
+		}
+	}
+
+	private void awaitRelease() {
+		try {
+			release.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.restaurant.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link BatchLoader} class.
+ */
+class BatchLoaderTest {
+	private static final int CALLERS = 5;
+	private static final long LONG_WINDOW_MICROS = TimeUnit.SECONDS.toMicros(5);
+
+	private ExecutorService callers;
+	private List<Collection<Integer>> batches;
+
+	@BeforeEach
+	void setUp() {
+		callers = Executors.newFixedThreadPool(CALLERS);
+		batches = new CopyOnWriteArrayList<>();
+	}
+
+	@AfterEach
+	void tearDown() {
+		callers.shutdownNow();
+	}
+
+	/**
+     * Tests that concurrent loads of different keys run as one batch once it is full, and that a key
+     * without a value gets null.
+     *
+     * @throws Exception if a caller fails
+     */
+	@Test
+	void testConcurrentKeysAreLoadedInOneBatch() throws Exception {
+		BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+			batches.add(new ArrayList<>(keys));
+			return keys.stream().filter(key -> key != 4).collect(Collectors.toMap(Function.identity(), key -> "p" + key));
+		}, LONG_WINDOW_MICROS, CALLERS);
+
+		List<Future<String>> results = new ArrayList<>();
+		for(int key = 1; key <= CALLERS; key++) {
+			int id = key;
+			results.add(callers.submit(() -> loader.load(id)));
+		}
+
+		for(int key = 1; key <= CALLERS; key++) {
+			String value = results.get(key - 1).get(2, TimeUnit.SECONDS);
+			if(key == 4) {
+				assertNull(value);
+			} else {
+				assertEquals("p" + key, value);
+			}
+		}
+		assertEquals(1, batches.size());
+		assertEquals(CALLERS, batches.get(0).size());
+		assertEquals(1, loader.getStats().getBatches());
+		assertEquals(CALLERS, loader.getStats().getKeys());
+	}
+
+	/**
+     * Tests that without a window every call is loaded on its own.
+     *
+     * @throws SQLException if a load fails
+     */
+	@Test
+	void testZeroWindowLoadsEachCallAlone() throws SQLException {
+		BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+			batches.add(new ArrayList<>(keys));
+			return Map.of(keys.iterator().next(), "value");
+		}, 0, CALLERS);
+
+		assertEquals("value", loader.load(1));
+		assertEquals("value", loader.load(2));
+
+		assertEquals(2, batches.size());
+	}
+
+	/**
+     * Tests that a failed batch is reported to every caller in it.
+     *
+     * @throws Exception if the test is interrupted
+     */
+	@Test
+	void testFailureIsReportedToEveryCaller() throws Exception {
+		BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+			throw new SQLException("Connection lost");
+		}, LONG_WINDOW_MICROS, 2);
+
+		Future<String> first = callers.submit(() -> loader.load(1));
+		Future<String> second = callers.submit(() -> loader.load(2));
+
+		for(Future<String> result : List.of(first, second)) {
+			ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(2, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof SQLException);
+		}
+	}
+}
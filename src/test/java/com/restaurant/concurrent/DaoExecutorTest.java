@@ -0,0 +1,204 @@
+package com.restaurant.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.database.DatabaseConfig;
+
+/**
+ * Unit tests for the {@link DaoExecutor} class, run in both execution modes.
+ */
+class DaoExecutorTest {
+	private static final int CONCURRENCY = 2;
+	private static final int QUEUE_SIZE = 3;
+	private static final Logger LOGGER = LoggerFactory.getLogger(DaoExecutorTest.class);
+
+	/**
+     * Tests that virtual mode is used when the JDK has virtual threads and platform mode otherwise.
+     *
+     * @param mode the requested mode
+     */
+	@ParameterizedTest
+	@EnumSource(ExecutionMode.class)
+	void testModeInEffect(ExecutionMode mode) {
+		DaoExecutor executor = new DaoExecutor(mode, CONCURRENCY, QUEUE_SIZE, 1000);
+		try {
+			boolean virtualThreads = Runtime.version().feature() >= 21;
+			ExecutionMode expected = mode == ExecutionMode.VIRTUAL && virtualThreads ? ExecutionMode.VIRTUAL
+					: ExecutionMode.PLATFORM;
+			assertEquals(expected, executor.getMode());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+     * Tests that no more than the configured number of tasks run at once, that tasks beyond the queue
+     * are rejected, and that every accepted task runs.
+     *
+     * @param mode the requested mode
+     * @throws InterruptedException if the test is interrupted
+     */
+	@ParameterizedTest
+	@EnumSource(ExecutionMode.class)
+	void testConcurrencyAndQueueAreBounded(ExecutionMode mode) throws InterruptedException {
+		DaoExecutor executor = new DaoExecutor(mode, CONCURRENCY, QUEUE_SIZE, 1000);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(CONCURRENCY + QUEUE_SIZE);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		try {
+			for(int i = 0; i < CONCURRENCY + QUEUE_SIZE; i++) {
+				executor.execute(() -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						release.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+					done.countDown();
+				});
+			}
+			waitForActive(executor, CONCURRENCY);
+
+			assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+			release.countDown();
+
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertTrue(maxRunning.get() <= CONCURRENCY);
+			assertEquals(1, executor.getStats().getRejections());
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	/**
+     * Tests that a missing mode defaults to platform threads and that names are matched ignoring case.
+     */
+	@Test
+	void testFromName() {
+		assertEquals(Optional.of(ExecutionMode.PLATFORM), ExecutionMode.fromName(null));
+		assertEquals(Optional.of(ExecutionMode.PLATFORM), ExecutionMode.fromName(" "));
+		assertEquals(Optional.of(ExecutionMode.VIRTUAL), ExecutionMode.fromName("Virtual"));
+		assertEquals(Optional.empty(), ExecutionMode.fromName("green"));
+	}
+
+	/**
+     * Tests that virtual mode is sized by the connection pool, and that its fallback on a JDK without
+     * virtual threads is sized as the platform pool.
+     */
+	@Test
+	void testCreateSizesByModeInEffect() {
+		DatabaseConfig config = new DatabaseConfig();
+		config.setAsyncMode("virtual");
+		config.setPoolMaxSize(7);
+		config.setAsyncPoolSize(3);
+
+		DaoExecutor executor = DaoExecutor.create(config);
+		try {
+			if(DaoExecutor.isVirtualThreadSupported()) {
+				assertEquals(ExecutionMode.VIRTUAL, executor.getMode());
+				assertEquals(7, executor.getConcurrency());
+			} else {
+				assertEquals(ExecutionMode.PLATFORM, executor.getMode());
+				assertEquals(3, executor.getConcurrency());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+     * Tests that tasks run on virtual threads in virtual mode. Needs Java 21 or later.
+     *
+     * @throws Exception if the task does not run
+     */
+	@Test
+	void testVirtualModeRunsOnVirtualThreads() throws Exception {
+		assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21 or later");
+		DaoExecutor executor = new DaoExecutor(ExecutionMode.VIRTUAL, CONCURRENCY, QUEUE_SIZE, 1000);
+		AtomicReference<Thread> worker = new AtomicReference<>();
+		CountDownLatch done = new CountDownLatch(1);
+		try {
+			executor.execute(() -> {
+				worker.set(Thread.currentThread());
+				done.countDown();
+			});
+
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertEquals(ExecutionMode.VIRTUAL, executor.getMode());
+			assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(worker.get()));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+     * Compares both modes under the same load: many tablets whose requests block on the database for a few
+     * milliseconds, with the same cap on concurrent database access. Both modes must run every request
+     * within the cap; the elapsed time and the platform threads each mode started are logged for comparison.
+     * Needs Java 21 or later.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+	@Test
+	void testLoadComparison() throws InterruptedException {
+		assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21 or later");
+		int tablets = 2000;
+		int concurrency = 16;
+		for(ExecutionMode mode : ExecutionMode.values()) {
+			DaoExecutor executor = new DaoExecutor(mode, concurrency, tablets, 1000);
+			CountDownLatch done = new CountDownLatch(tablets);
+			AtomicInteger running = new AtomicInteger();
+			AtomicInteger maxRunning = new AtomicInteger();
+			int threadsBefore = Thread.activeCount();
+			long start = System.nanoTime();
+			try {
+				for(int i = 0; i < tablets; i++) {
+					executor.execute(() -> {
+						maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+						try {
+							Thread.sleep(5);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						running.decrementAndGet();
+						done.countDown();
+					});
+				}
+
+				assertTrue(done.await(60, TimeUnit.SECONDS));
+				assertTrue(maxRunning.get() <= concurrency);
+				assertEquals(0, executor.getStats().getRejections());
+				LOGGER.info("{} mode: {} requests in {} ms, {} platform threads started", mode, tablets,
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), Thread.activeCount() - threadsBefore);
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+
+	private static void waitForActive(DaoExecutor executor, int active) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(executor.getStats().getActive() < active && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package com.restaurant.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link SingleFlight} class.
+ */
+class SingleFlightTest {
+	private static final int CALLERS = 8;
+
+	private SingleFlight<Integer, String> singleFlight;
+	private ExecutorService callers;
+	private CountDownLatch release;
+	private AtomicInteger loads;
+
+	@BeforeEach
+	void setUp() {
+		singleFlight = new SingleFlight<>();
+		callers = Executors.newFixedThreadPool(CALLERS);
+		release = new CountDownLatch(1);
+		loads = new AtomicInteger();
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		callers.shutdownNow();
+	}
+
+	/**
+     * Tests that concurrent calls for the same key run one load and all get its result.
+     *
+     * @throws Exception if a caller fails
+     */
+	@Test
+	void testConcurrentCallsShareOneLoad() throws Exception {
+		List<Future<String>> results = startCallers(() -> {
+			loads.incrementAndGet();
+			awaitRelease();
+			return "menu";
+		});
+		waitForCoalesced(CALLERS - 1);
+		release.countDown();
+
+		String first = results.get(0).get(5, TimeUnit.SECONDS);
+		for(Future<String> result : results) {
+			assertSame(first, result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loads.get());
+		assertEquals(1, singleFlight.getStats().getLoads());
+		assertEquals(CALLERS - 1, singleFlight.getStats().getCoalesced());
+	}
+
+	/**
+     * Tests that a failed load is reported to every waiting caller.
+     *
+     * @throws Exception if the test is interrupted
+     */
+	@Test
+	void testFailureIsSharedWithWaitingCallers() throws Exception {
+		List<Future<String>> results = startCallers(() -> {
+			awaitRelease();
+			throw new SQLException("Connection lost");
+		});
+		waitForCoalesced(CALLERS - 1);
+		release.countDown();
+
+		for(Future<String> result : results) {
+			ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof SQLException);
+		}
+	}
+
+	/**
+     * Tests that a finished load is not reused.
+     *
+     * @throws SQLException if a load fails
+     */
+	@Test
+	void testFinishedLoadIsNotReused() throws SQLException {
+		assertEquals("1", singleFlight.execute(1, () -> String.valueOf(loads.incrementAndGet())));
+		assertEquals("2", singleFlight.execute(1, () -> String.valueOf(loads.incrementAndGet())));
+		assertEquals(0, singleFlight.getStats().getCoalesced());
+	}
+
+	/**
+     * Tests that a caller arriving after the key was forgotten starts a new load instead of waiting.
+     *
+     * @throws Exception if a load fails
+     */
+	@Test
+	void testForgottenLoadIsNotJoined() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		Future<String> stale = callers.submit(() -> singleFlight.execute(42, () -> {
+			started.countDown();
+			awaitRelease();
+			return "old";
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		singleFlight.forget(42);
+
+		assertEquals("new", singleFlight.execute(42, () -> "new"));
+		release.countDown();
+		assertEquals("old", stale.get(5, TimeUnit.SECONDS));
+		assertEquals(2, singleFlight.getStats().getLoads());
+	}
+
+	private List<Future<String>> startCallers(SingleFlight.Loader<String> loader) {
+		List<Future<String>> results = new ArrayList<>();
+		for(int i = 0; i < CALLERS; i++) {
+			results.add(callers.submit(() -> singleFlight.execute(42, loader)));
+		}
+		return results;
+	}
+
+	private void waitForCoalesced(long coalesced) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(singleFlight.getStats().getCoalesced() < coalesced && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private void awaitRelease() {
+		try {
+			release.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
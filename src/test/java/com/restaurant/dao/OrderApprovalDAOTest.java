@@ -1,6 +1,6 @@
 package com.restaurant.dao;
 
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -11,7 +11,6 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.List;
 import java.util.Optional;
 
@@ -60,62 +59,54 @@ class OrderApprovalDAOTest {
     }
     
     /**
-     * Tests the creation of an {@link OrderApproval} entity.
+     * Tests the creation of an {@link OrderApproval} entity in a single upsert statement.
      *
      * @throws SQLException if a database access error occurs.
      */
     @Test
     void testCreateOrderApproval() throws SQLException {
-    	
-        when(mockConnection.prepareStatement(OrderApprovalSQLQueries.INSERT_APPROVAL, 
-        		Statement.RETURN_GENERATED_KEYS))
+        when(mockConnection.prepareStatement(OrderApprovalSQLQueries.UPSERT_APPROVAL))
             .thenReturn(mockPreparedStatement);
-
-        OrderApproval orderApproval = createSampleOrderApproval();
-
-        when(mockPreparedStatement.getGeneratedKeys()).thenReturn(mockResultSet);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getInt(1)).thenReturn(1);
+        when(mockResultSet.getInt(1)).thenReturn(7); // ID drawn from the sequence
 
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(false); // OrderApproval not found
+        OrderApproval orderApproval = createSampleOrderApproval();
 
         orderApprovalDAO.save(orderApproval);
 
         verify(mockPreparedStatement, times(1)).setInt(1, orderApproval.getOrderDetail().getId());
-        verify(mockPreparedStatement, times(1)).executeUpdate();
+        verify(mockPreparedStatement, times(1)).setInt(2, 0);
+        verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(OrderApprovalSQLQueries.GET_APPROVAL_BY_ID);
+        assertEquals(7, orderApproval.getId());
     }
     
     /**
-     * Tests the update of an {@link OrderApproval} entity.
+     * Tests the update of an {@link OrderApproval} entity without reading it first.
      *
      * @throws SQLException if a database access error occurs.
      */
     @Test
     void testUpdateOrderApproval() throws SQLException {
-        PreparedStatement getByIdPreparedStatement = mock(PreparedStatement.class);
-        when(mockConnection.prepareStatement(OrderApprovalSQLQueries.GET_APPROVAL_BY_ID))
-            .thenReturn(getByIdPreparedStatement);
-        when(getByIdPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-
-        when(mockConnection.prepareStatement(OrderApprovalSQLQueries.UPDATE_APPROVAL))
+        when(mockConnection.prepareStatement(OrderApprovalSQLQueries.UPSERT_APPROVAL))
             .thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true);
+        when(mockResultSet.getInt(1)).thenReturn(1);
 
         OrderApproval orderApproval = createSampleOrderApproval();
         orderApproval.setId(1);
 
-        mockResultSetForOrderApproval(orderApproval);
-
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true); // OrderApproval found
-
         orderApprovalDAO.save(orderApproval);
 
         verify(mockPreparedStatement, times(1)).setInt(1, orderApproval.getOrderDetail().getId());
         verify(mockPreparedStatement, times(1)).setInt(2, orderApproval.getId());
-        verify(mockPreparedStatement, times(1)).executeUpdate();
+        verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(OrderApprovalSQLQueries.GET_APPROVAL_BY_ID);
+        assertEquals(1, orderApproval.getId());
     }
-
+    
    /**
      * Tests the retrieval of an {@link OrderApproval} entity by its ID.
      *
@@ -1,6 +1,6 @@
 package com.restaurant.dao;
 
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,9 +10,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -25,6 +27,8 @@ import org.slf4j.LoggerFactory;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import com.restaurant.cache.ReferenceData;
+import com.restaurant.cache.ReferenceDataRegistry;
 import com.restaurant.dao.impl.OrderDetailDAO;
 import com.restaurant.entity.OrderDetail;
 import com.restaurant.entity.OrderStatus;
@@ -54,6 +58,7 @@ class OrderDetailDAOTest {
     public void setUp() {
         MockitoAnnotations.openMocks(this);        
         orderDetailDAO = new OrderDetailDAO(mockConnection);
+        orderDetailDAO.setReferenceData(referenceData());
         
         try {
             setupMockPreparedStatement();
@@ -62,75 +67,68 @@ class OrderDetailDAOTest {
         }
     }
 
+    private ReferenceDataRegistry referenceData() {
+        Map<Integer, OrderStatus> statuses = new HashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            statuses.put(status.getId(), status);
+        }
+        ProductCategory category = new ProductCategory(1, "Sample Category", "Sample Type", null, 0);
+        return new ReferenceDataRegistry(new ReferenceData(List.of(category), statuses));
+    }
+
     private void setupMockPreparedStatement() throws SQLException {
-        when(mockConnection.prepareStatement(OrderDetailSQLQueries.GET_DETAIL_BY_ID))
+        when(mockConnection.prepareStatement(OrderDetailSQLQueries.GET_DETAIL_WITH_PRODUCTS_BY_ID))
             .thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
     }
     
     /**
-     * Tests the creation of an {@link OrderDetail} entity.
+     * Tests the creation of an {@link OrderDetail} entity in a single upsert statement.
      *
      * @throws SQLException if a database access error occurs.
      */
     @Test
     void testCreateOrderDetail() throws SQLException {
-        when(mockConnection.prepareStatement(OrderDetailSQLQueries.INSERT_DETAIL, 
-        		Statement.RETURN_GENERATED_KEYS))
+        when(mockConnection.prepareStatement(OrderDetailSQLQueries.UPSERT_DETAIL))
             .thenReturn(mockPreparedStatement);
-
-        OrderDetail orderDetail = createSampleOrderDetail();
-
-        when(mockPreparedStatement.getGeneratedKeys()).thenReturn(mockResultSet);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getInt(1)).thenReturn(1);
+        when(mockResultSet.getInt(1)).thenReturn(7); // ID drawn from the sequence
 
-        // Дополнительная настройка поведения ResultSet и PreparedStatement
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(false); // OrderDetail not found
+        OrderDetail orderDetail = createSampleOrderDetail();
 
         orderDetailDAO.save(orderDetail);
 
         verifyMockPreparedStatementForOrderDetail(orderDetail);
-        verify(mockPreparedStatement, times(1)).executeUpdate();
+        verify(mockPreparedStatement, times(1)).setInt(3, 0);
+        verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(OrderDetailSQLQueries.GET_DETAIL_WITH_PRODUCTS_BY_ID);
+        assertEquals(7, orderDetail.getId());
     }
     
     /**
-     * Tests the update of an {@link OrderDetail} entity.
+     * Tests the update of an {@link OrderDetail} entity without reading it first.
      *
      * @throws SQLException if a database access error occurs.
      */
     @Test
     void testUpdateOrderDetail() throws SQLException {
-    	PreparedStatement getByIdPreparedStatement = mock(PreparedStatement.class);
-        when(mockConnection.prepareStatement(OrderDetailSQLQueries.GET_DETAIL_BY_ID))
-            .thenReturn(getByIdPreparedStatement);
-        when(getByIdPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-    	
-    	
-        when(mockConnection.prepareStatement(OrderDetailSQLQueries.UPDATE_DETAIL))
+        when(mockConnection.prepareStatement(OrderDetailSQLQueries.UPSERT_DETAIL))
             .thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true);
+        when(mockResultSet.getInt(1)).thenReturn(1);
 
         OrderDetail orderDetail = createSampleOrderDetail();
         orderDetail.setId(1);
-        
-        mockResultSetForOrderDetail(orderDetail);
-
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true); // OrderDetail found       
-        
-        Product product = createSampleProduct();
-        PreparedStatement mockProductPreparedStatement = setupMockForProductsInOrderDetail(product);
 
         orderDetailDAO.save(orderDetail);
 
-        verify(mockPreparedStatement, times(1)).setInt(1, orderDetail.getOrderStatus().getId());
-        verify(mockPreparedStatement, times(1)).setBigDecimal(2, orderDetail.getTotalAmount()); 
+        verifyMockPreparedStatementForOrderDetail(orderDetail);
         verify(mockPreparedStatement, times(1)).setInt(3, orderDetail.getId());
-        verify(mockPreparedStatement, times(1)).executeUpdate();
-        
-        verify(mockProductPreparedStatement, times(1)).setInt(1, orderDetail.getId());
-        verify(mockProductPreparedStatement, times(1)).executeQuery();
+        verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(OrderDetailSQLQueries.GET_DETAIL_WITH_PRODUCTS_BY_ID);
+        assertEquals(1, orderDetail.getId());
     }
     
     /**
@@ -149,15 +147,18 @@ class OrderDetailDAOTest {
         mockResultSetForOrderDetail(orderDetail);
         
         Product product = createSampleProduct();
-        setupMockForProductsInOrderDetail(product);
+        mockJoinedProductColumns(product);
 
         Optional<OrderDetail> result = orderDetailDAO.getById(orderDetail.getId());
 
         verify(mockPreparedStatement, times(1)).setInt(1, orderDetail.getId());
         verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(OrderDetailSQLQueries.GET_PRODUCTS_BY_ORDER_DETAIL_ID);
         assertTrue(result.isPresent());
         assertEquals(orderDetail.getId(), result.get().getId());
         assertEquals(orderDetail.getTotalAmount(), result.get().getTotalAmount());
+        assertEquals(1, result.get().getProducts().size());
+        assertEquals(product.getName(), result.get().getProducts().get(0).getName());
     }
     
     /**
@@ -167,26 +168,88 @@ class OrderDetailDAOTest {
      */
     @Test
     void testGetAll() throws SQLException {
-        when(mockConnection.prepareStatement(OrderDetailSQLQueries.GET_ALL_DETAILS))
+        when(mockConnection.prepareStatement(OrderDetailSQLQueries.GET_ALL_DETAILS_WITH_PRODUCTS))
             .thenReturn(mockPreparedStatement);
 
         OrderDetail orderDetail = createSampleOrderDetail();
         orderDetail.setId(1);
 
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true).thenReturn(false); // One OrderDetail found
-
         mockResultSetForOrderDetail(orderDetail);
-        
-        Product product = createSampleProduct();
-        setupMockForProductsInOrderDetail(product);
+        // Two joined rows of the same order, one per product
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getInt("product_id")).thenReturn(1, 2);
+        when(mockResultSet.getString("product_name")).thenReturn("First Product", "Second Product");
+        when(mockResultSet.getInt("category_id")).thenReturn(1);
 
         List<OrderDetail> result = orderDetailDAO.getAll();
 
         verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(OrderDetailSQLQueries.GET_PRODUCTS_BY_ORDER_DETAIL_ID);
         assertEquals(1, result.size());
         assertEquals(orderDetail.getId(), result.get(0).getId());
         assertEquals(orderDetail.getTotalAmount(), result.get(0).getTotalAmount());
+        assertEquals(2, result.get(0).getProducts().size());
+        assertEquals("Second Product", result.get(0).getProducts().get(1).getName());
+    }
+    
+    /**
+     * Tests that an order without products is returned with an empty product list.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    void testGetAllWithOrderWithoutProducts() throws SQLException {
+        when(mockConnection.prepareStatement(OrderDetailSQLQueries.GET_ALL_DETAILS_WITH_PRODUCTS))
+            .thenReturn(mockPreparedStatement);
+
+        OrderDetail orderDetail = createSampleOrderDetail();
+        orderDetail.setId(1);
+
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        mockResultSetForOrderDetail(orderDetail);
+        when(mockResultSet.wasNull()).thenReturn(true); // LEFT JOIN yields NULL product columns
+
+        List<OrderDetail> result = orderDetailDAO.getAll();
+
+        assertEquals(1, result.size());
+        assertTrue(result.get(0).getProducts().isEmpty());
+    }
+    
+    /**
+     * Tests that {@link OrderDetailDAO#search} filters and limits the orders in the inner query
+     * and binds the statuses in enum order.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    void testSearch() throws SQLException {
+        OrderCriteria criteria = new OrderCriteria();
+        criteria.setStatuses(EnumSet.of(OrderStatus.PAID, OrderStatus.ACCEPTED));
+        criteria.setMinAmount(new BigDecimal("20.00"));
+        criteria.setAfterId(5);
+        criteria.setLimit(10);
+        String expectedQuery = OrderDetailSQLQueries.SEARCH_DETAILS_START
+                + " AND order_status_id IN (?, ?)"
+                + OrderDetailSQLQueries.FILTER_BY_MIN_AMOUNT
+                + OrderDetailSQLQueries.SEARCH_DETAILS_END;
+        when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
+
+        OrderDetail orderDetail = createSampleOrderDetail();
+        orderDetail.setId(6);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        mockResultSetForOrderDetail(orderDetail);
+        when(mockResultSet.wasNull()).thenReturn(true);
+
+        List<OrderDetail> result = orderDetailDAO.search(criteria);
+
+        verify(mockPreparedStatement).setObject(1, 5);
+        verify(mockPreparedStatement).setObject(2, OrderStatus.ACCEPTED.getId());
+        verify(mockPreparedStatement).setObject(3, OrderStatus.PAID.getId());
+        verify(mockPreparedStatement).setObject(4, new BigDecimal("20.00"));
+        verify(mockPreparedStatement).setObject(5, 10);
+        assertEquals(1, result.size());
+        assertEquals(6, result.get(0).getId());
     }
     
     /**
@@ -249,28 +312,15 @@ class OrderDetailDAOTest {
         when(mockResultSet.next()).thenReturn(true, false);
         when(mockResultSet.getInt("id")).thenReturn(orderDetail.getId());
         when(mockResultSet.getBigDecimal("total_amount")).thenReturn(orderDetail.getTotalAmount());
-        when(mockResultSet.getString("status_name")).thenReturn(orderDetail.getOrderStatus().name());
-    }
-
-    private PreparedStatement setupMockForProductsInOrderDetail(Product product) throws SQLException {
-        PreparedStatement mockProductPreparedStatement = mock(PreparedStatement.class);
-        ResultSet mockProductResultSet = mock(ResultSet.class);
-        when(mockConnection.prepareStatement(OrderDetailSQLQueries.GET_PRODUCTS_BY_ORDER_DETAIL_ID))
-            .thenReturn(mockProductPreparedStatement);
-        when(mockProductPreparedStatement.executeQuery()).thenReturn(mockProductResultSet);
-        mockResultSetForProduct(mockProductResultSet, product);
-        return mockProductPreparedStatement;
+        when(mockResultSet.getInt("status_id")).thenReturn(orderDetail.getOrderStatus().getId());
     }
 
-    private void mockResultSetForProduct(ResultSet mockProductResultSet, Product product) throws SQLException {
-        when(mockProductResultSet.next()).thenReturn(true, false);
-        when(mockProductResultSet.getInt("id")).thenReturn(product.getId());
-        when(mockProductResultSet.getString("name")).thenReturn(product.getName());
-        when(mockProductResultSet.getBigDecimal("price")).thenReturn(product.getPrice());
-        when(mockProductResultSet.getInt("quantity")).thenReturn(product.getQuantity());
-        when(mockProductResultSet.getBoolean("available")).thenReturn(product.isAvailable());
-        when(mockProductResultSet.getInt("category_id")).thenReturn(product.getProductCategory().getId());
-        when(mockProductResultSet.getString("category_name")).thenReturn(product.getProductCategory().getName());
-        when(mockProductResultSet.getString("category_type")).thenReturn(product.getProductCategory().getType());
+    private void mockJoinedProductColumns(Product product) throws SQLException {
+        when(mockResultSet.getInt("product_id")).thenReturn(product.getId());
+        when(mockResultSet.getString("product_name")).thenReturn(product.getName());
+        when(mockResultSet.getBigDecimal("price")).thenReturn(product.getPrice());
+        when(mockResultSet.getInt("quantity")).thenReturn(product.getQuantity());
+        when(mockResultSet.getBoolean("available")).thenReturn(product.isAvailable());
+        when(mockResultSet.getInt("category_id")).thenReturn(product.getProductCategory().getId());
     }
 }
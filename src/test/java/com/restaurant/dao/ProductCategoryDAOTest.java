@@ -1,6 +1,6 @@
 package com.restaurant.dao;
 
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,7 +10,6 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.List;
 import java.util.Optional;
 
@@ -59,66 +58,63 @@ class ProductCategoryDAOTest {
     }
 
     private void setupMockForGetCategoryById() throws SQLException {
-        when(mockConnection.prepareStatement(ProductCategorySQLQueries.GET_CATEGORY_BY_ID))
+        when(mockConnection.prepareStatement(ProductCategorySQLQueries.GET_CATEGORY_WITH_PRODUCTS_BY_ID))
                .thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
     }
 
     /**
-     * Tests the creation of an {@link ProductCategory} entity.
+     * Tests the creation of a {@link ProductCategory} entity in a single upsert statement.
      *
      * @throws SQLException if a database access error occurs.
      */
     @Test
     void testCreateCategory() throws SQLException {
-        when(mockConnection.prepareStatement(ProductCategorySQLQueries.INSERT_CATEGORY, 
-        		Statement.RETURN_GENERATED_KEYS))
-               .thenReturn(mockPreparedStatement);
+        when(mockConnection.prepareStatement(ProductCategorySQLQueries.UPSERT_CATEGORY))
+            .thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true);
+        when(mockResultSet.getInt(1)).thenReturn(7); // ID drawn from the sequence
 
         ProductCategory category = createSampleProductCategory();
 
-        when(mockPreparedStatement.getGeneratedKeys()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getInt(1)).thenReturn(1);
-        //for save
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(false);
-        
         categoryDAO.save(category);
 
         verifyMockPreparedStatementForCategory(category);
-        verify(mockPreparedStatement).executeUpdate();
+        verify(mockPreparedStatement, times(1)).setInt(3, 0);
+        verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(ProductCategorySQLQueries.GET_CATEGORY_WITH_PRODUCTS_BY_ID);
+        assertEquals(7, category.getId());
     }
 
     private void verifyMockPreparedStatementForCategory(ProductCategory category) throws SQLException {
         verify(mockPreparedStatement, times(1)).setString(1, category.getName());
         verify(mockPreparedStatement, times(1)).setString(2, category.getType());
     }
-
+    
     /**
-     * Tests the update of an {@link ProductCategory} entity.
+     * Tests the update of a {@link ProductCategory} entity without reading it first.
      *
      * @throws SQLException if a database access error occurs.
      */
     @Test
     void testUpdateCategory() throws SQLException {
-        when(mockConnection.prepareStatement(ProductCategorySQLQueries.UPDATE_CATEGORY))
-               .thenReturn(mockPreparedStatement);
-        
+        when(mockConnection.prepareStatement(ProductCategorySQLQueries.UPSERT_CATEGORY))
+            .thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true);
+        when(mockResultSet.getInt(1)).thenReturn(1);
+
         ProductCategory category = createSampleProductCategory();
         category.setId(1);
-        mockResultSetForProductCategory(category);
-
-        Product product = createSampleProduct();
-        PreparedStatement mockProductPreparedStatement = setupMockForProductsInCategory(product);
 
         categoryDAO.save(category);
 
         verifyMockPreparedStatementForCategory(category);
         verify(mockPreparedStatement, times(1)).setInt(3, category.getId());
-        verify(mockPreparedStatement, times(1)).executeUpdate();
-        verify(mockProductPreparedStatement, times(1)).setInt(1, category.getId());
-        verify(mockProductPreparedStatement, times(1)).executeQuery();
+        verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(ProductCategorySQLQueries.GET_CATEGORY_WITH_PRODUCTS_BY_ID);
+        assertEquals(1, category.getId());
     }
     
     /**
@@ -134,14 +130,13 @@ class ProductCategoryDAOTest {
         mockResultSetForProductCategory(category);
 
         Product product = createSampleProduct();
-        PreparedStatement mockProductPreparedStatement = setupMockForProductsInCategory(product);
+        mockJoinedProductColumns(product);
 
         Optional<ProductCategory> result = categoryDAO.getById(categoryId);
 
         verify(mockPreparedStatement, times(1)).setInt(1, categoryId);
         verify(mockPreparedStatement, times(1)).executeQuery();
-        verify(mockProductPreparedStatement, times(1)).setInt(1, categoryId);
-        verify(mockProductPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(ProductCategorySQLQueries.GET_PRODUCTS_BY_CATEGORY_ID);
         assertTrue(result.isPresent());
         assertEquals(categoryId, result.get().getId());
         assertEquals(category.getName(), result.get().getName());
@@ -158,7 +153,7 @@ class ProductCategoryDAOTest {
      */
     @Test
     void testGetAll() throws SQLException {
-        when(mockConnection.prepareStatement(ProductCategorySQLQueries.GET_ALL_CATEGORIES))
+        when(mockConnection.prepareStatement(ProductCategorySQLQueries.GET_ALL_CATEGORIES_WITH_PRODUCTS))
                .thenReturn(mockPreparedStatement);
 
         int categoryId = 1;
@@ -167,11 +162,12 @@ class ProductCategoryDAOTest {
         mockResultSetForProductCategory(category);
 
         Product product = createSampleProduct();
-        setupMockForProductsInCategory(product);
+        mockJoinedProductColumns(product);
 
         List<ProductCategory> result = categoryDAO.getAll();
 
         verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(ProductCategorySQLQueries.GET_PRODUCTS_BY_CATEGORY_ID);
         assertEquals(1, result.size());
         assertEquals(category.getId(), result.get(0).getId());
         assertEquals(category.getName(), result.get(0).getName());
@@ -181,6 +177,30 @@ class ProductCategoryDAOTest {
         assertEquals(product.getName(), result.get(0).getProducts().get(0).getName());
     }
     
+    /**
+     * Tests that consecutive rows are grouped per category and empty categories keep an empty product list.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    void testGetAllGroupsRowsByCategory() throws SQLException {
+        when(mockConnection.prepareStatement(ProductCategorySQLQueries.GET_ALL_CATEGORIES_WITH_PRODUCTS))
+               .thenReturn(mockPreparedStatement);
+
+        // Category 1 with two products, then category 2 without products
+        when(mockResultSet.next()).thenReturn(true, true, true, false);
+        when(mockResultSet.getInt("category_id")).thenReturn(1, 1, 2);
+        when(mockResultSet.getInt("product_id")).thenReturn(10, 11, 0);
+        when(mockResultSet.wasNull()).thenReturn(false, false, true);
+
+        List<ProductCategory> result = categoryDAO.getAll();
+
+        assertEquals(2, result.size());
+        assertEquals(2, result.get(0).getProducts().size());
+        assertEquals(11, result.get(0).getProducts().get(1).getId());
+        assertTrue(result.get(1).getProducts().isEmpty());
+    }
+    
     /**
      * Tests the deletion of an {@link ProductCategory} entity by its ID.
      *
@@ -213,26 +233,12 @@ class ProductCategoryDAOTest {
         when(mockResultSet.getString("category_type")).thenReturn(category.getType());
     }
 
-    private void mockResultSetForProductsInCategory(ResultSet mockProductResultSet, Product product) 
-    		throws SQLException {
-        when(mockProductResultSet.next()).thenReturn(true, false);
-        when(mockProductResultSet.getInt("id")).thenReturn(product.getId());
-        when(mockProductResultSet.getString("name")).thenReturn(product.getName());
-        when(mockProductResultSet.getBigDecimal("price")).thenReturn(product.getPrice());
-        when(mockProductResultSet.getInt("quantity")).thenReturn(product.getQuantity());
-        when(mockProductResultSet.getBoolean("available")).thenReturn(product.isAvailable());
-    }
-
-    private PreparedStatement setupMockForProductsInCategory(Product product) 
-    		throws SQLException {
-        PreparedStatement mockProductPreparedStatement = mock(PreparedStatement.class);
-        ResultSet mockProductResultSet = mock(ResultSet.class);
-        when(mockConnection.prepareStatement(
-        		ProductCategorySQLQueries.GET_PRODUCTS_BY_CATEGORY_ID))
-                .thenReturn(mockProductPreparedStatement);
-        when(mockProductPreparedStatement.executeQuery()).thenReturn(mockProductResultSet);
-        mockResultSetForProductsInCategory(mockProductResultSet, product);
-        return mockProductPreparedStatement;
+    private void mockJoinedProductColumns(Product product) throws SQLException {
+        when(mockResultSet.getInt("product_id")).thenReturn(product.getId());
+        when(mockResultSet.getString("product_name")).thenReturn(product.getName());
+        when(mockResultSet.getBigDecimal("price")).thenReturn(product.getPrice());
+        when(mockResultSet.getInt("quantity")).thenReturn(product.getQuantity());
+        when(mockResultSet.getBoolean("available")).thenReturn(product.isAvailable());
     }
 
     private Product createSampleProduct() {
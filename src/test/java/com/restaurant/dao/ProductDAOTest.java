@@ -1,28 +1,40 @@
 package com.restaurant.dao;
 
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import com.restaurant.cache.ReferenceData;
+import com.restaurant.cache.ReferenceDataRegistry;
 import com.restaurant.dao.impl.ProductDAO;
 import com.restaurant.entity.Product;
 import com.restaurant.entity.ProductCategory;
@@ -50,6 +62,8 @@ class ProductDAOTest {
     public void setUp(){
         MockitoAnnotations.openMocks(this);        
         productDAO = new ProductDAO(mockConnection);
+        productDAO.setReferenceData(new ReferenceDataRegistry(new ReferenceData(
+                List.of(new ProductCategory(1, "Sample Category", "Sample Type", null, 0)), Map.of())));
         
         try {
             setupMockPreparedStatement();
@@ -64,54 +78,52 @@ class ProductDAOTest {
     }
     
     /**
-     * Tests the creation of an {@link Product} entity.
+     * Tests the creation of a {@link Product} entity in a single upsert statement.
      *
      * @throws SQLException if a database access error occurs.
      */
     @Test
     void testCreateProduct() throws SQLException {
-        when(mockConnection.prepareStatement(ProductSQLQueries.INSERT_PRODUCT, 
-        		Statement.RETURN_GENERATED_KEYS))
+        when(mockConnection.prepareStatement(ProductSQLQueries.UPSERT_PRODUCT))
             .thenReturn(mockPreparedStatement);
-
-        Product product = createSampleProduct();
-
-        when(mockPreparedStatement.getGeneratedKeys()).thenReturn(mockResultSet);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getInt(1)).thenReturn(1);
+        when(mockResultSet.getInt(1)).thenReturn(7); // ID drawn from the sequence
 
-        // Дополнительная настройка поведения ResultSet и PreparedStatement
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(false); // Product not found
+        Product product = createSampleProduct();
 
         productDAO.save(product);
 
         verifyMockPreparedStatementForProduct(product);
-        verify(mockPreparedStatement, times(1)).executeUpdate();
+        verify(mockPreparedStatement, times(1)).setInt(6, 0);
+        verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(ProductSQLQueries.GET_PRODUCT_BY_ID);
+        assertEquals(7, product.getId());
     }
     
     /**
-     * Tests the update of an {@link Product} entity.
+     * Tests the update of a {@link Product} entity without reading it first.
      *
      * @throws SQLException if a database access error occurs.
      */
     @Test
     void testUpdateProduct() throws SQLException {
-        when(mockConnection.prepareStatement(ProductSQLQueries.UPDATE_PRODUCT))
+        when(mockConnection.prepareStatement(ProductSQLQueries.UPSERT_PRODUCT))
             .thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true);
+        when(mockResultSet.getInt(1)).thenReturn(1);
 
         Product product = createSampleProduct();
         product.setId(1);
 
-        // Дополнительная настройка поведения ResultSet и PreparedStatement
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true); // Product found
-
         productDAO.save(product);
 
         verifyMockPreparedStatementForProduct(product);
         verify(mockPreparedStatement, times(1)).setInt(6, product.getId());
-        verify(mockPreparedStatement, times(1)).executeUpdate();
+        verify(mockPreparedStatement, times(1)).executeQuery();
+        verify(mockConnection, never()).prepareStatement(ProductSQLQueries.GET_PRODUCT_BY_ID);
+        assertEquals(1, product.getId());
     }
     
     /**
@@ -164,6 +176,105 @@ class ProductDAOTest {
         assertEquals(product.getName(), result.get(0).getName());
     }
     
+    /**
+     * Tests that {@link ProductDAO#findByCriteria} pushes the filters, sort order and page size into one
+     * parameterized query and binds the values in placeholder order.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    void testFindByCriteria() throws SQLException {
+        ProductCriteria criteria = new ProductCriteria();
+        criteria.setCategoryId(1);
+        criteria.setMinPrice(new BigDecimal("5.00"));
+        criteria.setSort(ProductSort.PRICE);
+        criteria.setDescending(true);
+        criteria.setLimit(10);
+        String expectedQuery = ProductSQLQueries.GET_ALL_PRODUCTS
+                + ProductSQLQueries.FILTER_BY_CATEGORY
+                + ProductSQLQueries.FILTER_BY_MIN_PRICE
+                + " ORDER BY p.price DESC, p.id DESC"
+                + ProductSQLQueries.LIMIT;
+        when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true).thenReturn(false);
+        Product product = createSampleProduct();
+        product.setId(1);
+        mockResultSetForProduct(product);
+
+        List<Product> result = productDAO.findByCriteria(criteria);
+
+        verify(mockPreparedStatement).setObject(1, 1);
+        verify(mockPreparedStatement).setObject(2, new BigDecimal("5.00"));
+        verify(mockPreparedStatement).setObject(3, 10);
+        assertEquals(1, result.size());
+        assertEquals(product.getName(), result.get(0).getName());
+    }
+    
+    /**
+     * Tests that selected fields narrow the select list and that the category is neither read nor resolved
+     * if it is not selected.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    void testFindByCriteriaWithFields() throws SQLException {
+        ProductCriteria criteria = new ProductCriteria();
+        criteria.setFields(EnumSet.of(ProductField.ID, ProductField.PRICE, ProductField.NAME));
+        String expectedQuery = "SELECT p.id, p.name, p.price, p.version"
+                + ProductSQLQueries.FROM_PRODUCTS
+                + " ORDER BY p.id";
+        when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true).thenReturn(false);
+        when(mockResultSet.getInt("id")).thenReturn(3);
+        when(mockResultSet.getString("name")).thenReturn("Lemonade");
+        when(mockResultSet.getBigDecimal("price")).thenReturn(new BigDecimal("2.99"));
+
+        List<Product> result = productDAO.findByCriteria(criteria);
+
+        verify(mockResultSet, never()).getInt("category_id");
+        verify(mockResultSet, never()).getInt("quantity");
+        assertEquals(1, result.size());
+        assertEquals("Lemonade", result.get(0).getName());
+        assertEquals(null, result.get(0).getProductCategory());
+    }
+    
+    /**
+     * Tests that {@link ProductDAO#streamAll} reads through a cursor with auto-commit off
+     * and hands each {@link Product} to the visitor.
+     *
+     * @throws SQLException if a database access error occurs.
+     * @throws IOException if the visitor fails.
+     */
+    @Test
+    void testStreamAll() throws SQLException, IOException {
+        when(mockConnection.prepareStatement(ProductSQLQueries.GET_ALL_PRODUCTS))
+            .thenReturn(mockPreparedStatement);
+        when(mockConnection.getAutoCommit()).thenReturn(true);
+
+        Product product = createSampleProduct();
+        product.setId(1);
+
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true).thenReturn(false);
+
+        mockResultSetForProduct(product);
+
+        List<Product> visited = new ArrayList<>();
+        productDAO.setFetchSize(2);
+        productDAO.streamAll(visited::add);
+
+        InOrder inOrder = inOrder(mockConnection, mockPreparedStatement);
+        inOrder.verify(mockConnection).setAutoCommit(false);
+        inOrder.verify(mockPreparedStatement).setFetchSize(2);
+        inOrder.verify(mockPreparedStatement).executeQuery();
+        inOrder.verify(mockConnection).commit();
+        inOrder.verify(mockConnection).setAutoCommit(true);
+        assertEquals(1, visited.size());
+        assertEquals(product.getName(), visited.get(0).getName());
+    }
+    
     /**
      * Tests the deletion of an {@link Product} entity by its ID.
      *
@@ -185,6 +296,85 @@ class ProductDAOTest {
         verify(mockPreparedStatement, times(2)).executeUpdate();
     }
 
+    /**
+     * Tests that {@link ProductDAO#saveAll} sends the upserts in batches and assigns the returned IDs in order.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    void testSaveAll() throws SQLException {
+        when(mockConnection.prepareStatement(ProductSQLQueries.UPSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS))
+            .thenReturn(mockPreparedStatement);
+        ResultSet firstKeys = mock(ResultSet.class);
+        when(firstKeys.next()).thenReturn(true, true, false);
+        when(firstKeys.getInt(1)).thenReturn(11, 12);
+        ResultSet secondKeys = mock(ResultSet.class);
+        when(secondKeys.next()).thenReturn(true, false);
+        when(secondKeys.getInt(1)).thenReturn(13);
+        when(mockPreparedStatement.getGeneratedKeys()).thenReturn(firstKeys, secondKeys);
+        when(mockPreparedStatement.executeBatch()).thenReturn(new int[] {1, 1}, new int[] {1});
+
+        List<Product> products = Arrays.asList(createSampleProduct(), createSampleProduct(), createSampleProduct());
+        productDAO.setBatchSize(2);
+
+        List<Product> result = productDAO.saveAll(products);
+
+        verify(mockPreparedStatement, times(3)).addBatch();
+        verify(mockPreparedStatement, times(2)).executeBatch();
+        assertEquals(3, result.size());
+        assertEquals(11, result.get(0).getId());
+        assertEquals(12, result.get(1).getId());
+        assertEquals(13, result.get(2).getId());
+    }
+
+    /**
+     * Tests that {@link ProductDAO#saveAll} fails on a product with a stale version before assigning
+     * any returned ID, since the returned rows no longer line up with the products.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    void testSaveAll_StaleVersionFailsBeforeAssigningKeys() throws SQLException {
+        when(mockConnection.prepareStatement(ProductSQLQueries.UPSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS))
+            .thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeBatch()).thenReturn(new int[] {1, 0, 1});
+        Product stale = createSampleProduct();
+        stale.setId(7);
+        stale.setVersion(5);
+        List<Product> products = Arrays.asList(createSampleProduct(), stale, createSampleProduct());
+
+        StaleEntityException e = assertThrows(StaleEntityException.class, () -> productDAO.saveAll(products));
+
+        assertTrue(e.getMessage().contains("ID 7"));
+        verify(mockPreparedStatement, never()).getGeneratedKeys();
+        assertEquals(0, products.get(0).getId());
+        assertEquals(5, stale.getVersion());
+        assertEquals(0, products.get(2).getId());
+    }
+    
+    /**
+     * Tests that {@link ProductDAO#deleteAll} batches each delete statement once for all IDs.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    void testDeleteAll() throws SQLException {
+        PreparedStatement linkStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(ProductSQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_PRODUCT_ID))
+            .thenReturn(linkStatement);
+        when(mockConnection.prepareStatement(ProductSQLQueries.DELETE_PRODUCT))
+            .thenReturn(mockPreparedStatement);
+
+        productDAO.deleteAll(Arrays.asList(1, 2, 3));
+
+        verify(linkStatement, times(3)).addBatch();
+        verify(linkStatement, times(1)).executeBatch();
+        verify(mockPreparedStatement, times(1)).setInt(1, 2);
+        verify(mockPreparedStatement, times(3)).addBatch();
+        verify(mockPreparedStatement, times(1)).executeBatch();
+        verify(mockPreparedStatement, never()).executeUpdate();
+    }
+
     private Product createSampleProduct() {
         Product product = new Product();
         product.setName("Sample Product");
@@ -0,0 +1,152 @@
+package com.restaurant.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.restaurant.queries.ProductSQLQueries;
+
+/**
+ * Unit tests for the {@link StatementCache} class.
+ */
+class StatementCacheTest {
+	@Mock
+	Connection mockConnection;
+
+	@Mock
+	Connection mockLease;
+
+	private StatementCacheStats stats;
+	private StatementCache statementCache;
+
+	@BeforeEach
+	public void setUp() throws SQLException {
+		MockitoAnnotations.openMocks(this);
+		when(mockConnection.prepareStatement(anyString(), anyInt()))
+			.thenAnswer(invocation -> mock(PreparedStatement.class));
+		stats = new StatementCacheStats();
+		statementCache = new StatementCache(mockConnection, 2, stats);
+	}
+
+	/**
+     * Tests that a closed statement is reused for the same SQL instead of being prepared again.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testClosedStatementIsReused() throws SQLException {
+		PreparedStatement first = statementCache.prepare(ProductSQLQueries.GET_PRODUCT_BY_ID, 
+				Statement.NO_GENERATED_KEYS, mockLease);
+		first.setInt(1, 1);
+		first.close();
+		statementCache.prepare(ProductSQLQueries.GET_PRODUCT_BY_ID, Statement.NO_GENERATED_KEYS, mockLease)
+			.close();
+
+		verify(mockConnection, times(1)).prepareStatement(ProductSQLQueries.GET_PRODUCT_BY_ID, 
+				Statement.NO_GENERATED_KEYS);
+		assertEquals(1, stats.getHits());
+		assertEquals(1, stats.getMisses());
+	}
+
+	/**
+     * Tests that a statement still in use is not handed out a second time.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testStatementInUseIsNotShared() throws SQLException {
+		PreparedStatement first = statementCache.prepare(ProductSQLQueries.GET_PRODUCT_BY_ID, 
+				Statement.NO_GENERATED_KEYS, mockLease);
+		PreparedStatement second = statementCache.prepare(ProductSQLQueries.GET_PRODUCT_BY_ID, 
+				Statement.NO_GENERATED_KEYS, mockLease);
+
+		assertNotSame(first, second);
+		assertEquals(0, stats.getHits());
+		assertEquals(2, stats.getMisses());
+	}
+
+	/**
+     * Tests that the least recently used statement is closed when the cache is full.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testLeastRecentlyUsedStatementIsEvicted() throws SQLException {
+		PreparedStatement byId = mock(PreparedStatement.class);
+		when(mockConnection.prepareStatement(ProductSQLQueries.GET_PRODUCT_BY_ID, Statement.NO_GENERATED_KEYS))
+			.thenReturn(byId);
+
+		statementCache.prepare(ProductSQLQueries.GET_PRODUCT_BY_ID, Statement.NO_GENERATED_KEYS, mockLease)
+			.close();
+		statementCache.prepare(ProductSQLQueries.GET_ALL_PRODUCTS, Statement.NO_GENERATED_KEYS, mockLease)
+			.close();
+		verify(byId, never()).close();
+
+		statementCache.prepare(ProductSQLQueries.DELETE_PRODUCT, Statement.NO_GENERATED_KEYS, mockLease)
+			.close();
+
+		verify(byId, times(1)).close();
+		assertEquals(1, stats.getEvictions());
+	}
+
+	/**
+     * Tests that statements answer with the leased connection, whether they are cached or not.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testStatementsReturnLeasedConnection() throws SQLException {
+		PreparedStatement cached = statementCache.prepare(ProductSQLQueries.GET_PRODUCT_BY_ID, 
+				Statement.NO_GENERATED_KEYS, mockLease);
+		PreparedStatement uncached = statementCache.prepare(ProductSQLQueries.GET_PRODUCT_BY_ID, 
+				Statement.NO_GENERATED_KEYS, mockLease);
+
+		assertSame(mockLease, cached.getConnection());
+		assertSame(mockLease, uncached.getConnection());
+	}
+
+	/**
+     * Tests that closing a statement closes its open result set and undoes the borrower's settings.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testCheckInResetsStatement() throws SQLException {
+		PreparedStatement byId = mock(PreparedStatement.class);
+		ResultSet resultSet = mock(ResultSet.class);
+		when(byId.getResultSet()).thenReturn(resultSet);
+		when(mockConnection.prepareStatement(ProductSQLQueries.GET_PRODUCT_BY_ID, Statement.NO_GENERATED_KEYS))
+			.thenReturn(byId);
+
+		PreparedStatement statement = statementCache.prepare(ProductSQLQueries.GET_PRODUCT_BY_ID, 
+				Statement.NO_GENERATED_KEYS, mockLease);
+		statement.setMaxRows(10);
+		statement.setQueryTimeout(5);
+		statement.close();
+
+		verify(resultSet).close();
+		verify(byId).setMaxRows(0);
+		verify(byId).setQueryTimeout(0);
+		verify(byId).clearParameters();
+		verify(byId).clearBatch();
+		verify(byId).setFetchSize(0);
+	}
+}
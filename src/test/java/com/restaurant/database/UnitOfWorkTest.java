@@ -0,0 +1,137 @@
+package com.restaurant.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.restaurant.dao.impl.ProductDAO;
+import com.restaurant.queries.ProductSQLQueries;
+
+/**
+ * Unit tests for the {@link UnitOfWork} class.
+ */
+class UnitOfWorkTest {
+	@Mock
+	Connection mockConnection;
+	@Mock
+	PreparedStatement mockPreparedStatement;
+
+	private final AtomicInteger borrowCount = new AtomicInteger();
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+	}
+
+	@AfterEach
+	public void tearDown() throws SQLException {
+		if(UnitOfWork.current().isPresent()) {
+			UnitOfWork.current().get().end(false);
+		}
+	}
+
+	private UnitOfWork begin(boolean readOnly) {
+		return UnitOfWork.begin(() -> {
+			borrowCount.incrementAndGet();
+			return mockConnection;
+		}, readOnly);
+	}
+
+	/**
+     * Tests that a writable unit of work commits once and returns its connection.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testWritableUnitOfWorkCommits() throws SQLException {
+		UnitOfWork unitOfWork = begin(false);
+		unitOfWork.getConnection();
+		unitOfWork.getConnection().close();
+
+		unitOfWork.end(true);
+
+		verify(mockConnection, times(1)).setAutoCommit(false);
+		verify(mockConnection, times(1)).commit();
+		verify(mockConnection, times(1)).close();
+		assertFalse(UnitOfWork.current().isPresent());
+		assertEquals(1, borrowCount.get());
+	}
+
+	/**
+     * Tests that a failed or rollback-only unit of work is rolled back.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testRollbackOnlyUnitOfWorkRollsBack() throws SQLException {
+		UnitOfWork unitOfWork = begin(false);
+		unitOfWork.getConnection();
+		unitOfWork.markRollbackOnly();
+
+		unitOfWork.end(true);
+
+		verify(mockConnection, never()).commit();
+		verify(mockConnection, times(1)).rollback();
+		verify(mockConnection, times(1)).close();
+	}
+
+	/**
+     * Tests that a unit of work that never touched the database does not borrow a connection.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testUnusedUnitOfWorkDoesNotBorrow() throws SQLException {
+		begin(true).end(true);
+
+		assertEquals(0, borrowCount.get());
+	}
+
+	/**
+     * Tests that DAO operations join the active unit of work instead of committing on their own.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+	@Test
+	void testDaoJoinsUnitOfWork() throws SQLException {
+		when(mockConnection.getAutoCommit()).thenReturn(false);
+		when(mockConnection.prepareStatement(ProductSQLQueries.DELETE_ORDER_DETAIL_PRODUCTS_BY_PRODUCT_ID))
+			.thenReturn(mockPreparedStatement);
+		when(mockConnection.prepareStatement(ProductSQLQueries.DELETE_PRODUCT))
+			.thenReturn(mockPreparedStatement);
+
+		UnitOfWork unitOfWork = begin(false);
+		ProductDAO productDAO = new ProductDAO();
+		productDAO.delete(1);
+
+		verify(mockConnection, never()).commit();
+		unitOfWork.end(true);
+		verify(mockConnection, times(1)).commit();
+		assertEquals(1, borrowCount.get());
+	}
+
+	/**
+     * Tests that units of work cannot be nested on one thread.
+     */
+	@Test
+	void testNestedUnitOfWorkIsRejected() {
+		begin(true);
+
+		assertThrows(IllegalStateException.class, () -> begin(true));
+	}
+}
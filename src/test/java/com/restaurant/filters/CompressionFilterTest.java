@@ -0,0 +1,141 @@
+package com.restaurant.filters;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.restaurant.controllers.HttpCaching;
+import com.restaurant.servlet.TestUtils;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Unit tests for the {@link CompressionFilter} class.
+ */
+class CompressionFilterTest {
+	private static final int THRESHOLD = 64;
+
+	private HttpServletRequest request;
+	private HttpServletResponse response;
+	private TestUtils.TestServletOutputStream output;
+	private CompressionFilter filter;
+
+	/**
+     * Sets up a gzip-accepting request and a response that records its body.
+     *
+     * @throws IOException if the output stream cannot be set up
+     */
+	@BeforeEach
+	void setUp() throws IOException {
+		request = mock(HttpServletRequest.class);
+		response = mock(HttpServletResponse.class);
+		output = new TestUtils.TestServletOutputStream();
+		when(request.getMethod()).thenReturn("GET");
+		when(request.getHeader(HttpCaching.ACCEPT_ENCODING_HEADER)).thenReturn("gzip, deflate");
+		when(response.getOutputStream()).thenReturn(output);
+		filter = new CompressionFilter(new CompressionPool(THRESHOLD, 6, 2));
+	}
+
+	/**
+     * Tests that a body above the threshold is sent as valid gzip that restores the original bytes.
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+	@Test
+	void testLargeBodyIsGzipped() throws IOException, ServletException {
+		byte[] body = "{\"name\":\"Spring Rolls\"},".repeat(40).getBytes(StandardCharsets.UTF_8);
+		FilterChain chain = (req, resp) -> resp.getOutputStream().write(body);
+
+		filter.doFilter(request, response, chain);
+
+		verify(response).setHeader(HttpCaching.CONTENT_ENCODING_HEADER, HttpCaching.GZIP);
+		try(GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(output.getResponseBytes()))) {
+			assertArrayEquals(body, gzip.readAllBytes());
+		}
+	}
+
+	/**
+     * Tests that a body below the threshold is sent unchanged with its exact length.
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+	@Test
+	void testSmallBodyIsNotCompressed() throws IOException, ServletException {
+		byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+		FilterChain chain = (req, resp) -> resp.getOutputStream().write(body);
+
+		filter.doFilter(request, response, chain);
+
+		verify(response, never()).setHeader(HttpCaching.CONTENT_ENCODING_HEADER, HttpCaching.GZIP);
+		verify(response).setContentLength(body.length);
+		assertArrayEquals(body, output.getResponseBytes());
+	}
+
+	/**
+     * Tests that a body the servlet has already encoded is passed through with its declared length.
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+	@Test
+	void testPreEncodedBodyIsPassedThrough() throws IOException, ServletException {
+		byte[] encoded = new byte[THRESHOLD * 4];
+		FilterChain chain = (req, resp) -> {
+			HttpServletResponse httpResponse = (HttpServletResponse) resp;
+			httpResponse.setHeader(HttpCaching.CONTENT_ENCODING_HEADER, HttpCaching.GZIP);
+			httpResponse.setContentLength(encoded.length);
+			httpResponse.getOutputStream().write(encoded);
+		};
+
+		filter.doFilter(request, response, chain);
+
+		verify(response).setContentLengthLong(encoded.length);
+		verify(response, never()).setContentLength(anyInt());
+		assertArrayEquals(encoded, output.getResponseBytes());
+	}
+
+	/**
+     * Tests that a gzipped body carries its ETag with the coding appended, and a small one the identity ETag.
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+	@Test
+	void testGzippedBodyGetsCodedEtag() throws IOException, ServletException {
+		byte[] body = new byte[THRESHOLD * 4];
+		when(response.getHeader(HttpCaching.ETAG_HEADER)).thenReturn("\"3-7\"");
+		FilterChain chain = (req, resp) -> {
+			((HttpServletResponse) resp).setHeader(HttpCaching.ETAG_HEADER, "\"3-7\"");
+			resp.getOutputStream().write(body);
+		};
+
+		filter.doFilter(request, response, chain);
+
+		verify(response).setHeader(HttpCaching.ETAG_HEADER, "\"3-7-gzip\"");
+
+		HttpServletResponse small = mock(HttpServletResponse.class);
+		when(small.getOutputStream()).thenReturn(new TestUtils.TestServletOutputStream());
+		filter.doFilter(request, small, (req, resp) -> {
+			((HttpServletResponse) resp).setHeader(HttpCaching.ETAG_HEADER, "\"3-7\"");
+			resp.getOutputStream().write(new byte[] {1});
+		});
+
+		verify(small, never()).setHeader(HttpCaching.ETAG_HEADER, "\"3-7-gzip\"");
+	}
+}
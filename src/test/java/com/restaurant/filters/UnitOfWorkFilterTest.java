@@ -0,0 +1,116 @@
+package com.restaurant.filters;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.restaurant.database.UnitOfWork;
+import com.restaurant.servlet.TestUtils;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Unit tests for the {@link UnitOfWorkFilter} class.
+ */
+class UnitOfWorkFilterTest {
+	private static final byte[] BODY = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+	private HttpServletRequest request;
+	private HttpServletResponse response;
+	private TestUtils.TestServletOutputStream output;
+	private Connection connection;
+	private UnitOfWorkFilter filter;
+	private FilterChain chain;
+
+	/**
+     * Sets up a POST request, a response that records its body and a chain that writes through the unit of work.
+     *
+     * @throws IOException if the output stream cannot be set up
+     */
+	@BeforeEach
+	void setUp() throws IOException {
+		request = mock(HttpServletRequest.class);
+		response = mock(HttpServletResponse.class);
+		output = new TestUtils.TestServletOutputStream();
+		connection = mock(Connection.class);
+		when(request.getMethod()).thenReturn("POST");
+		when(response.getOutputStream()).thenReturn(output);
+		filter = new UnitOfWorkFilter(() -> connection);
+		chain = (req, resp) -> {
+			try {
+				UnitOfWork.current().get().getConnection();
+			} catch (SQLException e) {
+				throw new ServletException(e);
+			}
+			((HttpServletResponse) resp).setStatus(HttpServletResponse.SC_CREATED);
+			resp.getOutputStream().write(BODY);
+		};
+	}
+
+	/**
+     * Tests that the body of a write reaches the client only after the commit.
+     *
+     * @throws Exception if the filter fails
+     */
+	@Test
+	void testBodyIsSentAfterCommit() throws Exception {
+		filter.doFilter(request, response, chain);
+
+		InOrder order = inOrder(connection, response);
+		order.verify(connection).commit();
+		order.verify(response).getOutputStream();
+		assertArrayEquals(BODY, output.getResponseBytes());
+		assertFalse(UnitOfWork.current().isPresent());
+	}
+
+	/**
+     * Tests that a failed commit replaces the held-back body with a 500.
+     *
+     * @throws Exception if the filter fails
+     */
+	@Test
+	void testFailedCommitSendsServerError() throws Exception {
+		doThrow(new SQLException("serialization failure")).when(connection).commit();
+
+		filter.doFilter(request, response, chain);
+
+		verify(connection).rollback();
+		verify(response).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Failed to commit the changes");
+		verify(response, never()).getOutputStream();
+	}
+
+	/**
+     * Tests that requests to asynchronous servlets pass through without a unit of work.
+     *
+     * @throws Exception if the filter fails
+     */
+	@Test
+	void testAsyncRequestIsPassedThrough() throws Exception {
+		when(request.isAsyncSupported()).thenReturn(true);
+
+		filter.doFilter(request, response, (req, resp) -> {
+			assertSame(response, resp);
+			assertFalse(UnitOfWork.current().isPresent());
+		});
+
+		verify(connection, never()).commit();
+	}
+}
@@ -0,0 +1,134 @@
+package com.restaurant.servlet;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.restaurant.controllers.HttpCaching;
+import com.restaurant.controllers.MenuServlet;
+import com.restaurant.dao.impl.ProductCategoryDAO;
+import com.restaurant.entity.Product;
+import com.restaurant.entity.ProductCategory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Unit tests for the {@link MenuServlet} class.
+ */
+class MenuServletTest {
+	@Mock
+    private ProductCategoryDAO categoryDAO;
+    @Mock
+    private HttpServletRequest request;
+    @Mock
+    private HttpServletResponse response;
+
+    private MenuServlet menuServlet;
+    
+    /**
+     * Sets up the test environment before each test.
+     * 
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @BeforeEach
+    public void setUp() throws ServletException {
+        MockitoAnnotations.openMocks(this);
+        categoryDAO = mock(ProductCategoryDAO.class);
+        menuServlet = new MenuServlet();
+        menuServlet.init();
+        menuServlet.setCategoryDAO(categoryDAO);      
+    }
+    
+    /**
+     * Tests that the menu is sent as categories with nested products from one DAO call,
+     * and that a repeated request with the ETag is answered from the snapshot with 304.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GetMenu() throws IOException, SQLException, ServletException {
+        Product product = new Product();
+        product.setId(4);
+        product.setName("Lemonade");
+        product.setPrice(new BigDecimal("2.99"));
+        product.setAvailable(true);
+        List<Product> products = new ArrayList<>();
+        products.add(product);
+        ProductCategory category = new ProductCategory(4, "Beverages", "Drink", products, 0);
+        when(categoryDAO.getMenu()).thenReturn(List.of(category));
+
+        TestUtils.TestServletOutputStream testServletOutputStream = new TestUtils.TestServletOutputStream();
+        when(response.getOutputStream()).thenReturn(testServletOutputStream);
+
+        menuServlet.doGet(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        String jsonResponse = testServletOutputStream.getResponseContent();
+        assertTrue(jsonResponse.contains("\"name\":\"Beverages\""));
+        assertTrue(jsonResponse.contains("\"products\":[{\"id\":4,\"name\":\"Lemonade\""));
+
+        ArgumentCaptor<String> etagCaptor = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq(HttpCaching.ETAG_HEADER), etagCaptor.capture());
+        when(request.getHeader(HttpCaching.IF_NONE_MATCH_HEADER)).thenReturn(etagCaptor.getValue());
+
+        menuServlet.doGet(request, response);
+
+        verify(categoryDAO, times(1)).getMenu();
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    /**
+     * Tests that the gzipped snapshot is sent under the gzip ETag, and that both the gzip and the
+     * identity ETag are answered with 304.
+     *
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GzippedMenuHasCodedEtag() throws IOException, SQLException, ServletException {
+        when(categoryDAO.getMenu()).thenReturn(List.of(new ProductCategory(4, "Beverages", "Drink", new ArrayList<>(), 0)));
+        when(request.getHeader(HttpCaching.ACCEPT_ENCODING_HEADER)).thenReturn("gzip");
+        when(response.getOutputStream()).thenReturn(new TestUtils.TestServletOutputStream());
+
+        menuServlet.doGet(request, response);
+
+        ArgumentCaptor<String> etagCaptor = ArgumentCaptor.forClass(String.class);
+        verify(response, times(2)).setHeader(eq(HttpCaching.ETAG_HEADER), etagCaptor.capture());
+        String identityEtag = etagCaptor.getAllValues().get(0);
+        String gzipEtag = etagCaptor.getAllValues().get(1);
+        assertEquals(HttpCaching.withContentCoding(identityEtag, HttpCaching.GZIP), gzipEtag);
+        verify(response).setHeader(HttpCaching.CONTENT_ENCODING_HEADER, HttpCaching.GZIP);
+
+        for(String etag : List.of(gzipEtag, identityEtag)) {
+            HttpServletResponse conditional = mock(HttpServletResponse.class);
+            when(request.getHeader(HttpCaching.IF_NONE_MATCH_HEADER)).thenReturn(etag);
+
+            menuServlet.doGet(request, conditional);
+
+            verify(conditional).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            verify(conditional, times(etag.equals(identityEtag) ? 2 : 1)).setHeader(HttpCaching.ETAG_HEADER, etag);
+        }
+    }
+}
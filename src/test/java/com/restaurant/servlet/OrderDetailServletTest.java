@@ -1,6 +1,9 @@
 package com.restaurant.servlet;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -8,6 +11,7 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,11 +21,17 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.restaurant.controllers.Expansion;
 import com.restaurant.controllers.OrderDetailServlet;
+import com.restaurant.controllers.OrderFilters;
+import com.restaurant.controllers.Pagination;
+import com.restaurant.dao.OrderCriteria;
 import com.restaurant.dao.impl.OrderDetailDAO;
 import com.restaurant.dto.OrderDetailDTO;
 import com.restaurant.entity.OrderDetail;
+import com.restaurant.entity.OrderStatus;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -148,7 +158,7 @@ class OrderDetailServletTest {
     }
     
     /**
-     * Tests the doGet method for retrieving all OrderDetails.
+     * Tests the doGet method for retrieving all OrderDetails with their products.
      * 
      * @throws IOException if an input or output error occurs
      * @throws SQLException if a database access error occurs
@@ -171,6 +181,7 @@ class OrderDetailServletTest {
         when(response.getOutputStream()).thenReturn(testServletOutputStream);
 
         when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(Expansion.EXPAND_PARAM)).thenReturn(Expansion.PRODUCTS);
 
         orderDetailServlet.doGet(request, response);
 
@@ -182,6 +193,95 @@ class OrderDetailServletTest {
         assertTrue(jsonResponse.contains("199.99"));
     }
     
+    /**
+     * Tests that a page without expand=products is read with the narrow query and sent without a products
+     * field, and that an unknown association is rejected.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GetOrdersPageWithoutProducts() throws IOException, SQLException, ServletException {
+        OrderDetail orderDetail = new OrderDetail();
+        orderDetail.setId(1);
+        orderDetail.setTotalAmount(BigDecimal.valueOf(25.97));
+        when(orderDetailDAO.getPageWithoutProducts(null, 10)).thenReturn(List.of(orderDetail));
+
+        TestUtils.TestServletOutputStream testServletOutputStream = new TestUtils.TestServletOutputStream();
+        when(response.getOutputStream()).thenReturn(testServletOutputStream);
+
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(Pagination.LIMIT_PARAM)).thenReturn("10");
+
+        orderDetailServlet.doGet(request, response);
+
+        verify(orderDetailDAO, never()).getPage(null, 10);
+        assertTrue(testServletOutputStream.getResponseContent().contains("25.97"));
+        assertFalse(testServletOutputStream.getResponseContent().contains("\"products\""));
+
+        when(request.getParameter(Expansion.EXPAND_PARAM)).thenReturn("approvals");
+
+        orderDetailServlet.doGet(request, response);
+
+        verify(orderDetailDAO, times(1)).getPageWithoutProducts(null, 10);
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), any(String.class));
+    }
+    
+    /**
+     * Tests that status and amount parameters search one page of orders instead of loading all of them.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_SearchOrders() throws IOException, SQLException, ServletException {
+        OrderDetail orderDetail = new OrderDetail();
+        orderDetail.setId(3);
+        orderDetail.setTotalAmount(BigDecimal.valueOf(59.99));
+        orderDetail.setOrderStatus(OrderStatus.PAID);
+        when(orderDetailDAO.search(any(OrderCriteria.class))).thenReturn(List.of(orderDetail));
+
+        TestUtils.TestServletOutputStream testServletOutputStream = new TestUtils.TestServletOutputStream();
+        when(response.getOutputStream()).thenReturn(testServletOutputStream);
+
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(OrderFilters.STATUS_PARAM)).thenReturn("paid");
+        when(request.getParameter(OrderFilters.MIN_AMOUNT_PARAM)).thenReturn("50");
+        when(request.getParameter(Pagination.LIMIT_PARAM)).thenReturn("1");
+
+        orderDetailServlet.doGet(request, response);
+
+        ArgumentCaptor<OrderCriteria> criteria = ArgumentCaptor.forClass(OrderCriteria.class);
+        verify(orderDetailDAO).search(criteria.capture());
+        verify(orderDetailDAO, never()).getAll();
+        assertEquals(EnumSet.of(OrderStatus.PAID), criteria.getValue().getStatuses());
+        assertEquals(new BigDecimal("50"), criteria.getValue().getMinAmount());
+        assertEquals(1, criteria.getValue().getLimit());
+        verify(response).setHeader(Pagination.NEXT_CURSOR_HEADER, "3");
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        assertTrue(testServletOutputStream.getResponseContent().contains("59.99"));
+    }
+    
+    /**
+     * Tests that an unknown status is rejected without querying the database.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_SearchOrdersUnknownStatus() throws IOException, SQLException, ServletException {
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(OrderFilters.STATUS_PARAM)).thenReturn("cooking");
+
+        orderDetailServlet.doGet(request, response);
+
+        verify(orderDetailDAO, never()).search(any(OrderCriteria.class));
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), any(String.class));
+    }
+    
     /**
      * Tests the doDelete method for deleting an OrderDetail.
      * 
@@ -1,6 +1,7 @@
 package com.restaurant.servlet;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -16,11 +17,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.restaurant.controllers.Expansion;
 import com.restaurant.controllers.ProductCategoryServlet;
 import com.restaurant.dao.impl.ProductCategoryDAO;
 import com.restaurant.dto.ProductCategoryDTO;
 import com.restaurant.entity.ProductCategory;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -150,7 +153,7 @@ class ProductCategoryServletTest {
     }
     
     /**
-     * Tests the doGet method for retrieving all ProductCategories.
+     * Tests the doGet method for retrieving all ProductCategories with their products.
      * 
      * @throws IOException if an input or output error occurs
      * @throws SQLException if a database access error occurs
@@ -172,6 +175,7 @@ class ProductCategoryServletTest {
         TestUtils.TestServletOutputStream testServletOutputStream = setupResponseOutputStream();
 
         when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(Expansion.EXPAND_PARAM)).thenReturn(Expansion.PRODUCTS);
 
         categoryServlet.doGet(request, response);
 
@@ -183,6 +187,31 @@ class ProductCategoryServletTest {
         assertTrue(jsonResponse.contains("Sample Category 2"));
     }
     
+    /**
+     * Tests that without expand=products the categories are listed from the narrow query, without products.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GetAllCategoriesWithoutProducts() throws IOException, SQLException, ServletException {
+        ProductCategory category = new ProductCategory(1, "Sample Category 1", "Starter", null, 0);
+        when(categoryDAO.getAllWithoutProducts()).thenReturn(List.of(category));
+
+        TestUtils.TestServletOutputStream testServletOutputStream = setupResponseOutputStream();
+
+        when(request.getPathInfo()).thenReturn(null);
+
+        categoryServlet.doGet(request, response);
+
+        verify(categoryDAO, never()).getAll();
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        String jsonResponse = testServletOutputStream.getResponseContent();
+        assertTrue(jsonResponse.contains("Sample Category 1"));
+        assertFalse(jsonResponse.contains("\"products\""));
+    }
+    
     /**
      * Tests the doDelete method for deleting an ProductCategory.
      * 
@@ -1,15 +1,23 @@
 package com.restaurant.servlet;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,13 +25,24 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.restaurant.controllers.EntityTags;
+import com.restaurant.controllers.HttpCaching;
+import com.restaurant.controllers.JsonStreaming;
+import com.restaurant.controllers.MultiGet;
+import com.restaurant.controllers.Pagination;
+import com.restaurant.controllers.ProductFilters;
 import com.restaurant.controllers.ProductServlet;
+import com.restaurant.dao.EntityVisitor;
+import com.restaurant.dao.ProductCriteria;
+import com.restaurant.dao.ProductField;
+import com.restaurant.dao.ProductSort;
 import com.restaurant.dao.impl.ProductDAO;
 import com.restaurant.dto.ProductDTO;
 import com.restaurant.entity.Product;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -126,6 +145,84 @@ class ProductServletTest {
         assertTrue(jsonResponse.contains("Updated Product"));
     }
     
+    /**
+     * Tests that an update whose If-Match names an outdated ETag is rejected with 412 and not saved.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoPut_IfMatchFailed() throws IOException, SQLException, ServletException {
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setId(1);
+        productDTO.setName("Updated Product");
+        Product stored = new Product();
+        stored.setId(1);
+        stored.setVersion(8);
+
+        when(request.getInputStream()).thenReturn(new TestUtils.TestServletInputStream(productDTO));
+        when(request.getHeader(HttpCaching.IF_MATCH_HEADER)).thenReturn("\"5-1-1\"");
+        when(productDAO.getById(1)).thenReturn(Optional.of(stored));
+
+        productServlet.doPut(request, response);
+
+        verify(productDAO, never()).save(any());
+        verify(response).sendError(eq(HttpServletResponse.SC_PRECONDITION_FAILED), any());
+    }
+    
+    /**
+     * Tests that an update whose If-Match names the current ETag is saved on condition of the checked version.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoPut_IfMatchSucceeded() throws IOException, SQLException, ServletException {
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setId(1);
+        productDTO.setName("Updated Product");
+        Product stored = new Product();
+        stored.setId(1);
+        stored.setVersion(8);
+        setupResponseOutputStream();
+
+        when(request.getInputStream()).thenReturn(new TestUtils.TestServletInputStream(productDTO));
+        when(request.getHeader(HttpCaching.IF_MATCH_HEADER)).thenReturn(EntityTags.of(stored));
+        when(productDAO.getById(1)).thenReturn(Optional.of(stored));
+
+        productServlet.doPut(request, response);
+
+        ArgumentCaptor<Product> productCaptor = ArgumentCaptor.forClass(Product.class);
+        verify(productDAO).save(productCaptor.capture());
+        assertEquals(8, productCaptor.getValue().getVersion());
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+    }
+    
+    /**
+     * Tests that a request for a product whose If-None-Match names its current ETag gets 304 without a body.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GetProductByIdNotModified() throws IOException, SQLException, ServletException {
+        Product product = new Product();
+        product.setId(1);
+        product.setVersion(7);
+
+        when(request.getPathInfo()).thenReturn("/1");
+        when(request.getHeader(HttpCaching.IF_NONE_MATCH_HEADER)).thenReturn(EntityTags.of(product));
+        when(productDAO.getById(1)).thenReturn(Optional.of(product));
+
+        productServlet.doGet(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response, never()).getOutputStream();
+    }
+    
     /**
      * Tests the doGet method for retrieving an Product by ID.
      * 
@@ -188,6 +285,297 @@ class ProductServletTest {
         assertTrue(jsonResponse.contains("Sample Product 2"));
     }
     
+    /**
+     * Tests that a repeated request carrying the ETag of the menu snapshot gets 304
+     * without reading the products again.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GetAllProductsNotModified() throws IOException, SQLException, ServletException {
+        Product product = new Product();
+        product.setId(1);
+        product.setName("Sample Product 1");
+        when(productDAO.getAll()).thenReturn(List.of(product));
+        setupResponseOutputStream();
+        when(request.getPathInfo()).thenReturn(null);
+
+        productServlet.doGet(request, response);
+
+        ArgumentCaptor<String> etagCaptor = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq(HttpCaching.ETAG_HEADER), etagCaptor.capture());
+        when(request.getHeader(HttpCaching.IF_NONE_MATCH_HEADER)).thenReturn(etagCaptor.getValue());
+
+        productServlet.doGet(request, response);
+
+        verify(productDAO, times(1)).getAll();
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+    
+    /**
+     * Tests that a limit parameter loads one page of products and sets the next-page cursor.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GetProductsPage() throws IOException, SQLException, ServletException {
+        Product product1 = new Product();
+        product1.setId(3);
+        product1.setName("Sample Product 3");
+
+        Product product2 = new Product();
+        product2.setId(4);
+        product2.setName("Sample Product 4");
+
+        when(productDAO.getPage(2, 2)).thenReturn(List.of(product1, product2));
+
+        TestUtils.TestServletOutputStream testServletOutputStream = setupResponseOutputStream();
+
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(Pagination.AFTER_PARAM)).thenReturn("2");
+        when(request.getParameter(Pagination.LIMIT_PARAM)).thenReturn("2");
+
+        productServlet.doGet(request, response);
+
+        verify(productDAO, never()).getAll();
+        verify(response).setHeader(Pagination.NEXT_CURSOR_HEADER, "4");
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+
+        String jsonResponse = testServletOutputStream.getResponseContent();
+        assertTrue(jsonResponse.contains("Sample Product 3"));
+        assertTrue(jsonResponse.contains("Sample Product 4"));
+    }
+    
+    /**
+     * Tests that the ids parameter loads the named products in one DAO call, deduplicated and in ID order.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GetProductsByIds() throws IOException, SQLException, ServletException {
+        Product product1 = new Product();
+        product1.setId(2);
+        product1.setName("Sample Product 2");
+
+        Product product2 = new Product();
+        product2.setId(7);
+        product2.setName("Sample Product 7");
+
+        when(productDAO.getByIds(Set.of(2, 7))).thenReturn(List.of(product1, product2));
+
+        TestUtils.TestServletOutputStream testServletOutputStream = setupResponseOutputStream();
+
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(MultiGet.IDS_PARAM)).thenReturn("7,2,7");
+
+        productServlet.doGet(request, response);
+
+        verify(productDAO, times(1)).getByIds(Set.of(2, 7));
+        verify(productDAO, never()).getById(any(Integer.class));
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        String jsonResponse = testServletOutputStream.getResponseContent();
+        assertTrue(jsonResponse.indexOf("Sample Product 2") < jsonResponse.indexOf("Sample Product 7"));
+    }
+    
+    /**
+     * Tests that filter and sort parameters are passed to the DAO as criteria instead of loading all products.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GetFilteredProducts() throws IOException, SQLException, ServletException {
+        Product product = new Product();
+        product.setId(5);
+        product.setName("Cheap Product");
+
+        when(productDAO.findByCriteria(any(ProductCriteria.class))).thenReturn(List.of(product));
+
+        TestUtils.TestServletOutputStream testServletOutputStream = setupResponseOutputStream();
+
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(ProductFilters.CATEGORY_ID_PARAM)).thenReturn("2");
+        when(request.getParameter(ProductFilters.AVAILABLE_PARAM)).thenReturn("true");
+        when(request.getParameter(ProductFilters.MAX_PRICE_PARAM)).thenReturn("9.99");
+        when(request.getParameter(ProductFilters.SORT_PARAM)).thenReturn("-price");
+
+        productServlet.doGet(request, response);
+
+        ArgumentCaptor<ProductCriteria> criteria = ArgumentCaptor.forClass(ProductCriteria.class);
+        verify(productDAO).findByCriteria(criteria.capture());
+        verify(productDAO, never()).getAll();
+        assertEquals(2, criteria.getValue().getCategoryId());
+        assertEquals(Boolean.TRUE, criteria.getValue().getAvailable());
+        assertEquals(new BigDecimal("9.99"), criteria.getValue().getMaxPrice());
+        assertEquals(ProductSort.PRICE, criteria.getValue().getSort());
+        assertTrue(criteria.getValue().isDescending());
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        assertTrue(testServletOutputStream.getResponseContent().contains("Cheap Product"));
+    }
+
+    /**
+     * Tests that a full page of a filtered list carries a next-page cursor in ID order only, since
+     * {@code after} is rejected for every other sort order.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_FilteredPageHasCursorOnlyInIdOrder() throws IOException, SQLException, ServletException {
+        Product product = new Product();
+        product.setId(5);
+        when(productDAO.findByCriteria(any(ProductCriteria.class))).thenReturn(List.of(product));
+        setupResponseOutputStream();
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(Pagination.LIMIT_PARAM)).thenReturn("1");
+        when(request.getParameter(ProductFilters.SORT_PARAM)).thenReturn("-price");
+
+        productServlet.doGet(request, response);
+
+        verify(response, never()).setHeader(eq(Pagination.NEXT_CURSOR_HEADER), anyString());
+
+        when(request.getParameter(ProductFilters.SORT_PARAM)).thenReturn("id");
+
+        productServlet.doGet(request, response);
+
+        verify(response).setHeader(Pagination.NEXT_CURSOR_HEADER, "5");
+    }
+    
+    /**
+     * Tests that the fields parameter narrows the query and the JSON to the named fields.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GetProductFields() throws IOException, SQLException, ServletException {
+        Product product = new Product();
+        product.setId(5);
+        product.setName("Lemonade");
+        product.setPrice(new BigDecimal("2.99"));
+        product.setAvailable(true);
+
+        when(productDAO.findByCriteria(any(ProductCriteria.class))).thenReturn(List.of(product));
+
+        TestUtils.TestServletOutputStream testServletOutputStream = setupResponseOutputStream();
+
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(ProductFilters.FIELDS_PARAM)).thenReturn("name,price,available");
+
+        productServlet.doGet(request, response);
+
+        ArgumentCaptor<ProductCriteria> criteria = ArgumentCaptor.forClass(ProductCriteria.class);
+        verify(productDAO).findByCriteria(criteria.capture());
+        assertEquals(EnumSet.of(ProductField.ID, ProductField.NAME, ProductField.PRICE, ProductField.AVAILABLE), 
+                criteria.getValue().getFields());
+        assertEquals("[{\"id\":5,\"name\":\"Lemonade\",\"price\":2.99,\"available\":true}]", 
+                testServletOutputStream.getResponseContent());
+    }
+    
+    /**
+     * Tests that lists narrowed to different fields get different ETags, and that the order of the
+     * named fields does not matter.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_ProductFieldsChangeEtag() throws IOException, SQLException, ServletException {
+        Product product = new Product();
+        product.setId(5);
+        product.setVersion(9);
+        when(productDAO.findByCriteria(any(ProductCriteria.class))).thenReturn(List.of(product));
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(ProductFilters.AVAILABLE_PARAM)).thenReturn("true");
+
+        String all = getEtag(null);
+        String namePrice = getEtag("name,price");
+
+        assertNotEquals(all, namePrice);
+        assertEquals(namePrice, getEtag("price,name"));
+        assertNotEquals(namePrice, getEtag("name"));
+    }
+
+    private String getEtag(String fields) throws IOException, ServletException {
+        HttpServletResponse fieldsResponse = mock(HttpServletResponse.class);
+        when(fieldsResponse.getOutputStream()).thenReturn(new TestUtils.TestServletOutputStream());
+        when(request.getParameter(ProductFilters.FIELDS_PARAM)).thenReturn(fields);
+
+        productServlet.doGet(request, fieldsResponse);
+
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        verify(fieldsResponse).setHeader(eq(HttpCaching.ETAG_HEADER), etag.capture());
+        return etag.getValue();
+    }
+    
+    /**
+     * Tests that a sort column outside the whitelist is rejected without querying the database.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_GetFilteredProductsInvalidSort() throws IOException, SQLException, ServletException {
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(ProductFilters.SORT_PARAM)).thenReturn("price; DROP TABLE products");
+
+        productServlet.doGet(request, response);
+
+        verify(productDAO, never()).findByCriteria(any(ProductCriteria.class));
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), any(String.class));
+    }
+    
+    /**
+     * Tests that stream=true writes the products from the DAO visitor as one JSON array.
+     * 
+     * @throws IOException if an input or output error occurs
+     * @throws SQLException if a database access error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Test
+    void testDoGet_StreamProducts() throws IOException, SQLException, ServletException {
+        Product product1 = new Product();
+        product1.setId(1);
+        product1.setName("Sample Product 1");
+
+        Product product2 = new Product();
+        product2.setId(2);
+        product2.setName("Sample Product 2");
+
+        doAnswer(invocation -> {
+            EntityVisitor<Product> visitor = invocation.getArgument(0);
+            visitor.visit(product1);
+            visitor.visit(product2);
+            return null;
+        }).when(productDAO).streamAll(any());
+
+        TestUtils.TestServletOutputStream testServletOutputStream = setupResponseOutputStream();
+
+        when(request.getPathInfo()).thenReturn(null);
+        when(request.getParameter(JsonStreaming.STREAM_PARAM)).thenReturn("true");
+
+        productServlet.doGet(request, response);
+
+        verify(productDAO, never()).getAll();
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+
+        String jsonResponse = testServletOutputStream.getResponseContent();
+        assertTrue(jsonResponse.startsWith("[") && jsonResponse.endsWith("]"));
+        assertTrue(jsonResponse.contains("Sample Product 1"));
+        assertTrue(jsonResponse.contains("Sample Product 2"));
+    }
+    
     /**
      * Tests the doDelete method for deleting an Product.
      * 
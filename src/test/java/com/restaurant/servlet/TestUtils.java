@@ -3,7 +3,7 @@ package com.restaurant.servlet;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
-import org.testcontainers.shaded.com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.ServletOutputStream;
@@ -62,6 +62,15 @@ public class TestUtils {
 		public String getResponseContent() {
 			return byteArrayOutputStream.toString();
 		}		
+		
+		/**
+         * Retrieves the raw bytes written to the output stream.
+         *
+         * @return the content of the output stream.
+         */
+		public byte[] getResponseBytes() {
+			return byteArrayOutputStream.toByteArray();
+		}
 	}
 	
 	/**
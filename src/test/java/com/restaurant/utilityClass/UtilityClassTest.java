@@ -3,8 +3,18 @@ package com.restaurant.utilityClass;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import com.restaurant.concurrent.AsyncDispatcher;
 import com.restaurant.controllers.ApiPaths;
+import com.restaurant.controllers.EntityTags;
+import com.restaurant.controllers.Expansion;
+import com.restaurant.controllers.HttpCaching;
+import com.restaurant.controllers.JsonStreaming;
+import com.restaurant.controllers.MultiGet;
+import com.restaurant.controllers.OrderFilters;
+import com.restaurant.controllers.Pagination;
+import com.restaurant.controllers.ProductFilters;
 import com.restaurant.dao.DAOUtils;
+import com.restaurant.database.NonClosingConnection;
 import com.restaurant.queries.OrderApprovalSQLQueries;
 import com.restaurant.queries.OrderDetailSQLQueries;
 import com.restaurant.queries.OrderStatusSQLQueries;
@@ -54,7 +64,17 @@ class UtilityClassTest {
             OrderDetailSQLQueries.class,
             OrderApprovalSQLQueries.class,
             ApiPaths.class,
-            DAOUtils.class
+            Pagination.class,
+            JsonStreaming.class,
+            HttpCaching.class,
+            EntityTags.class,
+            ProductFilters.class,
+            OrderFilters.class,
+            MultiGet.class,
+            Expansion.class,
+            AsyncDispatcher.class,
+            DAOUtils.class,
+            NonClosingConnection.class
         );
     }
 }
\ No newline at end of file